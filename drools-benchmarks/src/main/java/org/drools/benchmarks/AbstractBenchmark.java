@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.Results;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.internal.utils.KieHelper;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common configuration of the benchmarks. Most of them measure a batch of operations on a fresh session,
+ * so by default every invocation is measured on its own, with enough warmup iterations to get the rule
+ * classes jitted before the measurement starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 30)
+@Measurement(iterations = 20)
+@Fork(2)
+public abstract class AbstractBenchmark {
+
+    public static final String MODEL_IMPORTS =
+            "import org.drools.benchmarks.model.*;\n";
+
+    protected static KieBase buildKieBase( String drl ) {
+        return buildKieBase( drl, KieServices.Factory.get().newKieBaseConfiguration() );
+    }
+
+    protected static KieBase buildKieBase( String drl, KieBaseConfiguration kieBaseConf ) {
+        KieHelper kieHelper = new KieHelper().addContent( drl, ResourceType.DRL );
+        Results results = kieHelper.verify();
+        if ( results.hasMessages( Message.Level.ERROR ) ) {
+            throw new IllegalStateException( "Benchmark DRL has errors: " + results.getMessages( Message.Level.ERROR ) );
+        }
+        return kieHelper.build( kieBaseConf );
+    }
+
+    protected static KieSession newPseudoClockSession( KieBase kieBase ) {
+        KieSessionConfiguration sessionConf = KieServices.Factory.get().newKieSessionConfiguration();
+        sessionConf.setOption( ClockTypeOption.get( "pseudo" ) );
+        return kieBase.newKieSession( sessionConf, null );
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base of the benchmarks of the insert, update and delete operations: every customer has 10 orders
+ * and the rule joins each customer with its orders having an amount above the half of the range,
+ * so half of the orders pass the alpha constraint and go through the join.
+ */
+public abstract class AbstractOrdersBenchmark extends AbstractBenchmark {
+
+    protected static final int ORDERS_PER_CUSTOMER = 10;
+    protected static final int MAX_AMOUNT = 100;
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule BigOrders when\n" +
+            "    Customer( $id : id )\n" +
+            "    Order( customerId == $id, amount >= " + ( MAX_AMOUNT / 2 ) + " )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"1000", "10000", "100000"})
+    protected int ordersNr;
+
+    protected KieBase kieBase;
+    protected KieSession kieSession;
+
+    protected Customer[] customers;
+    protected Order[] orders;
+    protected FactHandle[] orderHandles;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( DRL );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        customers = new Customer[Math.max( 1, ordersNr / ORDERS_PER_CUSTOMER )];
+        for ( int i = 0; i < customers.length; i++ ) {
+            customers[i] = new Customer( i );
+        }
+        orders = new Order[ordersNr];
+        for ( int i = 0; i < orders.length; i++ ) {
+            orders[i] = new Order( i, i % customers.length, i % MAX_AMOUNT );
+        }
+        orderHandles = new FactHandle[ordersNr];
+
+        kieSession = kieBase.newKieSession();
+        for ( Customer customer : customers ) {
+            kieSession.insert( customer );
+        }
+        populateSession();
+    }
+
+    /**
+     * Hook for the benchmarks measuring the operations on the facts already in the session
+     */
+    protected void populateSession() { }
+
+    protected void insertOrders() {
+        for ( int i = 0; i < orders.length; i++ ) {
+            orderHandles[i] = kieSession.insert( orders[i] );
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
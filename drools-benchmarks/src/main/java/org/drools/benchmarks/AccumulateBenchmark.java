@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures an accumulate grouping the orders of each customer, with the given accumulate function.
+ * After the first firing every order is updated, so the reverse of the function, when it has one,
+ * is measured as well.
+ */
+public class AccumulateBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule OrdersByCustomer when\n" +
+            "    Customer( $id : id )\n" +
+            "    accumulate( Order( customerId == $id, $amount : amount ); $result : %s( $amount ) )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"sum", "average", "max", "count"})
+    private String function;
+
+    @Param({"1000", "10000", "100000"})
+    private int ordersNr;
+
+    @Param({"10"})
+    private int ordersPerCustomer;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Order[] orders;
+    private FactHandle[] orderHandles;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( String.format( DRL, function ) );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+        int customersNr = Math.max( 1, ordersNr / ordersPerCustomer );
+        for ( int i = 0; i < customersNr; i++ ) {
+            kieSession.insert( new Customer( i ) );
+        }
+        orders = new Order[ordersNr];
+        orderHandles = new FactHandle[ordersNr];
+        for ( int i = 0; i < ordersNr; i++ ) {
+            orders[i] = new Order( i, i % customersNr, i % 100 );
+        }
+    }
+
+    @Benchmark
+    public int insertUpdateAndFire() {
+        for ( int i = 0; i < orders.length; i++ ) {
+            orderHandles[i] = kieSession.insert( orders[i] );
+        }
+        int fired = kieSession.fireAllRules();
+        for ( int i = 0; i < orders.length; i++ ) {
+            orders[i].setAmount( orders[i].getAmount() + 1 );
+            kieSession.update( orderHandles[i], orders[i] );
+        }
+        return fired + kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
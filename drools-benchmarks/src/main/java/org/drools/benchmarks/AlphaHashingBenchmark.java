@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.conf.AlphaThresholdOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the propagation of the facts through the alpha nodes of many rules testing the same field
+ * against different literals, which the CompositeObjectSinkAdapter hashes when their number reaches the
+ * alpha node hashing threshold. A threshold of 0 disables the hashing, so all the alpha nodes are evaluated.
+ */
+public class AlphaHashingBenchmark extends AbstractBenchmark {
+
+    @Param({"4", "16", "256"})
+    private int rulesNr;
+
+    @Param({"0", "3"})
+    private int alphaNodeHashingThreshold;
+
+    @Param({"100000"})
+    private int ordersNr;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Order[] orders;
+
+    @Setup
+    public void setupKieBase() {
+        StringBuilder drl = new StringBuilder( MODEL_IMPORTS );
+        for ( int i = 0; i < rulesNr; i++ ) {
+            drl.append( "rule Amount" ).append( i ).append( " when\n" )
+               .append( "    Order( amount == " ).append( i ).append( " )\n" )
+               .append( "then\n" )
+               .append( "end\n" );
+        }
+
+        KieBaseConfiguration kieBaseConf = KieServices.Factory.get().newKieBaseConfiguration();
+        kieBaseConf.setOption( AlphaThresholdOption.get( alphaNodeHashingThreshold ) );
+        kieBase = buildKieBase( drl.toString(), kieBaseConf );
+
+        orders = new Order[ordersNr];
+        for ( int i = 0; i < ordersNr; i++ ) {
+            orders[i] = new Order( i, 0, i % rulesNr );
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insertAndFire() {
+        for ( Order order : orders ) {
+            kieSession.insert( order );
+        }
+        return kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the deletion of all the orders in the session, half of which are matched by the rule.
+ */
+public class DeleteBenchmark extends AbstractOrdersBenchmark {
+
+    @Override
+    protected void populateSession() {
+        insertOrders();
+        kieSession.fireAllRules();
+    }
+
+    @Benchmark
+    public int deleteAndFire() {
+        for ( FactHandle orderHandle : orderHandles ) {
+            kieSession.delete( orderHandle );
+        }
+        return kieSession.fireAllRules();
+    }
+}
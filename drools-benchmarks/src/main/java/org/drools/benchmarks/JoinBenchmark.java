@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the fan-out of an indexed join: every customer is joined with fanOut orders and each
+ * match is joined again with the same orders, so the rule has fanOut * (fanOut + 1) / 2 matches
+ * for each customer.
+ */
+public class JoinBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule OrderPairs when\n" +
+            "    Customer( $id : id )\n" +
+            "    Order( customerId == $id, $orderId : id )\n" +
+            "    Order( customerId == $id, id >= $orderId )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"100", "1000", "10000"})
+    private int customersNr;
+
+    @Param({"1", "10", "50"})
+    private int fanOut;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Customer[] customers;
+    private Order[] orders;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( DRL );
+        customers = new Customer[customersNr];
+        for ( int i = 0; i < customersNr; i++ ) {
+            customers[i] = new Customer( i );
+        }
+        orders = new Order[customersNr * fanOut];
+        for ( int i = 0; i < orders.length; i++ ) {
+            orders[i] = new Order( i, i % customersNr, 1 );
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insertAndFire() {
+        for ( Customer customer : customers ) {
+            kieSession.insert( customer );
+        }
+        for ( Order order : orders ) {
+            kieSession.insert( order );
+        }
+        return kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
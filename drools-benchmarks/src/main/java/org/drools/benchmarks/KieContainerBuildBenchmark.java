@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the whole build of a KieContainer, from the DRL sources in a KieFileSystem to the KieBase
+ * ready to create sessions, with rules sharing their patterns in the same proportion of a typical
+ * rule base: every rule joins a customer with its orders and has its own alpha constraints.
+ */
+public class KieContainerBuildBenchmark extends AbstractBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rulesNr;
+
+    private KieServices kieServices;
+    private ReleaseId releaseId;
+    private String drl;
+
+    @Setup
+    public void generateDrl() {
+        kieServices = KieServices.Factory.get();
+        releaseId = kieServices.newReleaseId( "org.drools.benchmarks", "kie-container-build", "1.0" );
+
+        StringBuilder sb = new StringBuilder( "package org.drools.benchmarks.rules;\n" ).append( MODEL_IMPORTS );
+        for ( int i = 0; i < rulesNr; i++ ) {
+            sb.append( "rule R" ).append( i ).append( " when\n" )
+              .append( "    $c : Customer( $id : id, id > " ).append( i % 10 ).append( " )\n" )
+              .append( "    $o : Order( customerId == $id, amount > " ).append( i ).append( " )\n" )
+              .append( "then\n" )
+              .append( "    $o.setAmount( $o.getAmount() + " ).append( i ).append( " );\n" )
+              .append( "end\n" );
+        }
+        drl = sb.toString();
+    }
+
+    @Benchmark
+    public KieBase buildKieContainer() {
+        KieFileSystem kfs = kieServices.newKieFileSystem();
+        kfs.generateAndWritePomXML( releaseId );
+        kfs.write( "src/main/resources/org/drools/benchmarks/rules/rules.drl", drl );
+
+        KieBuilder kieBuilder = kieServices.newKieBuilder( kfs ).buildAll();
+        if ( kieBuilder.getResults().hasMessages( Message.Level.ERROR ) ) {
+            throw new IllegalStateException( "Benchmark DRL has errors: " + kieBuilder.getResults().getMessages( Message.Level.ERROR ) );
+        }
+        return kieServices.newKieContainer( releaseId ).getKieBase();
+    }
+}
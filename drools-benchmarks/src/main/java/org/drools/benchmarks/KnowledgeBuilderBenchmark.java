@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.CompositeKnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the build of a rule base split in many DRL resources, from the parsing of the resources
+ * to the KnowledgeBase ready to create sessions, with the parallel build disabled (-1) or enabled
+ * for every phase having more than the given threshold of resources or rules.
+ */
+public class KnowledgeBuilderBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rulesNr;
+
+    @Param({"16"})
+    private int resourcesNr;
+
+    @Param({"-1", "0"})
+    private int parallelBuildThreshold;
+
+    private byte[][] drls;
+
+    @Setup
+    public void generateDrls() {
+        drls = new byte[resourcesNr][];
+        int rulesPerResource = rulesNr / resourcesNr;
+        for ( int i = 0; i < resourcesNr; i++ ) {
+            StringBuilder sb = new StringBuilder( "package org.drools.benchmarks.rules" ).append( i % 4 ).append( ";\n" ).append( MODEL_IMPORTS );
+            for ( int j = 0; j < rulesPerResource; j++ ) {
+                sb.append( "rule R" ).append( i ).append( "_" ).append( j ).append( " when\n" )
+                  .append( "    $c : Customer( $id : id, id > " ).append( j % 10 ).append( " )\n" )
+                  .append( "    $o : Order( customerId == $id, amount > " ).append( j ).append( " )\n" )
+                  .append( "then\n" )
+                  .append( "    $o.setAmount( $o.getAmount() + " ).append( j ).append( " );\n" )
+                  .append( "end\n" );
+            }
+            drls[i] = sb.toString().getBytes();
+        }
+    }
+
+    @Benchmark
+    public KnowledgeBase buildKnowledgeBase() {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setProperty( KnowledgeBuilderConfigurationImpl.PARALLEL_BUILD_THRESHOLD, "" + parallelBuildThreshold );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+
+        CompositeKnowledgeBuilder batch = kbuilder.batch();
+        for ( byte[] drl : drls ) {
+            batch.add( ResourceFactory.newByteArrayResource( drl ), ResourceType.DRL );
+        }
+        batch.build();
+        if ( kbuilder.hasErrors() ) {
+            throw new IllegalStateException( "Benchmark DRL has errors: " + kbuilder.getErrors() );
+        }
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        return kbase;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.marshalling.Marshaller;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Measures the protobuf marshalling and unmarshalling of a session holding the given number of orders,
+ * together with their customers and the activations of the rule joining them.
+ */
+public class MarshallingBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule BigOrders when\n" +
+            "    Customer( $id : id )\n" +
+            "    Order( customerId == $id, amount >= 50 )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"1000", "10000", "100000"})
+    private int ordersNr;
+
+    private KieSession kieSession;
+    private Marshaller marshaller;
+    private byte[] marshalledSession;
+
+    @Setup
+    public void setupSession() throws IOException {
+        KieBase kieBase = buildKieBase( DRL );
+        marshaller = KieServices.Factory.get().getMarshallers().newMarshaller( kieBase );
+
+        kieSession = kieBase.newKieSession();
+        int customersNr = Math.max( 1, ordersNr / 10 );
+        for ( int i = 0; i < customersNr; i++ ) {
+            kieSession.insert( new Customer( i ) );
+        }
+        for ( int i = 0; i < ordersNr; i++ ) {
+            kieSession.insert( new Order( i, i % customersNr, i % 100 ) );
+        }
+        // the activations are left in the agenda, so they are marshalled as well
+
+        marshalledSession = marshall();
+    }
+
+    @Benchmark
+    public byte[] marshall() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        marshaller.marshall( out, kieSession );
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public long unmarshall() throws IOException, ClassNotFoundException {
+        KieSession unmarshalled = marshaller.unmarshall( new ByteArrayInputStream( marshalledSession ) );
+        long factCount = unmarshalled.getFactCount();
+        unmarshalled.dispose();
+        return factCount;
+    }
+
+    @TearDown
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
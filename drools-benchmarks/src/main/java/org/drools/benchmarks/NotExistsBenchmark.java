@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the not and exists nodes: the orders are inserted for customers already in the session,
+ * blocking (or satisfying) the rule for each of them, and then deleted again, so every blocker
+ * has to be replaced by the next order of the same customer.
+ */
+public class NotExistsBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule CustomersOrders when\n" +
+            "    Customer( $id : id )\n" +
+            "    %s Order( customerId == $id )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"not", "exists"})
+    private String conditionalElement;
+
+    @Param({"1000", "10000", "100000"})
+    private int ordersNr;
+
+    @Param({"10"})
+    private int ordersPerCustomer;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Order[] orders;
+    private FactHandle[] orderHandles;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( String.format( DRL, conditionalElement ) );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+        int customersNr = Math.max( 1, ordersNr / ordersPerCustomer );
+        for ( int i = 0; i < customersNr; i++ ) {
+            kieSession.insert( new Customer( i ) );
+        }
+        kieSession.fireAllRules();
+
+        orders = new Order[ordersNr];
+        orderHandles = new FactHandle[ordersNr];
+        for ( int i = 0; i < ordersNr; i++ ) {
+            orders[i] = new Order( i, i % customersNr, 1 );
+        }
+    }
+
+    @Benchmark
+    public int insertDeleteAndFire() {
+        for ( int i = 0; i < orders.length; i++ ) {
+            orderHandles[i] = kieSession.insert( orders[i] );
+        }
+        int fired = kieSession.fireAllRules();
+        for ( FactHandle orderHandle : orderHandles ) {
+            kieSession.delete( orderHandle );
+        }
+        return fired + kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
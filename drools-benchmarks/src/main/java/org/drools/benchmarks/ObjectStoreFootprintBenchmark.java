@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.core.runtime.conf.CompactObjectStoreOption;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.conf.EqualityBehaviorOption;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the footprint of a session holding millions of facts with the default and with the compact
+ * object store. The facts are created in the setup, so the gc.alloc.rate.norm reported by the GC profiler
+ * of the BenchmarkRunner is the number of bytes allocated by the session to insert them, that is mostly
+ * its fact handles and its object store. The forks get a heap big enough for 10 millions facts.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ObjectStoreFootprintBenchmark extends AbstractBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int factsNr;
+
+    @Param({"false", "true"})
+    private boolean compactObjectStore;
+
+    @Param({"identity", "equality"})
+    private String assertBehavior;
+
+    private KieBase kieBase;
+    private Long[] facts;
+    private KieSession kieSession;
+
+    @Setup
+    public void setupKieBase() {
+        KieBaseConfiguration kieBaseConf = KieServices.Factory.get().newKieBaseConfiguration();
+        kieBaseConf.setOption( EqualityBehaviorOption.determineEqualityBehavior( assertBehavior ) );
+        kieBase = buildKieBase( "rule R when Long( this < 0 ) then end", kieBaseConf );
+        facts = new Long[factsNr];
+        for ( int i = 0; i < factsNr; i++ ) {
+            facts[i] = (long) i;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        KieSessionConfiguration sessionConf = KieServices.Factory.get().newKieSessionConfiguration();
+        sessionConf.setOption( compactObjectStore ? CompactObjectStoreOption.YES : CompactObjectStoreOption.NO );
+        kieSession = kieBase.newKieSession( sessionConf, null );
+    }
+
+    @Benchmark
+    public long insertFacts() {
+        for ( Long fact : facts ) {
+            kieSession.insert( fact );
+        }
+        kieSession.fireAllRules();
+        long factCount = kieSession.getFactCount();
+        if ( factCount != factsNr ) {
+            throw new IllegalStateException( "Expected " + factsNr + " facts, got " + factCount );
+        }
+        return factCount;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.kie.api.KieBase;
+import org.kie.api.definition.type.FactType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares an equality join on a primitive long field, indexed by the primitive specialized beta memories,
+ * with the same join on a boxed Long field, indexed by the general purpose ones. Each order is modified
+ * once, so the benchmark measures the insertion, the lookup and the removeAdd of the indexed tuples.
+ */
+public class PrimitiveIndexBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "package org.drools.benchmarks\n" +
+            "declare Customer\n" +
+            "    id: %1$s\n" +
+            "end\n" +
+            "declare Order\n" +
+            "    customerId: %1$s\n" +
+            "    amount: int\n" +
+            "end\n" +
+            "rule R when\n" +
+            "    Customer( $id : id )\n" +
+            "    Order( customerId == $id, amount > 0 )\n" +
+            "then\n" +
+            "end\n";
+
+    @Param({"50000", "100000"})
+    private int customersNr;
+
+    @Param({"Long", "long"})
+    private String keyType;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private FactType customerType;
+    private FactType orderType;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( String.format( DRL, keyType ) );
+        customerType = kieBase.getFactType( "org.drools.benchmarks", "Customer" );
+        orderType = kieBase.getFactType( "org.drools.benchmarks", "Order" );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insertAndModify() throws Exception {
+        for ( int i = 0; i < customersNr; i++ ) {
+            Object customer = customerType.newInstance();
+            customerType.set( customer, "id", (long) i );
+            kieSession.insert( customer );
+        }
+        Object[] orders = new Object[4 * customersNr];
+        FactHandle[] handles = new FactHandle[orders.length];
+        for ( int i = 0; i < orders.length; i++ ) {
+            orders[i] = orderType.newInstance();
+            orderType.set( orders[i], "customerId", (long) ( i % customersNr ) );
+            handles[i] = kieSession.insert( orders[i] );
+        }
+        kieSession.fireAllRules();
+
+        for ( int i = 0; i < orders.length; i++ ) {
+            orderType.set( orders[i], "amount", 1 );
+            kieSession.update( handles[i], orders[i] );
+        }
+        return kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
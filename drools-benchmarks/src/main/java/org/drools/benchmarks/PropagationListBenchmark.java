@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.phreak.PropagationEntry;
+import org.drools.core.runtime.conf.LockFreePropagationListOption;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.internal.runtime.conf.ForceEagerActivationOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the contention on the propagation list of a session, when many threads enqueue propagations
+ * at the same time while the session is draining them with a fireUntilHalt. It compares the synchronized,
+ * the synchronized bypass and the lock-free implementations.
+ */
+public class PropagationListBenchmark extends AbstractBenchmark {
+
+    @Param({"synchronized", "synchronizedBypass", "lockFree"})
+    private String propagationList;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int producersNr;
+
+    @Param({"200000"})
+    private int entriesPerProducer;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Thread consumer;
+    private CyclicBarrier start;
+    private CountDownLatch done;
+
+    @Setup
+    public void setupKieBase() {
+        kieBase = buildKieBase( "rule R when String() then end" );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        KieSessionConfiguration sessionConf = KieServices.Factory.get().newKieSessionConfiguration();
+        if ( propagationList.equals( "synchronizedBypass" ) ) {
+            sessionConf.setOption( ForceEagerActivationOption.YES );
+        } else if ( propagationList.equals( "lockFree" ) ) {
+            sessionConf.setOption( LockFreePropagationListOption.YES );
+        }
+        kieSession = kieBase.newKieSession( sessionConf, null );
+
+        consumer = new Thread() {
+            @Override
+            public void run() {
+                kieSession.fireUntilHalt();
+            }
+        };
+        consumer.start();
+
+        // the producers are started here, and wait for the benchmark to release them
+        start = new CyclicBarrier( producersNr + 1 );
+        done = new CountDownLatch( 1 );
+        final InternalWorkingMemory wm = (InternalWorkingMemory) kieSession;
+        final AtomicInteger executed = new AtomicInteger();
+        final int expected = producersNr * entriesPerProducer;
+        for ( int i = 0; i < producersNr; i++ ) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (Exception e) {
+                        throw new RuntimeException( e );
+                    }
+                    for ( int j = 0; j < entriesPerProducer; j++ ) {
+                        wm.addPropagation( new PropagationEntry.AbstractPropagationEntry() {
+                            @Override
+                            public void execute( InternalWorkingMemory wm ) {
+                                if ( executed.incrementAndGet() == expected ) {
+                                    done.countDown();
+                                }
+                            }
+                        } );
+                    }
+                }
+            }.start();
+        }
+    }
+
+    @Benchmark
+    public long enqueueAndDrain() throws Exception {
+        start.await();
+        done.await();
+        return done.getCount();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() throws InterruptedException {
+        kieSession.halt();
+        consumer.join();
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.core.RuleBaseConfiguration;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.definition.type.FactType;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Compares a join on a pair of comparison constraints with and without the beta range index:
+ * every trade matches exactly one of the contiguous price bands, so the unindexed join is
+ * quadratic on the number of facts while the indexed one only visits the matching band.
+ */
+public class RangeIndexBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "package org.drools.benchmarks\n" +
+            "declare Band\n" +
+            "    min: int\n" +
+            "    max: int\n" +
+            "end\n" +
+            "declare Trade\n" +
+            "    price: int\n" +
+            "end\n" +
+            "rule R when\n" +
+            "    Band( $min : min, $max : max )\n" +
+            "    Trade( price >= $min, price < $max )\n" +
+            "then\n" +
+            "end\n";
+
+    private static final int BAND_WIDTH = 10;
+
+    @Param({"1000", "4000", "16000"})
+    private int factsNr;
+
+    @Param({"false", "true"})
+    private boolean rangeIndexEnabled;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private Object[] bands;
+    private Object[] trades;
+
+    @Setup
+    public void setupKieBase() throws Exception {
+        KieBaseConfiguration kieBaseConf = KieServices.Factory.get().newKieBaseConfiguration();
+        kieBaseConf.setProperty( RuleBaseConfiguration.BETA_RANGE_INDEX_PROPERTY, Boolean.toString( rangeIndexEnabled ) );
+        kieBase = buildKieBase( DRL, kieBaseConf );
+
+        FactType bandType = kieBase.getFactType( "org.drools.benchmarks", "Band" );
+        FactType tradeType = kieBase.getFactType( "org.drools.benchmarks", "Trade" );
+        Random random = new Random( 0 );
+        bands = new Object[factsNr];
+        trades = new Object[factsNr];
+        for ( int i = 0; i < factsNr; i++ ) {
+            bands[i] = bandType.newInstance();
+            bandType.set( bands[i], "min", i * BAND_WIDTH );
+            bandType.set( bands[i], "max", ( i + 1 ) * BAND_WIDTH );
+            trades[i] = tradeType.newInstance();
+            tradeType.set( trades[i], "price", random.nextInt( factsNr * BAND_WIDTH ) );
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insertAndFire() {
+        for ( Object band : bands ) {
+            kieSession.insert( band );
+        }
+        for ( Object trade : trades ) {
+            kieSession.insert( trade );
+        }
+        return kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the operations done once per request by the applications keeping a session
+ * per request or a long living session: the creation and disposal of a session and a fireAllRules
+ * after the insertion of a single fact in a session already holding the given number of customers.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class SessionBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "rule BigOrders when\n" +
+            "    Customer( $id : id )\n" +
+            "    $o : Order( customerId == $id, amount >= 50 )\n" +
+            "then\n" +
+            "    $o.setAmount( 0 );\n" +
+            "end\n";
+
+    @Param({"1000", "100000"})
+    private int customersNr;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+
+    private long orderId;
+
+    @Setup
+    public void setupSession() {
+        kieBase = buildKieBase( DRL );
+        kieSession = kieBase.newKieSession();
+        for ( int i = 0; i < customersNr; i++ ) {
+            kieSession.insert( new Customer( i ) );
+        }
+        kieSession.fireAllRules();
+    }
+
+    @Benchmark
+    public long createSession() {
+        KieSession newSession = kieBase.newKieSession();
+        long id = newSession.getIdentifier();
+        newSession.dispose();
+        return id;
+    }
+
+    @Benchmark
+    public int fireAllRules() {
+        Order order = new Order( orderId, orderId % customersNr, 100 );
+        orderId++;
+        FactHandle orderHandle = kieSession.insert( order );
+        int fired = kieSession.fireAllRules();
+        kieSession.delete( orderHandle );
+        return fired + kieSession.fireAllRules();
+    }
+
+    @TearDown
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Tick;
+import org.drools.core.time.SessionPseudoClock;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an accumulate over a sliding time window on a stream of events, one every millisecond
+ * on the pseudo clock, firing the rules every 100 events. Once the window is full, every new event
+ * makes the SlidingTimeWindow expire the oldest ones.
+ */
+public class SlidingTimeWindowBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            MODEL_IMPORTS +
+            "declare Tick @role( event ) end\n" +
+            "rule AveragePrice when\n" +
+            "    accumulate( Tick( $price : price ) over window:time( %sms ); $average : average( $price ) )\n" +
+            "then\n" +
+            "end\n";
+
+    private static final int EVENTS_PER_FIRE = 100;
+
+    @Param({"100", "10000"})
+    private int windowMillis;
+
+    @Param({"10000", "100000"})
+    private int eventsNr;
+
+    private KieBase kieBase;
+    private KieSession kieSession;
+    private SessionPseudoClock clock;
+
+    private Tick[] ticks;
+
+    @Setup
+    public void setupKieBase() {
+        KieBaseConfiguration kieBaseConf = KieServices.Factory.get().newKieBaseConfiguration();
+        kieBaseConf.setOption( EventProcessingOption.STREAM );
+        kieBase = buildKieBase( String.format( DRL, windowMillis ), kieBaseConf );
+
+        ticks = new Tick[eventsNr];
+        for ( int i = 0; i < eventsNr; i++ ) {
+            ticks[i] = new Tick( "RHT", i % 100 );
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        kieSession = newPseudoClockSession( kieBase );
+        clock = kieSession.getSessionClock();
+    }
+
+    @Benchmark
+    public int insertAndFire() {
+        int fired = 0;
+        for ( int i = 0; i < ticks.length; i++ ) {
+            kieSession.insert( ticks[i] );
+            clock.advanceTime( 1, TimeUnit.MILLISECONDS );
+            if ( i % EVENTS_PER_FIRE == 0 ) {
+                fired += kieSession.fireAllRules();
+            }
+        }
+        return fired + kieSession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        kieSession.dispose();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the update of all the orders in the session, moving the amount of each order by half of
+ * the range, so every order goes from matching to not matching the rule or vice versa.
+ */
+public class UpdateBenchmark extends AbstractOrdersBenchmark {
+
+    @Override
+    protected void populateSession() {
+        insertOrders();
+        kieSession.fireAllRules();
+    }
+
+    @Benchmark
+    public int updateAndFire() {
+        for ( int i = 0; i < orders.length; i++ ) {
+            Order order = orders[i];
+            order.setAmount( ( order.getAmount() + MAX_AMOUNT / 2 ) % MAX_AMOUNT );
+            kieSession.update( orderHandles[i], order );
+        }
+        return kieSession.fireAllRules();
+    }
+}
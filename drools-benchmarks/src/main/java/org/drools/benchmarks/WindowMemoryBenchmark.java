@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.Tick;
+import org.drools.core.common.DisconnectedWorkingMemoryEntryPoint;
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.rule.SlidingLengthWindow.SlidingLengthWindowContext;
+import org.drools.core.rule.SlidingTimeWindow.SlidingTimeWindowContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.Random;
+
+/**
+ * Measures the memories of the sliding windows alone, without the rest of the engine: a stream of events,
+ * one every millisecond, goes through a window, which evicts the oldest events as the new ones arrive.
+ * A percentage of the events can arrive late, i.e. with a timestamp older than the previous ones.
+ */
+public class WindowMemoryBenchmark extends AbstractBenchmark {
+
+    @Param({"1000000"})
+    private int eventsNr;
+
+    @Param({"1000", "1000000"})
+    private int windowSize;
+
+    @Param({"0", "1", "10"})
+    private int outOfOrderPercent;
+
+    private EventFactHandle[] events;
+
+    @Setup
+    public void setupEvents() {
+        DisconnectedWorkingMemoryEntryPoint entryPoint = new DisconnectedWorkingMemoryEntryPoint( "DEFAULT" );
+        Random random = new Random( 0 );
+        events = new EventFactHandle[eventsNr];
+        for ( int i = 0; i < eventsNr; i++ ) {
+            long timestamp = random.nextInt( 100 ) < outOfOrderPercent ? Math.max( 0, i - random.nextInt( 100 ) ) : i;
+            events[i] = new EventFactHandle( i, new Tick( "RHT", i % 100 ), i, timestamp, 0, entryPoint );
+        }
+    }
+
+    @Benchmark
+    public int slidingTimeWindow() {
+        SlidingTimeWindowContext window = new SlidingTimeWindowContext();
+        int expired = 0;
+        for ( EventFactHandle event : events ) {
+            window.add( event );
+            long expirationTime = event.getStartTimestamp() - windowSize;
+            while ( window.peek().getStartTimestamp() <= expirationTime ) {
+                window.poll();
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Benchmark
+    public int slidingLengthWindow() {
+        SlidingLengthWindowContext window = new SlidingLengthWindowContext( windowSize );
+        int expired = 0;
+        for ( EventFactHandle event : events ) {
+            if ( window.handles.length() >= windowSize ) {
+                window.handles.poll();
+                expired++;
+            }
+            window.handles.add( event );
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.model;
+
+import java.io.Serializable;
+
+public class Order implements Serializable {
+
+    private final long id;
+    private final long customerId;
+    private int amount;
+
+    public Order( long id, long customerId, int amount ) {
+        this.id = id;
+        this.customerId = customerId;
+        this.amount = amount;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public void setAmount( int amount ) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return "Order[" + id + ", customer " + customerId + ", amount " + amount + "]";
+    }
+}
@@ -32,12 +32,17 @@ import org.kie.internal.builder.ChangeType;
 import org.kie.internal.builder.CompositeKnowledgeBuilder;
 import org.kie.internal.builder.ResourceChange;
 import org.kie.internal.builder.ResourceChangeSet;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder {
 
@@ -313,6 +318,11 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
     private void buildResource(Map<String, CompositePackageDescr> packages, ResourceType resourceType, ResourceToPkgDescrMapper mapper) {
         List<ResourceDescr> resourcesByType = this.resourcesByType.remove(resourceType);
         if (resourcesByType != null) {
+            int parallelBuildThreshold = kBuilder.getBuilderConfiguration().getParallelBuildThreshold();
+            if (parallelBuildThreshold >= 0 && resourcesByType.size() > parallelBuildThreshold && mapper.isThreadSafe()) {
+                buildResourceInParallel(packages, resourcesByType, mapper);
+                return;
+            }
             for (ResourceDescr resourceDescr : resourcesByType) {
                 try {
                     registerPackageDescr(resourceDescr, packages, resourceDescr.resource, mapper.map(kBuilder, resourceDescr));
@@ -329,6 +339,51 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
         }
     }
 
+    /**
+     * Parses the resources on the drools executor, while the calling thread runs the parsings not started yet
+     * instead of just waiting for them. The PackageDescrs are then registered in the order of the resources,
+     * and so are sorted the errors reported by the parsers, so the outcome of the build doesn't depend on the order
+     * the parsings complete.
+     */
+    private void buildResourceInParallel(Map<String, CompositePackageDescr> packages, List<ResourceDescr> resourceDescrs, final ResourceToPkgDescrMapper mapper) {
+        Executor executor = ExecutorProviderFactory.getExecutorProvider().getExecutor();
+        int resultsStart = kBuilder.getBuilderResultsCount();
+        List<Resource> resources = new ArrayList<Resource>(resourceDescrs.size());
+        List<FutureTask<PackageDescr>> parsings = new ArrayList<FutureTask<PackageDescr>>(resourceDescrs.size());
+        for (final ResourceDescr resourceDescr : resourceDescrs) {
+            resources.add(resourceDescr.resource);
+            FutureTask<PackageDescr> parsing = new FutureTask<PackageDescr>(new Callable<PackageDescr>() {
+                public PackageDescr call() throws Exception {
+                    return mapper.map(kBuilder, resourceDescr);
+                }
+            });
+            parsings.add(parsing);
+            executor.execute(parsing);
+        }
+
+        for (int i = 0; i < parsings.size(); i++) {
+            FutureTask<PackageDescr> parsing = parsings.get(i);
+            // it does nothing if the parsing has been already started by the executor
+            parsing.run();
+            ResourceDescr resourceDescr = resourceDescrs.get(i);
+            try {
+                registerPackageDescr(resourceDescr, packages, resourceDescr.resource, parsing.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (buildException == null) {
+                    buildException = new RuntimeException( e );
+                }
+            } catch (ExecutionException e) {
+                if (buildException == null) {
+                    buildException = e.getCause() instanceof RuntimeException ?
+                                     (RuntimeException) e.getCause() :
+                                     new RuntimeException( e.getCause() );
+                }
+            }
+        }
+        kBuilder.sortBuilderResults(resultsStart, resources);
+    }
+
     private void registerPackageDescr(ResourceDescr resourceDescr, Map<String, CompositePackageDescr> packages, Resource resource, PackageDescr packageDescr) {
         if (packageDescr != null) {
             CompositePackageDescr compositePackageDescr = packages.get(packageDescr.getNamespace());
@@ -402,53 +457,90 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
 
     private interface ResourceToPkgDescrMapper {
         PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception;
+
+        /**
+         * Returns true if different resources can be mapped concurrently
+         */
+        boolean isThreadSafe();
     }
 
     private static final ResourceToPkgDescrMapper DRL_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.drlToPackageDescr(resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper TEMPLATE_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.templateToPackageDescr( resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper DSLR_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.dslrToPackageDescr(resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper XML_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.xmlToPackageDescr(resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return false;
+        }
     };
 
     private static final ResourceToPkgDescrMapper DTABLE_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.decisionTableToPackageDescr(resourceDescr.resource, resourceDescr.configuration);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper SCARD_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.scoreCardToPackageDescr(resourceDescr.resource, resourceDescr.configuration);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper GUIDED_DTABLE_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.guidedDecisionTableToPackageDescr(resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 
     private static final ResourceToPkgDescrMapper GUIDED_SCARD_TO_PKG_DESCR = new ResourceToPkgDescrMapper() {
         public PackageDescr map(KnowledgeBuilderImpl kBuilder, ResourceDescr resourceDescr) throws Exception {
             return kBuilder.guidedScoreCardToPackageDescr(resourceDescr.resource);
         }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
     };
 }
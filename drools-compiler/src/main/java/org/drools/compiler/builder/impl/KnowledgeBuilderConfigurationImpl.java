@@ -81,6 +81,7 @@ import java.util.Set;
  * drools.evaluator.<ident> = <qualified class>
  * drools.dump.dir = <String>
  * drools.classLoaderCacheEnabled = true|false
+ * drools.parallelBuildThreshold = <int>
  *
  * default dialect is java.
  * Available preconfigured Accumulate functions are:
@@ -137,6 +138,10 @@ public class KnowledgeBuilderConfigurationImpl
 
     private CompilationCache                  compilationCache        = null;
 
+    public static final String                PARALLEL_BUILD_THRESHOLD = "drools.parallelBuildThreshold";
+
+    private int                               parallelBuildThreshold   = -1;
+
     private static final Logger log = LoggerFactory.getLogger(KnowledgeBuilderConfigurationImpl.class);
 
     public boolean isAllowMultipleNamespaces() {
@@ -226,6 +231,10 @@ public class KnowledgeBuilderConfigurationImpl
                     this.chainedProperties.getProperty(LanguageLevelOption.PROPERTY_NAME,
                                                        DrlParser.DEFAULT_LANGUAGE_LEVEL.toString()));
 
+        setProperty(PARALLEL_BUILD_THRESHOLD,
+                    this.chainedProperties.getProperty(PARALLEL_BUILD_THRESHOLD,
+                                                       "-1"));
+
         this.dialectConfigurations = new HashMap<String, DialectConfiguration>();
 
         buildDialectConfigurationMap();
@@ -303,6 +312,12 @@ public class KnowledgeBuilderConfigurationImpl
             } catch (IllegalArgumentException e) {
                 log.warn("Invalid value " + value + " for option " + LanguageLevelOption.PROPERTY_NAME);
             }
+        } else if (name.equals(PARALLEL_BUILD_THRESHOLD)) {
+            try {
+                setParallelBuildThreshold(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for option " + PARALLEL_BUILD_THRESHOLD);
+            }
         }
     }
 
@@ -336,6 +351,8 @@ public class KnowledgeBuilderConfigurationImpl
             return severity.toString();
         } else if (name.equals(LanguageLevelOption.PROPERTY_NAME)) {
             return "" + getLanguageLevel();
+        } else if (name.equals(PARALLEL_BUILD_THRESHOLD)) {
+            return "" + getParallelBuildThreshold();
         }
         return null;
     }
@@ -676,6 +693,19 @@ public class KnowledgeBuilderConfigurationImpl
         this.classLoaderCache = classLoaderCacheEnabled;
     }
 
+    public int getParallelBuildThreshold() {
+        return parallelBuildThreshold;
+    }
+
+    /**
+     * When it is not negative, the resources of the same type added to a CompositeKnowledgeBuilder are parsed
+     * in parallel if they are more than this threshold, and so are compiled the classes generated for a package
+     * if they belong to more than this number of rules. The default -1 builds everything in the calling thread.
+     */
+    public void setParallelBuildThreshold(int parallelBuildThreshold) {
+        this.parallelBuildThreshold = parallelBuildThreshold;
+    }
+
     public String getDefaultPackageName() {
         return defaultPackageName;
     }
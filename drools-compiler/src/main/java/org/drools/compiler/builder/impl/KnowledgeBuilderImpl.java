@@ -141,6 +141,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -416,7 +417,7 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
 
         DrlParser parser = new DrlParser(configuration.getLanguageLevel());
         PackageDescr pkg = parser.parse(resource, new StringReader(generatedDrl));
-        this.results.addAll(parser.getErrors());
+        addBuilderResults(parser.getErrors());
         if (pkg == null) {
             addBuilderResult(new ParserError(resource, "Parser returned a null Package", 0, 0));
         } else {
@@ -522,7 +523,7 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
         } else {
             final DrlParser parser = new DrlParser(configuration.getLanguageLevel());
             pkg = parser.parse(resource);
-            this.results.addAll(parser.getErrors());
+            addBuilderResults(parser.getErrors());
             if (pkg == null) {
                 addBuilderResult(new ParserError(resource, "Parser returned a null Package", 0, 0));
             }
@@ -641,7 +642,7 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
             }
 
             pkg = parser.parse(resource, str);
-            this.results.addAll(parser.getErrors());
+            addBuilderResults(parser.getErrors());
             hasErrors = parser.hasErrors();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -959,10 +960,44 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
         }
     }
 
-    public void addBuilderResult(KnowledgeBuilderResult result) {
+    /**
+     * Adds a result of the build. It is synchronized because the resources may be parsed in parallel.
+     */
+    public synchronized void addBuilderResult(KnowledgeBuilderResult result) {
         this.results.add(result);
     }
 
+    private synchronized void addBuilderResults(Collection<? extends KnowledgeBuilderResult> results) {
+        this.results.addAll(results);
+    }
+
+    synchronized int getBuilderResultsCount() {
+        return this.results.size();
+    }
+
+    /**
+     * Sorts the results added from the given position by the index of their resource in the given list, so the
+     * results of the resources parsed in parallel don't depend on the order the parsings completed.
+     */
+    synchronized void sortBuilderResults(int from, List<Resource> resources) {
+        final Map<Resource, Integer> indexes = new HashMap<Resource, Integer>();
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            indexes.put(resources.get(i), i);
+        }
+        Collections.sort(this.results.subList(from, this.results.size()), new Comparator<KnowledgeBuilderResult>() {
+            public int compare(KnowledgeBuilderResult r1, KnowledgeBuilderResult r2) {
+                return Integer.compare(indexOf(r1), indexOf(r2));
+            }
+
+            private int indexOf(KnowledgeBuilderResult result) {
+                Integer index = result instanceof BaseKnowledgeBuilderResultImpl ?
+                                indexes.get(((BaseKnowledgeBuilderResultImpl) result).getResource()) :
+                                null;
+                return index != null ? index : Integer.MAX_VALUE;
+            }
+        });
+    }
+
     PackageRegistry createPackageRegistry(PackageDescr packageDescr) {
         PackageRegistry pkgRegistry = initPackageRegistry( packageDescr );
         if (pkgRegistry == null) {
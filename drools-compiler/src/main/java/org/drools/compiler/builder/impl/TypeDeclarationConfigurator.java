@@ -31,6 +31,7 @@ import org.drools.core.base.mvel.MVELCompileable;
 import org.drools.core.definitions.InternalKnowledgePackage;
 import org.drools.core.factmodel.ClassDefinition;
 import org.drools.core.factmodel.FieldDefinition;
+import org.drools.core.factmodel.PartitionBy;
 import org.drools.core.rule.MVELDialectRuntimeData;
 import org.drools.core.rule.TypeDeclaration;
 import org.drools.core.spi.InternalReadAccessor;
@@ -79,6 +80,10 @@ public class TypeDeclarationConfigurator {
                         oldType.setExpirationOffset( type.getExpirationOffset() );
                     }
                 }
+                if ( type.getPartitionAttribute() != null ) {
+                    oldType.setPartitionAttribute( type.getPartitionAttribute() );
+                    oldType.setPartitionExtractor( type.getPartitionExtractor() );
+                }
                 if (type.isPropertyReactive()) {
                     oldType.setPropertyReactive(true);
                 }
@@ -113,6 +118,7 @@ public class TypeDeclarationConfigurator {
         wireTimestampAccessor( kbuilder, annotated, type, pkgRegistry );
         wireDurationAccessor( kbuilder, annotated, type, pkgRegistry );
         configureExpirationOffset( kbuilder, annotated, type );
+        wirePartitionAccessor( kbuilder, annotated, type, pkgRegistry );
         configurePropertyReactivity( kbuilder, annotated, type );
     }
 
@@ -185,6 +191,31 @@ public class TypeDeclarationConfigurator {
         }
     }
 
+    private static void wirePartitionAccessor( KnowledgeBuilderImpl kbuilder, Annotated annotated, TypeDeclaration type, PackageRegistry pkgRegistry ) {
+        PartitionBy partitionBy = annotated.getTypedAnnotation(PartitionBy.class);
+        if (partitionBy != null) {
+            BaseDescr typeDescr = annotated instanceof BaseDescr ? ( (BaseDescr) annotated ) : new BaseDescr();
+            String partitionField;
+            try {
+                partitionField = partitionBy.value();
+            } catch (Exception e) {
+                kbuilder.addBuilderResult(new TypeDeclarationError(typeDescr, e.getMessage()));
+                return;
+            }
+            type.setPartitionAttribute(partitionField);
+            InternalKnowledgePackage pkg = pkgRegistry.getPackage();
+
+            MVELAnalysisResult results = getMvelAnalysisResult( kbuilder, typeDescr, type, pkgRegistry, partitionField, pkg );
+            if (results != null) {
+                type.setPartitionExtractor(getFieldExtractor( type, partitionField, pkg, results ));
+            } else {
+                kbuilder.addBuilderResult(new TypeDeclarationError(typeDescr,
+                                                                   "Error processing @partitionBy for TypeDeclaration '" + type.getFullName() +
+                                                                   "': cannot access the field '" + partitionField + "'"));
+            }
+        }
+    }
+
     private static MVELAnalysisResult getMvelAnalysisResult( KnowledgeBuilderImpl kbuilder, BaseDescr typeDescr, TypeDeclaration type, PackageRegistry pkgRegistry, String durationField, InternalKnowledgePackage pkg ) {
         MVELDialect dialect = (MVELDialect) pkgRegistry.getDialectCompiletimeRegistry().getDialect("mvel");
         PackageBuildContext context = new PackageBuildContext();
@@ -311,17 +311,24 @@ public class NativeJavaCompiler extends AbstractJavaCompiler {
             if (classLoader instanceof ProjectClassLoader) {
                 Map<String, byte[]> store = ((ProjectClassLoader) classLoader).getStore();
                 if (store != null) {
-                    for (Map.Entry<String, byte[]> entry : store.entrySet()) {
-                        String className = convertResourceToClassName(entry.getKey());
-                        if (className.startsWith(packageName) && className.substring(packageName.length()+1).indexOf('.') < 0) {
-                            compiledList.add(new CompilationInput(entry.getKey(), new ByteArrayInputStream(entry.getValue())));
-                        }
-                    }
+                    findCompiledClassInPackage(packageName, store, compiledList);
+                }
+                for (Map<String, byte[]> lazyStore : ((ProjectClassLoader) classLoader).getLazyStores()) {
+                    findCompiledClassInPackage(packageName, lazyStore, compiledList);
                 }
             }
             return compiledList;
         }
 
+        private void findCompiledClassInPackage(String packageName, Map<String, byte[]> store, List<JavaFileObject> compiledList) {
+            for (Map.Entry<String, byte[]> entry : store.entrySet()) {
+                String className = convertResourceToClassName(entry.getKey());
+                if (className.startsWith(packageName) && className.substring(packageName.length()+1).indexOf('.') < 0) {
+                    compiledList.add(new CompilationInput(entry.getKey(), new ByteArrayInputStream(entry.getValue())));
+                }
+            }
+        }
+
         // This workaround is necessary when other jars are loaded in an external class loader
         // and is an optimization of the solution suggested in the following post
         // http://atamur.blogspot.it/2009/10/using-built-in-javacompiler-with-custom.html
@@ -36,6 +36,7 @@ public class PackageRegistry {
     private static final String[] implicitImports = new String[] {
             "org.kie.api.definition.rule.*",
             "org.kie.api.definition.type.*",
+            "org.drools.core.factmodel.PartitionBy",
             "org.drools.core.factmodel.traits.Alias",
             "org.drools.core.factmodel.traits.Trait",
             "org.drools.core.factmodel.traits.Traitable",
@@ -17,6 +17,7 @@ package org.drools.compiler.kie.builder.impl;
 
 import com.google.protobuf.ExtensionRegistry;
 import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
 import org.drools.compiler.kie.builder.impl.KieModuleCache.CompDataEntry;
 import org.drools.compiler.kie.builder.impl.KieModuleCache.CompilationData;
 import org.drools.compiler.kie.builder.impl.KieModuleCache.Header;
@@ -29,6 +30,7 @@ import org.drools.compiler.kproject.xml.PomModel;
 import org.drools.core.builder.conf.impl.DecisionTableConfigurationImpl;
 import org.drools.core.builder.conf.impl.ResourceConfigurationImpl;
 import org.drools.core.common.ResourceProvider;
+import org.drools.core.definitions.InternalKnowledgePackage;
 import org.drools.core.rule.KieModuleMetaInfo;
 import org.drools.core.rule.TypeMetaInfo;
 import org.drools.core.util.Drools;
@@ -181,7 +183,7 @@ public abstract class AbstractKieModule
         return classes;
     }
 
-    private boolean isTypeDeclaration(String fileName) {
+    protected boolean isTypeDeclaration(String fileName) {
         Map<String, TypeMetaInfo> info = getTypesMetaInfo();
         TypeMetaInfo typeInfo = info == null ? null : info.get(convertResourceToClassName(fileName));
         return typeInfo != null && typeInfo.isDeclaredType();
@@ -288,6 +290,30 @@ public abstract class AbstractKieModule
         }
     }
 
+    /**
+     * Caches a KnowledgeBuilder holding the given packages of the KieBase, compiled by another JVM, so they can be
+     * incrementally updated like the ones compiled by buildKnowledgePackages
+     */
+    static KnowledgeBuilder cacheKnowledgePackages( KieBaseModelImpl kBaseModel,
+                                                    KieProject kieProject,
+                                                    Collection<KnowledgePackage> pkgs,
+                                                    ResultsImpl messages ) {
+        AbstractKieModule kModule = (AbstractKieModule) kieProject.getKieModuleForKBase(kBaseModel.getName());
+        // the packages have been read with the class loader of the project, that also defines their declared types
+        KnowledgeBuilderConfigurationImpl pconf = new KnowledgeBuilderConfigurationImpl(kieProject.getClassLoader());
+        pconf.setCompilationCache(kModule.getCompilationCache(kBaseModel.getName()));
+        setModelPropsOnConf( kBaseModel, pconf );
+        KnowledgeBuilderImpl kbuilder = (KnowledgeBuilderImpl) KnowledgeBuilderFactory.newKnowledgeBuilder(pconf);
+        for (KnowledgePackage pkg : pkgs) {
+            kbuilder.addPackage((InternalKnowledgePackage) pkg);
+        }
+
+        kModule.cacheKnowledgeBuilderForKieBase(kBaseModel.getName(), kbuilder);
+        kModule.cacheResultsForKieBase(kBaseModel.getName(), messages);
+
+        return kbuilder;
+    }
+
     private static KnowledgeBuilderConfigurationImpl getBuilderConfiguration(KieBaseModelImpl kBaseModel, KieProject kieProject, AbstractKieModule kModule) {
         KnowledgeBuilderConfigurationImpl pconf = new KnowledgeBuilderConfigurationImpl(kieProject.getClonedClassLoader());
         pconf.setCompilationCache(kModule.getCompilationCache(kBaseModel.getName()));
@@ -201,7 +201,7 @@ public class ClasspathKieProject extends AbstractKieProject {
         File file = new File( rootPath );
         return file.isDirectory() ?
                new FileKieModule( releaseId, kieProject, file ) :
-               new ZipKieModule( releaseId, kieProject, file );
+               MappedZipKieModule.createZipKieModule( releaseId, kieProject, file );
     }
 
     public static String getPomProperties(String urlPathToAdd) {
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import org.drools.compiler.kproject.models.KieBaseModelImpl;
+import org.drools.compiler.kproject.models.KieModuleModelImpl;
+import org.drools.compiler.kproject.xml.DependencyFilter;
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
+import org.drools.core.common.ProjectClassLoader;
+import org.drools.core.definitions.InternalKnowledgePackage;
+import org.drools.core.rule.JavaDialectRuntimeData;
+import org.drools.core.rule.TypeDeclaration;
+import org.drools.core.util.Drools;
+import org.drools.core.util.IoUtils;
+import org.drools.core.util.StringUtils;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.conf.DeclarativeAgendaOption;
+import org.kie.api.conf.EqualityBehaviorOption;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.internal.definition.KnowledgePackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.attribute.PosixFilePermission.GROUP_WRITE;
+import static java.nio.file.attribute.PosixFilePermission.OTHERS_WRITE;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_EXECUTE;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_WRITE;
+import static org.drools.core.util.ClassUtils.convertClassToResourcePath;
+
+/**
+ * <p>An on disk cache of the compiled packages of the KieBases, so a KieContainer created in a new JVM
+ * for a KieModule that has already been built once can skip the parsing of the resources and the compilation
+ * of the rules, and just deserialize the packages, including the bytecode of the generated classes.</p>
+ *
+ * <p>It is enabled by setting the drools.kieBaseCacheDir system property to a folder that can be shared
+ * among the JVMs of the same user. Each entry is content addressed: it is named after the SHA-256 hash of everything
+ * the compiled packages depend on, i.e. the Drools version, the kmodule.xml, the files of the KieModules of the KieBase
+ * and of its includes, the jar dependencies of the KieModule, the options of the KieBaseConfiguration and the
+ * drools.* system properties. This means that
+ * an entry never needs to be invalidated, while a stale one is simply not used anymore. Note that the jar
+ * dependencies are identified only by their ReleaseId, so a SNAPSHOT dependency changing its classes
+ * without changing the KieModule requires the cache folder to be cleared.</p>
+ *
+ * <p>The entries are written on a temporary file and then renamed, so a JVM never reads an entry partially
+ * written by another one. An entry that can't be read, e.g. because the classes it refers to are not available
+ * anymore, is deleted and the KieBase is built as if the cache was disabled.</p>
+ *
+ * <p>The entries are read with Java deserialization, so whoever can write them can run code in the JVMs reading
+ * them. For this reason the folder is created accessible only by its owner, and on a POSIX file system a folder
+ * or an entry that is owned by another user or writable by the group or the others is not used.</p>
+ */
+public class KieBaseDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(KieBaseDiskCache.class);
+
+    public static final String CACHE_DIR_PROPERTY = "drools.kieBaseCacheDir";
+
+    private static final String ENTRY_EXTENSION = ".kbase";
+
+    private final File dir;
+
+    public KieBaseDiskCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the cache configured through the drools.kieBaseCacheDir system property,
+     * or null if the property is not set or the folder can't be created
+     */
+    public static KieBaseDiskCache fromSystemProperty() {
+        String dirName = System.getProperty( CACHE_DIR_PROPERTY );
+        if ( StringUtils.isEmpty( dirName ) ) {
+            return null;
+        }
+        File dir = new File( dirName );
+        if ( !dir.isDirectory() ) {
+            if ( !dir.mkdirs() && !dir.isDirectory() ) {
+                log.warn( "Unable to create the KieBase cache folder " + dir.getAbsolutePath() + ", the cache is disabled" );
+                return null;
+            }
+            restrictToOwner( dir );
+        }
+        if ( !isPrivate( dir ) ) {
+            log.warn( "The KieBase cache folder " + dir.getAbsolutePath() + " is owned by another user or writable by others, the cache is disabled" );
+            return null;
+        }
+        return new KieBaseDiskCache( dir );
+    }
+
+    private static void restrictToOwner(File dir) {
+        try {
+            Files.setPosixFilePermissions( dir.toPath(), EnumSet.of( OWNER_READ, OWNER_WRITE, OWNER_EXECUTE ) );
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system, the folder keeps the default permissions
+        } catch (IOException e) {
+            log.warn( "Unable to restrict the permissions of the KieBase cache folder " + dir.getAbsolutePath(), e );
+        }
+    }
+
+    /**
+     * Returns true if the given file is owned by the user running this JVM and can't be written by anybody else.
+     * On a file system without POSIX attributes the permissions are left to the ones of the folder.
+     */
+    static boolean isPrivate(File file) {
+        try {
+            PosixFileAttributes attributes = Files.readAttributes( file.toPath(), PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS );
+            Set<PosixFilePermission> permissions = attributes.permissions();
+            if ( permissions.contains( GROUP_WRITE ) || permissions.contains( OTHERS_WRITE ) ) {
+                return false;
+            }
+            UserPrincipal user = file.toPath().getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName( System.getProperty( "user.name" ) );
+            return attributes.owner().equals( user );
+        } catch (UnsupportedOperationException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns the packages previously stored with the given key, deserialized with the given class loader,
+     * or null if there is no such entry or it can't be read.
+     */
+    @SuppressWarnings("unchecked")
+    public Collection<KnowledgePackage> load(String key, ClassLoader classLoader) {
+        File entry = getEntry( key );
+        if ( !entry.isFile() ) {
+            return null;
+        }
+        if ( !isPrivate( entry ) ) {
+            log.warn( "The KieBase cache entry " + entry.getAbsolutePath() + " is owned by another user or writable by others, it will be rebuilt" );
+            return null;
+        }
+        Collection<KnowledgePackage> pkgs = null;
+        ObjectInputStream in = null;
+        try {
+            in = new DroolsObjectInputStream( new GZIPInputStream( new BufferedInputStream( new FileInputStream( entry ) ) ), classLoader );
+            // the declared types have to be available before the packages using them are deserialized
+            Map<String, byte[]> declaredTypes = (Map<String, byte[]>) in.readObject();
+            if ( classLoader instanceof ProjectClassLoader ) {
+                for ( Map.Entry<String, byte[]> declaredType : declaredTypes.entrySet() ) {
+                    ( (ProjectClassLoader) classLoader ).storeClass( declaredType.getKey(), declaredType.getValue() );
+                }
+            }
+            pkgs = (Collection<KnowledgePackage>) in.readObject();
+            log.debug( "Packages of KieBase loaded from cache entry " + entry.getName() );
+        } catch (Exception e) {
+            log.warn( "Unable to read the KieBase cache entry " + entry.getAbsolutePath() + ", it will be rebuilt", e );
+        } finally {
+            close( in );
+        }
+        if ( pkgs == null ) {
+            entry.delete();
+        }
+        return pkgs;
+    }
+
+    /**
+     * Stores the given packages with the given key. A failure is only logged, since it
+     * just means that the KieBase will have to be built again by the next JVM.
+     */
+    public void store(String key, Collection<KnowledgePackage> pkgs) {
+        File entry = getEntry( key );
+        if ( entry.isFile() ) {
+            return;
+        }
+        File tmp = null;
+        ObjectOutputStream out = null;
+        try {
+            tmp = File.createTempFile( key, ".tmp", dir );
+            out = new DroolsObjectOutputStream( new GZIPOutputStream( new BufferedOutputStream( new FileOutputStream( tmp ) ) ) );
+            out.writeObject( getDeclaredTypes( pkgs ) );
+            out.writeObject( new ArrayList<KnowledgePackage>( pkgs ) );
+            out.close();
+            out = null;
+            if ( !tmp.renameTo( entry ) && !entry.isFile() ) {
+                log.warn( "Unable to write the KieBase cache entry " + entry.getAbsolutePath() );
+            }
+        } catch (Exception e) {
+            log.warn( "Unable to write the KieBase cache entry " + entry.getAbsolutePath(), e );
+        } finally {
+            close( out );
+            if ( tmp != null ) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * The classes of the types declared in the DRLs are not part of the class loader of the KieProject, but they
+     * are generated by the build and then defined by the KieBase, so their bytecode is taken from the packages
+     */
+    private static Map<String, byte[]> getDeclaredTypes(Collection<KnowledgePackage> pkgs) {
+        Map<String, byte[]> declaredTypes = new HashMap<String, byte[]>();
+        for ( KnowledgePackage kpkg : pkgs ) {
+            InternalKnowledgePackage pkg = (InternalKnowledgePackage) kpkg;
+            JavaDialectRuntimeData runtime = (JavaDialectRuntimeData) pkg.getDialectRuntimeRegistry().getDialectData( "java" );
+            if ( runtime == null ) {
+                continue;
+            }
+            for ( TypeDeclaration type : pkg.getTypeDeclarations().values() ) {
+                byte[] def = runtime.getClassDefinition( convertClassToResourcePath( type.getTypeClassName() ) );
+                if ( def != null ) {
+                    declaredTypes.put( type.getTypeClassName(), def );
+                }
+            }
+        }
+        return declaredTypes;
+    }
+
+    private File getEntry(String key) {
+        return new File( dir, key + ENTRY_EXTENSION );
+    }
+
+    /**
+     * Computes the key of the packages of the given KieBase, hashing everything they are built from
+     */
+    public static String computeKey(KieBaseModelImpl kBaseModel, KieProject kieProject, KieBaseConfiguration conf) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance( "SHA-256" );
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException( e );
+        }
+
+        update( digest, Drools.getFullVersion() );
+        update( digest, kBaseModel.getName() );
+        update( digest, ( (KieModuleModelImpl) kBaseModel.getKModule() ).toXML() );
+
+        Map<String, InternalKieModule> kModules = new TreeMap<String, InternalKieModule>();
+        InternalKieModule kModule = kieProject.getKieModuleForKBase( kBaseModel.getName() );
+        kModules.put( kModule.getReleaseId().toExternalForm(), kModule );
+        for ( String include : kieProject.getTransitiveIncludes( kBaseModel ) ) {
+            InternalKieModule includeModule = StringUtils.isEmpty( include ) ? null : kieProject.getKieModuleForKBase( include );
+            if ( includeModule != null ) {
+                kModules.put( includeModule.getReleaseId().toExternalForm(), includeModule );
+            }
+        }
+
+        for ( InternalKieModule module : kModules.values() ) {
+            update( digest, module.getReleaseId().toExternalForm() );
+            for ( String fileName : new TreeSet<String>( module.getFileNames() ) ) {
+                byte[] bytes = module.getBytes( fileName );
+                update( digest, fileName );
+                digest.update( bytes != null ? bytes : new byte[0] );
+            }
+            List<String> deps = new ArrayList<String>();
+            for ( ReleaseId dep : module.getJarDependencies( DependencyFilter.COMPILE_FILTER ) ) {
+                deps.add( dep.toExternalForm() );
+            }
+            for ( String dep : new TreeSet<String>( deps ) ) {
+                update( digest, dep );
+            }
+        }
+
+        if ( conf != null ) {
+            update( digest, String.valueOf( conf.getOption( EqualityBehaviorOption.class ) ) );
+            update( digest, String.valueOf( conf.getOption( EventProcessingOption.class ) ) );
+            update( digest, String.valueOf( conf.getOption( DeclarativeAgendaOption.class ) ) );
+        }
+
+        for ( String name : new TreeSet<String>( System.getProperties().stringPropertyNames() ) ) {
+            if ( name.startsWith( "drools." ) && !name.equals( CACHE_DIR_PROPERTY ) ) {
+                update( digest, name + "=" + System.getProperty( name ) );
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for ( byte b : digest.digest() ) {
+            sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update( s.getBytes( IoUtils.UTF8_CHARSET ) );
+        digest.update( (byte) 0 );
+    }
+
+    private static void close(Closeable closeable) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
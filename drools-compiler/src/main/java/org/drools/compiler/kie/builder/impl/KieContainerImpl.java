@@ -80,6 +80,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.drools.compiler.kie.builder.impl.AbstractKieModule.buildKnowledgePackages;
+import static org.drools.compiler.kie.builder.impl.AbstractKieModule.cacheKnowledgePackages;
 import static org.drools.compiler.kie.builder.impl.KieBuilderImpl.filterFileInKBase;
 import static org.drools.compiler.kie.util.CDIHelper.wireListnersAndWIHs;
 import static org.drools.core.util.ClassUtils.convertResourceToClassName;
@@ -137,6 +138,9 @@ public class KieContainerImpl
         this.kProject = kProject;
         this.containerId = containerId;
         kProject.init();
+        if (kProject instanceof KieModuleKieProject) {
+            ((KieModuleKieProject) kProject).retainMappedKieModules();
+        }
         initMBeans(containerId);
     }
     
@@ -557,19 +561,38 @@ public class KieContainerImpl
 
         Collection<KnowledgePackage> pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
 
+        if (conf == null) {
+            conf = getKnowledgeBaseConfiguration(kBaseModel, cl);
+        } else if (conf instanceof RuleBaseConfiguration) {
+            ((RuleBaseConfiguration)conf).setClassLoader(cl);
+        }
+
         if ( pkgs == null ) {
-            KnowledgeBuilder kbuilder = buildKnowledgePackages(kBaseModel, kieProject, messages);
-            if ( kbuilder.hasErrors() ) {
-                // Messages already populated by the buildKnowlegePackages
-                return null;
+            KieBaseDiskCache diskCache = KieBaseDiskCache.fromSystemProperty();
+            String cacheKey = diskCache != null ? KieBaseDiskCache.computeKey(kBaseModel, kieProject, conf) : null;
+            if ( diskCache != null ) {
+                pkgs = diskCache.load(cacheKey, cl);
             }
-        }
 
-        // if we get to here, then we know the pkgs is now cached
-        pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
+            if ( pkgs != null ) {
+                pkgs = cacheKnowledgePackages(kBaseModel, kieProject, pkgs, messages).getKnowledgePackages();
+            } else {
+                KnowledgeBuilder kbuilder = buildKnowledgePackages(kBaseModel, kieProject, messages);
+                if ( kbuilder.hasErrors() ) {
+                    // Messages already populated by the buildKnowlegePackages
+                    return null;
+                }
+
+                // if we get to here, then we know the pkgs is now cached
+                pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
+                if ( diskCache != null ) {
+                    diskCache.store(cacheKey, pkgs);
+                }
+            }
+        }
 
         if ( kBaseModel.getEventProcessingMode() == EventProcessingOption.CLOUD &&
-            (conf == null || conf.getOption(EventProcessingOption.class) == EventProcessingOption.CLOUD ) ) {
+             conf.getOption(EventProcessingOption.class) == EventProcessingOption.CLOUD ) {
             for (KnowledgePackage kpkg : pkgs) {
                 if ( ((KnowledgePackageImpl) kpkg).needsStreamMode() ) {
                     throw new RuntimeException( "The requested KieBase \"" + kBaseModel.getName() + "\" has been set to run in CLOUD mode but requires features only available in STREAM mode" );
@@ -577,11 +600,6 @@ public class KieContainerImpl
             }
         }
 
-        if (conf == null) {
-            conf = getKnowledgeBaseConfiguration(kBaseModel, cl);
-        } else if (conf instanceof RuleBaseConfiguration) {
-            ((RuleBaseConfiguration)conf).setClassLoader(cl);
-        }
         InternalKnowledgeBase kBase = (InternalKnowledgeBase) KnowledgeBaseFactory.newKnowledgeBase( kBaseModel.getName(), conf );
         kBase.setResolvedReleaseId(containerReleaseId);
         kBase.setContainerId(containerId);
@@ -805,6 +823,10 @@ public class KieContainerImpl
         }
         
         ((InternalKieServices) KieServices.Factory.get()).clearRefToContainerId(this.containerId, this);
+
+        if (kProject instanceof KieModuleKieProject) {
+            ((KieModuleKieProject) kProject).releaseMappedKieModules();
+        }
     }
 
     private boolean isMBeanOptionEnabled() {
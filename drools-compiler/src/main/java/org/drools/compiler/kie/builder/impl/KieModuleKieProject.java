@@ -52,6 +52,8 @@ public class KieModuleKieProject extends AbstractKieProject {
 
     private ProjectClassLoader             cl;
 
+    private boolean                        mappedKieModulesRetained;
+
     public KieModuleKieProject( InternalKieModule kieModule ) {
         this( kieModule, null );
     }
@@ -88,17 +90,56 @@ public class KieModuleKieProject extends AbstractKieProject {
                 projectCL.storeClass( className, resourceName, entry.getValue() );
             }
         }
+        List<Map<String, byte[]>> lazyStores = new ArrayList<Map<String, byte[]>>();
+        for ( InternalKieModule kModule : kieModules ) {
+            if ( kModule instanceof MappedZipKieModule ) {
+                // the classes of a memory mapped jar are read only when they are defined
+                lazyStores.add( kModule.getClassesMap( kModule != this.kieModule ) );
+            }
+        }
+        projectCL.setLazyStores( lazyStores );
     }
 
     private Map<String, byte[]> getClassesMap() {
         Map<String, byte[]> classes = new HashMap<String, byte[]>();
         for ( InternalKieModule kModule : kieModules ) {
-            // avoid to take type declarations defined directly in this kieModule since they have to be recompiled
-            classes.putAll( kModule.getClassesMap( kModule != this.kieModule ) );
+            if ( !( kModule instanceof MappedZipKieModule ) ) {
+                // avoid to take type declarations defined directly in this kieModule since they have to be recompiled
+                classes.putAll( kModule.getClassesMap( kModule != this.kieModule ) );
+            }
         }
         return classes;
     }
 
+    /**
+     * Keeps mapped the memory mapped KieModules of this project until releaseMappedKieModules is invoked
+     */
+    void retainMappedKieModules() {
+        if ( !mappedKieModulesRetained && kieModules != null ) {
+            for ( InternalKieModule kModule : kieModules ) {
+                if ( kModule instanceof MappedZipKieModule ) {
+                    ( (MappedZipKieModule) kModule ).retain();
+                }
+            }
+            mappedKieModulesRetained = true;
+        }
+    }
+
+    void releaseMappedKieModules() {
+        if ( mappedKieModulesRetained ) {
+            releaseMappedKieModules( kieModules );
+            mappedKieModulesRetained = false;
+        }
+    }
+
+    private static void releaseMappedKieModules( List<InternalKieModule> kModules ) {
+        for ( InternalKieModule kModule : kModules ) {
+            if ( kModule instanceof MappedZipKieModule ) {
+                ( (MappedZipKieModule) kModule ).release();
+            }
+        }
+    }
+
     public InputStream getPomAsStream() {
         return kieModule.getPomAsStream();
     }
@@ -133,6 +174,10 @@ public class KieModuleKieProject extends AbstractKieProject {
         Map<String, KieBaseModel> oldKieBaseModels = new HashMap<String, KieBaseModel>();
         oldKieBaseModels.putAll( kBaseModels );
 
+        // the old modules are released only after the new ones are retained, so a jar used by both stays mapped
+        List<InternalKieModule> oldKieModules = this.kieModules;
+        boolean retained = mappedKieModulesRetained;
+        mappedKieModulesRetained = false;
         this.kieModules = null;
         this.kJarFromKBaseName.clear();
 
@@ -150,6 +195,10 @@ public class KieModuleKieProject extends AbstractKieProject {
             cleanIndex();
             init(); // this might override class definitions, not sure we can do it any other way though
         }
+        if ( retained ) {
+            retainMappedKieModules();
+            releaseMappedKieModules( oldKieModules );
+        }
 
         return oldKieBaseModels;
     }
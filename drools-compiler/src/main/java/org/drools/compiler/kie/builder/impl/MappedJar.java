@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * A jar memory mapped as a whole, with an index of the positions of its entries, so the content of an entry
+ * is read and inflated only when it is requested. The mapping of a file is shared by all the users acquiring it,
+ * and it is dropped, so that the garbage collector can unmap it, when the last of them releases it.
+ *
+ * As in IoUtils.indexZipFile, each folder is also an entry listing the names of its children, one per line.
+ * Zip64 archives, jars larger than 2GB and entries neither stored nor deflated are not supported.
+ */
+class MappedJar {
+
+    private static final int LOCAL_HEADER_SIGNATURE   = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_HEADER_SIGNATURE     = 0x06054b50;
+
+    private static final int LOCAL_HEADER_SIZE        = 30;
+    private static final int CENTRAL_HEADER_SIZE      = 46;
+    private static final int END_HEADER_SIZE          = 22;
+
+    private static final Map<String, MappedJar> mappedJars = new HashMap<String, MappedJar>();
+
+    private final String     key;
+    private final File       file;
+    private final ByteBuffer buffer;
+    private final Index      index;
+
+    private int users;
+
+    private MappedJar(String key, File file) throws IOException {
+        this.key = key;
+        this.file = file;
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try {
+            if ( raf.length() > Integer.MAX_VALUE ) {
+                throw new IOException( "Jar files larger than 2GB are not supported" );
+            }
+            // the mapping stays valid after the channel is closed
+            this.buffer = raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+        } finally {
+            raf.close();
+        }
+        this.buffer.order( ByteOrder.LITTLE_ENDIAN );
+        this.index = new Index( file, buffer );
+    }
+
+    /**
+     * Returns the mapping of the given jar, mapping it if it isn't already. A jar modified since it has been mapped
+     * is mapped again, while the users of the former mapping keep reading from it until they release it.
+     */
+    static MappedJar acquire(File file) {
+        String key = getKey( file );
+        synchronized (mappedJars) {
+            MappedJar jar = mappedJars.get( key );
+            if ( jar == null ) {
+                try {
+                    jar = new MappedJar( key, file );
+                } catch (IOException e) {
+                    throw new RuntimeException( "Unable to map jar file: " + file, e );
+                }
+                mappedJars.put( key, jar );
+            }
+            jar.users++;
+            return jar;
+        }
+    }
+
+    void release() {
+        synchronized (mappedJars) {
+            if ( --users == 0 ) {
+                mappedJars.remove( key );
+            }
+        }
+    }
+
+    static int getMappedJarsCount() {
+        synchronized (mappedJars) {
+            return mappedJars.size();
+        }
+    }
+
+    private static String getKey(File file) {
+        return file.getAbsolutePath() + ":" + file.lastModified() + ":" + file.length();
+    }
+
+    Set<String> getNames() {
+        return index.names;
+    }
+
+    /**
+     * The index of the entries of this jar, which doesn't keep the mapping alive and can be used to read them
+     * from the file once the jar has been released
+     */
+    Index getIndex() {
+        return index;
+    }
+
+    byte[] read(String name) {
+        byte[] folder = index.folders.get( name );
+        if ( folder != null ) {
+            return folder;
+        }
+        EntryLocation entry = index.entries.get( name );
+        if ( entry == null ) {
+            return null;
+        }
+        ByteBuffer buf = buffer.duplicate().order( ByteOrder.LITTLE_ENDIAN );
+        if ( buf.getInt( entry.offset ) != LOCAL_HEADER_SIGNATURE ) {
+            throw new RuntimeException( "Corrupted entry " + name + " in jar file: " + file );
+        }
+        int dataOffset = entry.offset + LOCAL_HEADER_SIZE + readShort( buf, entry.offset + 26 ) + readShort( buf, entry.offset + 28 );
+
+        byte[] data = entry.newDataArray();
+        buf.position( dataOffset );
+        buf.get( data, 0, entry.compressedSize );
+        return index.decode( name, entry, data );
+    }
+
+    private static int readShort(ByteBuffer buf, int offset) {
+        return buf.getShort( offset ) & 0xFFFF;
+    }
+
+    /**
+     * The positions of the entries of a jar, read from its central directory when it is mapped. A jar that isn't
+     * mapped anymore can still be read through its index, reading from the file only the local header and the data
+     * of the requested entry, instead of mapping the whole file and parsing its central directory again.
+     */
+    static class Index {
+        private final File   file;
+        private final String key;
+
+        private final Map<String, EntryLocation> entries = new HashMap<String, EntryLocation>();
+        private final Map<String, byte[]>        folders = new HashMap<String, byte[]>();
+        private final Set<String>                names;
+
+        private Index(File file, ByteBuffer buffer) throws IOException {
+            this.file = file;
+            this.key = getKey( file );
+            this.names = Collections.unmodifiableSet( index( buffer ) );
+        }
+
+        /**
+         * Returns true when the jar hasn't been modified since it has been indexed
+         */
+        boolean isCurrent() {
+            return key.equals( getKey( file ) );
+        }
+
+        Set<String> getNames() {
+            return names;
+        }
+
+        /**
+         * Reads an entry from the jar file without mapping it
+         */
+        byte[] read(String name) {
+            byte[] folder = folders.get( name );
+            if ( folder != null ) {
+                return folder;
+            }
+            EntryLocation entry = entries.get( name );
+            if ( entry == null ) {
+                return null;
+            }
+            try {
+                RandomAccessFile raf = new RandomAccessFile( file, "r" );
+                try {
+                    FileChannel channel = raf.getChannel();
+                    ByteBuffer header = ByteBuffer.allocate( LOCAL_HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+                    readFully( channel, header, entry.offset );
+                    if ( header.getInt( 0 ) != LOCAL_HEADER_SIGNATURE ) {
+                        throw new RuntimeException( "Corrupted entry " + name + " in jar file: " + file );
+                    }
+                    int dataOffset = entry.offset + LOCAL_HEADER_SIZE + readShort( header, 26 ) + readShort( header, 28 );
+
+                    byte[] data = entry.newDataArray();
+                    readFully( channel, ByteBuffer.wrap( data, 0, entry.compressedSize ), dataOffset );
+                    return decode( name, entry, data );
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException( "Unable to read entry " + name + " from jar file: " + file, e );
+            }
+        }
+
+        private void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+            while ( dst.hasRemaining() ) {
+                int n = channel.read( dst, position );
+                if ( n < 0 ) {
+                    throw new IOException( "Unexpected end of jar file: " + file );
+                }
+                position += n;
+            }
+        }
+
+        private byte[] decode(String name, EntryLocation entry, byte[] data) {
+            if ( entry.method == ZipEntry.STORED ) {
+                return data;
+            }
+
+            Inflater inflater = new Inflater( true );
+            try {
+                inflater.setInput( data );
+                byte[] bytes = new byte[entry.size];
+                int read = 0;
+                while ( read < bytes.length ) {
+                    int n = inflater.inflate( bytes, read, bytes.length - read );
+                    if ( n == 0 && ( inflater.finished() || inflater.needsInput() || inflater.needsDictionary() ) ) {
+                        break;
+                    }
+                    read += n;
+                }
+                if ( read != bytes.length ) {
+                    throw new RuntimeException( "Corrupted entry " + name + " in jar file: " + file );
+                }
+                return bytes;
+            } catch (DataFormatException e) {
+                throw new RuntimeException( "Corrupted entry " + name + " in jar file: " + file, e );
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private Set<String> index(ByteBuffer buffer) throws IOException {
+            int endOffset = findEndHeader( buffer );
+            int entriesNr = readShort( buffer, endOffset + 10 );
+            long centralOffset = buffer.getInt( endOffset + 16 ) & 0xFFFFFFFFL;
+            if ( entriesNr == 0xFFFF || centralOffset == 0xFFFFFFFFL ) {
+                throw new IOException( "Zip64 jar files are not supported" );
+            }
+
+            Set<String> allNames = new LinkedHashSet<String>();
+            Map<String, List<String>> folderChildren = new HashMap<String, List<String>>();
+            int pos = (int) centralOffset;
+            for ( int i = 0; i < entriesNr; i++ ) {
+                if ( buffer.getInt( pos ) != CENTRAL_HEADER_SIGNATURE ) {
+                    throw new IOException( "Corrupted central directory" );
+                }
+                int method = readShort( buffer, pos + 10 );
+                int compressedSize = buffer.getInt( pos + 20 );
+                int size = buffer.getInt( pos + 24 );
+                int nameLength = readShort( buffer, pos + 28 );
+                int extraLength = readShort( buffer, pos + 30 );
+                int commentLength = readShort( buffer, pos + 32 );
+                int localOffset = buffer.getInt( pos + 42 );
+                byte[] nameBytes = new byte[nameLength];
+                ByteBuffer buf = buffer.duplicate();
+                buf.position( pos + CENTRAL_HEADER_SIZE );
+                buf.get( nameBytes );
+                String entryName = new String( nameBytes, StandardCharsets.UTF_8 );
+                pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+                if ( entryName.endsWith( ".dex" ) ) {
+                    continue; // useless and possibly huge, see IoUtils.indexZipFile
+                }
+                if ( entryName.endsWith( "/" ) ) {
+                    entryName = entryName.substring( 0, entryName.length() - 1 );
+                } else {
+                    if ( method != ZipEntry.STORED && method != ZipEntry.DEFLATED ) {
+                        throw new IOException( "Unsupported compression method " + method + " for entry " + entryName );
+                    }
+                    entries.put( entryName, new EntryLocation( localOffset, method, compressedSize, size ) );
+                    allNames.add( entryName );
+                }
+
+                int lastSlashPos = entryName.lastIndexOf( '/' );
+                String folderName = lastSlashPos < 0 ? "" : entryName.substring( 0, lastSlashPos );
+                List<String> folder = folderChildren.get( folderName );
+                if ( folder == null ) {
+                    folder = new ArrayList<String>();
+                    folderChildren.put( folderName, folder );
+                }
+                folder.add( lastSlashPos < 0 ? entryName : entryName.substring( lastSlashPos + 1 ) );
+            }
+
+            for ( Map.Entry<String, List<String>> folder : folderChildren.entrySet() ) {
+                StringBuilder sb = new StringBuilder();
+                for ( String child : folder.getValue() ) {
+                    sb.append( child ).append( "\n" );
+                }
+                folders.put( folder.getKey(), sb.toString().getBytes( StandardCharsets.UTF_8 ) );
+                allNames.add( folder.getKey() );
+            }
+            return allNames;
+        }
+
+        private int findEndHeader(ByteBuffer buffer) throws IOException {
+            int minOffset = Math.max( 0, buffer.limit() - END_HEADER_SIZE - 0xFFFF );
+            for ( int offset = buffer.limit() - END_HEADER_SIZE; offset >= minOffset; offset-- ) {
+                if ( buffer.getInt( offset ) == END_HEADER_SIGNATURE ) {
+                    return offset;
+                }
+            }
+            throw new IOException( "Not a jar file: " + file );
+        }
+    }
+
+    private static class EntryLocation {
+        private final int offset;
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+
+        private EntryLocation(int offset, int method, int compressedSize, int size) {
+            this.offset = offset;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        private byte[] newDataArray() {
+            // the inflater in nowrap mode may need an extra dummy byte at the end of the input
+            return new byte[method == ZipEntry.STORED ? size : compressedSize + 1];
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.model.KieModuleModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A ZipKieModule that doesn't read all the entries of the jar on the heap, but memory maps the jar and reads
+ * an entry only when it is requested. The classes of the jar are also given to the class loaders of the KieContainers
+ * as a lazy store, so each of them is defined on demand from the mapped file instead of having its bytecode kept
+ * in memory for the whole life of the container.</p>
+ *
+ * <p>The mapping of a jar is shared by all the KieModules of the same file, and then by all the KieContainers using
+ * them. It is kept only while a KieContainer using it retains it, and it is dropped when the last of them is disposed.
+ * A module that isn't retained keeps only the index of its jar, and reads each requested entry from the file
+ * without mapping it.</p>
+ *
+ * <p>It is used in place of a plain ZipKieModule when the drools.memoryMappedKieModules system property is true.</p>
+ */
+public class MappedZipKieModule extends ZipKieModule {
+
+    private static final Logger log = LoggerFactory.getLogger( MappedZipKieModule.class );
+
+    public static final String MEMORY_MAPPED_PROPERTY = "drools.memoryMappedKieModules";
+
+    private final MappedSource source;
+
+    private Map<String, byte[]> classesMap;
+    private Map<String, byte[]> classesMapWithTypeDeclarations;
+
+    public MappedZipKieModule(ReleaseId releaseId,
+                              KieModuleModel kieProject,
+                              File file) {
+        this( releaseId, kieProject, file, new MappedSource( file ) );
+    }
+
+    private MappedZipKieModule(ReleaseId releaseId,
+                               KieModuleModel kieProject,
+                               File file,
+                               MappedSource source) {
+        super( releaseId, kieProject, file, new LazyEntries( source.getNames(), source ) );
+        this.source = source;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean( System.getProperty( MEMORY_MAPPED_PROPERTY, "false" ) );
+    }
+
+    /**
+     * Creates a MappedZipKieModule or a ZipKieModule for the given jar, depending on the drools.memoryMappedKieModules system property.
+     * A jar that cannot be mapped, like a Zip64 one, is read by a ZipKieModule anyway.
+     */
+    public static ZipKieModule createZipKieModule(ReleaseId releaseId,
+                                                  KieModuleModel kieProject,
+                                                  File file) {
+        if ( isEnabled() ) {
+            try {
+                return new MappedZipKieModule( releaseId, kieProject, file );
+            } catch (RuntimeException e) {
+                log.warn( "Unable to memory map jar file " + file + ", reading it on the heap", e );
+            }
+        }
+        return new ZipKieModule( releaseId, kieProject, file );
+    }
+
+    @Override
+    public synchronized Map<String, byte[]> getClassesMap(boolean includeTypeDeclarations) {
+        // the same maps are always returned, so they aren't added more than once to a class loader
+        if ( includeTypeDeclarations ) {
+            if ( classesMapWithTypeDeclarations == null ) {
+                classesMapWithTypeDeclarations = createClassesMap( true );
+            }
+            return classesMapWithTypeDeclarations;
+        }
+        if ( classesMap == null ) {
+            classesMap = createClassesMap( false );
+        }
+        return classesMap;
+    }
+
+    private Map<String, byte[]> createClassesMap(boolean includeTypeDeclarations) {
+        Set<String> classNames = new HashSet<String>();
+        for ( String fileName : getFileNames() ) {
+            if ( fileName.endsWith( ".class" ) && ( includeTypeDeclarations || !isTypeDeclaration( fileName ) ) ) {
+                classNames.add( fileName );
+            }
+        }
+        return new LazyEntries( Collections.unmodifiableSet( classNames ), source );
+    }
+
+    /**
+     * Maps the jar, if it isn't already, and keeps it mapped until a matching release is invoked
+     */
+    public void retain() {
+        source.retain();
+    }
+
+    /**
+     * Drops the mapping of the jar once all the users that retained it released it
+     */
+    public void release() {
+        source.release();
+    }
+
+    public boolean isMapped() {
+        return source.isMapped();
+    }
+
+    public String toString() {
+        return "MappedZipKieModule[releaseId=" + getReleaseId() + ",file=" + getFile() + "]";
+    }
+
+    /**
+     * The mapped jar of a module, kept mapped only while the module is retained. Every acquisition of the jar
+     * is matched by a release, so a module that isn't retained, or isn't retained anymore, doesn't keep it mapped:
+     * each of its reads goes through the index of the jar, read once, and fetches only the requested entry from
+     * the file. The jar is indexed again only when the file has been modified.
+     */
+    private static class MappedSource {
+        private final File        file;
+        private final Set<String> names;
+
+        private volatile MappedJar.Index index;
+
+        private MappedJar jar;
+        private int       users;
+
+        private MappedSource(File file) {
+            this.file = file;
+            MappedJar indexedJar = MappedJar.acquire( file );
+            try {
+                this.index = indexedJar.getIndex();
+                this.names = index.getNames();
+            } finally {
+                indexedJar.release();
+            }
+        }
+
+        private Set<String> getNames() {
+            return names;
+        }
+
+        private byte[] read(String name) {
+            MappedJar retainedJar = getRetainedJar();
+            if ( retainedJar != null ) {
+                return retainedJar.read( name );
+            }
+            MappedJar.Index currentIndex = index;
+            if ( currentIndex.isCurrent() ) {
+                return currentIndex.read( name );
+            }
+            MappedJar readJar = MappedJar.acquire( file );
+            try {
+                index = readJar.getIndex();
+                return readJar.read( name );
+            } finally {
+                readJar.release();
+            }
+        }
+
+        private synchronized MappedJar getRetainedJar() {
+            return jar;
+        }
+
+        private synchronized boolean isMapped() {
+            return jar != null;
+        }
+
+        private synchronized void retain() {
+            if ( users++ == 0 ) {
+                jar = MappedJar.acquire( file );
+                index = jar.getIndex();
+            }
+        }
+
+        private synchronized void release() {
+            if ( users > 0 && --users == 0 ) {
+                jar.release();
+                jar = null;
+            }
+        }
+    }
+
+    /**
+     * A read only map of the given entries of a mapped jar, reading the content of an entry only when it is requested
+     */
+    private static class LazyEntries extends AbstractMap<String, byte[]> {
+        private final Set<String>  names;
+        private final MappedSource source;
+
+        private LazyEntries(Set<String> names, MappedSource source) {
+            this.names = names;
+            this.source = source;
+        }
+
+        @Override
+        public byte[] get(Object key) {
+            return names.contains( key ) ? source.read( (String) key ) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return names.contains( key );
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return names;
+        }
+
+        @Override
+        public int size() {
+            return names.size();
+        }
+
+        @Override
+        public Set<Entry<String, byte[]>> entrySet() {
+            return new AbstractSet<Entry<String, byte[]>>() {
+                @Override
+                public Iterator<Entry<String, byte[]>> iterator() {
+                    final Iterator<String> iterator = names.iterator();
+                    return new Iterator<Entry<String, byte[]>>() {
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        public Entry<String, byte[]> next() {
+                            return new LazyEntry( iterator.next() );
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.size();
+                }
+            };
+        }
+
+        private class LazyEntry implements Entry<String, byte[]> {
+            private final String name;
+
+            private LazyEntry(String name) {
+                this.name = name;
+            }
+
+            public String getKey() {
+                return name;
+            }
+
+            public byte[] getValue() {
+                return source.read( name );
+            }
+
+            public byte[] setValue(byte[] value) {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
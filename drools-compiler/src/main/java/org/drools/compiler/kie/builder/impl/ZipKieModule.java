@@ -30,9 +30,16 @@ public class ZipKieModule extends AbstractKieModule implements InternalKieModule
     public ZipKieModule(ReleaseId releaseId,
                         KieModuleModel kieProject,
                         File file) {
+        this( releaseId, kieProject, file, IoUtils.indexZipFile( file ) );
+    }
+
+    protected ZipKieModule(ReleaseId releaseId,
+                           KieModuleModel kieProject,
+                           File file,
+                           Map<String, byte[]> zipEntries) {
         super(releaseId, kieProject );
         this.file = file;
-        this.zipEntries = IoUtils.indexZipFile( file );
+        this.zipEntries = zipEntries;
     }
 
     @Override
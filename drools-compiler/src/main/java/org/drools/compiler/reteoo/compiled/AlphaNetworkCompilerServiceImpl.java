@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.compiler.reteoo.compiled;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompilerService;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+
+public class AlphaNetworkCompilerServiceImpl implements AlphaNetworkCompilerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlphaNetworkCompilerServiceImpl.class);
+
+    public void compile(InternalKnowledgeBase kbase, Collection<ObjectTypeNode> objectTypeNodes) {
+        // the generated classes only depend on drools-core, but they are loaded by the kbase classloader as the rules
+        KnowledgeBuilderImpl kBuilder = new KnowledgeBuilderImpl(new KnowledgeBuilderConfigurationImpl(kbase.getRootClassLoader()));
+        Map<ObjectTypeNode, CompiledNetwork> networks;
+        try {
+            networks = ObjectTypeNodeCompiler.compile(kBuilder, objectTypeNodes);
+        } catch (RuntimeException e) {
+            logger.warn("Cannot compile the alpha network, it will be interpreted", e);
+            return;
+        }
+        for (Map.Entry<ObjectTypeNode, CompiledNetwork> entry : networks.entrySet()) {
+            entry.getKey().setCompiledNetwork(entry.getValue());
+        }
+    }
+}
@@ -17,32 +17,36 @@ package org.drools.compiler.reteoo.compiled;
 
 import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
 import org.drools.core.base.ClassObjectType;
-import org.drools.core.base.ValueType;
 import org.drools.compiler.compiler.PackageRegistry;
 import org.drools.compiler.lang.descr.PackageDescr;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.compiled.AssertHandler;
 import org.drools.core.reteoo.compiled.CompiledNetwork;
 import org.drools.core.reteoo.compiled.DeclarationsHandler;
-import org.drools.core.reteoo.compiled.HashedAlphasDeclaration;
+import org.drools.core.reteoo.compiled.ModifyHandler;
 import org.drools.core.reteoo.compiled.ObjectTypeNodeParser;
 import org.drools.core.reteoo.compiled.SetNodeReferenceHandler;
+import org.drools.core.rule.JavaDialectRuntimeData;
 import org.drools.compiler.rule.builder.dialect.java.JavaDialect;
 import org.drools.core.util.IoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * todo: document
+ * Generates the source of a {@link CompiledNetwork} for the alpha network of an {@link ObjectTypeNode} and
+ * compiles it through the java dialect of a {@link KnowledgeBuilderImpl}.
  */
 public class ObjectTypeNodeCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(ObjectTypeNodeCompiler.class);
+
     private static final String NEWLINE = "\n";
     private static final String PACKAGE_NAME = "org.drools.core.reteoo.compiled";
     private static final String BINARY_PACKAGE_NAME = PACKAGE_NAME.replace('.', '/');
-    /**
-     * This field hold the fully qualified class name that the {@link ObjectTypeNode} is representing.
-     */
-    private String className;
 
     /**
      * This field will hold the "simple" name of the generated class
@@ -60,8 +64,9 @@ public class ObjectTypeNodeCompiler {
         this.objectTypeNode = objectTypeNode;
 
         ClassObjectType classObjectType = (ClassObjectType) objectTypeNode.getObjectType();
-        this.className = classObjectType.getClassName();
-        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_') + "Network";
+        // the same class can have an ObjectTypeNode in each entry point, so the node id makes the name unique
+        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_').replace('$', '_') +
+                                   "Network" + objectTypeNode.getId();
     }
 
     private String generateSource() {
@@ -73,19 +78,18 @@ public class ObjectTypeNodeCompiler {
         DeclarationsHandler declarations = new DeclarationsHandler(builder);
         parser.accept(declarations);
 
-        // we need the hashed declarations when creating the constructor
-        Collection<HashedAlphasDeclaration> hashedAlphaDeclarations = declarations.getHashedAlphaDeclarations();
-
-        createConstructor(hashedAlphaDeclarations);
-
         // create set node method
         SetNodeReferenceHandler setNode = new SetNodeReferenceHandler(builder);
         parser.accept(setNode);
 
         // create assert method
-        AssertHandler assertHandler = new AssertHandler(builder, className, hashedAlphaDeclarations.size() > 0);
+        AssertHandler assertHandler = new AssertHandler(builder);
         parser.accept(assertHandler);
 
+        // create modify method
+        ModifyHandler modifyHandler = new ModifyHandler(builder);
+        parser.accept(modifyHandler);
+
         // end of class
         builder.append("}").append(NEWLINE);
 
@@ -101,39 +105,6 @@ public class ObjectTypeNodeCompiler {
                 append(CompiledNetwork.class.getName()).append("{ ").append(NEWLINE);
     }
 
-    /**
-     * Creates the constructor for the generated class. If the hashedAlphaDeclarations is empty, it will just
-     * output a empty default constructor; if it is not, the constructor will contain code to fill the hash
-     * alpha maps with the values and node ids.
-     *
-     * @param hashedAlphaDeclarations declarations used for creating statements to populate the hashed alpha
-     *                                maps for the generate class
-     */
-    private void createConstructor(Collection<HashedAlphasDeclaration> hashedAlphaDeclarations) {
-        builder.append("public ").append(generatedClassSimpleName).append("() {").append(NEWLINE);
-
-        // for each hashed alpha, we need to fill in the map member variable with the hashed values to node Ids
-        for (HashedAlphasDeclaration declaration : hashedAlphaDeclarations) {
-            String mapVariableName = declaration.getVariableName();
-
-            for (Object hashedValue : declaration.getHashedValues()) {
-                Object value = hashedValue;
-                // need to quote value if it is a string
-                if (declaration.getValueType() == ValueType.STRING_TYPE) {
-                    value = "\"" + value + "\"";
-                }
-
-                String nodeId = declaration.getNodeId(hashedValue);
-
-                // generate the map.put(hashedValue, nodeId) call
-                builder.append(mapVariableName).append(".put(").append(value).append(", ").append(nodeId).append(");");
-                builder.append(NEWLINE);
-            }
-        }
-
-        builder.append("}").append(NEWLINE);
-    }
-
     /**
      * Returns the fully qualified name of the generated subclass of {@link CompiledNetwork}
      *
@@ -144,12 +115,12 @@ public class ObjectTypeNodeCompiler {
     }
 
     /**
-     * Returns the fully qualified binary name of the generated subclass of {@link CompiledNetwork}
+     * Returns the name of the resource containing the source of the generated subclass of {@link CompiledNetwork}
      *
-     * @return binary name of generated class
+     * @return resource name of generated class
      */
-    private String getBinaryName() {
-        return BINARY_PACKAGE_NAME + "." + generatedClassSimpleName + ".class";
+    private String getSourceName() {
+        return BINARY_PACKAGE_NAME + "/" + generatedClassSimpleName + ".java";
     }
 
     private String getPackageName() {
@@ -157,49 +128,87 @@ public class ObjectTypeNodeCompiler {
     }
 
     /**
-     * Creates a {@link CompiledNetwork} for the specified {@link ObjectTypeNode}. The {@link PackageBuilder} is used
+     * Creates a {@link CompiledNetwork} for the specified {@link ObjectTypeNode}. The {@link KnowledgeBuilderImpl} is used
      * to compile the generated source and load the class.
      *
      * @param kBuilder     builder used to compile and load class
      * @param objectTypeNode OTN we are generating a compiled network for
      * @return CompiledNetwork
+     * @throws IllegalArgumentException thrown if the network of the OTN cannot be compiled
      */
     public static CompiledNetwork compile(KnowledgeBuilderImpl kBuilder, ObjectTypeNode objectTypeNode) {
         if (objectTypeNode == null) {
             throw new IllegalArgumentException("ObjectTypeNode cannot be null!");
         }
+        CompiledNetwork network = compile(kBuilder, Collections.singletonList(objectTypeNode)).get(objectTypeNode);
+        if (network == null) {
+            throw new IllegalArgumentException("Cannot compile the network of " + objectTypeNode);
+        }
+        return network;
+    }
+
+    /**
+     * Creates a {@link CompiledNetwork} for each of the specified {@link ObjectTypeNode}s, compiling all of them
+     * at once. The nodes whose network cannot be generated or compiled are left out of the returned map.
+     *
+     * @param kBuilder        builder used to compile and load classes
+     * @param objectTypeNodes OTNs we are generating a compiled network for
+     * @return the CompiledNetwork of each OTN
+     */
+    public static Map<ObjectTypeNode, CompiledNetwork> compile(KnowledgeBuilderImpl kBuilder, Collection<ObjectTypeNode> objectTypeNodes) {
         if (kBuilder == null) {
             throw new IllegalArgumentException("PackageBuilder cannot be null!");
         }
-        ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
-
-        String packageName = compiler.getPackageName();
 
-        PackageRegistry pkgReg = kBuilder.getPackageRegistry(packageName);
+        PackageRegistry pkgReg = kBuilder.getPackageRegistry(PACKAGE_NAME);
         if (pkgReg == null) {
-            kBuilder.addPackage(new PackageDescr(packageName));
-            pkgReg = kBuilder.getPackageRegistry(packageName);
+            kBuilder.addPackage(new PackageDescr(PACKAGE_NAME));
+            pkgReg = kBuilder.getPackageRegistry(PACKAGE_NAME);
         }
+        JavaDialect dialect = (JavaDialect) pkgReg.getDialectCompiletimeRegistry().getDialect("java");
 
-        String source = compiler.generateSource();
-        String generatedSourceName = compiler.getName();
+        Map<ObjectTypeNode, String> generatedClassNames = new HashMap<ObjectTypeNode, String>();
+        for (ObjectTypeNode objectTypeNode : objectTypeNodes) {
+            ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
+            String source;
+            try {
+                source = compiler.generateSource();
+            } catch (IllegalArgumentException e) {
+                // it will keep being interpreted
+                logger.debug("Cannot compile the network of " + objectTypeNode + ": " + e.getMessage());
+                continue;
+            }
+            dialect.addSrc(compiler.getSourceName(), source.getBytes(IoUtils.UTF8_CHARSET));
+            generatedClassNames.put(objectTypeNode, compiler.getName());
+        }
+
+        if (generatedClassNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
-        JavaDialect dialect = (JavaDialect) pkgReg.getDialectCompiletimeRegistry().getDialect("java");
-        dialect.addSrc(compiler.getBinaryName(), source.getBytes(IoUtils.UTF8_CHARSET));
         kBuilder.compileAll();
         kBuilder.updateResults();
+        if (kBuilder.hasErrors()) {
+            logger.warn("Errors while compiling the alpha network: " + kBuilder.getErrors());
+        }
 
-        CompiledNetwork network;
-        try {
-            network = (CompiledNetwork) Class.forName(generatedSourceName, true, kBuilder.getRootClassLoader()).newInstance();
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
+        // the compiled classes are stored in the runtime data of the java dialect of the package
+        ClassLoader classLoader = ((JavaDialectRuntimeData) pkgReg.getDialectRuntimeRegistry().getDialectData("java")).getClassLoader();
+
+        Map<ObjectTypeNode, CompiledNetwork> networks = new HashMap<ObjectTypeNode, CompiledNetwork>();
+        for (Map.Entry<ObjectTypeNode, String> entry : generatedClassNames.entrySet()) {
+            try {
+                networks.put(entry.getKey(), (CompiledNetwork) Class.forName(entry.getValue(), true, classLoader).newInstance());
+            } catch (ClassNotFoundException e) {
+                // the compilation of this network failed, so it will keep being interpreted
+                logger.debug("Cannot load the compiled network of " + entry.getKey(), e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            } catch (InstantiationException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            }
         }
 
-        return network;
+        return networks;
     }
 }
@@ -143,6 +143,7 @@ public class JavaAccumulateBuilder
         Set<Declaration> requiredDecl = new HashSet<Declaration>();
 
         Pattern pattern = (Pattern) context.getDeclarationResolver().peekBuildStack();
+        boolean slidingWindow = PackageBuilderUtil.isSlidingWindow( source );
 
         if (accumDescr.isMultiFunction()) {
             // the accumulator array
@@ -159,7 +160,7 @@ public class JavaAccumulateBuilder
                 }
 
                 bindReaderToDeclaration(context, accumDescr, pattern, fc, new ArrayElementReader(reader, index, function.getResultType()), function.getResultType(), index);
-                accumulators[index++] = buildAccumulator(context, accumDescr, declsInScope, declCls, readLocalsFromTuple, sourceDeclArr, requiredDecl, fc, function);
+                accumulators[index++] = buildAccumulator(context, accumDescr, declsInScope, declCls, readLocalsFromTuple, sourceDeclArr, requiredDecl, fc, function, slidingWindow);
             }
 
             return new MultiAccumulate( source,
@@ -183,7 +184,7 @@ public class JavaAccumulateBuilder
             }
 
             bindReaderToDeclaration(context, accumDescr, pattern, fc, new SelfReferenceClassFieldReader( function.getResultType() ), function.getResultType(), -1);
-            Accumulator accumulator = buildAccumulator(context, accumDescr, declsInScope, declCls, readLocalsFromTuple, sourceDeclArr, requiredDecl, fc, function);
+            Accumulator accumulator = buildAccumulator(context, accumDescr, declsInScope, declCls, readLocalsFromTuple, sourceDeclArr, requiredDecl, fc, function, slidingWindow);
 
             return new SingleAccumulate( source,
                                          requiredDecl.toArray(new Declaration[requiredDecl.size()]),
@@ -268,7 +269,7 @@ public class JavaAccumulateBuilder
         return functionName;
     }
 
-    private Accumulator buildAccumulator(RuleBuildContext context, AccumulateDescr accumDescr, Map<String, Declaration> declsInScope, Map<String, Class<?>> declCls, boolean readLocalsFromTuple, Declaration[] sourceDeclArr, Set<Declaration> requiredDecl, AccumulateFunctionCallDescr fc, AccumulateFunction function) {
+    private Accumulator buildAccumulator(RuleBuildContext context, AccumulateDescr accumDescr, Map<String, Declaration> declsInScope, Map<String, Class<?>> declCls, boolean readLocalsFromTuple, Declaration[] sourceDeclArr, Set<Declaration> requiredDecl, AccumulateFunctionCallDescr fc, AccumulateFunction function, boolean slidingWindow) {
         // analyze the expression
         final JavaAnalysisResult analysis = (JavaAnalysisResult) context.getDialect().analyzeBlock( context,
                                                                                                     accumDescr,
@@ -296,7 +297,8 @@ public class JavaAccumulateBuilder
                                                  function,
                                                  usedIdentifiers,
                                                  previousDeclarations,
-                                                 readLocalsFromTuple );
+                                                 readLocalsFromTuple,
+                                                 slidingWindow );
     }
 
     private Declaration[] collectRequiredDeclarations( Map<String, Declaration> declsInScope,
@@ -319,7 +321,8 @@ public class JavaAccumulateBuilder
                                                                               AccumulateFunction function,
                                                                               final BoundIdentifiers usedIdentifiers,
                                                                               final Declaration[] previousDeclarations,
-                                                                              final boolean readLocalsFromTuple ) {
+                                                                              final boolean readLocalsFromTuple,
+                                                                              final boolean slidingWindow ) {
         final String className = "accumulateExpression" + context.getNextId();
         final Map<String, Object> map = createVariableContext( className,
                                                                fc.getParams().length > 0 ? fc.getParams()[ 0 ] : "\"\"",
@@ -332,6 +335,7 @@ public class JavaAccumulateBuilder
                  readLocalsFromTuple ? Boolean.TRUE : Boolean.FALSE );
 
         JavaAccumulatorFunctionExecutor accumulator = new JavaAccumulatorFunctionExecutor( function );
+        accumulator.setSlidingWindow( slidingWindow );
 
         generateTemplates("returnValueMethod",
                 "returnValueInvoker",
@@ -22,10 +22,12 @@ import org.drools.compiler.builder.impl.errors.RuleErrorHandler;
 import org.drools.compiler.builder.impl.errors.RuleInvokerErrorHandler;
 import org.drools.compiler.builder.impl.errors.SrcErrorHandler;
 import org.drools.compiler.commons.jci.compilers.CompilationResult;
+import org.drools.compiler.commons.jci.compilers.EclipseJavaCompiler;
 import org.drools.compiler.commons.jci.compilers.JavaCompiler;
 import org.drools.compiler.commons.jci.compilers.JavaCompilerFactory;
 import org.drools.compiler.commons.jci.problems.CompilationProblem;
 import org.drools.compiler.commons.jci.readers.MemoryResourceReader;
+import org.drools.compiler.commons.jci.stores.ResourceStore;
 import org.drools.compiler.compiler.AnalysisResult;
 import org.drools.compiler.compiler.BoundIdentifiers;
 import org.drools.compiler.compiler.DescrBuildError;
@@ -91,18 +93,26 @@ import org.drools.core.rule.JavaDialectRuntimeData;
 import org.drools.core.rule.LineMappings;
 import org.drools.core.util.IoUtils;
 import org.drools.core.util.StringUtils;
+import org.kie.api.concurrent.KieExecutors;
 import org.kie.api.io.Resource;
 import org.kie.internal.builder.KnowledgeBuilderResult;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 public class JavaDialect
     implements
@@ -152,6 +162,8 @@ public class JavaDialect
     private final ClassLoader                        rootClassLoader;
     private final KnowledgeBuilderConfigurationImpl  pkgConf;
     private final List<String>                       generatedClassList;
+    // the positions in the generatedClassList where the classes of a rule begin
+    private final List<Integer>                      ruleClassesStarts;
     private final MemoryResourceReader               src;
     private final PackageStore                       packageStoreWrapper;
     private final Map<String, ErrorHandler>          errorHandlers;
@@ -176,6 +188,7 @@ public class JavaDialect
         this.src = new MemoryResourceReader();
 
         this.generatedClassList = new ArrayList<String>();
+        this.ruleClassesStarts = new ArrayList<Integer>();
 
         JavaDialectRuntimeData data = (JavaDialectRuntimeData) pkg.getDialectRuntimeRegistry().getDialectData( ID );
 
@@ -403,6 +416,7 @@ public class JavaDialect
     public void compileAll() {
         if ( this.generatedClassList.isEmpty() ) {
             this.errorHandlers.clear();
+            this.ruleClassesStarts.clear();
             return;
         }
         final String[] classes = new String[this.generatedClassList.size()];
@@ -414,10 +428,7 @@ public class JavaDialect
                            dumpDir );
         }
 
-        final CompilationResult result = this.compiler.compile( classes,
-                                                                this.src,
-                                                                this.packageStoreWrapper,
-                                                                rootClassLoader );
+        final CompilationResult result = compile( classes );
 
         //this will sort out the errors based on what class/file they happened in
         if ( result.getErrors().length > 0 ) {
@@ -438,9 +449,107 @@ public class JavaDialect
 
         // We've compiled everthing, so clear it for the next set of additions
         this.generatedClassList.clear();
+        this.ruleClassesStarts.clear();
         this.errorHandlers.clear();
     }
 
+    /**
+     * Compiles the given classes in a single batch, or in parallel batches when they belong to more rules than
+     * the parallel build threshold. The classes of a rule refer to each other, so each of them is compiled in the
+     * same batch of its rule, while the classes of different rules only refer to classes already compiled before.
+     * The package store is only read while the batches are compiled: each batch writes its classes in its own
+     * store, and they are all written in the package store once every batch is done.
+     */
+    private CompilationResult compile( final String[] classes ) {
+        int threshold = this.pkgConf.getParallelBuildThreshold();
+        int rulesNr = this.ruleClassesStarts.size();
+        if ( threshold < 0 || rulesNr <= threshold || rulesNr < 2 || !( this.compiler instanceof EclipseJavaCompiler ) ) {
+            return this.compiler.compile( classes,
+                                          this.src,
+                                          this.packageStoreWrapper,
+                                          rootClassLoader );
+        }
+
+        int batchesNr = Math.min( rulesNr, KieExecutors.Pool.SIZE );
+        List<FutureTask<CompilationResult>> batches = new ArrayList<FutureTask<CompilationResult>>( batchesNr );
+        List<BatchResourceStore> stores = new ArrayList<BatchResourceStore>( batchesNr );
+        Executor executor = ExecutorProviderFactory.getExecutorProvider().getExecutor();
+        int start = 0;
+        for ( int i = 1; i <= batchesNr; i++ ) {
+            int end = i == batchesNr ? classes.length : this.ruleClassesStarts.get( i * rulesNr / batchesNr );
+            final String[] batch = Arrays.copyOfRange( classes, start, end );
+            final BatchResourceStore store = new BatchResourceStore( this.packageStoreWrapper );
+            stores.add( store );
+            FutureTask<CompilationResult> compilation = new FutureTask<CompilationResult>( new Callable<CompilationResult>() {
+                public CompilationResult call() {
+                    return compiler.compile( batch,
+                                             src,
+                                             store,
+                                             rootClassLoader );
+                }
+            } );
+            batches.add( compilation );
+            if ( i < batchesNr ) {
+                executor.execute( compilation );
+            }
+            start = end;
+        }
+
+        List<CompilationProblem> problems = new ArrayList<CompilationProblem>();
+        for ( FutureTask<CompilationResult> compilation : batches ) {
+            // the last batch is compiled in this thread, as well as the ones the executor didn't start yet
+            compilation.run();
+            try {
+                CompilationResult result = compilation.get();
+                problems.addAll( Arrays.asList( result.getErrors() ) );
+                problems.addAll( Arrays.asList( result.getWarnings() ) );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( "Interrupted while compiling the rules of package " + this.pkg.getName(), e );
+            } catch ( ExecutionException e ) {
+                throw e.getCause() instanceof RuntimeException ?
+                      (RuntimeException) e.getCause() :
+                      new RuntimeException( e.getCause() );
+            }
+        }
+
+        for ( BatchResourceStore store : stores ) {
+            for ( Map.Entry<String, byte[]> entry : store.classes.entrySet() ) {
+                this.packageStoreWrapper.write( entry.getKey(), entry.getValue() );
+            }
+        }
+        return new CompilationResult( problems.toArray( new CompilationProblem[problems.size()] ) );
+    }
+
+    /**
+     * Keeps the classes compiled by a batch, and reads the ones it didn't compile from the package store.
+     */
+    private static class BatchResourceStore implements ResourceStore {
+        private final ResourceStore packageStore;
+        private final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+
+        private BatchResourceStore( ResourceStore packageStore ) {
+            this.packageStore = packageStore;
+        }
+
+        public void write( String resourceName, byte[] resourceData ) {
+            classes.put( resourceName, resourceData );
+        }
+
+        public void write( String resourceName, byte[] resourceData, boolean createFolder ) {
+            write( resourceName, resourceData );
+        }
+
+        public byte[] read( String resourceName ) {
+            byte[] resourceData = classes.get( resourceName );
+            return resourceData != null ? resourceData : packageStore.read( resourceName );
+        }
+
+        public void remove( String resourceName ) {
+            classes.remove( resourceName );
+        }
+    }
+
     /**
      * @param classes
      * @param dumpDir
@@ -490,6 +599,8 @@ public class JavaDialect
             return;
         }
 
+        this.ruleClassesStarts.add( this.generatedClassList.size() );
+
         // The compilation result is for the entire rule, so difficult to associate with any descr
         addClassCompileTask( this.pkg.getName() + "." + ruleDescr.getClassName(),
                              ruleDescr,
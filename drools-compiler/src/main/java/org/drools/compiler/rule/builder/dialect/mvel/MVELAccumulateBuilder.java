@@ -121,7 +121,8 @@ public class MVELAccumulateBuilder
                                                        decls,
                                                        sourceOuterDeclr,
                                                        boundIds,
-                                                       readLocalsFromTuple );
+                                                       readLocalsFromTuple,
+                                                       PackageBuilderUtil.isSlidingWindow( source ) );
             } else {
                 // it is a custom accumulate
                 accumulators = buildCustomAccumulate( context,
@@ -180,7 +181,8 @@ public class MVELAccumulateBuilder
                                                   Map<String, Declaration> decls,
                                                   Map<String, Declaration> sourceOuterDeclr,
                                                   BoundIdentifiers boundIds,
-                                                  boolean readLocalsFromTuple ) {
+                                                  boolean readLocalsFromTuple,
+                                                  boolean slidingWindow ) {
         Accumulator[] accumulators;
         List<AccumulateFunctionCallDescr> functions = accumDescr.getFunctions();
 
@@ -224,8 +226,10 @@ public class MVELAccumulateBuilder
                                                                        readLocalsFromTuple,
                                                                        MVELCompilationUnit.Scope.CONSTRAINT );
 
-            accumulators[index] = new MVELAccumulatorFunctionExecutor( unit,
-                                                                         function );
+            MVELAccumulatorFunctionExecutor accumulator = new MVELAccumulatorFunctionExecutor( unit,
+                                                                                               function );
+            accumulator.setSlidingWindow( slidingWindow );
+            accumulators[index] = accumulator;
             // if there is a binding, create the binding
             if ( func.getBind() != null ) {
                 if ( context.getDeclarationResolver().isDuplicated( context.getRule(), func.getBind(), function.getResultType().getName() ) ) {
@@ -21,9 +21,11 @@ import org.drools.compiler.lang.descr.EntryPointDescr;
 import org.drools.compiler.lang.descr.PatternDescr;
 import org.drools.compiler.lang.descr.WindowReferenceDescr;
 import org.drools.compiler.rule.builder.RuleBuildContext;
+import org.drools.core.rule.GroupElement;
 import org.drools.core.rule.Pattern;
 import org.drools.core.rule.QueryElement;
 import org.drools.core.rule.RuleConditionElement;
+import org.drools.core.rule.WindowReference;
 
 public class PackageBuilderUtil {
 
@@ -58,4 +60,21 @@ public class PackageBuilderUtil {
                   source instanceof QueryElement ||
                   ( source.getNestedElements().size() == 1 && source.getNestedElements().get( 0 ) instanceof QueryElement );
     }
+
+    /**
+     * Returns true if the source of an accumulate is a pattern over a sliding window, either declared
+     * inline with the pattern or referenced from a named window, so the facts leave the accumulation
+     * mostly in the same order they entered it.
+     */
+    public static boolean isSlidingWindow(RuleConditionElement source) {
+        // the mvel dialect keeps the single pattern of the accumulate wrapped in an and
+        if ( source instanceof GroupElement && ( (GroupElement) source ).isAnd() && source.getNestedElements().size() == 1 ) {
+            source = source.getNestedElements().get( 0 );
+        }
+        if ( !( source instanceof Pattern ) ) {
+            return false;
+        }
+        Pattern pattern = (Pattern) source;
+        return !pattern.getBehaviors().isEmpty() || pattern.getSource() instanceof WindowReference;
+    }
 }
@@ -23,6 +23,7 @@ import org.drools.compiler.OrderItem;
 import org.drools.compiler.OuterClass;
 import org.drools.compiler.Person;
 import org.drools.compiler.kproject.ReleaseIdImpl;
+import org.drools.core.base.accumulators.PercentileAccumulateFunction;
 import org.drools.core.command.runtime.rule.InsertElementsCommand;
 import org.drools.core.reteoo.JoinNode;
 import org.drools.core.reteoo.LeftTupleSink;
@@ -54,7 +55,9 @@ import org.kie.api.runtime.rule.Variable;
 import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.AccumulateFunctionOption;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 import org.kie.internal.utils.KieHelper;
@@ -3242,6 +3245,154 @@ public class AccumulateTest extends CommonTestMethodBase {
         assertEquals( "you", list.get(0).getName() );
     }
 
+    @Test
+    public void testReverseMinMaxMedianAndCollectList() {
+        String drl1 =
+                "import " + PersonWithBoxedAge.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule R when\n" +
+                "  accumulate ( PersonWithBoxedAge( $a : age ), $min : min( $a ), $max : max( $a ), $median : median( $a ), $ages : collectList( $a ) )\n" +
+                "then\n" +
+                "  list.add( $min + \" \" + $max + \" \" + $median + \" \" + $ages.size() );\n" +
+                "end";
+
+        KieSession ksession = new KieHelper().addContent( drl1, ResourceType.DRL )
+                                             .build()
+                                             .newKieSession();
+
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        FactHandle fh30 = ksession.insert( new PersonWithBoxedAge("me", 30) );
+        FactHandle fh40 = ksession.insert( new PersonWithBoxedAge("you", 40) );
+        FactHandle fh25 = ksession.insert( new PersonWithBoxedAge("she", 25) );
+        ksession.insert( new PersonWithBoxedAge("he", 35) );
+        ksession.fireAllRules();
+        assertEquals( "25 40 30 4", list.get( list.size() - 1 ) );
+
+        // the retraction of the current max and min must be reversed without losing the other values
+        ksession.delete( fh40 );
+        ksession.fireAllRules();
+        assertEquals( "25 35 30 3", list.get( list.size() - 1 ) );
+
+        ksession.delete( fh25 );
+        ksession.fireAllRules();
+        assertEquals( "30 35 30 2", list.get( list.size() - 1 ) );
+
+        ksession.delete( fh30 );
+        ksession.fireAllRules();
+        assertEquals( "35 35 35 1", list.get( list.size() - 1 ) );
+    }
+
+    @Test
+    public void testCollectListReverseOfModifiedFactWithChangedHash() {
+        String drl1 =
+                "import " + MutableHashFact.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule R when\n" +
+                "  accumulate ( $f : MutableHashFact(), $facts : collectList( $f ) )\n" +
+                "then\n" +
+                "  list.add( $facts.size() );\n" +
+                "end";
+
+        KieSession ksession = new KieHelper().addContent( drl1, ResourceType.DRL )
+                                             .build()
+                                             .newKieSession();
+
+        List<Integer> list = new ArrayList<Integer>();
+        ksession.setGlobal( "list", list );
+
+        MutableHashFact fact = new MutableHashFact( 1 );
+        FactHandle fh = ksession.insert( fact );
+        ksession.insert( new MutableHashFact( 2 ) );
+        ksession.fireAllRules();
+        assertEquals( 2, (int) list.get( list.size() - 1 ) );
+
+        // the reverse of the modified fact has to find it even if its hash changed since it was accumulated
+        fact.setValue( 3 );
+        ksession.update( fh, fact );
+        ksession.fireAllRules();
+        assertEquals( 2, (int) list.get( list.size() - 1 ) );
+
+        fact.setValue( 2 );
+        ksession.update( fh, fact );
+        ksession.fireAllRules();
+        assertEquals( 2, (int) list.get( list.size() - 1 ) );
+
+        ksession.delete( fh );
+        ksession.fireAllRules();
+        assertEquals( 1, (int) list.get( list.size() - 1 ) );
+    }
+
+    @Test
+    public void testPercentiles() {
+        String drl1 =
+                "import " + PersonWithBoxedAge.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule R when\n" +
+                "  accumulate ( PersonWithBoxedAge( $a : age ), $p25 : p25( $a ), $p90 : p90( $a ), $p100 : p100( $a ) )\n" +
+                "then\n" +
+                "  list.add( $p25 + \" \" + $p90 + \" \" + $p100 );\n" +
+                "end";
+
+        KnowledgeBuilderConfiguration kbconf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        kbconf.setOption( AccumulateFunctionOption.get( "p25", new PercentileAccumulateFunction( 0.25 ) ) );
+        kbconf.setOption( AccumulateFunctionOption.get( "p90", new PercentileAccumulateFunction( 0.9 ) ) );
+        kbconf.setOption( AccumulateFunctionOption.get( "p100", new PercentileAccumulateFunction( 1.0 ) ) );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( kbconf );
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl1.getBytes() ), ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        KieSession ksession = kbase.newStatefulKnowledgeSession();
+
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        FactHandle[] fhs = new FactHandle[10];
+        for ( int i = 0; i < 10; i++ ) {
+            fhs[i] = ksession.insert( new PersonWithBoxedAge( "p" + i, i + 1 ) );
+        }
+        ksession.fireAllRules();
+        // nearest rank: the smallest value with at least the given fraction of the values less than or equal to it
+        assertEquals( "3 9 10", list.get( list.size() - 1 ) );
+
+        ksession.delete( fhs[9] );
+        ksession.fireAllRules();
+        assertEquals( "3 9 9", list.get( list.size() - 1 ) );
+
+        ksession.delete( fhs[0] );
+        ksession.delete( fhs[8] );
+        ksession.fireAllRules();
+        assertEquals( "3 8 8", list.get( list.size() - 1 ) );
+    }
+
+    public static class MutableHashFact {
+        private int value;
+
+        public MutableHashFact( int value ) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue( int value ) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            return obj instanceof MutableHashFact && ( (MutableHashFact) obj ).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
     public static class PersonWithBoxedAge implements Comparable<PersonWithBoxedAge> {
         private final String name;
         private final Integer age;
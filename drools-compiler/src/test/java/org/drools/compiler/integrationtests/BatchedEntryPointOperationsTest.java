@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.Person;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemoryEntryPoint;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchedEntryPointOperationsTest extends CommonTestMethodBase {
+
+    private static final String DRL =
+            "import " + Person.class.getCanonicalName() + "\n" +
+            "import " + Cheese.class.getCanonicalName() + "\n" +
+            "global java.util.List list\n" +
+            "rule R when\n" +
+            "    $c : Cheese( $type : type )\n" +
+            "    $p : Person( likes == $type, age > 18 )\n" +
+            "then\n" +
+            "    list.add( $p.getName() + \":\" + $c.getPrice() );\n" +
+            "end\n";
+
+    @Test
+    public void testInsertAll() {
+        KieSession ksession = new KieHelper().addContent( DRL, ResourceType.DRL ).build().newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        final List<Object> inserted = new ArrayList<Object>();
+        ksession.addEventListener( new DefaultRuleRuntimeEventListener() {
+            @Override
+            public void objectInserted( ObjectInsertedEvent event ) {
+                inserted.add( event.getObject() );
+            }
+        } );
+
+        Person mario = new Person( "Mario", "stilton", 40 );
+        Person mark = new Person( "Mark", "brie", 38 );
+        Person edson = new Person( "Edson", "stilton", 10 );
+        Cheese stilton = new Cheese( "stilton", 10 );
+        Cheese brie = new Cheese( "brie", 20 );
+
+        List<FactHandle> handles = ( (StatefulKnowledgeSessionImpl) ksession ).insertAll( Arrays.asList( mario, stilton, mark, null, edson, brie, mario ) );
+        assertEquals( 7, handles.size() );
+        assertNull( handles.get( 3 ) );
+        // the same object is inserted only once
+        assertSame( handles.get( 0 ), handles.get( 6 ) );
+        assertEquals( 5, ksession.getFactCount() );
+        assertEquals( 5, inserted.size() );
+
+        for (int i = 0; i < handles.size(); i++) {
+            if ( handles.get( i ) != null ) {
+                assertSame( ksession.getObject( handles.get( i ) ), Arrays.asList( mario, stilton, mark, null, edson, brie, mario ).get( i ) );
+            }
+        }
+
+        // the handles take consecutive ids and recencies
+        InternalFactHandle first = (InternalFactHandle) handles.get( 0 );
+        InternalFactHandle last = (InternalFactHandle) handles.get( 5 );
+        assertEquals( 4, last.getId() - first.getId() );
+        assertEquals( 4, last.getRecency() - first.getRecency() );
+        assertEquals( Arrays.asList( mario, stilton, mark, edson, brie ), inserted );
+
+        assertEquals( 2, ksession.fireAllRules() );
+        assertTrue( list.containsAll( Arrays.asList( "Mario:10", "Mark:20" ) ) );
+
+        // facts inserted after the batch still get fresh handles
+        FactHandle fh = ksession.insert( new Person( "Luca", "brie", 30 ) );
+        assertTrue( ( (InternalFactHandle) fh ).getId() > last.getId() );
+        assertEquals( 1, ksession.fireAllRules() );
+    }
+
+    @Test
+    public void testInsertAllPreservesOrderAndRecency() {
+        String drl =
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "import " + Cheese.class.getCanonicalName() + "\n" +
+                "rule R when\n" +
+                "    Person( $name : name )\n" +
+                "then\n" +
+                "    insertLogical( $name );\n" +
+                "end\n";
+
+        KieSession ksession = new KieHelper().addContent( drl, ResourceType.DRL ).build().newKieSession();
+        StatefulKnowledgeSessionImpl session = (StatefulKnowledgeSessionImpl) ksession;
+        session.insert( new Person( "Mario", 40 ) );
+        ksession.fireAllRules();
+
+        final List<Object> inserted = new ArrayList<Object>();
+        ksession.addEventListener( new DefaultRuleRuntimeEventListener() {
+            @Override
+            public void objectInserted( ObjectInsertedEvent event ) {
+                inserted.add( event.getObject() );
+            }
+        } );
+
+        // the String is justified by the rule, so its stated insertion falls back to the truth maintenance system
+        List<Object> objects = Arrays.<Object>asList( new Person( "Mark", 38 ), new Cheese( "brie", 20 ), "Mario",
+                                                      new Cheese( "stilton", 10 ), new Person( "Edson", 35 ) );
+        List<FactHandle> handles = session.insertAll( objects );
+        assertEquals( objects, inserted );
+
+        // ids and recencies follow the order of the collection without gaps, also across the fallback
+        for (int i = 1; i < handles.size(); i++) {
+            InternalFactHandle previous = (InternalFactHandle) handles.get( i - 1 );
+            InternalFactHandle current = (InternalFactHandle) handles.get( i );
+            assertEquals( previous.getId() + 1, current.getId() );
+            assertEquals( previous.getRecency() + 1, current.getRecency() );
+        }
+
+        // the next single insertion continues from the batch
+        InternalFactHandle fh = (InternalFactHandle) ksession.insert( new Cheese( "gorgonzola", 30 ) );
+        InternalFactHandle last = (InternalFactHandle) handles.get( handles.size() - 1 );
+        assertEquals( last.getId() + 1, fh.getId() );
+        assertEquals( last.getRecency() + 1, fh.getRecency() );
+    }
+
+    @Test
+    public void testInsertAllThroughHashedAlphaNodes() {
+        // enough literal constraints on the same field to get the alpha nodes hashed
+        StringBuilder drl = new StringBuilder( "import " + Person.class.getCanonicalName() + "\n" +
+                                               "global java.util.List list\n" );
+        for ( String likes : new String[] { "stilton", "brie", "cheddar", "gorgonzola" } ) {
+            drl.append( "rule \"" + likes + "\" when\n" +
+                        "    Person( likes == \"" + likes + "\", age > 18, $name : name )\n" +
+                        "then\n" +
+                        "    list.add( $name + \":" + likes + "\" );\n" +
+                        "end\n" );
+        }
+
+        KieSession ksession = new KieHelper().addContent( drl.toString(), ResourceType.DRL ).build().newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        Person mario = new Person( "Mario", "stilton", 40 );
+        Person mark = new Person( "Mark", "brie", 38 );
+        Person edson = new Person( "Edson", "stilton", 10 );
+        Person luca = new Person( "Luca", "gorgonzola", 30 );
+        Person davide = new Person( "Davide", "stilton", 35 );
+
+        // the duplicate inside the run is inserted only once and shares the handle of its first occurrence
+        List<FactHandle> handles = ( (StatefulKnowledgeSessionImpl) ksession ).insertAll( Arrays.asList( mario, mark, edson, mario, luca, davide ) );
+        assertSame( handles.get( 0 ), handles.get( 3 ) );
+        assertEquals( 5, ksession.getFactCount() );
+        assertEquals( ( (InternalFactHandle) handles.get( 0 ) ).getId() + 4, ( (InternalFactHandle) handles.get( 5 ) ).getId() );
+
+        assertEquals( 4, ksession.fireAllRules() );
+        assertTrue( list.containsAll( Arrays.asList( "Mario:stilton", "Mark:brie", "Luca:gorgonzola", "Davide:stilton" ) ) );
+    }
+
+    @Test
+    public void testUpdateAll() {
+        KieSession ksession = new KieHelper().addContent( DRL, ResourceType.DRL ).build().newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        final List<Object> updated = new ArrayList<Object>();
+        ksession.addEventListener( new DefaultRuleRuntimeEventListener() {
+            @Override
+            public void objectUpdated( ObjectUpdatedEvent event ) {
+                updated.add( event.getObject() );
+            }
+        } );
+
+        Person mario = new Person( "Mario", "stilton", 10 );
+        Person mark = new Person( "Mark", "stilton", 12 );
+        Cheese stilton = new Cheese( "stilton", 10 );
+
+        InternalWorkingMemoryEntryPoint ep = (InternalWorkingMemoryEntryPoint) ksession.getEntryPoint( "DEFAULT" );
+        List<FactHandle> handles = ep.insertAll( Arrays.asList( mario, mark, stilton ) );
+        assertEquals( 0, ksession.fireAllRules() );
+
+        mario.setAge( 40 );
+        mark.setAge( 38 );
+        ep.updateAll( handles.subList( 0, 2 ) );
+        assertEquals( 2, updated.size() );
+        assertEquals( 2, ksession.fireAllRules() );
+        assertTrue( list.containsAll( Arrays.asList( "Mario:10", "Mark:10" ) ) );
+
+        stilton.setPrice( 15 );
+        mark.setAge( 15 );
+        ep.updateAll( handles );
+        assertEquals( 1, ksession.fireAllRules() );
+        assertEquals( "Mario:15", list.get( 2 ) );
+    }
+
+    @Test
+    public void testDeleteAll() {
+        KieSession ksession = new KieHelper().addContent( DRL, ResourceType.DRL ).build().newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        final List<Object> deleted = new ArrayList<Object>();
+        ksession.addEventListener( new DefaultRuleRuntimeEventListener() {
+            @Override
+            public void objectDeleted( ObjectDeletedEvent event ) {
+                deleted.add( event.getOldObject() );
+            }
+        } );
+
+        Person mario = new Person( "Mario", "stilton", 40 );
+        Person mark = new Person( "Mark", "brie", 38 );
+        Cheese stilton = new Cheese( "stilton", 10 );
+        Cheese brie = new Cheese( "brie", 20 );
+
+        StatefulKnowledgeSessionImpl session = (StatefulKnowledgeSessionImpl) ksession;
+        List<FactHandle> handles = session.insertAll( Arrays.asList( mario, mark, stilton, brie ) );
+
+        // deleting the same handle twice has no effect
+        session.deleteAll( Arrays.asList( handles.get( 0 ), handles.get( 3 ), handles.get( 0 ) ) );
+        assertEquals( 2, ksession.getFactCount() );
+        assertEquals( Arrays.asList( mario, brie ), deleted );
+        assertEquals( 0, ksession.fireAllRules() );
+
+        session.deleteAll( handles );
+        assertEquals( 0, ksession.getFactCount() );
+        assertEquals( 4, deleted.size() );
+    }
+
+    @Test
+    public void testInsertAllWithLogicalInsertions() {
+        String drl =
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "rule R when\n" +
+                "    Person( $name : name )\n" +
+                "then\n" +
+                "    insertLogical( $name );\n" +
+                "end\n";
+
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build();
+        KieSession ksession = kbase.newKieSession();
+        StatefulKnowledgeSessionImpl session = (StatefulKnowledgeSessionImpl) ksession;
+
+        List<FactHandle> handles = session.insertAll( Arrays.asList( new Person( "Mario", 40 ), new Person( "Mark", 38 ) ) );
+        ksession.fireAllRules();
+        assertEquals( 4, ksession.getFactCount() );
+
+        // Strings are now justified by the rule, so these stated insertions go through the truth maintenance system
+        session.insertAll( Arrays.asList( "Mario", "Luca" ) );
+        assertEquals( 5, ksession.getFactCount() );
+
+        session.deleteAll( handles );
+        ksession.fireAllRules();
+        assertEquals( 2, ksession.getFactCount() );
+        assertTrue( ksession.getObjects().containsAll( Arrays.asList( "Mario", "Luca" ) ) );
+    }
+}
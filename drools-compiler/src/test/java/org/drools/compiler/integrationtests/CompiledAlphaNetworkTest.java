@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.Person;
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledAlphaNetworkTest extends CommonTestMethodBase {
+
+    private static final String DRL =
+            "import " + Person.class.getCanonicalName() + "\n" +
+            "global java.util.List list\n" +
+            // hashed on a String field
+            "rule H1 when $p : Person( name == \"Mark\" ) then list.add( \"H1:\" + $p.getName() ); end\n" +
+            "rule H2 when $p : Person( name == \"Edson\" ) then list.add( \"H2:\" + $p.getName() ); end\n" +
+            "rule H3 when $p : Person( name == \"Mario\" ) then list.add( \"H3:\" + $p.getName() ); end\n" +
+            // hashed alpha with an alpha below it
+            "rule H4 when $p : Person( name == \"Luca\", age > 30 ) then list.add( \"H4:\" + $p.getName() ); end\n" +
+            // hashed on an int field
+            "rule A1 when $p : Person( age == 20 ) then list.add( \"A1:\" + $p.getName() ); end\n" +
+            "rule A2 when $p : Person( age == 40 ) then list.add( \"A2:\" + $p.getName() ); end\n" +
+            "rule A3 when $p : Person( age == 50 ) then list.add( \"A3:\" + $p.getName() ); end\n" +
+            // hashed on a char field
+            "rule S1 when $p : Person( sex == 'M' ) then list.add( \"S1:\" + $p.getName() ); end\n" +
+            "rule S2 when $p : Person( sex == 'F' ) then list.add( \"S2:\" + $p.getName() ); end\n" +
+            "rule S3 when $p : Person( sex == 'X' ) then list.add( \"S3:\" + $p.getName() ); end\n" +
+            // not hashed
+            "rule R1 when $p : Person( age > 35 ) then list.add( \"R1:\" + $p.getName() ); end\n" +
+            "rule R2 when $p : Person( name.length() > 4, age < 45 ) then list.add( \"R2:\" + $p.getName() ); end\n" +
+            "rule R3 when $p : Person( likes == \"cheese\" ) then list.add( \"R3:\" + $p.getName() ); end\n" +
+            // join
+            "rule J1 when $p1 : Person( name == \"Mark\" ) $p2 : Person( age == $p1.age, this != $p1 ) then list.add( \"J1:\" + $p2.getName() ); end\n";
+
+    @Test
+    public void testCompiledNetworkPropagatesAsTheInterpretedOne() {
+        List<String> interpreted = runScenario( loadKnowledgeBaseFromString( newKieBaseConfiguration( false ), DRL ) );
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( newKieBaseConfiguration( true ), DRL );
+        assertNotNull( getCompiledNetwork( kbase ) );
+        List<String> compiled = runScenario( kbase );
+
+        assertFalse( interpreted.isEmpty() );
+        assertEquals( interpreted, compiled );
+    }
+
+    @Test
+    public void testNetworkIsCompiledAgainAfterAChangeOfTheKieBase() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( newKieBaseConfiguration( true ), DRL );
+        CompiledNetwork network = getCompiledNetwork( kbase );
+        assertNotNull( network );
+
+        String drl2 =
+                "package org.drools.compiler.test\n" +
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "global java.util.List list\n" +
+                "rule H5 when $p : Person( name == \"Bob\" ) then list.add( \"H5:\" + $p.getName() ); end\n";
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl2.getBytes() ), ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        CompiledNetwork newNetwork = getCompiledNetwork( kbase );
+        assertNotNull( newNetwork );
+        assertNotSame( network, newNetwork );
+
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        ksession.insert( new Person( "Bob", 20 ) );
+        ksession.fireAllRules();
+        assertTrue( list.contains( "H5:Bob" ) );
+        assertTrue( list.contains( "A1:Bob" ) );
+
+        kbase.removeRule( "org.drools.compiler.test", "H5" );
+        assertNotSame( newNetwork, getCompiledNetwork( kbase ) );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testInterpretedWhenNotEnabled() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( newKieBaseConfiguration( false ), DRL );
+        assertNull( getCompiledNetwork( kbase ) );
+    }
+
+    private List<String> runScenario( KnowledgeBase kbase ) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        Person mark = new Person( "Mark", 40 );
+        mark.setSex( 'M' );
+        Person edson = new Person( "Edson", 20 );
+        edson.setSex( 'M' );
+        Person luca = new Person( "Luca", 50 );
+        luca.setLikes( "cheese" );
+        Person mario = new Person( "Mario", 40 );
+        mario.setSex( 'X' );
+
+        FactHandle markFh = ksession.insert( mark );
+        FactHandle edsonFh = ksession.insert( edson );
+        FactHandle lucaFh = ksession.insert( luca );
+        FactHandle marioFh = ksession.insert( mario );
+        ksession.fireAllRules();
+        list.add( "--- inserted" );
+
+        // modify of hashed and non hashed fields
+        edson.setName( "Luca" );
+        edson.setAge( 35 );
+        ksession.update( edsonFh, edson );
+        luca.setAge( 25 );
+        luca.setSex( 'F' );
+        ksession.update( lucaFh, luca );
+        ksession.fireAllRules();
+        list.add( "--- modified" );
+
+        // modify of a field not used by any constraint
+        mark.setHair( "brown" );
+        ksession.update( markFh, mark );
+        mario.setLikes( "cheese" );
+        mario.setAge( 50 );
+        ksession.update( marioFh, mario );
+        ksession.fireAllRules();
+        list.add( "--- modified again" );
+
+        ksession.delete( markFh );
+        ksession.insert( new Person( "Mark", 50 ) );
+        ksession.fireAllRules();
+        list.add( "--- deleted" );
+
+        ksession.dispose();
+        return list;
+    }
+
+    private static KieBaseConfiguration newKieBaseConfiguration( boolean compiledAlphaNetwork ) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( RuleBaseConfiguration.COMPILED_ALPHA_NETWORK_PROPERTY, Boolean.toString( compiledAlphaNetwork ) );
+        return kconf;
+    }
+
+    private static CompiledNetwork getCompiledNetwork( KnowledgeBase kbase ) {
+        for ( ObjectTypeNode otn : ( (KnowledgeBaseImpl) kbase ).getRete().getObjectTypeNodes() ) {
+            if ( Person.class == ( (ClassObjectType) otn.getObjectType() ).getClassType() ) {
+                return otn.getCompiledNetwork();
+            }
+        }
+        return null;
+    }
+}
@@ -17,6 +17,9 @@
 package org.drools.compiler.integrationtests;
 
 import org.drools.core.ClockType;
+import org.drools.core.SessionConfiguration;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.reteoo.ExpirationBuckets;
 import org.drools.core.time.impl.PseudoClockScheduler;
 import org.junit.Test;
 import org.kie.api.KieBase;
@@ -25,9 +28,12 @@ import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.KieSessionConfiguration;
 import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.utils.KieHelper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -230,6 +236,143 @@ public class ExpirationTest {
         assertEquals(0, counter.get());
     }
 
+    @Test
+    public void testEventsExpiringTogetherShareABucket() {
+        String drl = "import " + A.class.getCanonicalName() + "\n" +
+                     "declare A @role( event ) @expires(10ms) end\n" +
+                     "global java.util.concurrent.atomic.AtomicInteger counter;\n" +
+                     "rule R0 when\n" +
+                     "  $a: A( id > 0 )\n" +
+                     "then\n" +
+                     "  counter.incrementAndGet();\n" +
+                     "end";
+
+        KieSessionConfiguration sessionConfig = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        sessionConfig.setOption( ClockTypeOption.get( ClockType.PSEUDO_CLOCK.getId() ) );
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieBase kbase = helper.build( EventProcessingOption.STREAM );
+        KieSession ksession = kbase.newKieSession( sessionConfig, null );
+        ExpirationBuckets buckets = ( (InternalWorkingMemory) ksession ).getExpirationBuckets();
+
+        PseudoClockScheduler sessionClock = ksession.getSessionClock();
+
+        AtomicInteger counter = new AtomicInteger( 0 );
+        ksession.setGlobal( "counter", counter );
+
+        for (int i = 1; i <= 100; i++) {
+            ksession.insert( new A(i) );
+        }
+        ksession.delete( ksession.getFactHandle( ksession.getObjects().iterator().next() ) );
+        ksession.fireAllRules();
+        assertEquals( 99, counter.get() );
+
+        // all the events expire at the same time, so they are expired by a single job
+        assertEquals( 1, buckets.size() );
+
+        sessionClock.advanceTime( 10, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 99, ksession.getFactCount() );
+
+        // an event is retained until its expiration offset has been exceeded
+        sessionClock.advanceTime( 1, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 0, ksession.getFactCount() );
+        assertEquals( 0, buckets.size() );
+    }
+
+    @Test
+    public void testDeletedEventsLeaveTheirBuckets() {
+        String drl = "import " + A.class.getCanonicalName() + "\n" +
+                     "declare A @role( event ) @expires(1h) end\n" +
+                     "rule R0 when\n" +
+                     "  $a: A( id > 0 )\n" +
+                     "then\n" +
+                     "end";
+
+        KieSessionConfiguration sessionConfig = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        sessionConfig.setOption( ClockTypeOption.get( ClockType.PSEUDO_CLOCK.getId() ) );
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieBase kbase = helper.build( EventProcessingOption.STREAM );
+        KieSession ksession = kbase.newKieSession( sessionConfig, null );
+        ExpirationBuckets buckets = ( (InternalWorkingMemory) ksession ).getExpirationBuckets();
+
+        PseudoClockScheduler sessionClock = ksession.getSessionClock();
+
+        List<FactHandle> handles = new ArrayList<FactHandle>();
+        for (int i = 1; i <= 10; i++) {
+            handles.add( ksession.insert( new A(i) ) );
+            handles.add( ksession.insert( new A(-i) ) );
+            sessionClock.advanceTime( 1, TimeUnit.MILLISECONDS );
+        }
+        ksession.fireAllRules();
+        assertEquals( 10, buckets.size() );
+
+        // the bucket is kept until the last of its events is deleted, then its job is cancelled
+        for (int i = 0; i < 19; i++) {
+            ksession.delete( handles.get( i ) );
+            ksession.fireAllRules();
+            assertEquals( 10 - ( i + 1 ) / 2, buckets.size() );
+        }
+        ksession.delete( handles.get( 19 ) );
+        ksession.fireAllRules();
+        assertEquals( 0, buckets.size() );
+        assertEquals( -1, sessionClock.getTimeToNextJob() );
+        assertEquals( 0, ksession.getFactCount() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testExpirationBucketSize() {
+        String drl = "import " + A.class.getCanonicalName() + "\n" +
+                     "declare A @role( event ) @expires(11ms) end\n" +
+                     "rule R0 when\n" +
+                     "  $a: A( id > 0 )\n" +
+                     "then\n" +
+                     "end";
+
+        KieSessionConfiguration sessionConfig = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        sessionConfig.setOption( ClockTypeOption.get( ClockType.PSEUDO_CLOCK.getId() ) );
+        sessionConfig.setProperty( SessionConfiguration.EXPIRATION_BUCKET_SIZE_PROPERTY, "10" );
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieBase kbase = helper.build( EventProcessingOption.STREAM );
+        KieSession ksession = kbase.newKieSession( sessionConfig, null );
+        ExpirationBuckets buckets = ( (InternalWorkingMemory) ksession ).getExpirationBuckets();
+
+        PseudoClockScheduler sessionClock = ksession.getSessionClock();
+
+        // the events expiring at 11, 14 and 18 are grouped in the bucket ending at 20, the one expiring at 21 in the next one
+        ksession.insert( new A(1) );
+        sessionClock.advanceTime( 3, TimeUnit.MILLISECONDS );
+        ksession.insert( new A(2) );
+        sessionClock.advanceTime( 4, TimeUnit.MILLISECONDS );
+        ksession.insert( new A(3) );
+        sessionClock.advanceTime( 3, TimeUnit.MILLISECONDS );
+        ksession.insert( new A(4) );
+        ksession.fireAllRules();
+        assertEquals( 2, buckets.size() );
+
+        // an event is never expired before its expiration time
+        sessionClock.advanceTime( 9, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 4, ksession.getFactCount() );
+
+        sessionClock.advanceTime( 1, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 1, ksession.getFactCount() );
+        assertEquals( 1, buckets.size() );
+
+        sessionClock.advanceTime( 10, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 0, ksession.getFactCount() );
+        assertEquals( 0, buckets.size() );
+    }
+
     public class A {
         private final int id;
 
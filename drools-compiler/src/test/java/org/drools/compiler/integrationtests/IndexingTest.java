@@ -18,6 +18,7 @@ package org.drools.compiler.integrationtests;
 import org.drools.compiler.Cheese;
 import org.drools.compiler.CommonTestMethodBase;
 import org.drools.compiler.Person;
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.base.ClassObjectType;
 import org.drools.core.base.DroolsQuery;
 import org.drools.core.common.DoubleNonIndexSkipBetaConstraints;
@@ -38,21 +39,35 @@ import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.RightTuple;
 import org.drools.core.rule.IndexableConstraint;
 import org.drools.core.util.FastIterator;
+import org.drools.core.util.index.LeftTupleIndexRangeRBTree;
+import org.drools.core.util.index.RightTupleIndexRangeRBTree;
 import org.drools.core.util.index.TupleIndexHashTable;
+import org.drools.core.util.index.TupleIndexPrimitiveHashTable;
+import org.drools.core.util.index.TupleIndexRBTree;
 import org.drools.core.util.index.TupleList;
 import org.junit.Test;
 import org.kie.api.definition.rule.Rule;
 import org.kie.api.definition.type.FactType;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.rule.FactHandle;
 import org.kie.api.runtime.rule.Row;
 import org.kie.api.runtime.rule.Variable;
 import org.kie.api.runtime.rule.ViewChangedEventListener;
 import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiPredicate;
 
 import static org.drools.core.util.DroolsTestUtil.rulestoMap;
 
@@ -695,4 +710,308 @@ public class IndexingTest extends CommonTestMethodBase {
 
         ksession.fireAllRules();
     }
+
+    private KnowledgeBase loadKnowledgeBaseWithRangeIndex(String drl) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( RuleBaseConfiguration.BETA_RANGE_INDEX_PROPERTY, "true" );
+        return loadKnowledgeBaseFromString( kconf, drl );
+    }
+
+    @Test(timeout=10000)
+    public void testBuildsJoinComparisonIndexedMemory() {
+        String drl = "import " + Person.class.getCanonicalName() + "\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "rule R1 when\n" +
+                     "   Person( $age : age, $doubleAge : doubleAge )\n" +
+                     "   Cheese( price > $age )\n" +
+                     "   Cheese( price > $age, price <= $doubleAge )\n" +
+                     "then\n" +
+                     "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithRangeIndex( drl );
+        InternalWorkingMemory wm = ((StatefulKnowledgeSessionImpl)kbase.newStatefulKnowledgeSession());
+
+        ObjectTypeNode node = getObjectTypeNode(kbase, Person.class );
+        LeftInputAdapterNode liaNode = (LeftInputAdapterNode) node.getObjectSinkPropagator().getSinks()[0];
+        JoinNode j1 = ( JoinNode ) liaNode.getSinkPropagator().getSinks()[0];
+        JoinNode j2 = ( JoinNode ) j1.getSinkPropagator().getSinks()[0];
+
+        assertTrue( j1.getRawConstraints().isIndexed() );
+        BetaMemory bm = ( BetaMemory ) wm.getNodeMemory( j1 );
+        assertTrue( bm.getLeftTupleMemory() instanceof TupleIndexRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleIndexRBTree );
+
+        assertEquals( 2, j2.getRawConstraints().getIndexCount() );
+        bm = ( BetaMemory ) wm.getNodeMemory( j2 );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRangeRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRangeRBTree );
+
+        // without the option the join nodes are not indexed
+        wm = ((StatefulKnowledgeSessionImpl)loadKnowledgeBaseFromString( drl ).newStatefulKnowledgeSession());
+        bm = ( BetaMemory ) wm.getNodeMemory( getJoinNode( wm ) );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleList );
+    }
+
+    private JoinNode getJoinNode( InternalWorkingMemory wm ) {
+        ObjectTypeNode node = getObjectTypeNode( (KnowledgeBase) wm.getKnowledgeBase(), Person.class );
+        LeftInputAdapterNode liaNode = (LeftInputAdapterNode) node.getObjectSinkPropagator().getSinks()[0];
+        return ( JoinNode ) liaNode.getSinkPropagator().getSinks()[0];
+    }
+
+    @Test(timeout=20000)
+    public void testJoinGreaterThanIndex() {
+        checkIndexedJoin( "Cheese( price > $age )", (p, c) -> c.getPrice() > p.getAge() );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinLessOrEqualIndex() {
+        checkIndexedJoin( "Cheese( price <= $age )", (p, c) -> c.getPrice() <= p.getAge() );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinRangeIndex() {
+        checkIndexedJoin( "Cheese( price > $age, price < $doubleAge )", (p, c) -> c.getPrice() > p.getAge() && c.getPrice() < p.getDoubleAge() );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinInclusiveRangeIndex() {
+        checkIndexedJoin( "Cheese( price <= $doubleAge, price >= $age )", (p, c) -> c.getPrice() >= p.getAge() && c.getPrice() <= p.getDoubleAge() );
+    }
+
+    @Test(timeout=20000)
+    public void testNotRangeIndex() {
+        checkIndexedExistential( "not", "Cheese( price > $age, price < $doubleAge )", (p, c) -> c.getPrice() > p.getAge() && c.getPrice() < p.getDoubleAge() );
+    }
+
+    @Test(timeout=20000)
+    public void testExistsRangeIndex() {
+        checkIndexedExistential( "exists", "Cheese( price >= $age, price <= $doubleAge )", (p, c) -> c.getPrice() >= p.getAge() && c.getPrice() <= p.getDoubleAge() );
+    }
+
+    private void checkIndexedJoin(String cheesePattern, BiPredicate<Person, Cheese> matcher) {
+        String drl = "import " + Person.class.getCanonicalName() + "\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "rule R1 when\n" +
+                     "   $p : Person( $age : age, $doubleAge : doubleAge )\n" +
+                     "   $c : " + cheesePattern + "\n" +
+                     "then\n" +
+                     "   insertLogical( $p.getName() + \"-\" + $c.getType() );\n" +
+                     "end\n";
+
+        checkIndexedNode( drl, matcher, null );
+    }
+
+    private void checkIndexedExistential(String existential, String cheesePattern, BiPredicate<Person, Cheese> matcher) {
+        String drl = "import " + Person.class.getCanonicalName() + "\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "rule R1 when\n" +
+                     "   $p : Person( $age : age, $doubleAge : doubleAge )\n" +
+                     "   " + existential + " " + cheesePattern + "\n" +
+                     "then\n" +
+                     "   insertLogical( $p.getName() );\n" +
+                     "end\n";
+
+        checkIndexedNode( drl, matcher, existential );
+    }
+
+    private void checkIndexedNode(String drl, BiPredicate<Person, Cheese> matcher, String existential) {
+        StatefulKnowledgeSession ksession = loadKnowledgeBaseWithRangeIndex( drl ).newStatefulKnowledgeSession();
+
+        // randomly inserts, modifies and deletes facts, checking the rule's matches against the expected ones
+        Random random = new Random( 0 );
+        Map<Person, FactHandle> persons = new IdentityHashMap<Person, FactHandle>();
+        Map<Cheese, FactHandle> cheeses = new IdentityHashMap<Cheese, FactHandle>();
+        int counter = 0;
+
+        for (int i = 0; i < 300; i++) {
+            switch ( random.nextInt( 6 ) ) {
+                case 0:
+                    Person person = new Person( "p" + counter++, random.nextInt( 20 ) );
+                    persons.put( person, ksession.insert( person ) );
+                    break;
+                case 1:
+                    Cheese cheese = new Cheese( "c" + counter++, random.nextInt( 40 ) );
+                    cheeses.put( cheese, ksession.insert( cheese ) );
+                    break;
+                case 2:
+                    if ( !persons.isEmpty() ) {
+                        person = new ArrayList<Person>( persons.keySet() ).get( random.nextInt( persons.size() ) );
+                        person.setAge( random.nextInt( 20 ) );
+                        ksession.update( persons.get( person ), person );
+                    }
+                    break;
+                case 3:
+                    if ( !cheeses.isEmpty() ) {
+                        cheese = new ArrayList<Cheese>( cheeses.keySet() ).get( random.nextInt( cheeses.size() ) );
+                        cheese.setPrice( random.nextInt( 40 ) );
+                        ksession.update( cheeses.get( cheese ), cheese );
+                    }
+                    break;
+                case 4:
+                    if ( !persons.isEmpty() && random.nextBoolean() ) {
+                        person = new ArrayList<Person>( persons.keySet() ).get( random.nextInt( persons.size() ) );
+                        ksession.delete( persons.remove( person ) );
+                    }
+                    break;
+                default:
+                    if ( !cheeses.isEmpty() && random.nextBoolean() ) {
+                        cheese = new ArrayList<Cheese>( cheeses.keySet() ).get( random.nextInt( cheeses.size() ) );
+                        ksession.delete( cheeses.remove( cheese ) );
+                    }
+            }
+
+            if ( random.nextInt( 4 ) == 0 ) {
+                ksession.fireAllRules();
+                assertEquals( getExpectedMatches( persons.keySet(), cheeses.keySet(), matcher, existential ), getMatches( ksession ) );
+            }
+        }
+
+        ksession.fireAllRules();
+        assertEquals( getExpectedMatches( persons.keySet(), cheeses.keySet(), matcher, existential ), getMatches( ksession ) );
+        ksession.dispose();
+    }
+
+    private Set<String> getExpectedMatches(Set<Person> persons, Set<Cheese> cheeses, BiPredicate<Person, Cheese> matcher, String existential) {
+        Set<String> expected = new HashSet<String>();
+        for (Person person : persons) {
+            boolean matched = false;
+            for (Cheese cheese : cheeses) {
+                if ( matcher.test( person, cheese ) ) {
+                    matched = true;
+                    if ( existential == null ) {
+                        expected.add( person.getName() + "-" + cheese.getType() );
+                    }
+                }
+            }
+            if ( existential != null && matched == existential.equals( "exists" ) ) {
+                expected.add( person.getName() );
+            }
+        }
+        return expected;
+    }
+
+    private Set<String> getMatches(StatefulKnowledgeSession ksession) {
+        Set<String> matches = new HashSet<String>();
+        for (Object match : ksession.getObjects( new ClassObjectFilter( String.class ) )) {
+            matches.add( (String) match );
+        }
+        return matches;
+    }
+
+    @Test(timeout=10000)
+    public void testComparisonIndexWithDifferentNumericTypes() throws Exception {
+        String drl = "package org.drools.compiler.test\n" +
+                     "declare A\n" +
+                     "    a: int\n" +
+                     "end\n" +
+                     "declare C\n" +
+                     "    c: long\n" +
+                     "end\n" +
+                     "rule R1 when\n" +
+                     "   A( $a : a )\n" +
+                     "   C( c > $a )\n" +
+                     "then\n" +
+                     "end";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithRangeIndex( drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        FactType aType = kbase.getFactType( "org.drools.compiler.test", "A" );
+        FactType cType = kbase.getFactType( "org.drools.compiler.test", "C" );
+
+        for (int i = 0; i < 5; i++) {
+            Object a = aType.newInstance();
+            aType.set( a, "a", i * 10 );
+            ksession.insert( a );
+            Object c = cType.newInstance();
+            cType.set( c, "c", i * 10L + 5 );
+            ksession.insert( c );
+        }
+
+        // 5 + 4 + 3 + 2 + 1
+        assertEquals( 15, ksession.fireAllRules() );
+        ksession.dispose();
+    }
+
+    @Test(timeout=10000)
+    public void testComparisonIndexSerialization() throws Exception {
+        String drl = "import " + Person.class.getCanonicalName() + "\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "global java.util.List list\n" +
+                     "rule R1 when\n" +
+                     "   $p : Person( $age : age, $doubleAge : doubleAge )\n" +
+                     "   $c : Cheese( price > $age, price < $doubleAge )\n" +
+                     "then\n" +
+                     "   list.add( $p.getName() + \"-\" + $c.getType() );\n" +
+                     "end\n";
+
+        KnowledgeBase kbase = SerializationHelper.serializeObject( loadKnowledgeBaseWithRangeIndex( drl ) );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( new Person( "A", 10 ) );
+        ksession.insert( new Cheese( "C1", 15 ) );
+        ksession.insert( new Cheese( "C2", 25 ) );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        ksession = SerializationHelper.getSerialisedStatefulKnowledgeSession( ksession, true );
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( new Person( "B", 20 ) );
+        ksession.insert( new Cheese( "C3", 11 ) );
+        assertEquals( 2, ksession.fireAllRules() );
+
+        assertEquals( 3, list.size() );
+        assertTrue( list.containsAll( Arrays.asList( "A-C1", "A-C3", "B-C2" ) ) );
+        ksession.dispose();
+    }
+
+    @Test(timeout=10000)
+    public void testPrimitiveJoinIndex() throws Exception {
+        String drl = "import " + Person.class.getCanonicalName() + "\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "global java.util.List list\n" +
+                     "rule R1 when\n" +
+                     "   $p : Person( $age : age )\n" +
+                     "   $c : Cheese( price == $age )\n" +
+                     "then\n" +
+                     "   list.add( $p.getName() + \"-\" + $c.getType() );\n" +
+                     "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ObjectTypeNode node = getObjectTypeNode( kbase, Person.class );
+        LeftInputAdapterNode liaNode = (LeftInputAdapterNode) node.getObjectSinkPropagator().getSinks()[0];
+        JoinNode join = (JoinNode) liaNode.getSinkPropagator().getSinks()[0];
+        BetaMemory bm = (BetaMemory) ( (InternalWorkingMemory) ksession ).getNodeMemory( join );
+        assertTrue( bm.getLeftTupleMemory() instanceof TupleIndexPrimitiveHashTable.IntKeys );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleIndexPrimitiveHashTable.IntKeys );
+
+        ksession.insert( new Person( "A", 10 ) );
+        ksession.insert( new Person( "B", 20 ) );
+        Cheese c1 = new Cheese( "C1", 10 );
+        FactHandle c1Handle = ksession.insert( c1 );
+        ksession.insert( new Cheese( "C2", 30 ) );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        c1.setPrice( 20 );
+        ksession.update( c1Handle, c1 );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        ksession.delete( c1Handle );
+        ksession.insert( new Person( "C", 30 ) );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        ksession = SerializationHelper.getSerialisedStatefulKnowledgeSession( ksession, true );
+        ksession.setGlobal( "list", list );
+        ksession.insert( new Cheese( "C3", 20 ) );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        assertEquals( Arrays.asList( "A-C1", "B-C1", "C-C2", "B-C3" ), list );
+        ksession.dispose();
+    }
 }
@@ -20,9 +20,15 @@ import org.drools.compiler.Message;
 import org.drools.compiler.compiler.io.File;
 import org.drools.compiler.compiler.io.memory.MemoryFileSystem;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieBaseDiskCache;
 import org.drools.compiler.kie.builder.impl.KieBuilderImpl;
+import org.drools.core.common.ProjectClassLoader;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieFileSystem;
 import org.kie.api.builder.KieModule;
@@ -36,11 +42,20 @@ import org.kie.api.io.Resource;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This is a sample class to launch a rule.
  */
 public class KieCompilationCacheTest extends CommonTestMethodBase {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     @Test
     public void testCompilationCache() throws Exception {
         String drl = "package org.drools.compiler\n" +
@@ -191,6 +206,122 @@ public class KieCompilationCacheTest extends CommonTestMethodBase {
         assertEquals( 1, ksession.fireAllRules() );
     }
 
+    @Test
+    public void testKieBaseDiskCache() throws Exception {
+        String drl = "package org.drools.compiler\n" +
+                "global java.util.List list\n" +
+                "declare type X\n" +
+                "    foo : String\n" +
+                "end\n"+
+                "function String greet(String s) { return \"Hello \" + s; }\n" +
+                "rule R1 when\n" +
+                "   $m : X( foo == \"World\" )\n" +
+                "then\n" +
+                "   list.add( greet( $m.getFoo() ) );\n" +
+                "end\n";
+
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId( "org.kie", "disk-cache", "1.0" );
+        byte[] jar = createKJar( ks, releaseId, (String) null, drl );
+
+        java.io.File cacheDir = temp.newFolder( "kbase-cache" );
+        System.setProperty( KieBaseDiskCache.CACHE_DIR_PROPERTY, cacheDir.getAbsolutePath() );
+        try {
+            // first start: the kbase is built and stored in the cache
+            KieModule km = deployJar( ks, jar );
+            assertEquals( "[Hello World]", fireOnDiskCachedKieBase( ks, releaseId ).toString() );
+            assertNotNull( ( (InternalKieModule) km ).getKnowledgeBuilderForKieBase( getKieBaseName( ks, releaseId ) ) );
+            java.io.File[] entries = cacheDir.listFiles();
+            assertEquals( 1, entries.length );
+            java.io.File entry = entries[0];
+            byte[] entryBytes = Files.readAllBytes( entry.toPath() );
+
+            // a different content gets a different entry
+            byte[] jar2 = createKJar( ks, releaseId, (String) null, drl.replace( "\"World\"", "\"Universe\"" ) );
+            deployJar( ks, jar2 );
+            assertEquals( "[]", fireOnDiskCachedKieBase( ks, releaseId ).toString() );
+            entries = cacheDir.listFiles();
+            assertEquals( 2, entries.length );
+            java.io.File otherEntry = entries[0].equals( entry ) ? entries[1] : entries[0];
+
+            // second start: the packages are loaded from the cache without building anything, so the entry of
+            // the other content, copied in place of the one of this content, is used as it is
+            Files.write( entry.toPath(), Files.readAllBytes( otherEntry.toPath() ) );
+            km = deployJar( ks, jar );
+            assertEquals( "[]", fireOnDiskCachedKieBase( ks, releaseId ).toString() );
+            Files.write( entry.toPath(), entryBytes );
+            km = deployJar( ks, jar );
+            assertEquals( "[Hello World]", fireOnDiskCachedKieBase( ks, releaseId ).toString() );
+            // the loaded packages are cached in the KieModule as if they had been built
+            assertNotNull( ( (InternalKieModule) km ).getKnowledgeBuilderForKieBase( getKieBaseName( ks, releaseId ) ) );
+            assertEquals( 2, cacheDir.listFiles().length );
+
+            // a KieBase with different options gets a different entry
+            deployJar( ks, jar );
+            KieBaseConfiguration conf = ks.newKieBaseConfiguration();
+            conf.setOption( EventProcessingOption.STREAM );
+            assertNotNull( ks.newKieContainer( releaseId ).newKieBase( conf ) );
+            assertEquals( 3, cacheDir.listFiles().length );
+
+            // a corrupted entry is discarded and rebuilt
+            FileOutputStream out = new FileOutputStream( entry );
+            out.write( new byte[] { 1, 2, 3 } );
+            out.close();
+            km = deployJar( ks, jar );
+            assertEquals( "[Hello World]", fireOnDiskCachedKieBase( ks, releaseId ).toString() );
+            assertNotNull( ( (InternalKieModule) km ).getKnowledgeBuilderForKieBase( getKieBaseName( ks, releaseId ) ) );
+            String key = entry.getName().substring( 0, entry.getName().lastIndexOf( '.' ) );
+            assertNotNull( new KieBaseDiskCache( cacheDir ).load( key, ProjectClassLoader.createProjectClassLoader() ) );
+        } finally {
+            System.clearProperty( KieBaseDiskCache.CACHE_DIR_PROPERTY );
+        }
+    }
+
+    @Test
+    public void testKieBaseDiskCacheNotWritableByOthers() throws Exception {
+        java.io.File cacheDir = temp.newFolder( "shared-kbase-cache" );
+        try {
+            Files.setPosixFilePermissions( cacheDir.toPath(), PosixFilePermissions.fromString( "rwxrwxrwx" ) );
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException( e );
+        }
+        System.setProperty( KieBaseDiskCache.CACHE_DIR_PROPERTY, cacheDir.getAbsolutePath() );
+        try {
+            // the entries of a folder writable by others could have been written by anybody
+            assertNull( KieBaseDiskCache.fromSystemProperty() );
+
+            Files.setPosixFilePermissions( cacheDir.toPath(), PosixFilePermissions.fromString( "rwx------" ) );
+            assertNotNull( KieBaseDiskCache.fromSystemProperty() );
+
+            // a new folder is created accessible only by its owner
+            java.io.File newDir = new java.io.File( cacheDir, "new" );
+            System.setProperty( KieBaseDiskCache.CACHE_DIR_PROPERTY, newDir.getAbsolutePath() );
+            assertNotNull( KieBaseDiskCache.fromSystemProperty() );
+            assertEquals( PosixFilePermissions.fromString( "rwx------" ), Files.getPosixFilePermissions( newDir.toPath() ) );
+        } finally {
+            System.clearProperty( KieBaseDiskCache.CACHE_DIR_PROPERTY );
+        }
+    }
+
+    private String getKieBaseName( KieServices ks, ReleaseId releaseId ) {
+        return ks.newKieContainer( releaseId ).getKieBaseNames().iterator().next();
+    }
+
+    private List<String> fireOnDiskCachedKieBase( KieServices ks, ReleaseId releaseId ) throws Exception {
+        KieBase kbase = ks.newKieContainer( releaseId ).getKieBase();
+        FactType type = kbase.getFactType( "org.drools.compiler", "X" );
+        Object x = type.newInstance();
+        type.set( x, "foo", "World" );
+
+        List<String> list = new ArrayList<String>();
+        KieSession ksession = kbase.newKieSession();
+        ksession.setGlobal( "list", list );
+        ksession.insert( x );
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
     private KieModuleModel createKieProjectWithPackagesAnd2KieBases(KieServices ks) {
         KieModuleModel kproj = ks.newKieModuleModel();
 
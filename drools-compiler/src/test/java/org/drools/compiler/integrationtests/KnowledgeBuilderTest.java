@@ -25,6 +25,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.drools.compiler.Cheese;
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
+import org.drools.compiler.compiler.ParserError;
 import org.drools.core.definitions.impl.KnowledgePackageImpl;
 import org.drools.core.rule.TypeDeclaration;
 import org.drools.core.util.DroolsStreamUtils;
@@ -36,7 +39,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.CompositeKnowledgeBuilder;
 import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
+import org.kie.internal.builder.KnowledgeBuilderError;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
 import org.kie.internal.builder.KnowledgeBuilderResult;
 import org.kie.internal.definition.KnowledgePackage;
@@ -480,4 +486,119 @@ public class KnowledgeBuilderTest {
 
         }
     }
+
+    @Test
+    public void testParallelBuild() throws Exception {
+        List<String> sequentialFired = buildAndFire( -1 );
+        List<String> parallelFired = buildAndFire( 1 );
+
+        assertEquals( 8 * 25, parallelFired.size() );
+        Collections.sort( sequentialFired );
+        Collections.sort( parallelFired );
+        assertEquals( sequentialFired, parallelFired );
+    }
+
+    private List<String> buildAndFire( int parallelBuildThreshold ) {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setProperty( KnowledgeBuilderConfigurationImpl.PARALLEL_BUILD_THRESHOLD, "" + parallelBuildThreshold );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+
+        CompositeKnowledgeBuilder batch = kbuilder.batch();
+        for ( int i = 0; i < 8; i++ ) {
+            StringBuilder drl = new StringBuilder( "package org.drools.compiler.test" ).append( i % 2 ).append( "\n" )
+                    .append( "import org.drools.compiler.Cheese;\n" )
+                    .append( "global java.util.List list;\n" );
+            for ( int j = 0; j < 25; j++ ) {
+                drl.append( "rule R" ).append( i ).append( "_" ).append( j ).append( " when\n" )
+                   .append( "    $c : Cheese( price > " ).append( j ).append( " )\n" )
+                   .append( "then\n" )
+                   .append( "    list.add( drools.getRule().getName() + \":\" + $c.getPrice() );\n" )
+                   .append( "end\n" );
+            }
+            batch.add( ResourceFactory.newByteArrayResource( drl.toString().getBytes() ), ResourceType.DRL );
+        }
+        batch.build();
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        ksession.insert( new Cheese( "stilton", 30 ) );
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    @Test
+    public void testParallelBuildErrors() throws Exception {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setProperty( KnowledgeBuilderConfigurationImpl.PARALLEL_BUILD_THRESHOLD, "0" );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+
+        StringBuilder drl = new StringBuilder( "package org.drools.compiler.test\n" )
+                .append( "import org.drools.compiler.Cheese;\n" );
+        for ( int i = 0; i < 10; i++ ) {
+            drl.append( "rule R" ).append( i ).append( " when\n" )
+               .append( "    $c : Cheese( price > " ).append( i ).append( " )\n" )
+               .append( "then\n" )
+               .append( i == 7 ? "    $c.setUnknownField( 1 );\n" : "    $c.setPrice( 1 );\n" )
+               .append( "end\n" );
+        }
+        String wrongDrl = "package org.drools.compiler.test\n" +
+                          "rule Wrong when\n" +
+                          "    Cheese( \n" +
+                          "then\n" +
+                          "end\n";
+
+        kbuilder.batch()
+                .add( ResourceFactory.newByteArrayResource( drl.toString().getBytes() ), ResourceType.DRL )
+                .add( ResourceFactory.newByteArrayResource( wrongDrl.getBytes() ), ResourceType.DRL )
+                .build();
+
+        assertTrue( kbuilder.hasErrors() );
+        boolean parserError = false;
+        boolean compilationError = false;
+        for ( KnowledgeBuilderError error : kbuilder.getErrors() ) {
+            if ( error instanceof ParserError ) {
+                parserError = true;
+            } else if ( error.toString().contains( "R7" ) ) {
+                compilationError = true;
+            } else {
+                fail( "Unexpected error: " + error );
+            }
+        }
+        assertTrue( parserError );
+        assertTrue( compilationError );
+    }
+
+    @Test
+    public void testParallelParserErrorsInResourceOrder() throws Exception {
+        assertEquals( parserErrorPaths( -1 ), parserErrorPaths( 0 ) );
+    }
+
+    private List<String> parserErrorPaths( int parallelBuildThreshold ) {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setProperty( KnowledgeBuilderConfigurationImpl.PARALLEL_BUILD_THRESHOLD, "" + parallelBuildThreshold );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+
+        CompositeKnowledgeBuilder batch = kbuilder.batch();
+        for ( int i = 0; i < 16; i++ ) {
+            String wrongDrl = "package org.drools.compiler.test\n" +
+                              "rule Wrong" + i + " when\n" +
+                              "    Cheese( \n" +
+                              "then\n" +
+                              "end\n";
+            batch.add( ResourceFactory.newByteArrayResource( wrongDrl.getBytes() ).setSourcePath( "wrong" + i + ".drl" ), ResourceType.DRL );
+        }
+        batch.build();
+
+        assertTrue( kbuilder.hasErrors() );
+        List<String> paths = new ArrayList<String>();
+        for ( KnowledgeBuilderError error : kbuilder.getErrors() ) {
+            paths.add( ( (ParserError) error ).getResource().getSourcePath() );
+        }
+        return paths;
+    }
 }
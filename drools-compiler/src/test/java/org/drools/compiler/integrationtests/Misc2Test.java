@@ -9003,4 +9003,105 @@ public class Misc2Test extends CommonTestMethodBase {
             assertTrue( e.getMessage().contains( "name.startsWith(\"A\")" ) );
         }
     }
-}
\ No newline at end of file
+
+    public static class JitProbe {
+        private final String name;
+        private boolean readByJittedEvaluator;
+
+        public JitProbe( String name ) {
+            this.name = name;
+        }
+
+        public String getName() {
+            for ( StackTraceElement frame : new Throwable().getStackTrace() ) {
+                String className = frame.getClassName();
+                // the classes generated by the jitting are named ConditionEvaluator followed by a unique id
+                if ( className.substring( className.lastIndexOf( '.' ) + 1 ).startsWith( "ConditionEvaluator" ) ) {
+                    readByJittedEvaluator = true;
+                }
+            }
+            return name;
+        }
+
+        public boolean isReadByJittedEvaluator() {
+            return readByJittedEvaluator;
+        }
+    }
+
+    @Test
+    public void testEagerJitting() throws Exception {
+        // both constraints are jitted by their first evaluation, without waiting for the jitting threshold
+        assertTrue( evaluateJitProbes( true ) );
+        assertFalse( evaluateJitProbes( false ) );
+    }
+
+    private boolean evaluateJitProbes( boolean eagerJitting ) {
+        String drl =
+                "import " + JitProbe.class.getCanonicalName() + "\n" +
+                "global java.util.List list\n" +
+                "rule R when\n" +
+                "    $p : JitProbe( name.startsWith(\"A\") )\n" +
+                "    $c : JitProbe( name.length() > $p.name.length() )\n" +
+                "then\n" +
+                "    list.add( $c.getName() );\n" +
+                "end";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( RuleBaseConfiguration.EAGER_JITTING_PROPERTY, Boolean.toString( eagerJitting ) );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( new JitProbe( "Ann" ) );
+        ksession.insert( new JitProbe( "cheddar" ) );
+        ksession.insert( new JitProbe( "brie" ) );
+        ksession.fireAllRules();
+        assertEquals( Arrays.asList( "cheddar", "brie" ), list );
+
+        // the probes inserted after the first evaluations match the alpha constraint, the beta one or both
+        List<JitProbe> probes = Arrays.asList( new JitProbe( "Al" ), new JitProbe( "gorgonzola" ), new JitProbe( "Bob" ) );
+        for ( JitProbe probe : probes ) {
+            ksession.insert( probe );
+        }
+        ksession.fireAllRules();
+        assertEquals( 8, list.size() );
+        ksession.dispose();
+
+        boolean jitted = true;
+        for ( JitProbe probe : probes ) {
+            jitted &= probe.isReadByJittedEvaluator();
+        }
+        return jitted;
+    }
+
+    @Test
+    public void testEagerJittingAfterFailedEvaluation() throws Exception {
+        String drl =
+                "import " + JitProbe.class.getCanonicalName() + "\n" +
+                "rule R when\n" +
+                "    JitProbe( name.length() > 2 )\n" +
+                "then\n" +
+                "end";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( RuleBaseConfiguration.EAGER_JITTING_PROPERTY, "true" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        try {
+            ksession.insert( new JitProbe( null ) );
+            ksession.fireAllRules();
+            fail( "The evaluation of the constraint on a null name must fail" );
+        } catch (RuntimeException e) {
+            assertTrue( e.getMessage().contains( "name.length() > 2" ) );
+        }
+
+        // the failed eager jitting is not retried, and the constraint keeps being evaluated correctly
+        for ( int i = 0; i < 30; i++ ) {
+            ksession.insert( new JitProbe( i % 2 == 0 ? "Al" : "Bob" ) );
+        }
+        assertEquals( 15, ksession.fireAllRules() );
+        ksession.dispose();
+    }
+}
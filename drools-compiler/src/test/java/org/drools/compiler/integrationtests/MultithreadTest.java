@@ -20,6 +20,7 @@ package org.drools.compiler.integrationtests;
 
 import org.drools.compiler.CommonTestMethodBase;
 import org.drools.compiler.StockTick;
+import org.drools.core.runtime.conf.LockFreePropagationListOption;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.kie.api.KieBase;
@@ -50,6 +51,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorCompletionService;
@@ -87,6 +89,20 @@ public class MultithreadTest extends CommonTestMethodBase {
         testConcurrentInsertions(drl, 1000, 4, false, false);
     }
 
+    @Test(timeout = 10000)
+    public void testConcurrentInsertionsWithLockFreePropagationList() {
+        final String drl = "import org.drools.compiler.integrationtests.MultithreadTest.Bean\n" +
+                "\n" +
+                "rule \"R\"\n" +
+                "when\n" +
+                "    $a : Bean( seed != 1 )\n" +
+                "then\n" +
+                "end";
+        KieSessionConfiguration ksconf = KieServices.Factory.get().newKieSessionConfiguration();
+        ksconf.setOption( LockFreePropagationListOption.YES );
+        testConcurrentInsertions(drl, 100, 100, false, false, ksconf);
+    }
+
     @Test(timeout = 10000)
     public void testConcurrentInsertionsNewSessionEachThreadObjectTypeNode() {
         final String drl = "import org.drools.compiler.integrationtests.MultithreadTest.Bean\n" +
@@ -142,6 +158,11 @@ public class MultithreadTest extends CommonTestMethodBase {
 
     private void testConcurrentInsertions(final String drl, final int objectCount, final int threadCount,
             final boolean newSessionForEachThread, final boolean updateFacts) {
+        testConcurrentInsertions(drl, objectCount, threadCount, newSessionForEachThread, updateFacts, null);
+    }
+
+    private void testConcurrentInsertions(final String drl, final int objectCount, final int threadCount,
+            final boolean newSessionForEachThread, final boolean updateFacts, final KieSessionConfiguration ksconf) {
 
         final KieBase kieBase = new KieHelper().addContent(drl, ResourceType.DRL).build();
 
@@ -160,7 +181,7 @@ public class MultithreadTest extends CommonTestMethodBase {
                 tasks[i] = getTask( objectCount, kieBase, updateFacts );
             }
         } else {
-            ksession = kieBase.newKieSession();
+            ksession = kieBase.newKieSession(ksconf, null);
             for (int i = 0; i < threadCount; i++) {
                 tasks[i] = getTask( objectCount, ksession, false , updateFacts );
             }
@@ -856,4 +877,53 @@ public class MultithreadTest extends CommonTestMethodBase {
 
         ksession.dispose();
     }
+
+    @Test(timeout = 10000)
+    public void testFireUntilHaltWithLockFreePropagationList() throws Exception {
+        String drl = "import org.drools.compiler.integrationtests.MultithreadTest.Bean\n" +
+                     "global java.util.concurrent.CountDownLatch done\n" +
+                     "rule R when\n" +
+                     "    Bean()\n" +
+                     "then\n" +
+                     "    done.countDown();\n" +
+                     "end";
+
+        final int threadCount = 8;
+        final int factsNr = 1000;
+        final CountDownLatch done = new CountDownLatch( threadCount * factsNr );
+
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build();
+        KieSessionConfiguration ksconf = KieServices.Factory.get().newKieSessionConfiguration();
+        ksconf.setOption( LockFreePropagationListOption.YES );
+        final KieSession ksession = kbase.newKieSession( ksconf, null );
+        ksession.setGlobal( "done", done );
+
+        new Thread() {
+            @Override
+            public void run() {
+                ksession.fireUntilHalt();
+            }
+        }.start();
+
+        Thread[] producers = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            producers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < factsNr; j++) {
+                        ksession.insert( new Bean( j ) );
+                    }
+                }
+            };
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        done.await();
+        assertEquals( threadCount * factsNr, ksession.getFactCount() );
+        ksession.halt();
+        ksession.dispose();
+    }
 }
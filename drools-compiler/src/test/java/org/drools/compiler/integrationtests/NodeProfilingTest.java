@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.Person;
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.management.DroolsManagementAgent;
+import org.drools.core.phreak.NodeProfiler;
+import org.drools.core.phreak.NodeProfiler.NodeProfile;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.conf.MBeansOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NodeProfilingTest {
+
+    private static final String DRL =
+            "import " + Cheese.class.getCanonicalName() + ";\n" +
+            "import " + Person.class.getCanonicalName() + ";\n" +
+            "rule Indexed when\n" +
+            "    Cheese( $type : type )\n" +
+            "    Person( likes == $type )\n" +
+            "then end\n" +
+            "rule NotIndexed when\n" +
+            "    Cheese( $price : price )\n" +
+            "    Person( age > $price )\n" +
+            "then end\n";
+
+    @Test
+    public void testProfileJoinNodes() {
+        KieBase kbase = buildKieBase( false );
+        NodeProfiler profiler = ( (InternalKnowledgeBase) kbase ).getNodeProfiler();
+        assertNotNull( profiler );
+
+        KieSession ksession = kbase.newKieSession();
+        insertFacts( ksession );
+        // a person of age a matches the cheeses with price lower than a, that is 85 pairs
+        assertEquals( 10 + 85, ksession.fireAllRules() );
+
+        NodeProfile indexed = findNode( profiler.snapshot(), "JoinNode", "Indexed" );
+        assertEquals( 10, indexed.getTuplesOut() );
+        assertEquals( 10, indexed.getConstraintMatches() );
+        assertEquals( 1.0, indexed.getIndexHitRatio(), 0.0 );
+        assertEquals( 10, indexed.getPeakRightMemorySize() );
+        assertTrue( indexed.getEvaluations() > 0 );
+        assertTrue( indexed.getNanos() > 0 );
+
+        NodeProfile notIndexed = findNode( profiler.snapshot(), "JoinNode", "NotIndexed" );
+        assertEquals( 85, notIndexed.getTuplesOut() );
+        assertEquals( 10 * 10, notIndexed.getConstraintEvaluations() );
+        assertEquals( 0.85, notIndexed.getIndexHitRatio(), 0.001 );
+
+        assertEquals( 1, profiler.getTopNodes( 1 ).size() );
+
+        profiler.reset();
+        assertEquals( 0, findNode( profiler.snapshot(), "JoinNode", "NotIndexed" ).getConstraintEvaluations() );
+
+        ksession.dispose();
+    }
+
+    @Test
+    public void testProfileNotAndAccumulateNodes() {
+        String drl =
+                "import " + Cheese.class.getCanonicalName() + ";\n" +
+                "import " + Person.class.getCanonicalName() + ";\n" +
+                "rule NoYounger when\n" +
+                "    Cheese( $price : price )\n" +
+                "    not Person( age < $price )\n" +
+                "then end\n" +
+                "rule Older when\n" +
+                "    Cheese( $price : price )\n" +
+                "    accumulate( Person( age > $price ); $count : count() )\n" +
+                "then end\n";
+
+        KieBaseConfiguration kbconf = KieServices.Factory.get().newKieBaseConfiguration();
+        kbconf.setProperty( RuleBaseConfiguration.NODE_PROFILING_PROPERTY, "true" );
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build( kbconf );
+        NodeProfiler profiler = ( (InternalKnowledgeBase) kbase ).getNodeProfiler();
+
+        KieSession ksession = kbase.newKieSession();
+        for ( int i = 0; i < 10; i++ ) {
+            ksession.insert( new Cheese( "cheese" + i, i ) );
+        }
+        ksession.fireAllRules();
+
+        // the cheeses found both right memories empty, so nothing has been evaluated yet
+        assertTrue( Double.isNaN( findNode( profiler.snapshot(), "NotNode", "NoYounger" ).getIndexHitRatio() ) );
+
+        for ( int i = 0; i < 10; i++ ) {
+            ksession.insert( new Person( "person" + i, i + 5 ) );
+        }
+        ksession.fireAllRules();
+
+        // a not node always indexes a comparison, so the person of age 5 is evaluated only against
+        // the 4 cheeses with price from 6 to 9 that it blocks, and the following ones against no cheese
+        NodeProfile not = findNode( profiler.snapshot(), "NotNode", "NoYounger" );
+        assertEquals( 4, not.getConstraintEvaluations() );
+        assertEquals( 4, not.getConstraintMatches() );
+        assertEquals( 1.0, not.getIndexHitRatio(), 0.0 );
+
+        NodeProfile accumulate = findNode( profiler.snapshot(), "AccumulateNode", "Older" );
+        assertEquals( 10 * 10, accumulate.getConstraintEvaluations() );
+        assertEquals( 85, accumulate.getConstraintMatches() );
+        assertEquals( 0.85, accumulate.getIndexHitRatio(), 0.001 );
+
+        ksession.dispose();
+    }
+
+    @Test
+    public void testProfilingDisabledByDefault() {
+        KieBase kbase = new KieHelper().addContent( DRL, ResourceType.DRL ).build();
+        assertNull( ( (InternalKnowledgeBase) kbase ).getNodeProfiler() );
+    }
+
+    @Test
+    public void testProfilingMXBean() throws Exception {
+        KieBase kbase = buildKieBase( true );
+        ( (InternalKnowledgeBase) kbase ).initMBeans();
+
+        KieSession ksession = kbase.newKieSession();
+        insertFacts( ksession );
+        ksession.fireAllRules();
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = DroolsManagementAgent.createObjectName( DroolsManagementAgent.createObjectNameFor( (InternalKnowledgeBase) kbase ) + ",group=NodeProfiling" );
+        CompositeData[] profiles = (CompositeData[]) mbs.getAttribute( name, "NodeProfiles" );
+        assertTrue( profiles.length > 0 );
+        assertNotNull( profiles[0].get( "nodeType" ) );
+        assertNotNull( profiles[0].get( "indexHitRatio" ) );
+
+        CompositeData[] top = (CompositeData[]) mbs.invoke( name, "getTopNodes", new Object[]{ 2 }, new String[]{ int.class.getName() } );
+        assertEquals( 2, top.length );
+
+        ksession.dispose();
+        DroolsManagementAgent.getInstance().unregisterKnowledgeBase( (InternalKnowledgeBase) kbase );
+        assertTrue( !mbs.isRegistered( name ) );
+    }
+
+    private static KieBase buildKieBase( boolean mbeans ) {
+        KieBaseConfiguration kbconf = KieServices.Factory.get().newKieBaseConfiguration();
+        kbconf.setProperty( RuleBaseConfiguration.NODE_PROFILING_PROPERTY, "true" );
+        if ( mbeans ) {
+            kbconf.setOption( MBeansOption.ENABLED );
+        }
+        return new KieHelper().addContent( DRL, ResourceType.DRL ).build( kbconf );
+    }
+
+    private static void insertFacts( KieSession ksession ) {
+        // 10 cheeses with prices from 0 to 9 and 10 persons with ages from 5 to 14, each liking one of the cheeses
+        for ( int i = 0; i < 10; i++ ) {
+            ksession.insert( new Cheese( "cheese" + i, i ) );
+            Person person = new Person( "person" + i, i + 5 );
+            person.setLikes( "cheese" + i );
+            ksession.insert( person );
+        }
+    }
+
+    private static NodeProfile findNode( List<NodeProfile> profiles, String nodeType, String rule ) {
+        for ( NodeProfile profile : profiles ) {
+            if ( profile.getNodeType().equals( nodeType ) && profile.getRules()[0].equals( rule ) ) {
+                return profile;
+            }
+        }
+        throw new AssertionError( "No " + nodeType + " profiled for rule " + rule );
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.core.common.BaseNode;
+import org.drools.core.common.DefaultAgenda;
+import org.drools.core.common.InternalAgendaGroup;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.RuleBasePartitionId;
+import org.drools.core.concurrent.ParallelRuleEvaluator;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelRuleEvaluatorTest {
+
+    private static final int RULES_NR = 4;
+
+    private static final ForkJoinPool pool = ParallelRuleEvaluator.newPool( 2 );
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test(timeout = 10000L)
+    public void testSinglePartitionCounters() {
+        InternalKnowledgeBase kbase = getKieBase( "" );
+        RuleBasePartitionId partition = RuleBasePartitionId.MAIN_PARTITION;
+        RuleBasePartitionId[] partitions = new RuleBasePartitionId[RULES_NR];
+        Arrays.fill( partitions, partition );
+        setPartitions( kbase, partitions );
+
+        List<Integer> results = Collections.synchronizedList( new ArrayList<Integer>() );
+        KieSession ksession = newSession( kbase, results );
+        ParallelRuleEvaluator evaluator = new ParallelRuleEvaluator( getAgenda( ksession ), pool );
+        assertEquals( 0, evaluator.getQueueDepth( partition ) );
+        assertEquals( 0, evaluator.getMaxQueueDepth( partition ) );
+        assertEquals( 0L, evaluator.getEvaluatedItemsCount( partition ) );
+
+        assertEquals( RULES_NR, evaluateMainGroup( evaluator, ksession ) );
+        assertEquals( RULES_NR, results.size() );
+        assertEquals( 0, evaluator.getQueueDepth( partition ) );
+        assertEquals( RULES_NR, evaluator.getMaxQueueDepth( partition ) );
+        assertEquals( (long) RULES_NR, evaluator.getEvaluatedItemsCount( partition ) );
+        ksession.dispose();
+    }
+
+    @Test(timeout = 10000L)
+    public void testPartitionsCounters() {
+        InternalKnowledgeBase kbase = getKieBase( "" );
+        RuleBasePartitionId[] partitions = newPartitions();
+        setPartitions( kbase, partitions );
+
+        List<Integer> results = Collections.synchronizedList( new ArrayList<Integer>() );
+        KieSession ksession = newSession( kbase, results );
+        ParallelRuleEvaluator evaluator = new ParallelRuleEvaluator( getAgenda( ksession ), pool );
+
+        assertEquals( RULES_NR, evaluateMainGroup( evaluator, ksession ) );
+        assertEquals( RULES_NR, new HashSet<Integer>( results ).size() );
+        for ( RuleBasePartitionId partition : partitions ) {
+            assertEquals( 0, evaluator.getQueueDepth( partition ) );
+            assertEquals( 1, evaluator.getMaxQueueDepth( partition ) );
+            assertEquals( 1L, evaluator.getEvaluatedItemsCount( partition ) );
+        }
+        assertEquals( 0, evaluator.getQueueDepth( RuleBasePartitionId.MAIN_PARTITION ) );
+        ksession.dispose();
+    }
+
+    @Test(timeout = 10000L)
+    public void testFailingPartitionDoesNotLeakItems() {
+        // the rule of the first partition fails, while the ones of the other partitions are evaluated by the pool
+        InternalKnowledgeBase kbase = getKieBase( "if ( $i == 0 ) throw new RuntimeException( \"failure\" );\n" );
+        RuleBasePartitionId[] partitions = newPartitions();
+        setPartitions( kbase, partitions );
+
+        List<Integer> results = Collections.synchronizedList( new ArrayList<Integer>() );
+        KieSession ksession = newSession( kbase, results );
+        ParallelRuleEvaluator evaluator = new ParallelRuleEvaluator( getAgenda( ksession ), pool );
+
+        try {
+            evaluateMainGroup( evaluator, ksession );
+            fail( "The failure of the consequence must be propagated" );
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        // when the failure is propagated all the forked evaluations are already completed
+        long evaluated = 0;
+        for ( RuleBasePartitionId partition : partitions ) {
+            assertEquals( 0, evaluator.getQueueDepth( partition ) );
+            evaluated += evaluator.getEvaluatedItemsCount( partition );
+        }
+        assertEquals( RULES_NR - 1, evaluated );
+        assertEquals( RULES_NR - 1, results.size() );
+        ksession.dispose();
+    }
+
+    private InternalKnowledgeBase getKieBase( String consequencePrefix ) {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "package org.drools.compiler.test\n" );
+        sb.append( "global java.util.List results;\n" );
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            sb.append( "rule R" ).append( i ).append( " when\n" )
+              .append( "    $i : Integer( intValue == " ).append( i ).append( " )\n" )
+              .append( "then\n" )
+              .append( "    " ).append( consequencePrefix )
+              .append( "    results.add( $i );\n" )
+              .append( "end\n" );
+        }
+        return (InternalKnowledgeBase) new KieHelper().addContent( sb.toString(), ResourceType.DRL ).build();
+    }
+
+    private RuleBasePartitionId[] newPartitions() {
+        RuleBasePartitionId[] partitions = new RuleBasePartitionId[RULES_NR];
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            partitions[i] = RuleBasePartitionId.createPartition();
+        }
+        return partitions;
+    }
+
+    /**
+     * Moves the terminal node of the i-th rule in the i-th partition, since the builder gives each rule its own one
+     */
+    private void setPartitions( InternalKnowledgeBase kbase, RuleBasePartitionId[] partitions ) {
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            for ( BaseNode node : kbase.getReteooBuilder().getTerminalNodes( "org.drools.compiler.test.R" + i ) ) {
+                node.setPartitionId( null, partitions[i] );
+            }
+        }
+    }
+
+    private KieSession newSession( InternalKnowledgeBase kbase, List<Integer> results ) {
+        KieSession ksession = kbase.newKieSession();
+        ksession.setGlobal( "results", results );
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            ksession.insert( i );
+        }
+        return ksession;
+    }
+
+    private DefaultAgenda getAgenda( KieSession ksession ) {
+        return (DefaultAgenda) ( (InternalWorkingMemory) ksession ).getAgenda();
+    }
+
+    private int evaluateMainGroup( ParallelRuleEvaluator evaluator, KieSession ksession ) {
+        DefaultAgenda agenda = getAgenda( ksession );
+        agenda.flushPropagations();
+        agenda.evaluateEagerList();
+        InternalAgendaGroup group = agenda.getNextFocus();
+        assertEquals( RULES_NR, group.getActivations().length );
+        return evaluator.evaluateAndFire( null, 0, -1, group );
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.core.factmodel.PartitionBy;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.PartitionedKieSession;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.definition.type.Role;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PartitionedKieSessionTest {
+
+    public static class Payment {
+        private final int id;
+        private final String customerId;
+        private final int amount;
+
+        public Payment(int id, String customerId, int amount) {
+            this.id = id;
+            this.customerId = customerId;
+            this.amount = amount;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public String toString() {
+            return "Payment[" + id + ", " + customerId + "]";
+        }
+    }
+
+    public static class Blacklisted {
+        private final String customerId;
+
+        public Blacklisted(String customerId) {
+            this.customerId = customerId;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+    }
+
+    @Role( Role.Type.EVENT )
+    @PartitionBy( "account" )
+    public static class Transfer {
+        private final String account;
+
+        public Transfer(String account) {
+            this.account = account;
+        }
+
+        public String getAccount() {
+            return account;
+        }
+    }
+
+    private static final String DRL =
+            "package org.drools.compiler.test\n" +
+            "import " + Payment.class.getCanonicalName() + "\n" +
+            "import " + Blacklisted.class.getCanonicalName() + "\n" +
+            "import " + Transfer.class.getCanonicalName() + "\n" +
+            "global java.util.List results;\n" +
+            "declare Payment\n" +
+            "    @role( event )\n" +
+            "    @partitionBy( customerId )\n" +
+            "end\n" +
+            "rule \"Repeated payment\" when\n" +
+            "    $p1 : Payment( $c : customerId )\n" +
+            "    $p2 : Payment( customerId == $c, id > $p1.id, amount > $p1.amount )\n" +
+            "then\n" +
+            "    results.add( \"repeated:\" + $c + \":\" + $p1.getId() + \":\" + $p2.getId() );\n" +
+            "end\n" +
+            "rule \"Blacklisted payment\" when\n" +
+            "    Blacklisted( $c : customerId )\n" +
+            "    $p : Payment( customerId == $c )\n" +
+            "then\n" +
+            "    results.add( \"blacklisted:\" + $p.getId() );\n" +
+            "end\n" +
+            "rule \"Transfer\" when\n" +
+            "    Transfer( $a : account )\n" +
+            "then\n" +
+            "    results.add( \"transfer:\" + $a );\n" +
+            "end\n";
+
+    @Test
+    public void testCorrelationInsidePartitionsIsExact() {
+        InternalKnowledgeBase kbase = getKieBase();
+        List<Object> payments = getPayments( 500, 40 );
+
+        KieSession single = kbase.newKieSession();
+        List<String> expected = new ArrayList<String>();
+        single.setGlobal( "results", expected );
+        single.insert( new Blacklisted( "c7" ) );
+        for ( Object payment : payments ) {
+            single.insert( payment );
+        }
+        single.fireAllRules();
+        single.dispose();
+
+        PartitionedKieSession session = new PartitionedKieSession( kbase, 4, null, null );
+        List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        session.setGlobal( "results", results );
+        session.insert( new Blacklisted( "c7" ) );
+        for ( Object payment : payments ) {
+            session.insert( payment );
+        }
+        assertEquals( expected.size(), session.fireAllRules() );
+        assertEquals( new HashSet<String>( expected ), new HashSet<String>( results ) );
+        assertEquals( expected.size(), results.size() );
+
+        // each partition holds only the payments of its customers and all the facts without a partition key
+        Set<String> customers = new HashSet<String>();
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            int blacklisted = 0;
+            for ( Object object : session.getPartition( i ).getObjects() ) {
+                if ( object instanceof Payment ) {
+                    assertEquals( i, session.getPartitionFor( object ) );
+                    customers.add( i + ":" + ( (Payment) object ).getCustomerId() );
+                } else {
+                    blacklisted++;
+                }
+            }
+            assertEquals( 1, blacklisted );
+        }
+        // the customers are spread on all the partitions and none of them is split across partitions
+        assertEquals( 40, customers.size() );
+        assertEquals( payments.size() + 1, session.getFactCount() );
+        assertEquals( payments.size() + 1, session.getEntryPoint( "DEFAULT" ).getObjects().size() );
+        session.dispose();
+    }
+
+    @Test(timeout = 20000L)
+    public void testFireUntilHalt() throws Exception {
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase(), 3, null, null );
+        List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        session.setGlobal( "results", results );
+
+        Thread firing = new Thread( session::fireUntilHalt );
+        firing.start();
+
+        EntryPoint entryPoint = session.getEntryPoint( "DEFAULT" );
+        for ( int i = 0; i < 30; i++ ) {
+            entryPoint.insert( new Transfer( "a" + i ) );
+        }
+        while ( results.size() < 30 ) {
+            TimeUnit.MILLISECONDS.sleep( 10 );
+        }
+        session.halt();
+        firing.join();
+
+        Set<String> expected = new HashSet<String>();
+        for ( int i = 0; i < 30; i++ ) {
+            expected.add( "transfer:a" + i );
+        }
+        assertEquals( expected, new HashSet<String>( results ) );
+        session.dispose();
+    }
+
+    @Test
+    public void testUpdateAndDelete() {
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase(), 4, null, null );
+        List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        session.setGlobal( "results", results );
+
+        FactHandle blacklisted = session.insert( new Blacklisted( "c1" ) );
+        FactHandle payment = session.insert( new Payment( 1, "c1", 10 ) );
+        session.insert( new Payment( 2, "c2", 10 ) );
+        assertEquals( 3, session.getFactCount() );
+        session.fireAllRules();
+        assertEquals( Collections.singletonList( "blacklisted:1" ), results );
+
+        // updating the fact without partition key updates it in all the partitions
+        results.clear();
+        session.update( blacklisted, new Blacklisted( "c2" ) );
+        session.fireAllRules();
+        assertEquals( Collections.singletonList( "blacklisted:2" ), results );
+
+        results.clear();
+        session.update( payment, new Payment( 1, "c1", 20 ) );
+        session.fireAllRules();
+        assertTrue( results.isEmpty() );
+
+        session.delete( blacklisted );
+        session.delete( payment );
+        assertEquals( 1, session.getFactCount() );
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            for ( Object object : session.getPartition( i ).getObjects() ) {
+                assertTrue( object instanceof Payment && ( (Payment) object ).getId() == 2 );
+            }
+        }
+
+        // the partition key of a fact can't be changed
+        FactHandle handle = session.insert( new Payment( 3, "c3", 10 ) );
+        int partition = session.getPartitionFor( new Payment( 3, "c3", 10 ) );
+        String otherCustomer = null;
+        for ( int i = 0; otherCustomer == null; i++ ) {
+            if ( session.getPartitionFor( new Payment( 3, "x" + i, 10 ) ) != partition ) {
+                otherCustomer = "x" + i;
+            }
+        }
+        try {
+            session.update( handle, new Payment( 3, otherCustomer, 10 ) );
+            fail( "The partition key of a fact can't be changed" );
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        session.dispose();
+    }
+
+    @Test
+    public void testUpdateAndDeleteOfFactInsertedBeforeFactWithoutPartitionKey() {
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase(), 4, null, null );
+        List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        session.setGlobal( "results", results );
+
+        // the first handle of a partition other than the first one has the same id of the first handle of the first one
+        Payment payment = null;
+        for ( int i = 0; payment == null; i++ ) {
+            Payment candidate = new Payment( 1, "c" + i, 10 );
+            if ( session.getPartitionFor( candidate ) != 0 ) {
+                payment = candidate;
+            }
+        }
+        FactHandle paymentHandle = session.insert( payment );
+        session.insert( new Blacklisted( "x" ) );
+
+        session.update( paymentHandle, new Payment( 1, payment.getCustomerId(), 20 ) );
+        assertEquals( 20, ( (Payment) session.getEntryPoint( "DEFAULT" ).getObject( paymentHandle ) ).getAmount() );
+        // the fact without partition key is left untouched in all the partitions
+        assertEquals( 2, session.getFactCount() );
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            int blacklisted = 0;
+            for ( Object object : session.getPartition( i ).getObjects() ) {
+                if ( object instanceof Blacklisted ) {
+                    blacklisted++;
+                }
+            }
+            assertEquals( 1, blacklisted );
+        }
+
+        session.delete( paymentHandle );
+        assertEquals( 1, session.getFactCount() );
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            Collection<?> objects = session.getPartition( i ).getObjects();
+            assertEquals( 1, objects.size() );
+            assertTrue( objects.iterator().next() instanceof Blacklisted );
+        }
+        assertEquals( 0, session.fireAllRules() );
+        session.dispose();
+    }
+
+    @Test
+    public void testRulesWithoutPartitionKeyFireInEachPartition() {
+        String drl =
+                "package org.drools.compiler.test\n" +
+                "import " + Blacklisted.class.getCanonicalName() + "\n" +
+                "global java.util.List results;\n" +
+                "rule R when\n" +
+                "    Blacklisted( $c : customerId )\n" +
+                "then\n" +
+                "    results.add( $c );\n" +
+                "end\n";
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase( drl ), 3, null, null );
+        List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        session.setGlobal( "results", results );
+
+        // the fact is inserted in all the partitions and each of them fires the rule
+        session.insert( new Blacklisted( "c1" ) );
+        assertEquals( 1, session.getFactCount() );
+        assertEquals( 3, session.fireAllRules() );
+        assertEquals( Arrays.asList( "c1", "c1", "c1" ), results );
+        session.dispose();
+    }
+
+    @Test
+    public void testFactsInsertedByRulesStayInTheirPartition() {
+        String drl =
+                "package org.drools.compiler.test\n" +
+                "import " + Payment.class.getCanonicalName() + "\n" +
+                "import " + Transfer.class.getCanonicalName() + "\n" +
+                "declare Payment\n" +
+                "    @role( event )\n" +
+                "    @partitionBy( customerId )\n" +
+                "end\n" +
+                "rule R when\n" +
+                "    $p : Payment()\n" +
+                "then\n" +
+                "    insert( new Transfer( \"refund-\" + $p.getId() ) );\n" +
+                "end\n";
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase( drl ), 4, null, null );
+
+        // a payment whose transfer has a partition key routed to another partition
+        Payment payment = null;
+        for ( int i = 0; payment == null; i++ ) {
+            Payment candidate = new Payment( i, "c" + i, 10 );
+            if ( session.getPartitionFor( candidate ) != session.getPartitionFor( new Transfer( "refund-" + i ) ) ) {
+                payment = candidate;
+            }
+        }
+        session.insert( payment );
+        assertEquals( 1, session.fireAllRules() );
+
+        int partition = session.getPartitionFor( payment );
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            int transfers = 0;
+            for ( Object object : session.getPartition( i ).getObjects() ) {
+                if ( object instanceof Transfer ) {
+                    assertEquals( "refund-" + payment.getId(), ( (Transfer) object ).getAccount() );
+                    transfers++;
+                }
+            }
+            assertEquals( i == partition ? 1 : 0, transfers );
+        }
+        session.dispose();
+    }
+
+    @Test
+    public void testPartitionKeyFromJavaAnnotation() {
+        PartitionedKieSession session = new PartitionedKieSession( getKieBase(), 8, null, null );
+        assertEquals( session.getPartitionFor( new Transfer( "a1" ) ), session.getPartitionFor( new Transfer( "a1" ) ) );
+        assertEquals( -1, session.getPartitionFor( new Blacklisted( "c1" ) ) );
+        Set<Integer> partitions = new HashSet<Integer>();
+        for ( int i = 0; i < 100; i++ ) {
+            partitions.add( session.getPartitionFor( new Transfer( "a" + i ) ) );
+        }
+        assertEquals( 8, partitions.size() );
+        session.dispose();
+    }
+
+    @Test
+    public void testWrongPartitionKey() {
+        String drl =
+                "package org.drools.compiler.test\n" +
+                "import " + Payment.class.getCanonicalName() + "\n" +
+                "declare Payment\n" +
+                "    @role( event )\n" +
+                "    @partitionBy( customer )\n" +
+                "end\n";
+        assertFalse( new KieHelper().addContent( drl, ResourceType.DRL ).verify().getMessages().isEmpty() );
+    }
+
+    private InternalKnowledgeBase getKieBase() {
+        return getKieBase( DRL );
+    }
+
+    private InternalKnowledgeBase getKieBase(String drl) {
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build( EventProcessingOption.STREAM );
+        return (InternalKnowledgeBase) kbase;
+    }
+
+    private List<Object> getPayments(int paymentsNr, int customersNr) {
+        Random random = new Random( 0 );
+        List<Object> payments = new ArrayList<Object>();
+        for ( int i = 0; i < paymentsNr; i++ ) {
+            payments.add( new Payment( i, "c" + random.nextInt( customersNr ), random.nextInt( 1000 ) ) );
+        }
+        return payments;
+    }
+}
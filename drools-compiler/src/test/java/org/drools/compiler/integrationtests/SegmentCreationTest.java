@@ -41,6 +41,8 @@ import org.kie.internal.builder.KnowledgeBuilderFactory;
 import org.kie.internal.builder.conf.RuleEngineOption;
 import org.kie.internal.io.ResourceFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -504,6 +506,55 @@ public class SegmentCreationTest {
         return kbase;
     }      
 
+    @Test
+    public void testNodeMemoriesAllocatedOnFirstUse() throws Exception {
+        StringBuilder drl = new StringBuilder( "global java.util.List list\n" );
+        for ( int i = 0; i < 300; i++ ) {
+            drl.append( "rule R" ).append( i ).append( " when\n" )
+               .append( "    String( this == \"" ).append( i ).append( "\" )\n" )
+               .append( "    Integer( intValue == " ).append( i ).append( " )\n" )
+               .append( "then\n" )
+               .append( "    list.add( " ).append( i ).append( " );\n" )
+               .append( "end\n" );
+        }
+
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.toString().getBytes() ),
+                      ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+
+        KnowledgeBaseImpl kbase = (KnowledgeBaseImpl) KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        int nodeCount = kbase.getNodeCount();
+
+        InternalWorkingMemory wm = (InternalWorkingMemory) kbase.newStatefulKnowledgeSession();
+        // only the memory of the InitialFact ObjectTypeNode is created with the session
+        assertTrue( wm.getNodeMemories().length() < nodeCount / 10 );
+
+        List<Integer> list = new ArrayList<Integer>();
+        wm.setGlobal( "list", list );
+        wm.insert( "7" );
+        wm.insert( 7 );
+        wm.fireAllRules();
+        assertEquals( Arrays.asList( 7 ), list );
+
+        int used = 0;
+        for ( int i = 0; i < wm.getNodeMemories().length(); i++ ) {
+            if ( wm.getNodeMemories().peekNodeMemory( i ) != null ) {
+                used++;
+            }
+        }
+        assertTrue( used > 0 );
+        assertTrue( used < nodeCount / 10 );
+
+        // the following sessions are sized on the memories used by the former ones
+        InternalWorkingMemory wm2 = (InternalWorkingMemory) kbase.newStatefulKnowledgeSession();
+        assertEquals( wm.getNodeMemories().length(), wm2.getNodeMemories().length() );
+
+        wm.dispose();
+        wm2.dispose();
+    }
+
     public ObjectTypeNode getObjectTypeNode(KnowledgeBase kbase, Class<?> nodeClass) {
         List<ObjectTypeNode> nodes = ((KnowledgeBaseImpl)kbase).getRete().getObjectTypeNodes();
         for ( ObjectTypeNode n : nodes ) {
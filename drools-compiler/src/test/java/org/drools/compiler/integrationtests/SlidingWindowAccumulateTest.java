@@ -0,0 +1,304 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.core.ClockType;
+import org.drools.core.base.accumulators.JavaAccumulatorFunctionExecutor;
+import org.drools.core.base.accumulators.MVELAccumulatorFunctionExecutor;
+import org.drools.core.base.accumulators.MergeableAccumulateFunction;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.rule.Accumulate;
+import org.drools.core.rule.Pattern;
+import org.drools.core.rule.RuleConditionElement;
+import org.drools.core.spi.Accumulator;
+import org.drools.core.time.impl.PseudoClockScheduler;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.definition.type.Role;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.utils.KieHelper;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowAccumulateTest {
+
+    @Role( Role.Type.EVENT )
+    public static class Tick {
+        private final int price;
+
+        public Tick(int price) {
+            this.price = price;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public String toString() {
+            return "Tick[" + price + "]";
+        }
+    }
+
+    private static final String RULE =
+            "rule R when\n" +
+            "    accumulate( Tick( $p : price ) %s; $min : %s( $p ), $max : %s( $p ) )\n" +
+            "then\n" +
+            "    results.put( \"min\", $min );\n" +
+            "    results.put( \"max\", $max );\n" +
+            "end\n";
+
+    @Test
+    public void testMinAndMaxOverTimeWindow() {
+        checkTimeWindow( "java", "over window:time( 10ms )" );
+    }
+
+    @Test
+    public void testReversibleMinAndMaxOverTimeWindow() {
+        // the built-in min and max reverse the values instead of aggregating the window
+        checkTimeWindow( "java", "over window:time( 10ms )", "min", "max" );
+    }
+
+    @Test
+    public void testMinAndMaxOverTimeWindowWithMvel() {
+        checkTimeWindow( "mvel", "over window:time( 10ms )" );
+    }
+
+    @Test
+    public void testMinAndMaxOverNamedWindow() {
+        checkTimeWindow( "java", "from window Last10" );
+    }
+
+    @Test
+    public void testMinAndMaxOverLengthWindow() {
+        checkLengthWindow( "windowMin", "windowMax" );
+    }
+
+    @Test
+    public void testReversibleMinAndMaxOverLengthWindow() {
+        checkLengthWindow( "min", "max" );
+    }
+
+    private void checkLengthWindow(String minFunction, String maxFunction) {
+        KieSession ksession = getSession( "java", "over window:length( 5 )", minFunction, maxFunction );
+        Map<String, Object> results = new HashMap<String, Object>();
+        ksession.setGlobal( "results", results );
+        Random random = new Random( 0 );
+        List<Integer> window = new ArrayList<Integer>();
+        List<FactHandle> handles = new ArrayList<FactHandle>();
+
+        for ( int i = 0; i < 200; i++ ) {
+            int price = random.nextInt( 100 );
+            handles.add( ksession.insert( new Tick( price ) ) );
+            window.add( price );
+            if ( window.size() > 5 ) {
+                window.remove( 0 );
+                handles.remove( 0 );
+            }
+            if ( i % 7 == 0 ) {
+                // deleting an event in the middle of the window
+                int pos = random.nextInt( window.size() );
+                ksession.delete( handles.get( pos ) );
+                // the empty slot still counts for the length of the window
+                window.set( pos, null );
+                handles.set( pos, null );
+            }
+            ksession.fireAllRules();
+            assertResults( window, results );
+        }
+        ksession.dispose();
+    }
+
+    @Test
+    public void testOnlyWindowsAreAggregated() {
+        assertTrue( getAccumulator( "java", "over window:time( 10ms )" ) instanceof JavaAccumulatorFunctionExecutor );
+        assertTrue( ( (JavaAccumulatorFunctionExecutor) getAccumulator( "java", "over window:time( 10ms )" ) ).isSlidingWindow() );
+        assertTrue( ( (JavaAccumulatorFunctionExecutor) getAccumulator( "java", "from window Last10" ) ).isSlidingWindow() );
+        assertTrue( ( (MVELAccumulatorFunctionExecutor) getAccumulator( "mvel", "over window:length( 5 )" ) ).isSlidingWindow() );
+        assertFalse( ( (JavaAccumulatorFunctionExecutor) getAccumulator( "java", "" ) ).isSlidingWindow() );
+
+        // only the window aggregate lets a function without reverse remove a value
+        assertTrue( getAccumulator( "java", "over window:time( 10ms )" ).supportsReverse() );
+        assertTrue( getAccumulator( "mvel", "over window:length( 5 )" ).supportsReverse() );
+        assertFalse( getAccumulator( "java", "" ).supportsReverse() );
+    }
+
+    private void checkTimeWindow(String dialect, String window) {
+        checkTimeWindow( dialect, window, "windowMin", "windowMax" );
+    }
+
+    private void checkTimeWindow(String dialect, String window, String minFunction, String maxFunction) {
+        KieSession ksession = getSession( dialect, window, minFunction, maxFunction );
+        PseudoClockScheduler clock = ksession.getSessionClock();
+        Map<String, Object> results = new HashMap<String, Object>();
+        ksession.setGlobal( "results", results );
+        Random random = new Random( 0 );
+        List<Integer> prices = new ArrayList<Integer>();
+        List<Long> timestamps = new ArrayList<Long>();
+
+        for ( int i = 0; i < 300; i++ ) {
+            if ( random.nextInt( 4 ) > 0 ) {
+                int price = random.nextInt( 100 );
+                ksession.insert( new Tick( price ) );
+                prices.add( price );
+                timestamps.add( clock.getCurrentTime() );
+            }
+            clock.advanceTime( random.nextInt( 3 ), TimeUnit.MILLISECONDS );
+            ksession.fireAllRules();
+
+            List<Integer> inWindow = new ArrayList<Integer>();
+            for ( int j = 0; j < prices.size(); j++ ) {
+                if ( timestamps.get( j ) + 10 > clock.getCurrentTime() ) {
+                    inWindow.add( prices.get( j ) );
+                }
+            }
+            assertResults( inWindow, results );
+        }
+        ksession.dispose();
+    }
+
+    private void assertResults(List<Integer> window, Map<String, Object> results) {
+        Integer min = null;
+        Integer max = null;
+        for ( Integer price : window ) {
+            if ( price != null ) {
+                min = min == null ? price : Math.min( min, price );
+                max = max == null ? price : Math.max( max, price );
+            }
+        }
+        assertEquals( window.toString(), min, results.get( "min" ) );
+        assertEquals( window.toString(), max, results.get( "max" ) );
+    }
+
+    private String getDrl(String dialect, String window, String minFunction, String maxFunction) {
+        return "package org.drools.compiler.test\n" +
+               "import " + Tick.class.getCanonicalName() + "\n" +
+               "import accumulate " + WindowMin.class.getCanonicalName() + " windowMin\n" +
+               "import accumulate " + WindowMax.class.getCanonicalName() + " windowMax\n" +
+               "global java.util.Map results;\n" +
+               "declare window Last10\n" +
+               "    Tick() over window:time( 10ms )\n" +
+               "end\n" +
+               "dialect \"" + dialect + "\"\n" +
+               String.format( RULE, window, minFunction, maxFunction );
+    }
+
+    private KieBase getKieBase(String dialect, String window, String minFunction, String maxFunction) {
+        String drl = getDrl( dialect, window, minFunction, maxFunction );
+        return new KieHelper().addContent( drl, ResourceType.DRL ).build( EventProcessingOption.STREAM );
+    }
+
+    private KieSession getSession(String dialect, String window, String minFunction, String maxFunction) {
+        KieSessionConfiguration sessionConfig = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        sessionConfig.setOption( ClockTypeOption.get( ClockType.PSEUDO_CLOCK.getId() ) );
+        return getKieBase( dialect, window, minFunction, maxFunction ).newKieSession( sessionConfig, null );
+    }
+
+    private Accumulator getAccumulator(String dialect, String window) {
+        RuleImpl rule = (RuleImpl) getKieBase( dialect, window, "windowMin", "windowMax" ).getRule( "org.drools.compiler.test", "R" );
+        for ( RuleConditionElement element : rule.getLhs().getChildren() ) {
+            if ( element instanceof Pattern && ( (Pattern) element ).getSource() instanceof Accumulate ) {
+                return ( (Accumulate) ( (Pattern) element ).getSource() ).getAccumulators()[0];
+            }
+        }
+        throw new IllegalStateException( "No accumulate in rule R" );
+    }
+
+    /**
+     * A min without reverse, whose partial aggregates can be merged
+     */
+    public static class WindowMin implements MergeableAccumulateFunction {
+
+        public void writeExternal(ObjectOutput out) throws IOException { }
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException { }
+
+        public Serializable createContext() {
+            return new ExtremeContext();
+        }
+
+        public void init(Serializable context) {
+            ( (ExtremeContext) context ).value = null;
+        }
+
+        public void accumulate(Serializable context, Object value) {
+            ExtremeContext extreme = (ExtremeContext) context;
+            extreme.value = extreme.value == null ? (Comparable) value : (Comparable) merge( extreme.value, value );
+        }
+
+        public void reverse(Serializable context, Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object getResult(Serializable context) {
+            return ( (ExtremeContext) context ).value;
+        }
+
+        public boolean supportsReverse() {
+            return false;
+        }
+
+        public Class<?> getResultType() {
+            return Comparable.class;
+        }
+
+        public boolean supportsMerge() {
+            return true;
+        }
+
+        public Object lift(Object value) {
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Object merge(Object first, Object second) {
+            return ( (Comparable) second ).compareTo( first ) < 0 ? second : first;
+        }
+
+        public Object getMergedResult(Object partial) {
+            return partial;
+        }
+    }
+
+    public static class WindowMax extends WindowMin {
+
+        @SuppressWarnings("unchecked")
+        public Object merge(Object first, Object second) {
+            return ( (Comparable) second ).compareTo( first ) > 0 ? second : first;
+        }
+    }
+
+    public static class ExtremeContext implements Serializable {
+        public Comparable value;
+    }
+}
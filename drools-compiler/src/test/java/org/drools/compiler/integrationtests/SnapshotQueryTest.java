@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.Person;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.runtime.rule.impl.SnapshotQuery;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.runtime.rule.Variable;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SnapshotQueryTest {
+
+    private static final String DRL =
+            "import " + Person.class.getCanonicalName() + "\n" +
+            "query peopleByName( String $name )\n" +
+            "    $p : Person( $name := name, $age : age )\n" +
+            "end\n" +
+            "rule Birthday when\n" +
+            "    $s : String( this == \"birthday\" )\n" +
+            "    $p : Person( $age : age )\n" +
+            "then\n" +
+            "    modify( $p ) { setAge( $age + 1 ) }\n" +
+            "    delete( $s );\n" +
+            "end\n";
+
+    @Test
+    public void testSnapshotPublishedOnFireAllRules() {
+        KieSession ksession = new KieHelper().addContent( DRL, ResourceType.DRL ).build().newKieSession();
+        SnapshotQuery query = ( (StatefulKnowledgeSessionImpl) ksession ).openSnapshotQuery( "peopleByName" );
+        assertEquals( 0, query.getRows().size() );
+
+        ksession.insert( new Person( "Mario", 40 ) );
+        FactHandle luigi = ksession.insert( new Person( "Luigi", 35 ) );
+        // nothing is published until the engine comes to rest
+        assertEquals( 0, query.getRows().size() );
+        long version = query.getVersion();
+
+        ksession.fireAllRules();
+        assertTrue( query.getVersion() > version );
+        assertEquals( 2, query.getRows().size() );
+        assertEquals( 1, query.getRows( "Mario" ).size() );
+        assertEquals( 40, query.getRows( "Mario" ).get( 0 ).get( "$age" ) );
+        assertEquals( 2, query.getRows( Variable.v ).size() );
+        assertTrue( query.getRows( "Peach" ).isEmpty() );
+
+        // a published snapshot isn't affected by the following changes
+        SnapshotQuery.Snapshot snapshot = query.getSnapshot();
+        ksession.insert( "birthday" );
+        ksession.delete( luigi );
+        ksession.fireAllRules();
+
+        assertEquals( 2, snapshot.size() );
+        assertEquals( 40, snapshot.getRows( "Mario" ).get( 0 ).get( "$age" ) );
+        assertTrue( query.getVersion() > snapshot.getVersion() );
+        assertEquals( 1, query.getRows().size() );
+        assertEquals( 41, query.getRows( "Mario" ).get( 0 ).get( "$age" ) );
+        assertTrue( query.getRows( "Luigi" ).isEmpty() );
+
+        // no new version is published if the results didn't change
+        version = query.getVersion();
+        ksession.insert( "unrelated" );
+        ksession.fireAllRules();
+        assertEquals( version, query.getVersion() );
+
+        query.close();
+        ksession.insert( new Person( "Peach", 30 ) );
+        ksession.fireAllRules();
+        assertEquals( version, query.getVersion() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testPartiallyBoundArguments() {
+        String drl =
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "query peopleByNameAndAge( String $name, int $age )\n" +
+                "    $p : Person( $name := name, $age := age )\n" +
+                "end\n";
+        KieSession ksession = new KieHelper().addContent( drl, ResourceType.DRL ).build().newKieSession();
+        SnapshotQuery query = ( (StatefulKnowledgeSessionImpl) ksession ).openSnapshotQuery( "peopleByNameAndAge" );
+
+        Person mario = new Person( "Mario", 40 );
+        FactHandle marioHandle = ksession.insert( mario );
+        ksession.insert( new Person( "Mario", 35 ) );
+        ksession.insert( new Person( "Luigi", 35 ) );
+        ksession.fireAllRules();
+
+        assertEquals( 3, query.getRows( Variable.v, Variable.v ).size() );
+        assertEquals( 2, query.getRows( "Mario", Variable.v ).size() );
+        assertEquals( 2, query.getRows( null, 35 ).size() );
+        assertEquals( 1, query.getRows( "Mario", 35 ).size() );
+        assertTrue( query.getRows( "Peach", null ).isEmpty() );
+        assertTrue( query.getRows( "Luigi", 40 ).isEmpty() );
+
+        // the indexes of a published snapshot aren't affected by the following updates
+        SnapshotQuery.Snapshot snapshot = query.getSnapshot();
+        mario.setAge( 36 );
+        ksession.update( marioHandle, mario );
+        ksession.fireAllRules();
+
+        assertEquals( 1, snapshot.getRows( null, 40 ).size() );
+        assertTrue( snapshot.getRows( null, 36 ).isEmpty() );
+        assertTrue( query.getRows( null, 40 ).isEmpty() );
+        assertEquals( 1, query.getRows( null, 36 ).size() );
+        assertEquals( 36, query.getRows( "Mario", 36 ).get( 0 ).get( "$age" ) );
+        assertEquals( 2, query.getRows( "Mario", null ).size() );
+
+        ksession.delete( marioHandle );
+        ksession.fireAllRules();
+        assertEquals( 1, query.getRows( "Mario", null ).size() );
+        assertEquals( 2, query.getRows().size() );
+        assertEquals( 3, snapshot.size() );
+
+        query.close();
+        ksession.dispose();
+    }
+
+    @Test(timeout = 20000)
+    public void testReadSnapshotWhileFiringUntilHalt() throws Exception {
+        final KieSession ksession = new KieHelper().addContent( DRL, ResourceType.DRL ).build().newKieSession();
+        final SnapshotQuery query = ( (StatefulKnowledgeSessionImpl) ksession ).openSnapshotQuery( "peopleByName" );
+
+        Thread firingThread = new Thread( new Runnable() {
+            public void run() {
+                ksession.fireUntilHalt();
+            }
+        } );
+        firingThread.start();
+
+        final int peopleNr = 100;
+        final CountDownLatch done = new CountDownLatch( 1 );
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for ( int i = 0; i < readers.length; i++ ) {
+            readers[i] = new Thread( new Runnable() {
+                public void run() {
+                    try {
+                        long lastVersion = 0;
+                        while ( done.getCount() > 0 ) {
+                            SnapshotQuery.Snapshot snapshot = query.getSnapshot();
+                            assertTrue( snapshot.getVersion() >= lastVersion );
+                            lastVersion = snapshot.getVersion();
+                            List<Map<String, Object>> rows = snapshot.getRows();
+                            assertEquals( rows.size(), snapshot.size() );
+                            for ( Map<String, Object> row : rows ) {
+                                assertEquals( 1, snapshot.getRows( row.get( "$name" ) ).size() );
+                            }
+                        }
+                    } catch (Throwable t) {
+                        error.set( t );
+                    }
+                }
+            } );
+            readers[i].start();
+        }
+
+        for ( int i = 0; i < peopleNr; i++ ) {
+            ksession.insert( new Person( "Person" + i, i ) );
+        }
+
+        // wait for the firing thread to come to rest and publish all the people
+        while ( query.getRows().size() < peopleNr ) {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, query.getRows( "Person42" ).size() );
+        assertEquals( 42, query.getRows( "Person42" ).get( 0 ).get( "$age" ) );
+
+        done.countDown();
+        for ( Thread reader : readers ) {
+            reader.join( TimeUnit.SECONDS.toMillis( 10 ) );
+        }
+        if ( error.get() != null ) {
+            throw new AssertionError( error.get() );
+        }
+
+        ksession.halt();
+        firingThread.join( TimeUnit.SECONDS.toMillis( 10 ) );
+        query.close();
+        ksession.dispose();
+    }
+}
@@ -18,10 +18,17 @@ package org.drools.compiler.integrationtests;
 import org.drools.compiler.Cheese;
 import org.drools.compiler.Cheesery;
 import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.command.impl.ExecutableCommand;
 import org.drools.core.command.runtime.BatchExecutionCommandImpl;
+import org.drools.core.impl.StatelessKnowledgeSessionImpl;
+import org.drools.core.impl.StatelessSessionPool;
 import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
 import org.kie.api.command.Command;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
 import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.Channel;
@@ -35,11 +42,13 @@ import org.kie.internal.command.CommandFactory;
 import org.kie.internal.definition.KnowledgePackage;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.internal.runtime.StatelessKnowledgeSession;
+import org.kie.internal.utils.KieHelper;
 import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -271,6 +280,111 @@ public class StatelessSessionTest extends CommonTestMethodBase {
         assertNull( ksession.getChannels().get( "x" ) );
     }
 
+    @Test
+    public void testPooledSessionsAreReset() throws Exception {
+        String str = "";
+        str += "package org.kie \n";
+        str += "import org.drools.compiler.Cheese \n";
+        str += "global java.util.List list \n";
+        str += "rule rule1 \n";
+        str += "  when \n";
+        str += "    Number( $n : intValue ) from accumulate( Cheese(), count() ) \n";
+        str += "  then \n";
+        str += "    list.add( $n ); \n";
+        str += "end\n";
+
+        StatelessKieSession ksession = getPooledSession( str, 2 );
+        List<Integer> results = new ArrayList<Integer>();
+        ksession.setGlobal( "list", results );
+
+        for ( int i = 0; i < 3; i++ ) {
+            ksession.execute( Arrays.asList( new Cheese( "stilton", 5 ), new Cheese( "brie", 7 ) ) );
+        }
+        // no fact survives from a former execution of the same pooled session
+        assertEquals( Arrays.asList( 2, 2, 2 ), results );
+
+        StatelessSessionPool pool = ( (StatelessKnowledgeSessionImpl) ksession ).getSessionPool();
+        assertEquals( 1, pool.getMisses() );
+        assertEquals( 2, pool.getHits() );
+        assertEquals( 1, pool.getIdleSessions() );
+    }
+
+    @Test
+    public void testPooledSessionsAreDiscardedWhenListenersChange() throws Exception {
+        String str = "";
+        str += "package org.kie \n";
+        str += "import org.drools.compiler.Cheese \n";
+        str += "rule rule1 \n";
+        str += "  when \n";
+        str += "    $c : Cheese() \n";
+        str += "  then \n";
+        str += "end\n";
+
+        StatelessKieSession ksession = getPooledSession( str, 2 );
+        ksession.execute( new Cheese( "stilton", 5 ) );
+
+        AgendaEventListener listener = Mockito.mock( AgendaEventListener.class );
+        ksession.addEventListener( listener );
+        ksession.execute( new Cheese( "stilton", 5 ) );
+        ksession.execute( new Cheese( "brie", 7 ) );
+
+        Mockito.verify( listener, Mockito.times( 2 ) ).afterMatchFired( Mockito.any( AfterMatchFiredEvent.class ) );
+
+        StatelessSessionPool pool = ( (StatelessKnowledgeSessionImpl) ksession ).getSessionPool();
+        // the session created before the listener has been added is discarded and not reused
+        assertEquals( 1, pool.getDiscarded() );
+        assertEquals( 2, pool.getMisses() );
+        assertEquals( 1, pool.getHits() );
+    }
+
+    @Test(timeout = 20000)
+    public void testPoolIsBoundedWithConcurrentExecutions() throws Exception {
+        String str = "";
+        str += "package org.kie \n";
+        str += "import org.drools.compiler.Cheese \n";
+        str += "global java.util.List list \n";
+        str += "rule rule1 \n";
+        str += "  when \n";
+        str += "    $c : Cheese() \n";
+        str += "  then \n";
+        str += "    list.add( $c ); \n";
+        str += "end\n";
+
+        final StatelessKieSession ksession = getPooledSession( str, 2 );
+        final List<Cheese> results = Collections.synchronizedList( new ArrayList<Cheese>() );
+        ksession.setGlobal( "list", results );
+
+        final int threadsNr = 8;
+        final int executionsNr = 200;
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int i = 0; i < threadsNr; i++ ) {
+            threads.add( new Thread( new Runnable() {
+                public void run() {
+                    for ( int j = 0; j < executionsNr; j++ ) {
+                        ksession.execute( new Cheese( "stilton", j ) );
+                    }
+                }
+            } ) );
+        }
+        for ( Thread thread : threads ) {
+            thread.start();
+        }
+        for ( Thread thread : threads ) {
+            thread.join();
+        }
+
+        assertEquals( threadsNr * executionsNr, results.size() );
+        StatelessSessionPool pool = ( (StatelessKnowledgeSessionImpl) ksession ).getSessionPool();
+        assertEquals( threadsNr * executionsNr, pool.getHits() + pool.getMisses() );
+        assertTrue( pool.getIdleSessions() <= 2 );
+    }
+
+    private StatelessKieSession getPooledSession( String drl, int poolSize ) {
+        KieBaseConfiguration kbconf = KieServices.Factory.get().newKieBaseConfiguration();
+        kbconf.setProperty( RuleBaseConfiguration.STATELESS_SESSION_POOL_SIZE_PROPERTY, Integer.toString( poolSize ) );
+        return new KieHelper().addContent( drl, ResourceType.DRL ).build( kbconf ).newStatelessKieSession();
+    }
+
     private StatelessKnowledgeSession getSession2(String fileName) throws Exception {
         return getSession2( ResourceFactory.newClassPathResource( fileName, getClass() ) );
     }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.RuleTerminalNode;
+import org.drools.core.reteoo.TupleMemory;
+import org.drools.core.spi.Tuple;
+import org.drools.core.util.FastIterator;
+import org.drools.core.util.index.TupleIndexTemporalRBTree;
+import org.drools.core.util.index.TupleList;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.definition.type.Duration;
+import org.kie.api.definition.type.Role;
+import org.kie.api.definition.type.Timestamp;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TemporalIndexTest extends CommonTestMethodBase {
+
+    @Role( Role.Type.EVENT )
+    @Timestamp( "start" )
+    @Duration( "duration" )
+    public static class Interval {
+        private final String id;
+        private final String type;
+        private final long start;
+        private final long duration;
+
+        public Interval(String id, String type, long start, long duration) {
+            this.id = id;
+            this.type = type;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public String toString() {
+            return id + "[" + start + "," + ( start + duration ) + "]";
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testBuildsTemporalIndexedMemory() {
+        String drl = getJoinDrl( "this after[2,8] $a" );
+
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) loadKnowledgeBase( drl, true, true ).newStatefulKnowledgeSession();
+        BetaMemory bm = (BetaMemory) ksession.getNodeMemory( getBetaNode( ksession ) );
+        assertTrue( bm.getLeftTupleMemory() instanceof TupleIndexTemporalRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleIndexTemporalRBTree );
+        ksession.dispose();
+
+        // as the comparison indexes, a temporal index on a join node requires the range index option
+        ksession = (StatefulKnowledgeSessionImpl) loadKnowledgeBase( drl, true, false ).newStatefulKnowledgeSession();
+        bm = (BetaMemory) ksession.getNodeMemory( getBetaNode( ksession ) );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleList );
+        ksession.dispose();
+
+        // while it is always used by not and exists nodes
+        ksession = (StatefulKnowledgeSessionImpl) loadKnowledgeBase( getExistentialDrl( "not", "this after[2,8] $a" ), true, false ).newStatefulKnowledgeSession();
+        bm = (BetaMemory) ksession.getNodeMemory( getBetaNode( ksession ) );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleIndexTemporalRBTree );
+        ksession.dispose();
+
+        // a negated operator can't be narrowed
+        ksession = (StatefulKnowledgeSessionImpl) loadKnowledgeBase( getJoinDrl( "this not after[2,8] $a" ), true, true ).newStatefulKnowledgeSession();
+        bm = (BetaMemory) ksession.getNodeMemory( getBetaNode( ksession ) );
+        assertTrue( bm.getRightTupleMemory() instanceof TupleList );
+        ksession.dispose();
+    }
+
+    @Test(timeout=20000)
+    public void testInterleavedIterations() {
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) loadKnowledgeBase( getJoinDrl( "this after[2,8] $a" ), true, true ).newStatefulKnowledgeSession();
+        ksession.insert( new Interval( "a1", "A", 0, 0 ) );
+        ksession.insert( new Interval( "a2", "A", 20, 0 ) );
+        for ( int start : new int[] { 3, 5, 9, 23, 27 } ) {
+            ksession.insert( new Interval( "b" + start, "B", start, 0 ) );
+        }
+        ksession.fireAllRules();
+
+        BetaMemory bm = (BetaMemory) ksession.getNodeMemory( getBetaNode( ksession ) );
+        TupleMemory ltm = bm.getLeftTupleMemory();
+        TupleMemory rtm = bm.getRightTupleMemory();
+        FastIterator leftIt = ltm.fullFastIterator();
+        Tuple first = (Tuple) leftIt.next( null );
+        Tuple second = (Tuple) leftIt.next( first );
+
+        // the iterations of two tuples on the same memory don't interfere
+        FastIterator it1 = rtm.fastIterator();
+        Tuple match1 = rtm.getFirst( first, it1 );
+        FastIterator it2 = rtm.fastIterator();
+        Tuple match2 = rtm.getFirst( second, it2 );
+        List<String> matches1 = new ArrayList<String>();
+        for ( ; match1 != null; match1 = (Tuple) it1.next( match1 ) ) {
+            matches1.add( ( (Interval) match1.getFactHandle().getObject() ).getId() );
+        }
+        List<String> matches2 = new ArrayList<String>();
+        for ( ; match2 != null; match2 = (Tuple) it2.next( match2 ) ) {
+            matches2.add( ( (Interval) match2.getFactHandle().getObject() ).getId() );
+        }
+
+        boolean firstIsA1 = ( (Interval) first.getFactHandle().getObject() ).getId().equals( "a1" );
+        assertEquals( Arrays.asList( "b3", "b5" ), firstIsA1 ? matches1 : matches2 );
+        assertEquals( Arrays.asList( "b23", "b27" ), firstIsA1 ? matches2 : matches1 );
+        ksession.dispose();
+    }
+
+    @Test(timeout=20000)
+    public void testJoinAfterIndex() {
+        checkIndexedNode( getJoinDrl( "this after[2,8] $a" ) );
+        checkIndexedNode( getJoinDrl( "this after $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinBeforeIndex() {
+        checkIndexedNode( getJoinDrl( "this before[1,5] $a" ) );
+        checkIndexedNode( getJoinDrl( "this before[-3,4] $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinMeetsIndex() {
+        checkIndexedNode( getJoinDrl( "this meets $a" ) );
+        checkIndexedNode( getJoinDrl( "this metby[1] $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinDuringIndex() {
+        checkIndexedNode( getJoinDrl( "this during $a" ) );
+        checkIndexedNode( getJoinDrl( "this includes[2,6] $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinOverlapsIndex() {
+        checkIndexedNode( getJoinDrl( "this overlaps $a" ) );
+        checkIndexedNode( getJoinDrl( "this overlappedby[3] $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testJoinStartsAndFinishesIndex() {
+        checkIndexedNode( getJoinDrl( "this coincides[2] $a" ) );
+        checkIndexedNode( getJoinDrl( "this starts[1] $a" ) );
+        checkIndexedNode( getJoinDrl( "this startedby $a" ) );
+        checkIndexedNode( getJoinDrl( "this finishes[1] $a" ) );
+        checkIndexedNode( getJoinDrl( "this finishedby $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testNotTemporalIndex() {
+        checkIndexedNode( getExistentialDrl( "not", "this after[2,8] $a" ) );
+        checkIndexedNode( getExistentialDrl( "not", "this during $a" ) );
+    }
+
+    @Test(timeout=20000)
+    public void testExistsTemporalIndex() {
+        checkIndexedNode( getExistentialDrl( "exists", "this before[0,6] $a" ) );
+        checkIndexedNode( getExistentialDrl( "exists", "this includes $a" ) );
+    }
+
+    private String getJoinDrl(String constraint) {
+        return "import " + Interval.class.getCanonicalName() + "\n" +
+               "rule R1 when\n" +
+               "   $a : Interval( type == \"A\" )\n" +
+               "   $b : Interval( type == \"B\", " + constraint + " )\n" +
+               "then\n" +
+               "   insertLogical( $a.getId() + \"-\" + $b.getId() );\n" +
+               "end\n";
+    }
+
+    private String getExistentialDrl(String existential, String constraint) {
+        return "import " + Interval.class.getCanonicalName() + "\n" +
+               "rule R1 when\n" +
+               "   $a : Interval( type == \"A\" )\n" +
+               "   " + existential + " Interval( type == \"B\", " + constraint + " )\n" +
+               "then\n" +
+               "   insertLogical( $a.getId() );\n" +
+               "end\n";
+    }
+
+    private KnowledgeBase loadKnowledgeBase(String drl, boolean indexed, boolean rangeIndexEnabled) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.indexLeftBetaMemory", Boolean.toString( indexed ) );
+        kconf.setProperty( "drools.indexRightBetaMemory", Boolean.toString( indexed ) );
+        kconf.setProperty( RuleBaseConfiguration.BETA_RANGE_INDEX_PROPERTY, Boolean.toString( rangeIndexEnabled ) );
+        return loadKnowledgeBaseFromString( kconf, drl );
+    }
+
+    private BetaNode getBetaNode(StatefulKnowledgeSessionImpl ksession) {
+        RuleTerminalNode rtn = (RuleTerminalNode) ( (InternalKnowledgeBase) ksession.getKieBase() ).getReteooBuilder().getTerminalNodes().values().iterator().next()[0];
+        return (BetaNode) rtn.getLeftTupleSource();
+    }
+
+    private void checkIndexedNode(String drl) {
+        StatefulKnowledgeSession indexedSession = loadKnowledgeBase( drl, true, true ).newStatefulKnowledgeSession();
+        StatefulKnowledgeSession plainSession = loadKnowledgeBase( drl, false, false ).newStatefulKnowledgeSession();
+
+        // randomly inserts, updates and deletes the same events in both sessions, checking they always have the same matches
+        Random random = new Random( 0 );
+        List<Interval> intervals = new ArrayList<Interval>();
+        List<FactHandle> indexedHandles = new ArrayList<FactHandle>();
+        List<FactHandle> plainHandles = new ArrayList<FactHandle>();
+        int counter = 0;
+        boolean matched = false;
+
+        for (int i = 0; i < 400; i++) {
+            int action = random.nextInt( 5 );
+            if ( action < 3 || intervals.isEmpty() ) {
+                Interval interval = new Interval( "i" + counter++, random.nextBoolean() ? "A" : "B", random.nextInt( 50 ), random.nextInt( 8 ) );
+                intervals.add( interval );
+                indexedHandles.add( indexedSession.insert( interval ) );
+                plainHandles.add( plainSession.insert( interval ) );
+            } else if ( action == 3 ) {
+                int pos = random.nextInt( intervals.size() );
+                indexedSession.update( indexedHandles.get( pos ), intervals.get( pos ) );
+                plainSession.update( plainHandles.get( pos ), intervals.get( pos ) );
+            } else {
+                int pos = random.nextInt( intervals.size() );
+                intervals.remove( pos );
+                indexedSession.delete( indexedHandles.remove( pos ) );
+                plainSession.delete( plainHandles.remove( pos ) );
+            }
+
+            if ( random.nextInt( 4 ) == 0 ) {
+                indexedSession.fireAllRules();
+                plainSession.fireAllRules();
+                Set<String> expected = getMatches( plainSession );
+                assertEquals( drl, expected, getMatches( indexedSession ) );
+                matched |= !expected.isEmpty();
+            }
+        }
+
+        indexedSession.fireAllRules();
+        plainSession.fireAllRules();
+        assertEquals( drl, getMatches( plainSession ), getMatches( indexedSession ) );
+        assertTrue( "The rule never matched: " + drl, matched );
+
+        indexedSession.dispose();
+        plainSession.dispose();
+    }
+
+    private Set<String> getMatches(StatefulKnowledgeSession ksession) {
+        Set<String> matches = new HashSet<String>();
+        for (Object match : ksession.getObjects( new ClassObjectFilter( String.class ) )) {
+            matches.add( (String) match );
+        }
+        return matches;
+    }
+}
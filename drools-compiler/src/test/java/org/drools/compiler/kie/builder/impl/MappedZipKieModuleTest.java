@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import org.drools.compiler.kproject.models.KieModuleModelImpl;
+import org.drools.core.common.ProjectClassLoader;
+import org.drools.core.util.IoUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.model.KieModuleModel;
+import org.kie.api.runtime.KieSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class MappedZipKieModuleTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static final String PERSON_SRC =
+            "package org.mapped;\n" +
+            "public class Person {\n" +
+            "    private final String name;\n" +
+            "    public Person(String name) { this.name = name; }\n" +
+            "    public String getName() { return name; }\n" +
+            "}\n";
+
+    private static final String DRL =
+            "package org.mapped\n" +
+            "global java.util.List list\n" +
+            "declare Greeting\n" +
+            "    text : String\n" +
+            "end\n" +
+            "rule Greet when\n" +
+            "    Person( $name : name )\n" +
+            "then\n" +
+            "    insert( new Greeting( \"Hello \" + $name ) );\n" +
+            "end\n" +
+            "rule Collect when\n" +
+            "    Greeting( $text : text )\n" +
+            "then\n" +
+            "    list.add( $text );\n" +
+            "end\n";
+
+    @Test
+    public void testSameEntriesOfZipKieModule() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId( "org.mapped", "mapped-entries", "1.0" );
+        File jar = createKJar( ks, releaseId );
+
+        ZipKieModule zipModule = new ZipKieModule( releaseId, getKieModuleModel( jar ), jar );
+        MappedZipKieModule mappedModule = new MappedZipKieModule( releaseId, getKieModuleModel( jar ), jar );
+
+        assertEquals( new HashSet<String>( zipModule.getFileNames() ), new HashSet<String>( mappedModule.getFileNames() ) );
+        for ( String fileName : zipModule.getFileNames() ) {
+            assertTrue( mappedModule.isAvailable( fileName ) );
+            assertArrayEquals( fileName, zipModule.getBytes( fileName ), mappedModule.getBytes( fileName ) );
+        }
+        assertFalse( mappedModule.isAvailable( "org/mapped/Missing.class" ) );
+        assertNull( mappedModule.getBytes( "org/mapped/Missing.class" ) );
+
+        assertEquals( zipModule.getClassesMap( true ).keySet(), mappedModule.getClassesMap( true ).keySet() );
+        assertArrayEquals( zipModule.getClassesMap( true ).get( "org/mapped/Person.class" ),
+                           mappedModule.getClassesMap( true ).get( "org/mapped/Person.class" ) );
+    }
+
+    @Test
+    public void testClassesDefinedOnDemandAndMappingReleased() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId( "org.mapped", "mapped-container", "1.0" );
+        File jar = createKJar( ks, releaseId );
+
+        int mappedJarsBefore = MappedJar.getMappedJarsCount();
+        MappedZipKieModule module1 = new MappedZipKieModule( releaseId, getKieModuleModel( jar ), jar );
+        MappedZipKieModule module2 = new MappedZipKieModule( releaseId, getKieModuleModel( jar ), jar );
+        // the modules keep the jar mapped only while they are retained
+        assertNotNull( module2.getBytes( "org/mapped/Person.class" ) );
+        assertFalse( module1.isMapped() );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+
+        KieContainerImpl kieContainer1 = new KieContainerImpl( new KieModuleKieProject( module1 ), ks.getRepository() );
+        KieContainerImpl kieContainer2 = new KieContainerImpl( new KieModuleKieProject( module1 ), ks.getRepository() );
+        KieContainerImpl kieContainer3 = new KieContainerImpl( new KieModuleKieProject( module2 ), ks.getRepository() );
+        // the two modules share the same mapping
+        assertEquals( mappedJarsBefore + 1, MappedJar.getMappedJarsCount() );
+
+        // the classes of the jar are not copied in the class loader, but read from the mapped jar when needed
+        ProjectClassLoader cl = (ProjectClassLoader) kieContainer1.getClassLoader();
+        assertTrue( cl.getStore() == null || !cl.getStore().containsKey( "org/mapped/Person.class" ) );
+        assertNotNull( cl.getBytecode( "org/mapped/Person.class" ) );
+
+        assertEquals( "[Hello Mario]", fire( kieContainer1, "Mario" ).toString() );
+        assertEquals( "[Hello Luigi]", fire( kieContainer3, "Luigi" ).toString() );
+
+        kieContainer1.dispose();
+        assertTrue( module1.isMapped() );
+        kieContainer2.dispose();
+        assertFalse( module1.isMapped() );
+        assertTrue( module2.isMapped() );
+        kieContainer3.dispose();
+        assertFalse( module2.isMapped() );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+
+        // a read after the release doesn't map the jar again for good
+        assertNotNull( module1.getClassesMap( true ).get( "org/mapped/Person.class" ) );
+        assertFalse( module1.isMapped() );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+
+        // a released module maps the jar again when it's used
+        KieContainerImpl kieContainer4 = new KieContainerImpl( new KieModuleKieProject( module1 ), ks.getRepository() );
+        assertEquals( "[Hello Peach]", fire( kieContainer4, "Peach" ).toString() );
+        assertTrue( module1.isMapped() );
+        kieContainer4.dispose();
+        assertFalse( module1.isMapped() );
+    }
+
+    @Test
+    public void testLazyStoresReplacedOnUpdate() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId1 = ks.newReleaseId( "org.mapped", "mapped-update", "1.0" );
+        ReleaseId releaseId2 = ks.newReleaseId( "org.mapped", "mapped-update", "1.1" );
+        File jar1 = createKJar( ks, releaseId1 );
+        File jar2 = createKJar( ks, releaseId2 );
+
+        int mappedJarsBefore = MappedJar.getMappedJarsCount();
+        MappedZipKieModule module1 = new MappedZipKieModule( releaseId1, getKieModuleModel( jar1 ), jar1 );
+        MappedZipKieModule module2 = new MappedZipKieModule( releaseId2, getKieModuleModel( jar2 ), jar2 );
+        KieModuleKieProject kProject = new KieModuleKieProject( module1 );
+        KieContainerImpl kieContainer = new KieContainerImpl( kProject, ks.getRepository() );
+        ProjectClassLoader cl = (ProjectClassLoader) kieContainer.getClassLoader();
+        assertEquals( 1, cl.getLazyStores().size() );
+        assertSame( module1.getClassesMap( false ), cl.getLazyStores().get( 0 ) );
+
+        // the classes of the new module replace the ones of the old one, which is released
+        kProject.updateToModule( module2 );
+        assertEquals( 1, cl.getLazyStores().size() );
+        assertSame( module2.getClassesMap( false ), cl.getLazyStores().get( 0 ) );
+        assertFalse( module1.isMapped() );
+        assertTrue( module2.isMapped() );
+
+        kieContainer.dispose();
+        assertFalse( module2.isMapped() );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+    }
+
+    @Test
+    public void testUnretainedModuleReadsModifiedJar() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId1 = ks.newReleaseId( "org.mapped", "mapped-reindex", "1.0" );
+        ReleaseId releaseId2 = ks.newReleaseId( "org.mapped", "mapped-reindex", "1.1" );
+        File jar = createKJar( ks, releaseId1 );
+        File newJar = createKJar( ks, releaseId2 );
+        String pomProperties = "META-INF/maven/org.mapped/mapped-reindex/pom.properties";
+
+        int mappedJarsBefore = MappedJar.getMappedJarsCount();
+        MappedZipKieModule module = new MappedZipKieModule( releaseId1, getKieModuleModel( jar ), jar );
+        // the entries of a module that isn't retained are read through the index of the jar without mapping it
+        for ( String fileName : module.getFileNames() ) {
+            assertNotNull( fileName, module.getBytes( fileName ) );
+        }
+        assertFalse( module.isMapped() );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+        assertTrue( new String( module.getBytes( pomProperties ) ).contains( "version=1.0" ) );
+
+        // a modified jar is indexed again
+        long lastModified = jar.lastModified();
+        FileOutputStream out = new FileOutputStream( jar );
+        out.write( IoUtils.readBytesFromInputStream( new FileInputStream( newJar ) ) );
+        out.close();
+        jar.setLastModified( lastModified + 10000 );
+        assertTrue( new String( module.getBytes( pomProperties ) ).contains( "version=1.1" ) );
+        assertArrayEquals( new ZipKieModule( releaseId2, getKieModuleModel( jar ), jar ).getBytes( "org/mapped/Person.class" ),
+                           module.getBytes( "org/mapped/Person.class" ) );
+        assertEquals( mappedJarsBefore, MappedJar.getMappedJarsCount() );
+    }
+
+    @Test
+    public void testZip64JarReadOnTheHeap() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId( "org.mapped", "mapped-zip64", "1.0" );
+        File kjar = createKJar( ks, releaseId );
+
+        // a jar with at least 0xFFFF entries is written in the Zip64 format
+        File jar = temp.newFile( "mapped-zip64.jar" );
+        ZipFile zipFile = new ZipFile( kjar );
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jar ) );
+        try {
+            for ( Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+                ZipEntry entry = entries.nextElement();
+                out.putNextEntry( new ZipEntry( entry.getName() ) );
+                out.write( IoUtils.readBytesFromInputStream( zipFile.getInputStream( entry ) ) );
+                out.closeEntry();
+            }
+            for ( int i = 0; i < 0xFFFF; i++ ) {
+                out.putNextEntry( new ZipEntry( "filler/" + i ) );
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+            zipFile.close();
+        }
+
+        String previous = System.setProperty( MappedZipKieModule.MEMORY_MAPPED_PROPERTY, "true" );
+        try {
+            ZipKieModule module = MappedZipKieModule.createZipKieModule( releaseId, getKieModuleModel( jar ), jar );
+            assertFalse( module instanceof MappedZipKieModule );
+            assertNotNull( module.getBytes( "org/mapped/Person.class" ) );
+        } finally {
+            if ( previous == null ) {
+                System.clearProperty( MappedZipKieModule.MEMORY_MAPPED_PROPERTY );
+            } else {
+                System.setProperty( MappedZipKieModule.MEMORY_MAPPED_PROPERTY, previous );
+            }
+        }
+    }
+
+    private List<String> fire( KieContainerImpl kieContainer, String name ) throws Exception {
+        List<String> list = new ArrayList<String>();
+        KieSession ksession = kieContainer.newKieSession();
+        ksession.setGlobal( "list", list );
+        Class<?> personClass = kieContainer.getClassLoader().loadClass( "org.mapped.Person" );
+        ksession.insert( personClass.getConstructor( String.class ).newInstance( name ) );
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    private File createKJar( KieServices ks, ReleaseId releaseId ) throws Exception {
+        KieModuleModel kproj = ks.newKieModuleModel();
+        kproj.newKieBaseModel( "kbase" ).setDefault( true ).newKieSessionModel( "ksession" ).setDefault( true );
+
+        KieFileSystem kfs = ks.newKieFileSystem()
+                .generateAndWritePomXML( releaseId )
+                .writeKModuleXML( kproj.toXML() )
+                .write( "src/main/java/org/mapped/Person.java", PERSON_SRC )
+                .write( "src/main/resources/org/mapped/rules.drl", DRL );
+        KieBuilder kieBuilder = ks.newKieBuilder( kfs ).buildAll();
+        assertEquals( kieBuilder.getResults().getMessages().toString(), 0, kieBuilder.getResults().getMessages( Message.Level.ERROR ).size() );
+
+        byte[] bytes = ( (InternalKieModule) kieBuilder.getKieModule() ).getBytes();
+        File jar = temp.newFile( releaseId.getArtifactId() + "-" + releaseId.getVersion() + ".jar" );
+        FileOutputStream out = new FileOutputStream( jar );
+        out.write( bytes );
+        out.close();
+        return jar;
+    }
+
+    private KieModuleModel getKieModuleModel( File jar ) {
+        ZipKieModule zipModule = new ZipKieModule( null, null, jar );
+        return KieModuleModelImpl.fromXML( new ByteArrayInputStream( zipModule.getBytes( KieModuleModelImpl.KMODULE_JAR_PATH ) ) );
+    }
+}
@@ -101,6 +101,7 @@ import static org.drools.core.util.MemoryUtil.hasPermGen;
  * drools.compositeKeyDepth = &lt;1..3&gt;
  * drools.indexLeftBetaMemory = &lt;true/false&gt;
  * drools.indexRightBetaMemory = &lt;true/false&gt;
+ * drools.betaRangeIndexEnabled = &lt;true/false&gt;
  * drools.equalityBehavior = &lt;identity|equality&gt;
  * drools.executorService = &lt;qualified class name&gt;
  * drools.conflictResolver = &lt;qualified class name&gt;
@@ -113,6 +114,10 @@ import static org.drools.core.util.MemoryUtil.hasPermGen;
  * drools.declarativeAgendaEnabled =  &lt;true|false&gt; 
  * drools.permgenThreshold = &lt;1...n&gt;
  * drools.jittingThreshold = &lt;1...n&gt;
+ * drools.eagerJitting = &lt;true|false&gt;
+ * drools.compiledAlphaNetwork = &lt;true|false&gt;
+ * drools.nodeProfiling = &lt;true|false&gt;
+ * drools.statelessSessionPoolSize = &lt;0...n&gt;
  * </pre>
  */
 public class RuleBaseConfiguration
@@ -126,6 +131,12 @@ public class RuleBaseConfiguration
 
     public static final String DEFAULT_SIGN_ON_SERIALIZATION = "false";
 
+    public static final String BETA_RANGE_INDEX_PROPERTY = "drools.betaRangeIndexEnabled";
+    public static final String EAGER_JITTING_PROPERTY = "drools.eagerJitting";
+    public static final String COMPILED_ALPHA_NETWORK_PROPERTY = "drools.compiledAlphaNetwork";
+    public static final String NODE_PROFILING_PROPERTY = "drools.nodeProfiling";
+    public static final String STATELESS_SESSION_POOL_SIZE_PROPERTY = "drools.statelessSessionPoolSize";
+
     protected static final transient Logger logger = LoggerFactory.getLogger(RuleBaseConfiguration.class);
 
     private ChainedProperties chainedProperties;
@@ -141,10 +152,15 @@ public class RuleBaseConfiguration
     private boolean         shareBetaNodes;
     private int             permGenThreshold;
     private int             jittingThreshold;
+    private boolean         eagerJitting;
+    private boolean         compiledAlphaNetwork;
+    private boolean         nodeProfiling;
+    private int             statelessSessionPoolSize;
     private int             alphaNodeHashingThreshold;
     private int             compositeKeyDepth;
     private boolean         indexLeftBetaMemory;
     private boolean         indexRightBetaMemory;
+    private boolean         betaRangeIndexEnabled;
     private AssertBehaviour assertBehaviour;
     private String          executorService;
     private String          consequenceExceptionHandler;
@@ -199,10 +215,15 @@ public class RuleBaseConfiguration
         out.writeBoolean(shareBetaNodes);
         out.writeInt(permGenThreshold);
         out.writeInt(jittingThreshold);
+        out.writeBoolean(eagerJitting);
+        out.writeBoolean(compiledAlphaNetwork);
+        out.writeBoolean(nodeProfiling);
+        out.writeInt(statelessSessionPoolSize);
         out.writeInt(alphaNodeHashingThreshold);
         out.writeInt(compositeKeyDepth);
         out.writeBoolean(indexLeftBetaMemory);
         out.writeBoolean(indexRightBetaMemory);
+        out.writeBoolean(betaRangeIndexEnabled);
         out.writeObject(indexPrecedenceOption);
         out.writeObject(assertBehaviour);
         out.writeObject(executorService);
@@ -232,10 +253,15 @@ public class RuleBaseConfiguration
         shareBetaNodes = in.readBoolean();
         permGenThreshold = in.readInt();
         jittingThreshold = in.readInt();
+        eagerJitting = in.readBoolean();
+        compiledAlphaNetwork = in.readBoolean();
+        nodeProfiling = in.readBoolean();
+        statelessSessionPoolSize = in.readInt();
         alphaNodeHashingThreshold = in.readInt();
         compositeKeyDepth = in.readInt();
         indexLeftBetaMemory = in.readBoolean();
         indexRightBetaMemory = in.readBoolean();
+        betaRangeIndexEnabled = in.readBoolean();
         indexPrecedenceOption = (IndexPrecedenceOption) in.readObject();
         assertBehaviour = (AssertBehaviour) in.readObject();
         executorService = (String) in.readObject();
@@ -312,6 +338,14 @@ public class RuleBaseConfiguration
             setPermGenThreshold(StringUtils.isEmpty(value) ? PermGenThresholdOption.DEFAULT_VALUE : Integer.parseInt(value));
         } else if ( name.equals( ConstraintJittingThresholdOption.PROPERTY_NAME ) ) {
             setJittingThreshold( StringUtils.isEmpty( value ) ? ConstraintJittingThresholdOption.DEFAULT_VALUE : Integer.parseInt( value ) );
+        } else if ( name.equals( EAGER_JITTING_PROPERTY ) ) {
+            setEagerJitting( StringUtils.isEmpty( value ) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( COMPILED_ALPHA_NETWORK_PROPERTY ) ) {
+            setCompiledAlphaNetwork( StringUtils.isEmpty( value ) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( NODE_PROFILING_PROPERTY ) ) {
+            setNodeProfiling( StringUtils.isEmpty( value ) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( STATELESS_SESSION_POOL_SIZE_PROPERTY ) ) {
+            setStatelessSessionPoolSize( StringUtils.isEmpty( value ) ? 0 : Integer.parseInt(value));
         } else if ( name.equals( AlphaThresholdOption.PROPERTY_NAME ) ) {
             setAlphaNodeHashingThreshold( StringUtils.isEmpty( value ) ? 3 : Integer.parseInt(value));
         } else if ( name.equals( CompositeKeyDepthOption.PROPERTY_NAME ) ) {
@@ -320,6 +354,8 @@ public class RuleBaseConfiguration
             setIndexLeftBetaMemory( StringUtils.isEmpty( value ) ? true : Boolean.valueOf(value));
         } else if ( name.equals( IndexRightBetaMemoryOption.PROPERTY_NAME ) ) {
             setIndexRightBetaMemory( StringUtils.isEmpty( value ) ? true : Boolean.valueOf(value));
+        } else if ( name.equals( BETA_RANGE_INDEX_PROPERTY ) ) {
+            setBetaRangeIndexEnabled( StringUtils.isEmpty( value ) ? false : Boolean.valueOf(value));
         } else if ( name.equals( IndexPrecedenceOption.PROPERTY_NAME ) ) {
             setIndexPrecedenceOption( StringUtils.isEmpty( value ) ? IndexPrecedenceOption.EQUALITY_PRIORITY : IndexPrecedenceOption.determineIndexPrecedence(value));
         } else if ( name.equals( EqualityBehaviorOption.PROPERTY_NAME ) ) {
@@ -369,6 +405,14 @@ public class RuleBaseConfiguration
             return Integer.toString( getPermGenThreshold() );
         } else if ( name.equals( ConstraintJittingThresholdOption.PROPERTY_NAME ) ) {
             return Integer.toString( getJittingThreshold() );
+        } else if ( name.equals( EAGER_JITTING_PROPERTY ) ) {
+            return Boolean.toString( isEagerJitting() );
+        } else if ( name.equals( COMPILED_ALPHA_NETWORK_PROPERTY ) ) {
+            return Boolean.toString( isCompiledAlphaNetwork() );
+        } else if ( name.equals( NODE_PROFILING_PROPERTY ) ) {
+            return Boolean.toString( isNodeProfiling() );
+        } else if ( name.equals( STATELESS_SESSION_POOL_SIZE_PROPERTY ) ) {
+            return Integer.toString( getStatelessSessionPoolSize() );
         } else if ( name.equals( AlphaThresholdOption.PROPERTY_NAME ) ) {
             return Integer.toString( getAlphaNodeHashingThreshold() );
         } else if ( name.equals( CompositeKeyDepthOption.PROPERTY_NAME ) ) {
@@ -377,6 +421,8 @@ public class RuleBaseConfiguration
             return Boolean.toString( isIndexLeftBetaMemory() );
         } else if ( name.equals( IndexRightBetaMemoryOption.PROPERTY_NAME ) ) {
             return Boolean.toString( isIndexRightBetaMemory());
+        } else if ( name.equals( BETA_RANGE_INDEX_PROPERTY ) ) {
+            return Boolean.toString( isBetaRangeIndexEnabled() );
         } else if ( name.equals( IndexPrecedenceOption.PROPERTY_NAME ) ) {
             return getIndexPrecedenceOption().getValue();
         } else if ( name.equals( EqualityBehaviorOption.PROPERTY_NAME ) ) {
@@ -453,6 +499,14 @@ public class RuleBaseConfiguration
 
         setJittingThreshold( Integer.parseInt( this.chainedProperties.getProperty( ConstraintJittingThresholdOption.PROPERTY_NAME, "" + ConstraintJittingThresholdOption.DEFAULT_VALUE)));
 
+        setEagerJitting(Boolean.valueOf(this.chainedProperties.getProperty(EAGER_JITTING_PROPERTY, "false")).booleanValue());
+
+        setCompiledAlphaNetwork(Boolean.valueOf(this.chainedProperties.getProperty(COMPILED_ALPHA_NETWORK_PROPERTY, "false")).booleanValue());
+
+        setNodeProfiling(Boolean.valueOf(this.chainedProperties.getProperty(NODE_PROFILING_PROPERTY, "false")).booleanValue());
+
+        setStatelessSessionPoolSize(Integer.parseInt(this.chainedProperties.getProperty(STATELESS_SESSION_POOL_SIZE_PROPERTY, "0")));
+
         setAlphaNodeHashingThreshold(Integer.parseInt(this.chainedProperties.getProperty(AlphaThresholdOption.PROPERTY_NAME, "3")));
 
         setCompositeKeyDepth(Integer.parseInt(this.chainedProperties.getProperty(CompositeKeyDepthOption.PROPERTY_NAME, "3")));
@@ -461,6 +515,8 @@ public class RuleBaseConfiguration
 
         setIndexRightBetaMemory(Boolean.valueOf(this.chainedProperties.getProperty(IndexRightBetaMemoryOption.PROPERTY_NAME, "true")).booleanValue());
 
+        setBetaRangeIndexEnabled(Boolean.valueOf(this.chainedProperties.getProperty(BETA_RANGE_INDEX_PROPERTY, "false")).booleanValue());
+
         setIndexPrecedenceOption(IndexPrecedenceOption.determineIndexPrecedence(this.chainedProperties.getProperty(IndexPrecedenceOption.PROPERTY_NAME, "equality")));
 
         setAssertBehaviour(AssertBehaviour.determineAssertBehaviour(this.chainedProperties.getProperty(EqualityBehaviorOption.PROPERTY_NAME, "identity")));
@@ -601,6 +657,68 @@ public class RuleBaseConfiguration
         this.jittingThreshold = jittingThreshold;
     }
 
+    public boolean isEagerJitting() {
+        return eagerJitting;
+    }
+
+    /**
+     * Makes each constraint be jitted synchronously by the thread evaluating it for the first time, instead of
+     * being interpreted by MVEL until the jitting threshold is reached and then jitted asynchronously.
+     * The first evaluation is still needed, since it's what lets MVEL resolve the accessors to be analyzed.
+     * The dynamic constraints are always interpreted.
+     */
+    public void setEagerJitting( boolean eagerJitting ) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.eagerJitting = eagerJitting;
+    }
+
+    public boolean isCompiledAlphaNetwork() {
+        return compiledAlphaNetwork;
+    }
+
+    /**
+     * Makes the alpha network below each ObjectTypeNode be compiled into a class evaluating its constraints
+     * and propagating to its sinks without going through the generic sink propagators. The networks are
+     * compiled again after each change of the kbase, and the ObjectTypeNodes whose network cannot be compiled
+     * keep being interpreted. It requires drools-compiler to be available at runtime.
+     */
+    public void setCompiledAlphaNetwork( boolean compiledAlphaNetwork ) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.compiledAlphaNetwork = compiledAlphaNetwork;
+    }
+
+    public boolean isNodeProfiling() {
+        return nodeProfiling;
+    }
+
+    /**
+     * Makes the sessions of the kbase record, for each node of the network, the tuples it receives and
+     * produces, its constraint evaluations, the size of its memories and the time spent evaluating it.
+     * The profile is available through the NodeProfiler of the kbase and, when the mbeans are enabled,
+     * through JMX.
+     */
+    public void setNodeProfiling( boolean nodeProfiling ) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.nodeProfiling = nodeProfiling;
+    }
+
+    public int getStatelessSessionPoolSize() {
+        return statelessSessionPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of idle sessions kept by each stateless session of the kbase, so they can be
+     * reset and reused by the following executions instead of creating a new session every time. The sessions
+     * are created lazily and 0, the default, disables the pool.
+     */
+    public void setStatelessSessionPoolSize( int statelessSessionPoolSize ) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        if ( statelessSessionPoolSize < 0 ) {
+            throw new IllegalArgumentException( "The stateless session pool size cannot be negative: " + statelessSessionPoolSize );
+        }
+        this.statelessSessionPoolSize = statelessSessionPoolSize;
+    }
+
     public int getAlphaNodeHashingThreshold() {
         return this.alphaNodeHashingThreshold;
     }
@@ -661,6 +779,20 @@ public class RuleBaseConfiguration
         this.indexRightBetaMemory = indexRightBetaMemory;
     }
 
+    public boolean isBetaRangeIndexEnabled() {
+        return this.betaRangeIndexEnabled;
+    }
+
+    /**
+     * Enables the red-black tree based indexes for the comparison constraints (&lt;, &lt;=, &gt;, &gt;=) of join nodes
+     * and the range indexes for pairs of dual comparisons on the same field, like <code>value &gt; $min, value &lt; $max</code>.
+     * Only the phreak engine supports them.
+     */
+    public void setBetaRangeIndexEnabled(final boolean betaRangeIndexEnabled) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.betaRangeIndexEnabled = betaRangeIndexEnabled;
+    }
+
     public IndexPrecedenceOption getIndexPrecedenceOption() {
         return this.indexPrecedenceOption;
     }
@@ -18,6 +18,8 @@ package org.drools.core;
 
 import org.drools.core.command.CommandService;
 import org.drools.core.process.instance.WorkItemManagerFactory;
+import org.drools.core.runtime.conf.CompactObjectStoreOption;
+import org.drools.core.runtime.conf.LockFreePropagationListOption;
 import org.drools.core.time.TimerService;
 import org.drools.core.time.impl.TimerJobFactoryManager;
 import org.drools.core.util.StringUtils;
@@ -45,6 +47,8 @@ import java.util.Properties;
 
 public abstract class SessionConfiguration implements KieSessionConfiguration, Externalizable {
 
+    public static final String EXPIRATION_BUCKET_SIZE_PROPERTY = "drools.expirationBucketSize";
+
     private static class DefaultSessionConfiguration {
         private static final SessionConfigurationImpl defaultInstance = new SessionConfigurationImpl();
     }
@@ -64,6 +68,15 @@ public abstract class SessionConfiguration implements KieSessionConfiguration, E
     public abstract void setKeepReference(boolean keepReference);
     public abstract boolean isKeepReference();
 
+    public abstract void setLockFreePropagationList(boolean lockFreePropagationList);
+    public abstract boolean isLockFreePropagationList();
+
+    public abstract void setCompactObjectStore(boolean compactObjectStore);
+    public abstract boolean isCompactObjectStore();
+
+    public abstract void setExpirationBucketSize(long expirationBucketSize);
+    public abstract long getExpirationBucketSize();
+
     public abstract void setForceEagerActivationFilter(ForceEagerActivationFilter forceEagerActivationFilter);
     public abstract ForceEagerActivationFilter getForceEagerActivationFilter();
 
@@ -115,6 +128,10 @@ public abstract class SessionConfiguration implements KieSessionConfiguration, E
             setTimerJobFactoryType(TimerJobFactoryType.resolveTimerJobFactoryType(((TimerJobFactoryOption) option).getTimerJobType()));
         } else if ( option instanceof KeepReferenceOption ) {
             setKeepReference(((KeepReferenceOption) option).isKeepReference());
+        } else if ( option instanceof LockFreePropagationListOption ) {
+            setLockFreePropagationList(((LockFreePropagationListOption) option).isLockFreePropagationList());
+        } else if ( option instanceof CompactObjectStoreOption ) {
+            setCompactObjectStore(((CompactObjectStoreOption) option).isCompactObjectStore());
         } else if ( option instanceof ForceEagerActivationOption ) {
             setForceEagerActivationFilter(((ForceEagerActivationOption) option).getFilter());
         } else if ( option instanceof TimedRuleExectionOption ) {
@@ -135,6 +152,10 @@ public abstract class SessionConfiguration implements KieSessionConfiguration, E
             return (T) ClockTypeOption.get( getClockType().toExternalForm() );
         } else if ( KeepReferenceOption.class.equals( option ) ) {
             return (T) (isKeepReference() ? KeepReferenceOption.YES : KeepReferenceOption.NO);
+        } else if ( LockFreePropagationListOption.class.equals( option ) ) {
+            return (T) (isLockFreePropagationList() ? LockFreePropagationListOption.YES : LockFreePropagationListOption.NO);
+        } else if ( CompactObjectStoreOption.class.equals( option ) ) {
+            return (T) (isCompactObjectStore() ? CompactObjectStoreOption.YES : CompactObjectStoreOption.NO);
         } else if ( TimerJobFactoryOption.class.equals( option ) ) {
             return (T) TimerJobFactoryOption.get( getTimerJobFactoryType().toExternalForm() );
         } else if ( QueryListenerOption.class.equals( option ) ) {
@@ -164,6 +185,12 @@ public abstract class SessionConfiguration implements KieSessionConfiguration, E
 
         if ( name.equals( KeepReferenceOption.PROPERTY_NAME ) ) {
             setKeepReference(StringUtils.isEmpty(value) || Boolean.parseBoolean(value));
+        } else if ( name.equals( LockFreePropagationListOption.PROPERTY_NAME ) ) {
+            setLockFreePropagationList(!StringUtils.isEmpty(value) && Boolean.parseBoolean(value));
+        } else if ( name.equals( CompactObjectStoreOption.PROPERTY_NAME ) ) {
+            setCompactObjectStore(!StringUtils.isEmpty(value) && Boolean.parseBoolean(value));
+        } else if ( name.equals( EXPIRATION_BUCKET_SIZE_PROPERTY ) ) {
+            setExpirationBucketSize(StringUtils.isEmpty(value) ? 1 : Long.parseLong(value));
         } else if ( name.equals( ForceEagerActivationOption.PROPERTY_NAME ) ) {
             setForceEagerActivationFilter(ForceEagerActivationOption.resolve(StringUtils.isEmpty(value) ? "false" : value).getFilter());
         } else if ( name.equals( TimedRuleExectionOption.PROPERTY_NAME ) ) {
@@ -188,6 +215,12 @@ public abstract class SessionConfiguration implements KieSessionConfiguration, E
 
         if ( name.equals( KeepReferenceOption.PROPERTY_NAME ) ) {
             return Boolean.toString(isKeepReference());
+        } else if ( name.equals( LockFreePropagationListOption.PROPERTY_NAME ) ) {
+            return Boolean.toString(isLockFreePropagationList());
+        } else if ( name.equals( CompactObjectStoreOption.PROPERTY_NAME ) ) {
+            return Boolean.toString(isCompactObjectStore());
+        } else if ( name.equals( EXPIRATION_BUCKET_SIZE_PROPERTY ) ) {
+            return Long.toString(getExpirationBucketSize());
         } else if ( name.equals( ClockTypeOption.PROPERTY_NAME ) ) {
             return getClockType().toExternalForm();
         } else if ( name.equals( TimerJobFactoryOption.PROPERTY_NAME ) ) {
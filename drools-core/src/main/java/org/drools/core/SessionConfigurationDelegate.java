@@ -40,6 +40,9 @@ public class SessionConfigurationDelegate extends SessionConfiguration {
     private ClockType clockType;
     private BeliefSystemType beliefSystemType;
     private Boolean keepReference;
+    private Boolean lockFreePropagationList;
+    private Boolean compactObjectStore;
+    private Long expirationBucketSize;
     private ForceEagerActivationFilter forceEagerActivationFilter;
     private TimedRuleExecutionFilter timedRuleExecutionFilter;
     private QueryListenerOption queryListener;
@@ -86,6 +89,9 @@ public class SessionConfigurationDelegate extends SessionConfiguration {
         conf.setClockType( getClockType() );
         conf.setBeliefSystemType( getBeliefSystemType() );
         conf.setKeepReference( isKeepReference() );
+        conf.setLockFreePropagationList( isLockFreePropagationList() );
+        conf.setCompactObjectStore( isCompactObjectStore() );
+        conf.setExpirationBucketSize( getExpirationBucketSize() );
         conf.setForceEagerActivationFilter( getForceEagerActivationFilter() );
         conf.setTimedRuleExecutionFilter( getTimedRuleExecutionFilter() );
         conf.setQueryListenerOption( getQueryListenerOption() );
@@ -105,6 +111,42 @@ public class SessionConfigurationDelegate extends SessionConfiguration {
         return keepReference != null ? keepReference : delegate.isKeepReference();
     }
 
+    @Override
+    public void setLockFreePropagationList( boolean lockFreePropagationList ) {
+        if (isLockFreePropagationList() != lockFreePropagationList) {
+            this.lockFreePropagationList = lockFreePropagationList;
+        }
+    }
+
+    @Override
+    public boolean isLockFreePropagationList() {
+        return lockFreePropagationList != null ? lockFreePropagationList : delegate.isLockFreePropagationList();
+    }
+
+    @Override
+    public void setCompactObjectStore( boolean compactObjectStore ) {
+        if (isCompactObjectStore() != compactObjectStore) {
+            this.compactObjectStore = compactObjectStore;
+        }
+    }
+
+    @Override
+    public boolean isCompactObjectStore() {
+        return compactObjectStore != null ? compactObjectStore : delegate.isCompactObjectStore();
+    }
+
+    @Override
+    public void setExpirationBucketSize( long expirationBucketSize ) {
+        if (getExpirationBucketSize() != expirationBucketSize) {
+            this.expirationBucketSize = expirationBucketSize;
+        }
+    }
+
+    @Override
+    public long getExpirationBucketSize() {
+        return expirationBucketSize != null ? expirationBucketSize : delegate.getExpirationBucketSize();
+    }
+
     @Override
     public void setForceEagerActivationFilter( ForceEagerActivationFilter forceEagerActivationFilter ) {
         if (!areNullSafeEquals( getForceEagerActivationFilter(), forceEagerActivationFilter ) ) {
@@ -19,6 +19,8 @@ package org.drools.core;
 import org.drools.core.command.CommandService;
 import org.drools.core.common.ProjectClassLoader;
 import org.drools.core.process.instance.WorkItemManagerFactory;
+import org.drools.core.runtime.conf.CompactObjectStoreOption;
+import org.drools.core.runtime.conf.LockFreePropagationListOption;
 import org.drools.core.time.TimerService;
 import org.drools.core.util.ConfFileUtils;
 import org.drools.core.util.MVELSafeHelper;
@@ -60,6 +62,9 @@ import java.util.Properties;
  * 
  * 
  * drools.keepReference = <true|false>
+ * drools.lockFreePropagationList = <true|false>
+ * drools.compactObjectStore = <true|false>
+ * drools.expirationBucketSize = <size in milliseconds of the buckets grouping the expirations of the events>
  * drools.clockType = <pseudo|realtime|heartbeat|implicit>
  */
 public class SessionConfigurationImpl extends SessionConfiguration {
@@ -72,6 +77,12 @@ public class SessionConfigurationImpl extends SessionConfiguration {
 
     private boolean                        keepReference;
 
+    private boolean                        lockFreePropagationList;
+
+    private boolean                        compactObjectStore;
+
+    private long                           expirationBucketSize;
+
     private ForceEagerActivationFilter     forceEagerActivationFilter;
     private TimedRuleExecutionFilter       timedRuleExecutionFilter;
 
@@ -154,6 +165,12 @@ public class SessionConfigurationImpl extends SessionConfiguration {
 
         setKeepReference(Boolean.valueOf(this.chainedProperties.getProperty(KeepReferenceOption.PROPERTY_NAME, "true")));
 
+        setLockFreePropagationList(Boolean.valueOf(this.chainedProperties.getProperty(LockFreePropagationListOption.PROPERTY_NAME, "false")));
+
+        setCompactObjectStore(Boolean.valueOf(this.chainedProperties.getProperty(CompactObjectStoreOption.PROPERTY_NAME, "false")));
+
+        setExpirationBucketSize(Long.parseLong(this.chainedProperties.getProperty(EXPIRATION_BUCKET_SIZE_PROPERTY, "1")));
+
         setForceEagerActivationFilter(ForceEagerActivationOption.resolve(this.chainedProperties.getProperty(ForceEagerActivationOption.PROPERTY_NAME,
                                                                                                             "false")).getFilter());
 
@@ -216,6 +233,36 @@ public class SessionConfigurationImpl extends SessionConfiguration {
         return this.keepReference;
     }
 
+    public void setLockFreePropagationList(boolean lockFreePropagationList) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.lockFreePropagationList = lockFreePropagationList;
+    }
+
+    public boolean isLockFreePropagationList() {
+        return this.lockFreePropagationList;
+    }
+
+    public void setCompactObjectStore(boolean compactObjectStore) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.compactObjectStore = compactObjectStore;
+    }
+
+    public boolean isCompactObjectStore() {
+        return this.compactObjectStore;
+    }
+
+    public void setExpirationBucketSize(long expirationBucketSize) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        if ( expirationBucketSize < 1 ) {
+            throw new IllegalArgumentException( "The size of the expiration buckets must be at least 1 millisecond, but it is " + expirationBucketSize );
+        }
+        this.expirationBucketSize = expirationBucketSize;
+    }
+
+    public long getExpirationBucketSize() {
+        return this.expirationBucketSize;
+    }
+
     public void setForceEagerActivationFilter(ForceEagerActivationFilter forceEagerActivationFilter) {
         checkCanChange(); // throws an exception if a change isn't possible;
         this.forceEagerActivationFilter = forceEagerActivationFilter;
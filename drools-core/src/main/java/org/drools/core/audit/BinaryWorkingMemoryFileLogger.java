@@ -0,0 +1,463 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import org.drools.core.WorkingMemory;
+import org.drools.core.audit.event.ActivationLogEvent;
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.audit.event.ObjectLogEvent;
+import org.drools.core.audit.event.RuleBaseLogEvent;
+import org.drools.core.audit.event.RuleFlowGroupLogEvent;
+import org.drools.core.audit.event.RuleFlowLogEvent;
+import org.drools.core.audit.event.RuleFlowNodeLogEvent;
+import org.drools.core.audit.event.RuleFlowVariableLogEvent;
+import org.drools.core.util.IoUtils;
+import org.kie.internal.event.KnowledgeRuntimeEventManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A logger of events generated by a working memory, writing them in a compact binary format instead of
+ * the XML produced by the WorkingMemoryFileLogger.
+ *
+ * The thread generating an event only publishes it in a bounded lock-free ring buffer, while a background
+ * writer thread drains the buffer, encodes the events and appends them to a memory-mapped file. When the
+ * current file is full the writer rolls over to a new one, so the events are logged in the files named
+ * fileName.bin, fileName1.bin, fileName2.bin and so on. If the writer cannot keep up with the working memory,
+ * the threads generating the events wait for a free slot of the buffer, so both the memory retained by the
+ * logger and the work done by those threads are bounded regardless of the number of logged events.
+ *
+ * The logged files can be read back with the BinaryWorkingMemoryLogReader.
+ */
+public class BinaryWorkingMemoryFileLogger extends WorkingMemoryLogger {
+
+    protected static final transient Logger logger = LoggerFactory.getLogger(BinaryWorkingMemoryFileLogger.class);
+
+    public static final int  DEFAULT_BUFFER_SIZE   = 8192;
+    public static final int  DEFAULT_MAX_FILE_SIZE = 16 * 1024 * 1024;
+
+    static final int         MAGIC                 = 0x44524C47;
+    static final short       VERSION               = 1;
+    static final int         HEADER_SIZE           = 4 + 2 + 1;
+    static final int         END_OF_FILE           = 0;
+
+    static final byte        BASE_EVENT            = 0;
+    static final byte        OBJECT_EVENT          = 1;
+    static final byte        ACTIVATION_EVENT      = 2;
+    static final byte        RULEBASE_EVENT        = 3;
+    static final byte        RULEFLOW_EVENT        = 4;
+    static final byte        RULEFLOW_GROUP_EVENT  = 5;
+    static final byte        RULEFLOW_NODE_EVENT   = 6;
+    static final byte        RULEFLOW_VAR_EVENT    = 7;
+
+    private static final long IDLE_PARK_NANOS      = 1000000;
+
+    private String           fileName              = "event";
+    private int              bufferSize            = DEFAULT_BUFFER_SIZE;
+    private int              maxFileSize           = DEFAULT_MAX_FILE_SIZE;
+
+    private volatile RingBuffer ringBuffer;
+    private volatile boolean    terminate;
+    private Thread              writerThread;
+
+    public BinaryWorkingMemoryFileLogger() {
+    }
+
+    /**
+     * Creates a new BinaryWorkingMemoryFileLogger for the given working memory.
+     */
+    public BinaryWorkingMemoryFileLogger(final WorkingMemory workingMemory) {
+        super( workingMemory );
+    }
+
+    public BinaryWorkingMemoryFileLogger(final KnowledgeRuntimeEventManager session) {
+        super( session );
+    }
+
+    public void readExternal(ObjectInput in) throws IOException,
+                                            ClassNotFoundException {
+        super.readExternal( in );
+        fileName = (String) in.readObject();
+        bufferSize = in.readInt();
+        maxFileSize = in.readInt();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal( out );
+        out.writeObject( fileName );
+        out.writeInt( bufferSize );
+        out.writeInt( maxFileSize );
+    }
+
+    /**
+     * Sets the name of the files the events are logged in. No extensions should
+     * be given since the index of the file and .bin are automatically appended
+     * to the file name. The default is an event.bin file in the current working
+     * directory. It has to be set before the first event is logged.
+     */
+    public void setFileName(final String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Sets the number of events that can be waiting to be written before the threads
+     * generating new events are blocked. It is rounded up to a power of 2 and has to
+     * be set before the first event is logged. The default is 8192.
+     */
+    public void setBufferSize(final int bufferSize) {
+        if ( bufferSize <= 0 ) {
+            throw new IllegalArgumentException( "The buffer size must be positive: " + bufferSize );
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Sets the size of each of the memory-mapped log files. An event that doesn't fit in
+     * the remaining space of a file is written in the next one. The default is 16MB.
+     */
+    public void setMaxFileSize(final int maxFileSize) {
+        if ( maxFileSize <= HEADER_SIZE + 4 ) {
+            throw new IllegalArgumentException( "The max file size is too small: " + maxFileSize );
+        }
+        this.maxFileSize = maxFileSize;
+    }
+
+    public void logEventCreated(final LogEvent logEvent) {
+        if ( terminate ) {
+            return;
+        }
+        RingBuffer buffer = ringBuffer;
+        if ( buffer == null ) {
+            buffer = start();
+        }
+        buffer.publish( logEvent );
+    }
+
+    private synchronized RingBuffer start() {
+        if ( ringBuffer == null ) {
+            RingBuffer buffer = new RingBuffer( bufferSize );
+            writerThread = new Thread( new Writer( buffer ), "drools-audit-writer-" + fileName );
+            writerThread.setDaemon( true );
+            writerThread.start();
+            ringBuffer = buffer;
+        }
+        return ringBuffer;
+    }
+
+    /**
+     * Waits until all the events logged so far have been written to the current log file.
+     */
+    public void flush() {
+        RingBuffer buffer = ringBuffer;
+        if ( buffer != null ) {
+            buffer.awaitConsumed( buffer.getPublished(), writerThread );
+        }
+    }
+
+    /**
+     * Writes all the pending events and closes the log file. The events generated afterwards are ignored.
+     */
+    public void stop() {
+        Thread writer;
+        synchronized ( this ) {
+            if ( terminate ) {
+                return;
+            }
+            terminate = true;
+            writer = writerThread;
+        }
+        if ( writer != null ) {
+            LockSupport.unpark( writer );
+            try {
+                writer.join();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static String getFileName(String fileName, int nbOfFile) {
+        return fileName + ( nbOfFile == 0 ? ".bin" : nbOfFile + ".bin" );
+    }
+
+    /**
+     * A bounded multi-producer single-consumer queue. A producer claims a sequence with a single
+     * atomic increment and stores the event in the corresponding slot, while the consumer takes the
+     * events in sequence order, clearing the slots it has read before releasing them to the producers.
+     */
+    static class RingBuffer {
+
+        private final AtomicReferenceArray<LogEvent> slots;
+        private final int                            mask;
+        private final AtomicLong                     claimed  = new AtomicLong();
+        private final AtomicLong                     consumed = new AtomicLong();
+
+        RingBuffer(int size) {
+            int capacity = Integer.highestOneBit( size );
+            if ( capacity < size ) {
+                capacity <<= 1;
+            }
+            this.slots = new AtomicReferenceArray<LogEvent>( capacity );
+            this.mask = capacity - 1;
+        }
+
+        void publish(LogEvent event) {
+            long sequence = claimed.getAndIncrement();
+            long wrapPoint = sequence - slots.length();
+            while ( consumed.get() <= wrapPoint ) {
+                // the buffer is full: wait for the writer without taking any lock
+                LockSupport.parkNanos( 1 );
+            }
+            slots.lazySet( (int) sequence & mask, event );
+        }
+
+        /**
+         * Returns the next event or null if it has not been published yet
+         */
+        LogEvent poll() {
+            long sequence = consumed.get();
+            int index = (int) sequence & mask;
+            LogEvent event = slots.get( index );
+            if ( event != null ) {
+                slots.lazySet( index, null );
+            }
+            return event;
+        }
+
+        void release() {
+            consumed.lazySet( consumed.get() + 1 );
+        }
+
+        long getPublished() {
+            return claimed.get();
+        }
+
+        long getConsumed() {
+            return consumed.get();
+        }
+
+        void awaitConsumed(long sequence, Thread writer) {
+            while ( consumed.get() < sequence && writer.isAlive() ) {
+                LockSupport.parkNanos( IDLE_PARK_NANOS );
+            }
+        }
+    }
+
+    private class Writer implements Runnable {
+
+        private final RingBuffer buffer;
+        private final Encoder    encoder  = new Encoder();
+
+        private RandomAccessFile file;
+        private MappedByteBuffer mapped;
+        private int              nbOfFile = 0;
+
+        Writer(RingBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public void run() {
+            try {
+                while ( true ) {
+                    LogEvent event = buffer.poll();
+                    if ( event != null ) {
+                        write( event );
+                        buffer.release();
+                    } else if ( terminate && buffer.getConsumed() >= buffer.getPublished() ) {
+                        break;
+                    } else {
+                        LockSupport.parkNanos( IDLE_PARK_NANOS );
+                    }
+                }
+            } finally {
+                closeFile();
+            }
+        }
+
+        private void write(LogEvent event) {
+            try {
+                ByteBuffer record = encoder.encode( event );
+                if ( mapped == null || mapped.remaining() < record.remaining() + 4 ) {
+                    rollFile( record.remaining() );
+                }
+                mapped.put( record );
+            } catch ( Throwable t ) {
+                // keep on draining the buffer, so the producers are never blocked by a failed writer
+                logger.error( "Unable to write an event to the binary working memory log " + getFileName( fileName, nbOfFile ), t );
+            }
+        }
+
+        private void rollFile(int recordSize) throws IOException {
+            if ( mapped != null ) {
+                closeFile();
+                nbOfFile++;
+            }
+            int size = Math.max( maxFileSize, HEADER_SIZE + recordSize + 4 );
+            file = new RandomAccessFile( getFileName( fileName, nbOfFile ), "rw" );
+            file.setLength( 0 );
+            mapped = file.getChannel().map( FileChannel.MapMode.READ_WRITE, 0, size );
+            mapped.putInt( MAGIC );
+            mapped.putShort( VERSION );
+            mapped.put( (byte) ( isPhreak ? 1 : 0 ) );
+        }
+
+        private void closeFile() {
+            if ( mapped == null ) {
+                return;
+            }
+            String closedFileName = getFileName( fileName, nbOfFile );
+            try {
+                int length = mapped.position();
+                if ( mapped.remaining() >= 4 ) {
+                    mapped.putInt( END_OF_FILE );
+                }
+                mapped.force();
+                mapped = null;
+                trimFile( length, closedFileName );
+            } catch ( IOException e ) {
+                logger.error( "Unable to flush the binary working memory log " + closedFileName, e );
+            } finally {
+                try {
+                    file.close();
+                } catch ( IOException e ) {
+                    // ignore
+                }
+                file = null;
+            }
+        }
+
+        /**
+         * Trims the unused part of the mapped region. The region stays mapped until the dropped buffer is garbage
+         * collected, and a file with a mapped region can't be truncated on some platforms, like Windows: there the
+         * file keeps its padding, that the reader skips since it stops at the end of file marker.
+         */
+        private void trimFile(int length, String closedFileName) {
+            try {
+                file.getChannel().truncate( length );
+            } catch ( IOException e ) {
+                logger.debug( "Unable to trim the binary working memory log " + closedFileName + " while it is still mapped, leaving its padding", e );
+            }
+        }
+    }
+
+    /**
+     * Encodes an event as a record made of its length, the kind of event, its type and its fields,
+     * where the strings are written as their UTF-8 length followed by their bytes (-1 for null).
+     */
+    static class Encoder {
+
+        private ByteBuffer buffer = ByteBuffer.allocate( 1024 );
+
+        ByteBuffer encode(LogEvent event) {
+            while ( true ) {
+                buffer.clear();
+                try {
+                    buffer.putInt( 0 );
+                    encodeEvent( event );
+                    buffer.putInt( 0, buffer.position() - 4 );
+                    buffer.flip();
+                    return buffer;
+                } catch ( BufferOverflowException e ) {
+                    buffer = ByteBuffer.allocate( buffer.capacity() * 2 );
+                }
+            }
+        }
+
+        private void encodeEvent(LogEvent event) {
+            if ( event instanceof ObjectLogEvent ) {
+                ObjectLogEvent objectEvent = (ObjectLogEvent) event;
+                putHeader( OBJECT_EVENT, event );
+                buffer.putLong( objectEvent.getFactId() );
+                putString( objectEvent.getObjectToString() );
+            } else if ( event instanceof ActivationLogEvent ) {
+                ActivationLogEvent activationEvent = (ActivationLogEvent) event;
+                putHeader( ACTIVATION_EVENT, event );
+                putString( activationEvent.getActivationId() );
+                putString( activationEvent.getRule() );
+                putString( activationEvent.getDeclarations() );
+                putString( activationEvent.getRuleFlowGroup() );
+                putString( activationEvent.getFactHandleIds() );
+            } else if ( event instanceof RuleBaseLogEvent ) {
+                RuleBaseLogEvent ruleBaseEvent = (RuleBaseLogEvent) event;
+                putHeader( RULEBASE_EVENT, event );
+                putString( ruleBaseEvent.getPackageName() );
+                putString( ruleBaseEvent.getRuleName() );
+            } else if ( event instanceof RuleFlowGroupLogEvent ) {
+                RuleFlowGroupLogEvent groupEvent = (RuleFlowGroupLogEvent) event;
+                putHeader( RULEFLOW_GROUP_EVENT, event );
+                putString( groupEvent.getGroupName() );
+                buffer.putInt( groupEvent.getSize() );
+            } else if ( event instanceof RuleFlowNodeLogEvent ) {
+                RuleFlowNodeLogEvent nodeEvent = (RuleFlowNodeLogEvent) event;
+                putHeader( RULEFLOW_NODE_EVENT, event );
+                putRuleFlow( nodeEvent );
+                putString( nodeEvent.getNodeId() );
+                putString( nodeEvent.getNodeName() );
+                putString( nodeEvent.getNodeInstanceId() );
+            } else if ( event instanceof RuleFlowVariableLogEvent ) {
+                RuleFlowVariableLogEvent variableEvent = (RuleFlowVariableLogEvent) event;
+                putHeader( RULEFLOW_VAR_EVENT, event );
+                putRuleFlow( variableEvent );
+                putString( variableEvent.getVariableId() );
+                putString( variableEvent.getVariableInstanceId() );
+                putString( variableEvent.getObjectToString() );
+            } else if ( event instanceof RuleFlowLogEvent ) {
+                putHeader( RULEFLOW_EVENT, event );
+                putRuleFlow( (RuleFlowLogEvent) event );
+            } else {
+                putHeader( BASE_EVENT, event );
+            }
+        }
+
+        private void putHeader(byte kind, LogEvent event) {
+            buffer.put( kind );
+            buffer.putInt( event.getType() );
+        }
+
+        private void putRuleFlow(RuleFlowLogEvent event) {
+            putString( event.getProcessId() );
+            putString( event.getProcessName() );
+            buffer.putLong( event.getProcessInstanceId() );
+        }
+
+        private void putString(String s) {
+            if ( s == null ) {
+                buffer.putInt( -1 );
+                return;
+            }
+            byte[] bytes = s.getBytes( IoUtils.UTF8_CHARSET );
+            buffer.putInt( bytes.length );
+            buffer.put( bytes );
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import com.thoughtworks.xstream.XStream;
+import org.drools.core.audit.event.ActivationLogEvent;
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.audit.event.ObjectLogEvent;
+import org.drools.core.audit.event.RuleBaseLogEvent;
+import org.drools.core.audit.event.RuleFlowGroupLogEvent;
+import org.drools.core.audit.event.RuleFlowLogEvent;
+import org.drools.core.audit.event.RuleFlowNodeLogEvent;
+import org.drools.core.audit.event.RuleFlowVariableLogEvent;
+import org.drools.core.util.IoUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.drools.core.audit.BinaryWorkingMemoryFileLogger.*;
+
+/**
+ * Reads back the events logged by a BinaryWorkingMemoryFileLogger, either one file at a time
+ * or following all the rolled files of a log, and converts them to the XML format written by
+ * the WorkingMemoryFileLogger, so the existing tools can still be used to inspect the audit log.
+ */
+public class BinaryWorkingMemoryLogReader {
+
+    private final String fileName;
+
+    private int          nbOfFile = 0;
+    private ByteBuffer   buffer;
+    private boolean      phreak;
+
+    /**
+     * Creates a reader of the log files with the given name, without the index and the .bin
+     * extension, as set in the BinaryWorkingMemoryFileLogger that has written them.
+     */
+    public BinaryWorkingMemoryLogReader(final String fileName) {
+        this.fileName = fileName;
+    }
+
+    public static List<LogEvent> readEvents(final String fileName) throws IOException {
+        BinaryWorkingMemoryLogReader reader = new BinaryWorkingMemoryLogReader( fileName );
+        List<LogEvent> events = new ArrayList<LogEvent>();
+        for ( LogEvent event = reader.next(); event != null; event = reader.next() ) {
+            events.add( event );
+        }
+        return events;
+    }
+
+    /**
+     * Converts all the rolled files of a binary log into a single XML log file, as written by the
+     * WorkingMemoryFileLogger with the given file name.
+     */
+    public static void convertToXml(final String fileName, final String xmlFileName) throws IOException {
+        BinaryWorkingMemoryLogReader reader = new BinaryWorkingMemoryLogReader( fileName );
+        List<LogEvent> events = new ArrayList<LogEvent>();
+        for ( LogEvent event = reader.next(); event != null; event = reader.next() ) {
+            events.add( event );
+        }
+        Writer writer = new OutputStreamWriter( new FileOutputStream( xmlFileName + ".log" ), IoUtils.UTF8_CHARSET );
+        try {
+            writer.write( "<object-stream>\n" );
+            writer.write( new XStream().toXML( new WorkingMemoryLog( events, reader.isPhreak() ? "PHREAK" : "RETEOO" ) ) + "\n" );
+            writer.write( "</object-stream>\n" );
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns true if the last read log file has been written by a phreak session.
+     */
+    public boolean isPhreak() {
+        return phreak;
+    }
+
+    /**
+     * Returns the next logged event, moving to the following file when the current one is over,
+     * or null when there are no more events.
+     */
+    public LogEvent next() throws IOException {
+        while ( true ) {
+            if ( buffer == null && !openFile() ) {
+                return null;
+            }
+            if ( buffer.remaining() >= 4 ) {
+                int length = buffer.getInt();
+                if ( length != END_OF_FILE ) {
+                    return decode( length );
+                }
+            }
+            buffer = null;
+            nbOfFile++;
+        }
+    }
+
+    private boolean openFile() throws IOException {
+        File file = new File( getFileName( fileName, nbOfFile ) );
+        if ( !file.exists() ) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try {
+            buffer = raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+        } finally {
+            raf.close();
+        }
+        if ( buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ) {
+            throw new IOException( "The file " + file + " is not a binary working memory log" );
+        }
+        short version = buffer.getShort();
+        if ( version != VERSION ) {
+            throw new IOException( "Unsupported version " + version + " of the binary working memory log " + file );
+        }
+        phreak = buffer.get() != 0;
+        return true;
+    }
+
+    private LogEvent decode(int length) throws IOException {
+        int end = buffer.position() + length;
+        byte kind = buffer.get();
+        int type = buffer.getInt();
+        LogEvent event;
+        switch ( kind ) {
+            case OBJECT_EVENT:
+                event = new ObjectLogEvent( type, buffer.getLong(), getString() );
+                break;
+            case ACTIVATION_EVENT:
+                event = new ActivationLogEvent( type, getString(), getString(), getString(), getString(), getString() );
+                break;
+            case RULEBASE_EVENT:
+                event = new RuleBaseLogEvent( type, getString(), getString() );
+                break;
+            case RULEFLOW_GROUP_EVENT:
+                event = new RuleFlowGroupLogEvent( type, getString(), buffer.getInt() );
+                break;
+            case RULEFLOW_NODE_EVENT: {
+                String processId = getString();
+                String processName = getString();
+                long processInstanceId = buffer.getLong();
+                event = new RuleFlowNodeLogEvent( type, getString(), getString(), getString(),
+                                                  processId, processName, processInstanceId );
+                break;
+            }
+            case RULEFLOW_VAR_EVENT: {
+                String processId = getString();
+                String processName = getString();
+                long processInstanceId = buffer.getLong();
+                event = new RuleFlowVariableLogEvent( type, getString(), getString(),
+                                                      processId, processName, processInstanceId, getString() );
+                break;
+            }
+            case RULEFLOW_EVENT:
+                event = new RuleFlowLogEvent( type, getString(), getString(), buffer.getLong() );
+                break;
+            case BASE_EVENT:
+                event = new LogEvent( type );
+                break;
+            default:
+                throw new IOException( "Unknown kind of event " + kind + " in the binary working memory log " + getFileName( fileName, nbOfFile ) );
+        }
+        // skips any field added by a later version of the format
+        buffer.position( end );
+        return event;
+    }
+
+    private String getString() {
+        int length = buffer.getInt();
+        if ( length < 0 ) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get( bytes );
+        return new String( bytes, IoUtils.UTF8_CHARSET );
+    }
+}
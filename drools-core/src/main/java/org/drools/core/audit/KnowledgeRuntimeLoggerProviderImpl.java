@@ -56,6 +56,19 @@ public class KnowledgeRuntimeLoggerProviderImpl
         return registerRuntimeLogger(session, new KnowledgeRuntimeFileLoggerWrapper(logger));
     }
 
+    /**
+     * Creates a logger writing the events in the compact binary format of the BinaryWorkingMemoryFileLogger.
+     * It isn't part of the KieLoggers API, so it has to be invoked on this implementation.
+     */
+    public KnowledgeRuntimeLogger newBinaryFileLogger(KieRuntimeEventManager session,
+                                                      String fileName) {
+        BinaryWorkingMemoryFileLogger logger = new BinaryWorkingMemoryFileLogger( (KnowledgeRuntimeEventManager) session );
+        if ( fileName != null ) {
+            logger.setFileName( fileName );
+        }
+        return registerRuntimeLogger(session, new KnowledgeRuntimeBinaryFileLoggerWrapper(logger));
+    }
+
     public KnowledgeRuntimeLogger newConsoleLogger(KieRuntimeEventManager session) {
         WorkingMemoryConsoleLogger logger = new WorkingMemoryConsoleLogger( (KnowledgeRuntimeEventManager) session );
         return registerRuntimeLogger(session, new KnowledgeRuntimeConsoleLoggerWrapper(logger));
@@ -100,6 +113,22 @@ public class KnowledgeRuntimeLoggerProviderImpl
 
     }
 
+    private class KnowledgeRuntimeBinaryFileLoggerWrapper
+        implements
+            KnowledgeRuntimeLogger {
+
+        private BinaryWorkingMemoryFileLogger logger;
+
+        public KnowledgeRuntimeBinaryFileLoggerWrapper(BinaryWorkingMemoryFileLogger logger) {
+            this.logger = logger;
+        }
+
+        public void close() {
+            logger.stop();
+        }
+
+    }
+
     private class KnowledgeRuntimeConsoleLoggerWrapper
         implements
         KnowledgeRuntimeLogger {
@@ -27,8 +27,10 @@ import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.marshalling.impl.MarshallerReaderContext;
 import org.drools.core.phreak.PropagationEntry;
 import org.drools.core.reteoo.EntryPointNode;
+import org.drools.core.reteoo.ExpirationBuckets;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.runtime.process.InternalProcessRuntime;
+import org.drools.core.runtime.rule.impl.SnapshotQuery;
 import org.drools.core.spi.Activation;
 import org.drools.core.spi.AsyncExceptionHandler;
 import org.drools.core.spi.FactHandleFactory;
@@ -554,6 +556,10 @@ public final class WrappedStatefulKnowledgeSessionForRHS
 		return delegate.getTimerService();
 	}
 
+	public ExpirationBuckets getExpirationBuckets() {
+		return delegate.getExpirationBuckets();
+	}
+
 	public int fireAllRules(int fireLimit) {
 		return delegate.fireAllRules(fireLimit);
 	}
@@ -678,6 +684,14 @@ public final class WrappedStatefulKnowledgeSessionForRHS
 		delegate.closeLiveQuery(factHandle);
 	}
 
+	public void closeSnapshotQuery(SnapshotQuery snapshotQuery) {
+		delegate.closeSnapshotQuery(snapshotQuery);
+	}
+
+	public void publishSnapshotQueries() {
+		delegate.publishSnapshotQueries();
+	}
+
 	public void addPropagation(PropagationEntry propagationEntry) {
 		delegate.addPropagation(propagationEntry);
 	}
@@ -22,8 +22,11 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.kie.api.runtime.rule.AccumulateFunction;
 
@@ -45,7 +48,8 @@ import org.kie.api.runtime.rule.AccumulateFunction;
  * </pre>
  * 
  * <p>The list accepts duplications and the order of the elements in the list is not
- * guaranteed.</p>
+ * guaranteed: when a value is reversed the last element of the list is moved in its
+ * place, so the reverse doesn't have to scan the list.</p>
  */
 public class CollectListAccumulateFunction
     implements
@@ -65,19 +69,94 @@ public class CollectListAccumulateFunction
         Externalizable {
         public List< Object > list = new ArrayList<Object>();
 
+        // the positions in the list of the occurrences of each value, so an occurrence
+        // can be reversed in constant time moving the last element of the list in its place.
+        // The values are compared by identity, because a fact reversed after a modify can have a different hash
+        private Map< Object, Positions > positions = new IdentityHashMap<Object, Positions>();
+        // for each element of the list, the index of its position in the Positions of its value
+        private Positions indexInPositions = new Positions();
+
         public CollectListData() {
         }
 
         @SuppressWarnings("unchecked")
         public void readExternal(ObjectInput in) throws IOException,
                                                 ClassNotFoundException {
-            list = (List< Object >) in.readObject();
+            List< Object > values = (List< Object >) in.readObject();
+            clear();
+            for ( Object value : values ) {
+                add( value );
+            }
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
             out.writeObject( list );
         }
 
+        public void add(Object value) {
+            Positions valuePositions = positions.get( value );
+            if ( valuePositions == null ) {
+                valuePositions = new Positions();
+                positions.put( value, valuePositions );
+            }
+            indexInPositions.add( valuePositions.size );
+            valuePositions.add( list.size() );
+            list.add( value );
+        }
+
+        public boolean remove(Object value) {
+            Positions valuePositions = positions.get( value );
+            if ( valuePositions == null ) {
+                // the reversed value is usually the accumulated instance, otherwise an equal one is removed
+                int index = list.indexOf( value );
+                return index >= 0 && remove( list.get( index ) );
+            }
+            int removed = valuePositions.removeLast();
+            if ( valuePositions.size == 0 ) {
+                positions.remove( value );
+            }
+            int last = list.size() - 1;
+            if ( removed != last ) {
+                Object moved = list.get( last );
+                int movedIndex = indexInPositions.get( last );
+                positions.get( moved ).set( movedIndex, removed );
+                list.set( removed, moved );
+                indexInPositions.set( removed, movedIndex );
+            }
+            list.remove( last );
+            indexInPositions.removeLast();
+            return true;
+        }
+
+        public void clear() {
+            list.clear();
+            positions.clear();
+            indexInPositions = new Positions();
+        }
+
+        private static class Positions {
+            private int[] values = new int[1];
+            private int   size;
+
+            void add(int value) {
+                if ( size == values.length ) {
+                    values = Arrays.copyOf( values, size * 2 );
+                }
+                values[size++] = value;
+            }
+
+            int get(int index) {
+                return values[index];
+            }
+
+            void set(int index, int value) {
+                values[index] = value;
+            }
+
+            int removeLast() {
+                return values[--size];
+            }
+        }
     }
 
     /* (non-Javadoc)
@@ -92,7 +171,7 @@ public class CollectListAccumulateFunction
      */
     public void init(Serializable context) throws Exception {
         CollectListData data = (CollectListData) context;
-        data.list.clear();
+        data.clear();
     }
 
     /* (non-Javadoc)
@@ -101,7 +180,7 @@ public class CollectListAccumulateFunction
     public void accumulate(Serializable context,
                            Object value) {
         CollectListData data = (CollectListData) context;
-        data.list.add( value );
+        data.add( value );
     }
 
     /* (non-Javadoc)
@@ -110,7 +189,7 @@ public class CollectListAccumulateFunction
     public void reverse(Serializable context,
                         Object value) throws Exception {
         CollectListData data = (CollectListData) context;
-        data.list.remove( value );
+        data.remove( value );
     }
 
     /* (non-Javadoc)
@@ -27,10 +27,12 @@ import org.drools.core.spi.Tuple;
 import org.drools.core.spi.Wireable;
 import org.kie.internal.security.KiePolicyHelper;
 
+import java.io.EOFException;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.OptionalDataException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -48,6 +50,7 @@ public class JavaAccumulatorFunctionExecutor
 
     private ReturnValueExpression expression;
     private org.kie.api.runtime.rule.AccumulateFunction    function;
+    private boolean               slidingWindow;
 
     public JavaAccumulatorFunctionExecutor() {
 
@@ -62,6 +65,12 @@ public class JavaAccumulatorFunctionExecutor
                                             ClassNotFoundException {
         expression = (ReturnValueExpression) in.readObject();
         function = (org.kie.api.runtime.rule.AccumulateFunction) in.readObject();
+        try {
+            slidingWindow = in.readBoolean();
+        } catch (EOFException e) {
+            // written before the sliding window flag was added
+            slidingWindow = false;
+        }
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
@@ -71,6 +80,7 @@ public class JavaAccumulatorFunctionExecutor
             out.writeObject( this.expression );
         }
         out.writeObject( function );
+        out.writeBoolean( slidingWindow );
     }
 
     /* (non-Javadoc)
@@ -78,6 +88,10 @@ public class JavaAccumulatorFunctionExecutor
      */
     public Serializable createContext() {
         JavaAccumulatorFunctionContext context = new JavaAccumulatorFunctionContext();
+        if ( isWindowAggregated() ) {
+            context.windowAggregate = new SlidingWindowAggregate();
+            return context;
+        }
         context.context = this.function.createContext();
         if ( this.function.supportsReverse() ) {
             context.reverseSupport = new HashMap<Integer, Object>();
@@ -93,7 +107,12 @@ public class JavaAccumulatorFunctionExecutor
                      Tuple leftTuple,
                      Declaration[] declarations,
                      WorkingMemory workingMemory) throws Exception {
-        this.function.init( ((JavaAccumulatorFunctionContext) context).context );
+        JavaAccumulatorFunctionContext accContext = (JavaAccumulatorFunctionContext) context;
+        if ( accContext.windowAggregate != null ) {
+            accContext.windowAggregate.clear();
+            return;
+        }
+        this.function.init( accContext.context );
     }
 
     /* (non-Javadoc)
@@ -112,6 +131,11 @@ public class JavaAccumulatorFunctionExecutor
                                                        innerDeclarations,
                                                        workingMemory,
                                                        workingMemoryContext ).getValue();
+        SlidingWindowAggregate windowAggregate = ((JavaAccumulatorFunctionContext) context).windowAggregate;
+        if ( windowAggregate != null ) {
+            windowAggregate.add( (MergeableAccumulateFunction) this.function, handle.getId(), value );
+            return;
+        }
         if ( this.function.supportsReverse() ) {
             ((JavaAccumulatorFunctionContext) context).reverseSupport.put( handle.getId(),
                                                                            value );
@@ -128,6 +152,11 @@ public class JavaAccumulatorFunctionExecutor
                         Declaration[] innerDeclarations,
                         WorkingMemory workingMemory) throws Exception {
 
+        SlidingWindowAggregate windowAggregate = ((JavaAccumulatorFunctionContext) context).windowAggregate;
+        if ( windowAggregate != null ) {
+            windowAggregate.remove( (MergeableAccumulateFunction) this.function, handle.getId() );
+            return;
+        }
         final Object value = ((JavaAccumulatorFunctionContext) context).reverseSupport.remove(handle.getId());
         this.function.reverse( ((JavaAccumulatorFunctionContext) context).context,
                                value );
@@ -141,11 +170,34 @@ public class JavaAccumulatorFunctionExecutor
                             Tuple leftTuple,
                             Declaration[] declarations,
                             WorkingMemory workingMemory) throws Exception {
-        return this.function.getResult( ((JavaAccumulatorFunctionContext) context).context );
+        JavaAccumulatorFunctionContext accContext = (JavaAccumulatorFunctionContext) context;
+        if ( accContext.windowAggregate != null ) {
+            return accContext.windowAggregate.getResult( (MergeableAccumulateFunction) this.function );
+        }
+        return this.function.getResult( accContext.context );
     }
 
     public boolean supportsReverse() {
-        return this.function.supportsReverse();
+        // a window aggregate can always remove a value, in constant time when it is the oldest one
+        return isWindowAggregated() || this.function.supportsReverse();
+    }
+
+    public boolean isSlidingWindow() {
+        return slidingWindow;
+    }
+
+    /**
+     * Sets if this function accumulates the facts in a sliding window, so that it can keep the aggregate
+     * of the window if the function supports it
+     */
+    public void setSlidingWindow(boolean slidingWindow) {
+        this.slidingWindow = slidingWindow;
+    }
+
+    private boolean isWindowAggregated() {
+        // a function able to reverse a value removes it from anywhere in the window, so it doesn't need the window aggregate
+        return slidingWindow && !function.supportsReverse() &&
+               function instanceof MergeableAccumulateFunction && ((MergeableAccumulateFunction) function).supportsMerge();
     }
 
     public ReturnValueExpression getExpression() {
@@ -170,6 +222,7 @@ public class JavaAccumulatorFunctionExecutor
         Externalizable {
         public Serializable               context;
         public Map<Integer, Object>       reverseSupport;
+        public SlidingWindowAggregate     windowAggregate;
 
         public JavaAccumulatorFunctionContext() {
         }
@@ -179,11 +232,21 @@ public class JavaAccumulatorFunctionExecutor
                                                 ClassNotFoundException {
             context = (Externalizable) in.readObject();
             reverseSupport = (Map<Integer, Object>) in.readObject();
+            try {
+                windowAggregate = (SlidingWindowAggregate) in.readObject();
+            } catch (OptionalDataException e) {
+                if ( !e.eof ) {
+                    throw e;
+                }
+                // written before the window aggregate was added
+                windowAggregate = null;
+            }
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
             out.writeObject( context );
             out.writeObject( reverseSupport );
+            out.writeObject( windowAggregate );
         }
     }
     
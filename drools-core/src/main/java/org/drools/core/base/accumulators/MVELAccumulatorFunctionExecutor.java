@@ -29,10 +29,12 @@ import org.drools.core.spi.Tuple;
 import org.mvel2.MVEL;
 import org.mvel2.integration.VariableResolverFactory;
 
+import java.io.EOFException;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.OptionalDataException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -50,6 +52,7 @@ public class MVELAccumulatorFunctionExecutor
 
     private MVELCompilationUnit                        unit;
     private org.kie.api.runtime.rule.AccumulateFunction function;
+    private boolean                                    slidingWindow;
 
     private Serializable                               expression;
 
@@ -68,11 +71,18 @@ public class MVELAccumulatorFunctionExecutor
                                             ClassNotFoundException {
         unit = (MVELCompilationUnit) in.readObject();
         function = (org.kie.api.runtime.rule.AccumulateFunction) in.readObject();
+        try {
+            slidingWindow = in.readBoolean();
+        } catch (EOFException e) {
+            // written before the sliding window flag was added
+            slidingWindow = false;
+        }
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( unit );
         out.writeObject( function );
+        out.writeBoolean( slidingWindow );
     }
 
     public void compile(MVELDialectRuntimeData runtimeData) {
@@ -88,6 +98,10 @@ public class MVELAccumulatorFunctionExecutor
      */
     public Serializable createContext() {
         MVELAccumulatorFunctionContext context = new MVELAccumulatorFunctionContext();
+        if ( isWindowAggregated() ) {
+            context.windowAggregate = new SlidingWindowAggregate();
+            return context;
+        }
         context.context = this.function.createContext();
         if ( this.function.supportsReverse() ) {
             context.reverseSupport = new HashMap<Integer, Object>();
@@ -103,7 +117,12 @@ public class MVELAccumulatorFunctionExecutor
                      Tuple leftTuple,
                      Declaration[] declarations,
                      WorkingMemory workingMemory) throws Exception {
-        this.function.init( ((MVELAccumulatorFunctionContext) context).context );
+        MVELAccumulatorFunctionContext accContext = (MVELAccumulatorFunctionContext) context;
+        if ( accContext.windowAggregate != null ) {
+            accContext.windowAggregate.clear();
+            return;
+        }
+        this.function.init( accContext.context );
     }
 
     /* (non-Javadoc)
@@ -122,6 +141,11 @@ public class MVELAccumulatorFunctionExecutor
         final Object value = MVEL.executeExpression( this.expression,
                                                      handle.getObject(),
                                                      factory );
+        SlidingWindowAggregate windowAggregate = ((MVELAccumulatorFunctionContext) context).windowAggregate;
+        if ( windowAggregate != null ) {
+            windowAggregate.add( (MergeableAccumulateFunction) this.function, handle.getId(), value );
+            return;
+        }
         if ( this.function.supportsReverse() ) {
             ((MVELAccumulatorFunctionContext) context).reverseSupport.put( handle.getId(), value );
         }
@@ -136,6 +160,11 @@ public class MVELAccumulatorFunctionExecutor
                         Declaration[] declarations,
                         Declaration[] innerDeclarations,
                         WorkingMemory workingMemory) throws Exception {
+        SlidingWindowAggregate windowAggregate = ((MVELAccumulatorFunctionContext) context).windowAggregate;
+        if ( windowAggregate != null ) {
+            windowAggregate.remove( (MergeableAccumulateFunction) this.function, handle.getId() );
+            return;
+        }
         final Object value = ((MVELAccumulatorFunctionContext) context).reverseSupport.remove( handle.getId() );
         this.function.reverse( ((MVELAccumulatorFunctionContext) context).context,
                                value );
@@ -149,11 +178,34 @@ public class MVELAccumulatorFunctionExecutor
                             Tuple leftTuple,
                             Declaration[] declarations,
                             WorkingMemory workingMemory) throws Exception {
-        return this.function.getResult( ((MVELAccumulatorFunctionContext) context).context );
+        MVELAccumulatorFunctionContext accContext = (MVELAccumulatorFunctionContext) context;
+        if ( accContext.windowAggregate != null ) {
+            return accContext.windowAggregate.getResult( (MergeableAccumulateFunction) this.function );
+        }
+        return this.function.getResult( accContext.context );
     }
 
     public boolean supportsReverse() {
-        return this.function.supportsReverse();
+        // a window aggregate can always remove a value, in constant time when it is the oldest one
+        return isWindowAggregated() || this.function.supportsReverse();
+    }
+
+    public boolean isSlidingWindow() {
+        return slidingWindow;
+    }
+
+    /**
+     * Sets if this function accumulates the facts in a sliding window, so that it can keep the aggregate
+     * of the window if the function supports it
+     */
+    public void setSlidingWindow(boolean slidingWindow) {
+        this.slidingWindow = slidingWindow;
+    }
+
+    private boolean isWindowAggregated() {
+        // a function able to reverse a value removes it from anywhere in the window, so it doesn't need the window aggregate
+        return slidingWindow && !function.supportsReverse() &&
+               function instanceof MergeableAccumulateFunction && ((MergeableAccumulateFunction) function).supportsMerge();
     }
 
     public Object createWorkingMemoryContext() {
@@ -174,6 +226,7 @@ public class MVELAccumulatorFunctionExecutor
         Externalizable {
         public Serializable               context;
         public Map<Integer, Object> reverseSupport;
+        public SlidingWindowAggregate windowAggregate;
 
         public MVELAccumulatorFunctionContext() {
         }
@@ -183,11 +236,21 @@ public class MVELAccumulatorFunctionExecutor
                                                 ClassNotFoundException {
             context = (Serializable) in.readObject();
             reverseSupport = (Map<Integer, Object>) in.readObject();
+            try {
+                windowAggregate = (SlidingWindowAggregate) in.readObject();
+            } catch (OptionalDataException e) {
+                if ( !e.eof ) {
+                    throw e;
+                }
+                // written before the window aggregate was added
+                windowAggregate = null;
+            }
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
             out.writeObject( context );
             out.writeObject( reverseSupport );
+            out.writeObject( windowAggregate );
         }
     }
 
@@ -16,6 +16,7 @@
 
 package org.drools.core.base.accumulators;
 
+import org.drools.core.util.SortedMultiset;
 import org.kie.api.runtime.rule.AccumulateFunction;
 
 import java.io.Externalizable;
@@ -25,7 +26,9 @@ import java.io.ObjectOutput;
 import java.io.Serializable;
 
 /**
- * An implementation of an accumulator capable of calculating maximum values
+ * An implementation of an accumulator capable of calculating maximum values.
+ * The accumulated values are kept in a sorted multiset, so a value can be reversed in O(log n)
+ * instead of recalculating the whole accumulation.
  */
 public class MaxAccumulateFunction implements AccumulateFunction {
 
@@ -38,16 +41,16 @@ public class MaxAccumulateFunction implements AccumulateFunction {
     }
 
     protected static class MaxData implements Externalizable {
-        public Comparable max = null;
+        public SortedMultiset values = new SortedMultiset();
 
         public MaxData() {}
 
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-            max = (Comparable) in.readObject();
+            values = (SortedMultiset) in.readObject();
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
-            out.writeObject(max);
+            out.writeObject(values);
         }
     }
 
@@ -57,30 +60,34 @@ public class MaxAccumulateFunction implements AccumulateFunction {
 
     public void init(Serializable context) {
         MaxData data = (MaxData) context;
-        data.max = null;
+        data.values.clear();
     }
 
+    @SuppressWarnings("unchecked")
     public void accumulate(Serializable context,
                            Object value) {
         if (value != null) {
             MaxData data = (MaxData) context;
-            data.max = data.max == null || data.max.compareTo( value ) < 0 ?
-                       (Comparable) value :
-                       data.max;
+            data.values.add( (Comparable) value );
         }
     }
 
+    @SuppressWarnings("unchecked")
     public void reverse(Serializable context,
                         Object value) {
+        if (value != null) {
+            MaxData data = (MaxData) context;
+            data.values.remove( (Comparable) value );
+        }
     }
 
     public Object getResult(Serializable context) {
         MaxData data = (MaxData) context;
-        return data.max;
+        return data.values.last();
     }
 
     public boolean supportsReverse() {
-        return false;
+        return true;
     }
 
     public Class<?> getResultType() {
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An accumulate function whose accumulation can be split in partial aggregates of contiguous values,
+ * merged by an associative operation. When such a function accumulates over a sliding window,
+ * the engine keeps the partial aggregates of the values in the window instead of the function's own context,
+ * so the result is maintained in amortized constant time for each event entering or leaving the window,
+ * even if the function can't reverse a value.
+ * <p>
+ * An existing function opts in implementing this interface and returning true from {@link #supportsMerge()}.
+ * The partial aggregates are used only when the function doesn't support reverse, as a reverse removes
+ * any value from the window, while the partial aggregates are efficient only for the oldest one.
+ */
+public interface MergeableAccumulateFunction extends AccumulateFunction {
+
+    /**
+     * Returns true if this function can merge its partial aggregates
+     */
+    boolean supportsMerge();
+
+    /**
+     * Returns the partial aggregate of a single value, or null if the value is ignored by this function
+     */
+    Object lift(Object value);
+
+    /**
+     * Returns the partial aggregate of the values of the first partial aggregate followed by the ones of the second.
+     * Both of them are not null and must not be modified, as they are still part of other aggregates.
+     * The operation has to be associative, but not necessarily commutative.
+     */
+    Object merge(Object first, Object second);
+
+    /**
+     * Returns the result of this function for the values of the given partial aggregate,
+     * that is null when there are no values to be accumulated
+     */
+    Object getMergedResult(Object partial);
+}
@@ -16,6 +16,7 @@
 
 package org.drools.core.base.accumulators;
 
+import org.drools.core.util.SortedMultiset;
 import org.kie.api.runtime.rule.AccumulateFunction;
 
 import java.io.Externalizable;
@@ -25,7 +26,9 @@ import java.io.ObjectOutput;
 import java.io.Serializable;
 
 /**
- * An implementation of an accumulator capable of calculating minimun values
+ * An implementation of an accumulator capable of calculating minimun values.
+ * The accumulated values are kept in a sorted multiset, so a value can be reversed in O(log n)
+ * instead of recalculating the whole accumulation.
  */
 public class MinAccumulateFunction implements AccumulateFunction {
 
@@ -38,16 +41,16 @@ public class MinAccumulateFunction implements AccumulateFunction {
     }
 
     protected static class MinData implements Externalizable {
-        public Comparable min = null;
+        public SortedMultiset values = new SortedMultiset();
         
         public MinData() {}
 
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-            min = (Comparable) in.readObject();
+            values = (SortedMultiset) in.readObject();
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
-            out.writeObject(min);
+            out.writeObject(values);
         }
     }
 
@@ -57,30 +60,34 @@ public class MinAccumulateFunction implements AccumulateFunction {
 
     public void init(Serializable context) {
         MinData data = (MinData) context;
-        data.min = null;
+        data.values.clear();
     }
 
+    @SuppressWarnings("unchecked")
     public void accumulate(Serializable context,
                            Object value) {
         if (value != null) {
             MinData data = (MinData) context;
-            data.min = data.min == null || data.min.compareTo( value ) > 0 ?
-                       (Comparable) value :
-                       data.min;
+            data.values.add( (Comparable) value );
         }
     }
 
+    @SuppressWarnings("unchecked")
     public void reverse(Serializable context,
                         Object value) {
+        if (value != null) {
+            MinData data = (MinData) context;
+            data.values.remove( (Comparable) value );
+        }
     }
 
     public Object getResult(Serializable context) {
         MinData data = (MinData) context;
-        return data.min;
+        return data.values.first();
     }
 
     public boolean supportsReverse() {
-        return false;
+        return true;
     }
 
     public Class<?> getResultType() {
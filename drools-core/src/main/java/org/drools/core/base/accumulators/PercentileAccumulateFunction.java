@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import org.drools.core.util.SortedMultiset;
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+/**
+ * <p>An implementation of an accumulator capable of calculating a percentile of Comparable values,
+ * using the nearest rank method: the result is the smallest accumulated value such that at least the
+ * given fraction of the values is less than or equal to it. The values are kept in an order statistic
+ * tree, so both accumulating and reversing a value and getting the result are O(log n).</p>
+ *
+ * <p>Since an accumulate function takes a single argument, the percentile is a property of the function
+ * itself. The median is available out of the box, while other percentiles can be registered with a name
+ * of choice, e.g.:</p>
+ * <pre>
+ * kbuilderConf.setOption( AccumulateFunctionOption.get( "p90", new PercentileAccumulateFunction( 0.9 ) ) );
+ * </pre>
+ */
+public class PercentileAccumulateFunction implements AccumulateFunction {
+
+    private double percentile;
+
+    public PercentileAccumulateFunction() {
+        this( 0.5 );
+    }
+
+    public PercentileAccumulateFunction(double percentile) {
+        if ( percentile <= 0 || percentile > 1 ) {
+            throw new IllegalArgumentException( "The percentile must be in the (0, 1] range: " + percentile );
+        }
+        this.percentile = percentile;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        percentile = in.readDouble();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeDouble( percentile );
+    }
+
+    protected static class PercentileData implements Externalizable {
+        public SortedMultiset values = new SortedMultiset();
+
+        public PercentileData() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            values = (SortedMultiset) in.readObject();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject(values);
+        }
+    }
+
+    public Serializable createContext() {
+        return new PercentileData();
+    }
+
+    public void init(Serializable context) {
+        PercentileData data = (PercentileData) context;
+        data.values.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void accumulate(Serializable context,
+                           Object value) {
+        if (value != null) {
+            PercentileData data = (PercentileData) context;
+            data.values.add( (Comparable) value );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void reverse(Serializable context,
+                        Object value) {
+        if (value != null) {
+            PercentileData data = (PercentileData) context;
+            data.values.remove( (Comparable) value );
+        }
+    }
+
+    public Object getResult(Serializable context) {
+        PercentileData data = (PercentileData) context;
+        int size = data.values.size();
+        if ( size == 0 ) {
+            return null;
+        }
+        int rank = (int) Math.ceil( percentile * size ) - 1;
+        return data.values.get( Math.max( rank, 0 ) );
+    }
+
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    public Class<?> getResultType() {
+        return Comparable.class;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The partial aggregates of the values accumulated by a {@link MergeableAccumulateFunction} over a sliding window,
+ * kept in two stacks. The new values are pushed on the back stack, that also keeps the aggregate of all its values.
+ * The values leave the window from the front stack, where each value keeps the aggregate of itself and of all
+ * the values following it in the stack, so the aggregate of the whole window is always the merge of the aggregate
+ * on top of the front stack with the one of the back stack. When the front stack is empty the back stack is
+ * moved into it, aggregating its values from the most recent one, so each value is merged a constant number
+ * of times while it is in the window.
+ * <p>
+ * The values are expected to leave the window in the same order they entered it. Removing any other value,
+ * e.g. because an event in the window has been deleted, aggregates again all the values in the window.
+ * This is used only for the functions that can't reverse a value, which would otherwise recalculate
+ * the whole accumulation on any removal.
+ */
+public class SlidingWindowAggregate implements Externalizable {
+
+    // the oldest value is on top, at the end of the list
+    private List<Entry> front = new ArrayList<Entry>();
+
+    // the oldest value is at the start of the list
+    private List<Entry> back = new ArrayList<Entry>();
+
+    private Object backAggregate;
+
+    public SlidingWindowAggregate() { }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        front = (List<Entry>) in.readObject();
+        back = (List<Entry>) in.readObject();
+        backAggregate = in.readObject();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject( front );
+        out.writeObject( back );
+        out.writeObject( backAggregate );
+    }
+
+    public void clear() {
+        front.clear();
+        back.clear();
+        backAggregate = null;
+    }
+
+    public int size() {
+        return front.size() + back.size();
+    }
+
+    /**
+     * Adds the value of the fact with the given id as the most recent one
+     */
+    public void add(MergeableAccumulateFunction function, int id, Object value) {
+        Entry entry = new Entry( id, function.lift( value ) );
+        back.add( entry );
+        backAggregate = merge( function, backAggregate, entry.partial );
+    }
+
+    /**
+     * Removes the value of the fact with the given id, in amortized constant time if it is the oldest one
+     */
+    public void remove(MergeableAccumulateFunction function, int id) {
+        if ( front.isEmpty() ) {
+            flip( function );
+        }
+        int top = front.size() - 1;
+        if ( top >= 0 && front.get( top ).id == id ) {
+            front.remove( top );
+            return;
+        }
+
+        // not the oldest value, so the remaining values are aggregated again from scratch
+        List<Entry> entries = new ArrayList<Entry>( size() );
+        for ( int i = top; i >= 0; i-- ) {
+            entries.add( front.get( i ) );
+        }
+        entries.addAll( back );
+        front.clear();
+        back.clear();
+        backAggregate = null;
+        for ( Entry entry : entries ) {
+            if ( entry.id != id ) {
+                back.add( entry );
+                backAggregate = merge( function, backAggregate, entry.partial );
+            }
+        }
+    }
+
+    public Object getResult(MergeableAccumulateFunction function) {
+        Object frontAggregate = front.isEmpty() ? null : front.get( front.size() - 1 ).aggregate;
+        return function.getMergedResult( merge( function, frontAggregate, backAggregate ) );
+    }
+
+    private void flip(MergeableAccumulateFunction function) {
+        Object aggregate = null;
+        for ( int i = back.size() - 1; i >= 0; i-- ) {
+            Entry entry = back.get( i );
+            aggregate = merge( function, entry.partial, aggregate );
+            entry.aggregate = aggregate;
+            front.add( entry );
+        }
+        back.clear();
+        backAggregate = null;
+    }
+
+    private static Object merge(MergeableAccumulateFunction function, Object first, Object second) {
+        // a null partial aggregate has no values, so it is the identity of the merge
+        if ( first == null ) {
+            return second;
+        }
+        if ( second == null ) {
+            return first;
+        }
+        return function.merge( first, second );
+    }
+
+    private static class Entry implements Serializable {
+        private final int    id;
+        private final Object partial;
+        private Object       aggregate;
+
+        private Entry(int id, Object partial) {
+            this.id = id;
+            this.partial = partial;
+        }
+    }
+}
@@ -203,7 +203,7 @@ public class AfterEvaluatorDefinition
     /**
      * Implements the 'after' evaluator itself
      */
-    public static class AfterEvaluator extends PointInTimeEvaluator {
+    public static class AfterEvaluator extends PointInTimeEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         public AfterEvaluator() {
@@ -223,6 +223,18 @@ public class AfterEvaluatorDefinition
                    unwrapRight );
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.initRange, this.finalRange );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return false;
+        }
+
         @Override
         public Interval getInterval() {
             long init = this.initRange;
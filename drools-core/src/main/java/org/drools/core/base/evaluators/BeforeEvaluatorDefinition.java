@@ -200,7 +200,7 @@ public class BeforeEvaluatorDefinition
     /**
      * Implements the 'before' evaluator itself
      */
-    public static class BeforeEvaluator extends PointInTimeEvaluator {
+    public static class BeforeEvaluator extends PointInTimeEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         public BeforeEvaluator() {
@@ -220,6 +220,18 @@ public class BeforeEvaluatorDefinition
                    unwrapRight );
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.initRange, this.finalRange ).negate();
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return false;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             long init = (this.finalRange == Interval.MAX) ? Interval.MIN : -this.finalRange;
@@ -201,7 +201,7 @@ public class CoincidesEvaluatorDefinition
     /**
      * Implements the 'coincides' evaluator itself
      */
-    public static class CoincidesEvaluator extends BaseEvaluator {
+    public static class CoincidesEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              startDev;
@@ -255,6 +255,18 @@ public class CoincidesEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.startDev, this.startDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
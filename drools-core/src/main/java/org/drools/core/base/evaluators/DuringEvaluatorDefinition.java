@@ -222,7 +222,7 @@ public class DuringEvaluatorDefinition
     /**
      * Implements the 'during' evaluator itself
      */
-    public static class DuringEvaluator extends BaseEvaluator {
+    public static class DuringEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              startMinDev, startMaxDev;
@@ -270,6 +270,18 @@ public class DuringEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.startMinDev, this.startMaxDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
@@ -200,7 +200,7 @@ public class FinishedByEvaluatorDefinition
     /**
      * Implements the 'finishedby' evaluator itself
      */
-    public static class FinishedByEvaluator extends BaseEvaluator {
+    public static class FinishedByEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              endDev;
@@ -241,6 +241,18 @@ public class FinishedByEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.endDev, this.endDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return false;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return false;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
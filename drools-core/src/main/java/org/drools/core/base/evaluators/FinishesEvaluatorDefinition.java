@@ -199,7 +199,7 @@ public class FinishesEvaluatorDefinition
     /**
      * Implements the 'finishes' evaluator itself
      */
-    public static class FinishesEvaluator extends BaseEvaluator {
+    public static class FinishesEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              endDev;
@@ -240,6 +240,18 @@ public class FinishesEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.endDev, this.endDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return false;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return false;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
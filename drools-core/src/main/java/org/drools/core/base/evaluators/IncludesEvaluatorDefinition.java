@@ -223,7 +223,7 @@ public class IncludesEvaluatorDefinition
     /**
      * Implements the 'includes' evaluator itself
      */
-    public static class IncludesEvaluator extends BaseEvaluator {
+    public static class IncludesEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              startMinDev, startMaxDev;
@@ -269,6 +269,18 @@ public class IncludesEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.startMinDev, this.startMaxDev ).negate();
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
@@ -199,7 +199,7 @@ public class MeetsEvaluatorDefinition
     /**
      * Implements the 'meets' evaluator itself
      */
-    public static class MeetsEvaluator extends BaseEvaluator {
+    public static class MeetsEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              finalRange;
@@ -240,6 +240,18 @@ public class MeetsEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.finalRange, this.finalRange );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return false;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
@@ -199,7 +199,7 @@ public class MetByEvaluatorDefinition
     /**
      * Implements the 'metby' evaluator itself
      */
-    public static class MetByEvaluator extends BaseEvaluator {
+    public static class MetByEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              finalRange;
@@ -240,6 +240,18 @@ public class MetByEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.finalRange, this.finalRange );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return false;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
@@ -208,7 +208,7 @@ public class OverlappedByEvaluatorDefinition
     /**
      * Implements the 'overlappedby' evaluator itself
      */
-    public static class OverlappedByEvaluator extends BaseEvaluator {
+    public static class OverlappedByEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long                  minDev, maxDev;
@@ -250,6 +250,18 @@ public class OverlappedByEvaluatorDefinition
             return true;
         }
         
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.minDev, this.maxDev ).negate();
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return false;
+        }
+
         @Override
         public Interval getInterval() {
             if( this.getOperator().isNegated() ) {
@@ -209,7 +209,7 @@ public class OverlapsEvaluatorDefinition
     /**
      * Implements the 'overlaps' evaluator itself
      */
-    public static class OverlapsEvaluator extends BaseEvaluator {
+    public static class OverlapsEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              minDev, maxDev;
@@ -252,6 +252,18 @@ public class OverlapsEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( this.minDev, this.maxDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return false;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
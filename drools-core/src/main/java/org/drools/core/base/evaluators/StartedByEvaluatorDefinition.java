@@ -199,7 +199,7 @@ public class StartedByEvaluatorDefinition
     /**
      * Implements the 'startedby' evaluator itself
      */
-    public static class StartedByEvaluator extends BaseEvaluator {
+    public static class StartedByEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long                startDev;
@@ -240,6 +240,18 @@ public class StartedByEvaluatorDefinition
             return true;
         }
         
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.startDev, this.startDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if( this.getOperator().isNegated() ) {
@@ -200,7 +200,7 @@ public class StartsEvaluatorDefinition
     /**
      * Implements the 'starts' evaluator itself
      */
-    public static class StartsEvaluator extends BaseEvaluator {
+    public static class StartsEvaluator extends BaseEvaluator implements TemporalIndexableEvaluator {
         private static final long serialVersionUID = 510l;
 
         private long              startDev;
@@ -241,6 +241,18 @@ public class StartsEvaluatorDefinition
             return true;
         }
 
+        public Interval getIndexedDistance() {
+            return this.getOperator().isNegated() ? null : new Interval( -this.startDev, this.startDev );
+        }
+
+        public boolean isRightIndexedOnStart() {
+            return true;
+        }
+
+        public boolean isLeftIndexedOnStart() {
+            return true;
+        }
+
         @Override
         public Interval getInterval() {
             if ( this.getOperator().isNegated() ) {
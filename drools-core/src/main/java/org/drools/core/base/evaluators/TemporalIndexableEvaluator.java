@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.evaluators;
+
+import org.drools.core.time.Interval;
+
+/**
+ * A temporal evaluator comparing two events that can only match when the distance between a timestamp
+ * of the event of the pattern (the right one) and a timestamp of the event of the declaration (the left one)
+ * falls in a given interval. This allows a beta memory to keep the events sorted by that timestamp
+ * and to narrow the candidate matches of an event to the ones in the interval.
+ */
+public interface TemporalIndexableEvaluator {
+
+    /**
+     * Returns the interval the right indexed timestamp minus the left indexed timestamp has to fall in
+     * for this evaluator to match, or null if its matches can't be narrowed, e.g. because it is negated
+     */
+    Interval getIndexedDistance();
+
+    /**
+     * Returns true if the right event is indexed by its start timestamp, false if by its end timestamp
+     */
+    boolean isRightIndexedOnStart();
+
+    /**
+     * Returns true if the left event is indexed by its start timestamp, false if by its end timestamp
+     */
+    boolean isLeftIndexedOnStart();
+}
@@ -173,6 +173,10 @@ public abstract class BaseNode
         return this.associations.remove(rule);
     }
 
+    public Rule[] getAssociatedRules() {
+        return this.associations.toArray( new Rule[this.associations.getKeySize()] );
+    }
+
     public int getAssociationsSize() {
         return this.associations.size();
     }
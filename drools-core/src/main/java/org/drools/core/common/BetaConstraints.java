@@ -67,7 +67,11 @@ public interface BetaConstraints
     BitMask getListenedPropertyMask(List<String> settableProperties);
 
     void init(BuildContext context, short betaNodeType);
-    void initIndexes(int depth, short betaNodeType);
+    void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled);
+
+    default void initIndexes(int depth, short betaNodeType) {
+        initIndexes(depth, betaNodeType, false);
+    }
 
     BetaConstraints cloneIfInUse();
 
@@ -182,6 +182,7 @@ public class ClassAwareObjectStore implements Externalizable, ObjectStore {
         return new CompositeObjectIterator(concreteStores, true);
     }
 
+    @Override
     public Iterator<Object> iterateObjects(Class<?> clazz) {
         return getOrCreateClassStore(clazz).objectsIterator(true);
     }
@@ -199,6 +200,7 @@ public class ClassAwareObjectStore implements Externalizable, ObjectStore {
         return new CompositeFactHandleIterator(concreteStores, true);
     }
 
+    @Override
     public Iterator<InternalFactHandle> iterateFactHandles(Class<?> clazz) {
         return getOrCreateClassStore(clazz).factHandlesIterator(true);
     }
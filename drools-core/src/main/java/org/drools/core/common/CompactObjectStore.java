@@ -0,0 +1,429 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.common;
+
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.util.AbstractHashTable.ObjectComparator;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.ObjectFilter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+
+import static org.drools.core.common.ClassAwareObjectStore.getActualClass;
+
+/**
+ * An ObjectStore meant for the working memories holding millions of facts.
+ *
+ * The ClassAwareObjectStore allocates an entry object for each fact in the hash map of its class
+ * (and another one in the equality map when the equality behaviour is enabled). This store instead
+ * keeps the fact handles in a single dense array, reusing the slots of the deleted handles, and
+ * indexes them with open addressing tables made only of int arrays, holding for each bucket the
+ * position of the handle in the dense array and its hash code. In this way adding a fact doesn't
+ * allocate anything but the occasional growth of the arrays, and the memory retained by the store
+ * for each fact is roughly halved.
+ *
+ * The price to pay is that the iterations on the facts of a given class have to scan all the facts
+ * in the entry point, so this store is convenient when those iterations are rare, like when they are
+ * only needed to add rules to a kbase with an already populated session.
+ */
+public class CompactObjectStore implements ObjectStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Lock lock;
+
+    private final boolean isEqualityBehaviour;
+
+    private final HandleIndex identityIndex;
+    private final HandleIndex equalityIndex;
+
+    private InternalFactHandle[] handles;
+    private int highWaterMark;
+
+    private int[] freeSlots;
+    private int freeSlotsCount;
+
+    private int size;
+
+    public CompactObjectStore(RuleBaseConfiguration conf, Lock lock) {
+        this.lock = lock;
+        this.isEqualityBehaviour = RuleBaseConfiguration.AssertBehaviour.EQUALITY.equals(conf.getAssertBehaviour());
+        // as in the ClassAwareObjectStore, the negated handles can be found only by equality
+        this.identityIndex = new HandleIndex( new IdentityAssertMapComparator(), false );
+        this.equalityIndex = isEqualityBehaviour ? new HandleIndex( new EqualityAssertMapComparator(), true ) : null;
+        this.handles = new InternalFactHandle[INITIAL_CAPACITY];
+        this.freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        handles = new InternalFactHandle[INITIAL_CAPACITY];
+        highWaterMark = 0;
+        freeSlots = new int[INITIAL_CAPACITY];
+        freeSlotsCount = 0;
+        identityIndex.clear();
+        if (isEqualityBehaviour) {
+            equalityIndex.clear();
+        }
+        size = 0;
+    }
+
+    @Override
+    public Object getObjectForHandle(InternalFactHandle handle) {
+        try {
+            this.lock.lock();
+            InternalFactHandle reconnectedHandle = reconnect(handle);
+            return reconnectedHandle != null ? reconnectedHandle.getObject() : null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public InternalFactHandle reconnect(InternalFactHandle handle) {
+        if (handle == null) {
+            return null;
+        }
+        // the identity comparator matches a fact handle with the stored one having the same id
+        int slot = identityIndex.find( handle );
+        return slot >= 0 ? handles[slot] : null;
+    }
+
+    @Override
+    public InternalFactHandle getHandleForObject(Object object) {
+        if ( object == null ) {
+            return null;
+        }
+
+        if ( isEqualityBehaviour ) {
+            int slot = equalityIndex.find( object );
+            return slot >= 0 ? handles[slot] : null;
+        }
+        return getHandleForObjectIdentity( object );
+    }
+
+    @Override
+    public InternalFactHandle getHandleForObjectIdentity(Object object) {
+        int slot = identityIndex.find( object );
+        return slot >= 0 ? handles[slot] : null;
+    }
+
+    @Override
+    public void updateHandle(InternalFactHandle handle, Object object) {
+        removeHandle(handle);
+        handle.setObject(object);
+        addHandle(handle, object);
+    }
+
+    @Override
+    public void addHandle(InternalFactHandle handle, Object object) {
+        int slot = nextFreeSlot();
+        handles[slot] = handle;
+        identityIndex.add( slot );
+        if ( isEqualityBehaviour ) {
+            equalityIndex.add( slot );
+        }
+        if ( !handle.isNegated() ) {
+            size++;
+        }
+    }
+
+    @Override
+    public void removeHandle(InternalFactHandle handle) {
+        int slot = identityIndex.remove( handle );
+        if ( slot < 0 ) {
+            return;
+        }
+        if ( isEqualityBehaviour ) {
+            equalityIndex.remove( handle );
+        }
+        releaseSlot( slot );
+        if ( !handle.isNegated() ) {
+            size--;
+        }
+    }
+
+    private int nextFreeSlot() {
+        if ( freeSlotsCount > 0 ) {
+            return freeSlots[--freeSlotsCount];
+        }
+        if ( highWaterMark == handles.length ) {
+            handles = Arrays.copyOf( handles, handles.length * 2 );
+        }
+        return highWaterMark++;
+    }
+
+    private void releaseSlot(int slot) {
+        handles[slot] = null;
+        if ( freeSlotsCount == freeSlots.length ) {
+            freeSlots = Arrays.copyOf( freeSlots, freeSlots.length * 2 );
+        }
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    @Override
+    public Iterator<Object> iterateObjects() {
+        return new ObjectIterator( null, true, null );
+    }
+
+    @Override
+    public Iterator<Object> iterateObjects(Class<?> clazz) {
+        return new ObjectIterator( clazz, true, null );
+    }
+
+    @Override
+    public Iterator<Object> iterateObjects(ObjectFilter filter) {
+        if (filter instanceof ClassObjectFilter) {
+            return iterateObjects( ((ClassObjectFilter) filter).getFilteredClass() );
+        }
+        return new ObjectIterator( null, true, filter );
+    }
+
+    @Override
+    public Iterator<InternalFactHandle> iterateFactHandles() {
+        return new FactHandleIterator( null, true, null );
+    }
+
+    @Override
+    public Iterator<InternalFactHandle> iterateFactHandles(Class<?> clazz) {
+        return new FactHandleIterator( clazz, true, null );
+    }
+
+    @Override
+    public Iterator<InternalFactHandle> iterateFactHandles(ObjectFilter filter) {
+        if (filter instanceof ClassObjectFilter) {
+            return iterateFactHandles( ((ClassObjectFilter) filter).getFilteredClass() );
+        }
+        return new FactHandleIterator( null, true, filter );
+    }
+
+    @Override
+    public Iterator<Object> iterateNegObjects(ObjectFilter filter) {
+        if (filter instanceof ClassObjectFilter) {
+            return new ObjectIterator( ((ClassObjectFilter) filter).getFilteredClass(), false, null );
+        }
+        return new ObjectIterator( null, false, filter );
+    }
+
+    @Override
+    public Iterator<InternalFactHandle> iterateNegFactHandles(ObjectFilter filter) {
+        if (filter instanceof ClassObjectFilter) {
+            return new FactHandleIterator( ((ClassObjectFilter) filter).getFilteredClass(), false, null );
+        }
+        return new FactHandleIterator( null, false, filter );
+    }
+
+    /**
+     * An open addressing hash table with linear probing, storing the positions of the handles in the
+     * dense array. The hash code of each entry is kept in a parallel array, so neither probing nor
+     * resizing ever needs to dereference a fact handle unless the hash codes match.
+     */
+    private final class HandleIndex {
+
+        private final ObjectComparator comparator;
+        private final boolean findNegated;
+
+        // position of the handle in the dense array + 1, so 0 marks an empty bucket
+        private int[] slots;
+        private int[] hashes;
+        private int mask;
+        private int count;
+
+        private HandleIndex(ObjectComparator comparator, boolean findNegated) {
+            this.comparator = comparator;
+            this.findNegated = findNegated;
+            clear();
+        }
+
+        private void clear() {
+            slots = new int[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            mask = INITIAL_CAPACITY - 1;
+            count = 0;
+        }
+
+        private void add(int slot) {
+            // keep the load factor under 0.5, so the probing sequences stay short
+            if ( ( count + 1 ) * 2 > slots.length ) {
+                resize( slots.length * 2 );
+            }
+            insert( slot + 1, comparator.hashCodeOf( handles[slot] ) );
+            count++;
+        }
+
+        private void insert(int entry, int hashCode) {
+            int i = hashCode & mask;
+            while ( slots[i] != 0 ) {
+                i = ( i + 1 ) & mask;
+            }
+            slots[i] = entry;
+            hashes[i] = hashCode;
+        }
+
+        private int find(Object key) {
+            int bucket = bucketOf( key );
+            return bucket >= 0 ? slots[bucket] - 1 : -1;
+        }
+
+        private int remove(Object key) {
+            int bucket = bucketOf( key );
+            if ( bucket < 0 ) {
+                return -1;
+            }
+            int slot = slots[bucket] - 1;
+            delete( bucket );
+            count--;
+            return slot;
+        }
+
+        private int bucketOf(Object key) {
+            int hashCode = comparator.hashCodeOf( key );
+            for ( int i = hashCode & mask; slots[i] != 0; i = ( i + 1 ) & mask ) {
+                if ( hashes[i] == hashCode ) {
+                    InternalFactHandle handle = handles[slots[i] - 1];
+                    // a fact handle key is matched by id, so it always finds the stored handle
+                    if ( ( findNegated || key instanceof InternalFactHandle || !handle.isNegated() ) && comparator.equal( key, handle ) ) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void delete(int bucket) {
+            // shift back the following entries of the probing sequence, so no tombstone is necessary
+            int i = bucket;
+            int j = bucket;
+            while ( true ) {
+                j = ( j + 1 ) & mask;
+                if ( slots[j] == 0 ) {
+                    break;
+                }
+                int home = hashes[j] & mask;
+                if ( i <= j ? ( home <= i || home > j ) : ( home <= i && home > j ) ) {
+                    slots[i] = slots[j];
+                    hashes[i] = hashes[j];
+                    i = j;
+                }
+            }
+            slots[i] = 0;
+        }
+
+        private void resize(int newCapacity) {
+            int[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            slots = new int[newCapacity];
+            hashes = new int[newCapacity];
+            mask = newCapacity - 1;
+            for ( int i = 0; i < oldSlots.length; i++ ) {
+                if ( oldSlots[i] != 0 ) {
+                    insert( oldSlots[i], oldHashes[i] );
+                }
+            }
+        }
+    }
+
+    private abstract class AbstractHandleIterator<T> implements Iterator<T> {
+        private final Class<?> clazz;
+        private final boolean assrt;
+        private final ObjectFilter filter;
+
+        private int cursor;
+        private InternalFactHandle next;
+
+        private AbstractHandleIterator(Class<?> clazz, boolean assrt, ObjectFilter filter) {
+            this.clazz = clazz;
+            this.assrt = assrt;
+            this.filter = filter;
+            fetchNext();
+        }
+
+        private void fetchNext() {
+            while ( cursor < highWaterMark ) {
+                InternalFactHandle handle = handles[cursor++];
+                if ( handle != null && accept( handle ) ) {
+                    next = handle;
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        private boolean accept(InternalFactHandle handle) {
+            return handle.isNegated() != assrt &&
+                   ( clazz == null || clazz.isAssignableFrom( getActualClass( handle.getObject() ) ) ) &&
+                   ( filter == null || filter.accept( handle.getObject() ) );
+        }
+
+        protected abstract T extract(InternalFactHandle handle);
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if ( next == null ) {
+                throw new NoSuchElementException();
+            }
+            InternalFactHandle current = next;
+            fetchNext();
+            return extract( current );
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class ObjectIterator extends AbstractHandleIterator<Object> {
+        private ObjectIterator(Class<?> clazz, boolean assrt, ObjectFilter filter) {
+            super( clazz, assrt, filter );
+        }
+
+        @Override
+        protected Object extract(InternalFactHandle handle) {
+            return handle.getObject();
+        }
+    }
+
+    private class FactHandleIterator extends AbstractHandleIterator<InternalFactHandle> {
+        private FactHandleIterator(Class<?> clazz, boolean assrt, ObjectFilter filter) {
+            super( clazz, assrt, filter );
+        }
+
+        @Override
+        protected InternalFactHandle extract(InternalFactHandle handle) {
+            return handle;
+        }
+    }
+}
@@ -27,42 +27,64 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * A concurrent implementation for the node memories interface
+ * A concurrent implementation for the node memories interface.
+ *
+ * The memories are stored in pages of 32 nodes, indexed by the id of the node, that are allocated
+ * only when the first memory of one of their nodes is created. Also the directory of the pages is
+ * not sized on the number of nodes of the kbase, but on the number of pages used by the former
+ * sessions of the same kbase, and grown on demand. In this way the creation time and the footprint
+ * of a session only depend on the part of the network it actually uses, and not on the size of the kbase.
  */
 public class ConcurrentNodeMemories implements NodeMemories {
 
-    private AtomicReferenceArray<Memory> memories;
+    private static final int PAGE_SHIFT = 5;
+    private static final int PAGE_SIZE  = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK  = PAGE_SIZE - 1;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<Memory>> pages;
 
     private Lock                         lock;
     private InternalKnowledgeBase        kBase;
 
     public ConcurrentNodeMemories( InternalKnowledgeBase kBase ) {
         this.kBase = kBase;
-        this.memories = new AtomicReferenceArray<Memory>( this.kBase.getNodeCount() );
+        this.pages = newDirectory();
         this.lock = new ReentrantLock();
     }
 
+    private AtomicReferenceArray<AtomicReferenceArray<Memory>> newDirectory() {
+        return new AtomicReferenceArray<AtomicReferenceArray<Memory>>( this.kBase.getNodeMemoriesSizeHint() );
+    }
+
     public void clearNodeMemory( MemoryFactory node ) {
-        if ( peekNodeMemory(node.getId()) != null ) {
-            this.memories.set(node.getId(), null);
+        AtomicReferenceArray<Memory> page = getPage( node.getId() >>> PAGE_SHIFT );
+        if ( page != null && page.get( node.getId() & PAGE_MASK ) != null ) {
+            page.set( node.getId() & PAGE_MASK, null );
         }
     }
     
     public void clear() {
-        this.memories = new AtomicReferenceArray<Memory>( this.kBase.getNodeCount() );
+        this.pages = newDirectory();
     }
 
     public void resetAllMemories(StatefulKnowledgeSession session) {
         InternalKnowledgeBase kBase = (InternalKnowledgeBase)session.getKieBase();
         Set<SegmentMemory> smems = new HashSet<SegmentMemory>();
 
-        for (int i = 0; i < memories.length(); i++) {
-            Memory memory = memories.get(i);
-            if (memory != null) {
-                if (memory.getSegmentMemory() != null) {
-                    smems.add(memory.getSegmentMemory());
+        AtomicReferenceArray<AtomicReferenceArray<Memory>> pages = this.pages;
+        for (int i = 0; i < pages.length(); i++) {
+            AtomicReferenceArray<Memory> page = pages.get(i);
+            if (page == null) {
+                continue;
+            }
+            for (int j = 0; j < PAGE_SIZE; j++) {
+                Memory memory = page.get(j);
+                if (memory != null) {
+                    if (memory.getSegmentMemory() != null) {
+                        smems.add(memory.getSegmentMemory());
+                    }
+                    memory.reset();
                 }
-                memory.reset();
             }
         }
 
@@ -81,10 +103,8 @@ public class ConcurrentNodeMemories implements NodeMemories {
      * before effectively doing any change on data structures. 
      */
     public Memory getNodeMemory(MemoryFactory node, InternalWorkingMemory wm) {
-        if( node.getId() >= this.memories.length() ) {
-            resize( node );
-        }
-        Memory memory = this.memories.get( node.getId() );
+        AtomicReferenceArray<Memory> page = getPage( node.getId() >>> PAGE_SHIFT );
+        Memory memory = page != null ? page.get( node.getId() & PAGE_MASK ) : null;
 
         if( memory == null ) {
             memory = createNodeMemory( node, wm );
@@ -93,10 +113,14 @@ public class ConcurrentNodeMemories implements NodeMemories {
         return memory;
     }
 
+    private AtomicReferenceArray<Memory> getPage( int pageIndex ) {
+        AtomicReferenceArray<AtomicReferenceArray<Memory>> pages = this.pages;
+        return pageIndex < pages.length() ? pages.get( pageIndex ) : null;
+    }
 
     /**
      * Checks if a memory does not exists for the given node and
-     * creates it.
+     * creates it, together with the page containing it.
      */
     private Memory createNodeMemory( MemoryFactory node,
                                      InternalWorkingMemory wm ) {
@@ -104,12 +128,22 @@ public class ConcurrentNodeMemories implements NodeMemories {
             this.lock.lock();
             // need to try again in a synchronized code block to make sure
             // it was not created yet
-            Memory memory = this.memories.get( node.getId() );
+            int pageIndex = node.getId() >>> PAGE_SHIFT;
+            if ( pageIndex >= this.pages.length() ) {
+                resize( pageIndex );
+            }
+            AtomicReferenceArray<Memory> page = this.pages.get( pageIndex );
+            if ( page == null ) {
+                page = new AtomicReferenceArray<Memory>( PAGE_SIZE );
+                this.pages.set( pageIndex, page );
+            }
+
+            Memory memory = page.get( node.getId() & PAGE_MASK );
             if( memory == null ) {
                 memory = node.createMemory( this.kBase.getConfiguration(), wm );
 
-                if( !this.memories.compareAndSet( node.getId(), null, memory ) ) {
-                    memory = this.memories.get( node.getId() );
+                if( !page.compareAndSet( node.getId() & PAGE_MASK, null, memory ) ) {
+                    memory = page.get( node.getId() & PAGE_MASK );
                 }
 
             }
@@ -121,24 +155,21 @@ public class ConcurrentNodeMemories implements NodeMemories {
     }
 
     /**
-     * @param node
+     * Grows the directory so it contains the given page, and records its new size in the kbase
+     * so the next sessions can be created with a directory that is already big enough.
+     * It has to be called holding the lock.
      */
-    private void resize( MemoryFactory node ) {
-        try {
-            this.lock.lock();
-            if( node.getId() >= this.memories.length() ) {
-                // adding some buffer for new nodes, so that we reduce array copies
-                int size = Math.max( this.kBase.getNodeCount(), node.getId() + 32 );
-                AtomicReferenceArray<Memory> newMem = new AtomicReferenceArray<Memory>( size );
-                for ( int i = 0; i < this.memories.length(); i++ ) {
-                    newMem.set( i,
-                                this.memories.get( i ) );
-                }
-                this.memories = newMem;
-            }
-        } finally {
-            this.lock.unlock();
+    private void resize( int pageIndex ) {
+        // doubling the directory up to the size of the network, so that we reduce array copies
+        int maxPages = ( this.kBase.getNodeCount() + PAGE_MASK ) >>> PAGE_SHIFT;
+        int size = Math.max( pageIndex + 1, Math.min( Math.max( this.pages.length() * 2, 4 ), maxPages ) );
+        AtomicReferenceArray<AtomicReferenceArray<Memory>> newPages = new AtomicReferenceArray<AtomicReferenceArray<Memory>>( size );
+        for ( int i = 0; i < this.pages.length(); i++ ) {
+            newPages.set( i,
+                          this.pages.get( i ) );
         }
+        this.pages = newPages;
+        this.kBase.updateNodeMemoriesSizeHint( size );
     }
 
     public void setKnowledgeBaseReference( InternalKnowledgeBase kBase ) {
@@ -146,15 +177,12 @@ public class ConcurrentNodeMemories implements NodeMemories {
     }
 
     public Memory peekNodeMemory(int nodeId) {
-        if ( nodeId < this.memories.length() ) {
-            return this.memories.get(nodeId);
-        } else {
-            return null;
-        }
+        AtomicReferenceArray<Memory> page = getPage( nodeId >>> PAGE_SHIFT );
+        return page != null ? page.get( nodeId & PAGE_MASK ) : null;
     }
 
     public int length() {
-        return this.memories.length();
+        return this.pages.length() * PAGE_SIZE;
     }
 
 }
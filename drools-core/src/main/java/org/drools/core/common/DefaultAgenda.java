@@ -16,12 +16,14 @@
 
 package org.drools.core.common;
 
+import org.drools.core.SessionConfiguration;
 import org.drools.core.beliefsystem.ModedAssertion;
 import org.drools.core.concurrent.RuleEvaluator;
 import org.drools.core.concurrent.SequentialRuleEvaluator;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.phreak.ExecutableEntry;
+import org.drools.core.phreak.LockFreePropagationList;
 import org.drools.core.phreak.PropagationEntry;
 import org.drools.core.phreak.PropagationList;
 import org.drools.core.phreak.RuleAgendaItem;
@@ -254,8 +256,12 @@ public class DefaultAgenda
     }
 
     private PropagationList createPropagationList() {
-        return workingMemory.getSessionConfiguration().hasForceEagerActivationFilter() ?
-               new SynchronizedBypassPropagationList( workingMemory ) :
+        SessionConfiguration sessionConf = workingMemory.getSessionConfiguration();
+        if ( sessionConf.hasForceEagerActivationFilter() ) {
+            return new SynchronizedBypassPropagationList( workingMemory );
+        }
+        return sessionConf.isLockFreePropagationList() ?
+               new LockFreePropagationList( workingMemory ) :
                new SynchronizedPropagationList( workingMemory );
     }
 
@@ -1157,6 +1163,8 @@ public class DefaultAgenda
 
                 if ( returnedFireCount == 0 && head == null && ( group == null || !group.isAutoDeactivate() ) && !flushExpirations() ) {
                     // if true, the engine is now considered potentially at rest
+                    // so the results of the snapshot queries are consistent and can be published
+                    workingMemory.publishSnapshotQueries();
                     head = restHandler.handleRest( this, isInternalFire );
                     if (!isInternalFire && head == null) {
                         break;
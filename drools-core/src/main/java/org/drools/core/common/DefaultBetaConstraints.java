@@ -39,6 +39,7 @@ import static org.drools.core.reteoo.PropertySpecificUtil.allSetButTraitBitMask;
 import static org.drools.core.reteoo.PropertySpecificUtil.getEmptyPropertyReactiveMask;
 import static org.drools.core.util.index.IndexUtil.compositeAllowed;
 import static org.drools.core.util.index.IndexUtil.isIndexableForNode;
+import static org.drools.core.util.index.IndexUtil.isRangeIndexEnabled;
 
 
 public class DefaultBetaConstraints
@@ -104,13 +105,13 @@ public class DefaultBetaConstraints
                 // We also ensure that if there is a mixture that standard restriction is first
                 depth = 1;
             }
-            initIndexes( depth, betaNodeType );
+            initIndexes( depth, betaNodeType, isRangeIndexEnabled( config ) );
         }
     }
 
-    public void initIndexes(int depth, short betaNodeType) {
+    public void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) {
         indexed = 0;
-        boolean[] indexable = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints);
+        boolean[] indexable = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints, rangeIndexEnabled);
         for (boolean i : indexable) {
             if (i) {
                 indexed++;
@@ -63,8 +63,8 @@ public class DoubleNonIndexSkipBetaConstraints
         constraints.init(context, betaNodeType);
     }
 
-    public void initIndexes(int depth, short betaNodeType) {
-        constraints.initIndexes(depth, betaNodeType);
+    public void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) {
+        constraints.initIndexes(depth, betaNodeType, rangeIndexEnabled);
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
@@ -158,7 +158,7 @@ public class EmptyBetaConstraints
     }
 
     public void init(BuildContext context, short betaNodeType) { }
-    public void initIndexes(int depth, short betaNodeType) { }
+    public void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) { }
 
     public boolean isLeftUpdateOptimizationAllowed() {
         return true;
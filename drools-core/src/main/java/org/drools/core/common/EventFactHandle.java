@@ -16,10 +16,10 @@
 
 package org.drools.core.common;
 
-import org.drools.core.time.JobHandle;
-import org.drools.core.time.TimerService;
-import org.drools.core.util.LinkedList;
+import org.drools.core.reteoo.ExpirationBuckets;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class EventFactHandle extends DefaultFactHandle implements Comparable<EventFactHandle> {
@@ -39,7 +39,8 @@ public class EventFactHandle extends DefaultFactHandle implements Comparable<Eve
 
     private AtomicInteger     notExpiredPartitions;
 
-    private final transient LinkedList<JobHandle> jobs = new LinkedList<JobHandle>();
+    // the buckets expiring this event, guarded by the ExpirationBuckets of its session
+    private transient List<ExpirationBuckets.ExpireBucket> expireBuckets;
 
     // ----------------------------------------------------------------------
     // Constructors
@@ -306,31 +307,37 @@ public class EventFactHandle extends DefaultFactHandle implements Comparable<Eve
         return (getStartTimestamp() < e.getStartTimestamp()) ? -1 : (getStartTimestamp() == e.getStartTimestamp() ? 0 : 1);
     }
 
-    public void addJob(JobHandle job) {
-        synchronized (jobs) {
-            jobs.add(job);
+    /**
+     * Removes the pending expirations of this event, e.g. because it has been deleted
+     */
+    public void unscheduleAllJobs(InternalWorkingMemory workingMemory) {
+        if (expireBuckets != null) {
+            workingMemory.getExpirationBuckets().unscheduleExpirations(this);
         }
     }
 
-    public void removeJob(JobHandle job) {
-        synchronized (jobs) {
-            // the job could have been already removed if the event has been just retracted
-            // and then the unscheduleAllJobs method has been invoked concurrently
-            if (jobs.contains(job)) {
-                jobs.remove(job);
-            }
+    public void addExpireBucket(ExpirationBuckets.ExpireBucket bucket) {
+        if (expireBuckets == null) {
+            expireBuckets = new ArrayList<ExpirationBuckets.ExpireBucket>(1);
         }
+        expireBuckets.add(bucket);
     }
 
-    public void unscheduleAllJobs(InternalWorkingMemory workingMemory) {
-        if (!jobs.isEmpty()) {
-            synchronized (jobs) {
-                TimerService clock = workingMemory.getTimerService();
-                while ( !jobs.isEmpty() ) {
-                    JobHandle job = jobs.removeFirst();
-                    clock.removeJob(job);
-                }
+    public void removeExpireBucket(ExpirationBuckets.ExpireBucket bucket) {
+        if (expireBuckets != null) {
+            expireBuckets.remove(bucket);
+            if (expireBuckets.isEmpty()) {
+                expireBuckets = null;
             }
         }
     }
+
+    /**
+     * Removes and returns the buckets expiring this event, or null if it isn't in any of them
+     */
+    public List<ExpirationBuckets.ExpireBucket> removeExpireBuckets() {
+        List<ExpirationBuckets.ExpireBucket> buckets = expireBuckets;
+        expireBuckets = null;
+        return buckets;
+    }
 }
@@ -23,8 +23,10 @@ import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.RuleRuntimeEventSupport;
 import org.drools.core.phreak.PropagationEntry;
 import org.drools.core.reteoo.EntryPointNode;
+import org.drools.core.reteoo.ExpirationBuckets;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.runtime.process.InternalProcessRuntime;
+import org.drools.core.runtime.rule.impl.SnapshotQuery;
 import org.drools.core.spi.Activation;
 import org.drools.core.spi.FactHandleFactory;
 import org.drools.core.time.TimerService;
@@ -104,6 +106,11 @@ public interface InternalWorkingMemory
      */
     TimerService getTimerService();
 
+    /**
+     * Returns the buckets grouping the expirations of the events of this session, scheduled on its TimerService
+     */
+    ExpirationBuckets getExpirationBuckets();
+
     InternalKnowledgeRuntime getKnowledgeRuntime();
     
     /**
@@ -190,6 +197,14 @@ public interface InternalWorkingMemory
 
     void closeLiveQuery(InternalFactHandle factHandle);
 
+    void closeSnapshotQuery(SnapshotQuery snapshotQuery);
+
+    /**
+     * Publishes a new snapshot of the results of the snapshot queries opened on this session.
+     * It is invoked by the agenda each time the engine comes to rest.
+     */
+    void publishSnapshotQueries();
+
     void addPropagation(PropagationEntry propagationEntry);
 
     void flushPropagations();
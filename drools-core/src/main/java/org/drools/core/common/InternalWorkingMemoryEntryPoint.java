@@ -26,6 +26,10 @@ import org.drools.core.util.bitmask.BitMask;
 import org.kie.api.runtime.rule.EntryPoint;
 import org.kie.api.runtime.rule.FactHandle;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public interface InternalWorkingMemoryEntryPoint extends EntryPoint {
     ObjectTypeConfigurationRegistry getObjectTypeConfigurationRegistry();
 
@@ -62,4 +66,30 @@ public interface InternalWorkingMemoryEntryPoint extends EntryPoint {
     EntryPointNode getEntryPointNode();
 
     void removeFromObjectStore(InternalFactHandle handle);
+
+    /**
+     * Inserts all the given objects, returning their FactHandles in the same order
+     */
+    default List<FactHandle> insertAll(Collection<?> objects) {
+        List<FactHandle> handles = new ArrayList<FactHandle>( objects.size() );
+        for ( Object object : objects ) {
+            handles.add( insert( object ) );
+        }
+        return handles;
+    }
+
+    /**
+     * Notifies the engine that the objects of all the given FactHandles have been modified
+     */
+    default void updateAll(Collection<? extends FactHandle> handles) {
+        for ( FactHandle handle : handles ) {
+            update( handle, ( (InternalFactHandle) handle ).getObject() );
+        }
+    }
+
+    default void deleteAll(Collection<? extends FactHandle> handles) {
+        for ( FactHandle handle : handles ) {
+            delete( handle );
+        }
+    }
 }
@@ -31,6 +31,7 @@ import java.io.ObjectOutput;
 
 import static org.drools.core.util.index.IndexUtil.compositeAllowed;
 import static org.drools.core.util.index.IndexUtil.isIndexableForNode;
+import static org.drools.core.util.index.IndexUtil.isRangeIndexEnabled;
 
 public abstract class MultipleBetaConstraint implements BetaConstraints {
     protected BetaNodeFieldConstraint[] constraints;
@@ -80,12 +81,12 @@ public abstract class MultipleBetaConstraint implements BetaConstraints {
                 // We also ensure that if there is a mixture that standard restriction is first
                 depth = 1;
             }
-            initIndexes( depth, betaNodeType );
+            initIndexes( depth, betaNodeType, isRangeIndexEnabled( config ) );
         }
     }
 
-    public final void initIndexes(int depth, short betaNodeType) {
-        indexed = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints);
+    public final void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) {
+        indexed = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints, rangeIndexEnabled);
     }
 
     public final boolean isIndexed() {
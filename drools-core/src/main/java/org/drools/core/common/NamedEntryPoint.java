@@ -42,9 +42,15 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -109,7 +115,9 @@ public class NamedEntryPoint
         this.typeConfReg = new ObjectTypeConfigurationRegistry(this.kBase);
         this.handleFactory = this.wm.getFactHandleFactory();
         this.pctxFactory = kBase.getConfiguration().getComponentFactory().getPropagationContextFactory();
-        this.objectStore = new ClassAwareObjectStore(this.kBase.getConfiguration(), this.lock);
+        this.objectStore = this.wm.getSessionConfiguration().isCompactObjectStore() ?
+                           new CompactObjectStore(this.kBase.getConfiguration(), this.lock) :
+                           new ClassAwareObjectStore(this.kBase.getConfiguration(), this.lock);
         this.traitHelper = new TraitHelper( wm, this );
     }
 
@@ -300,6 +308,122 @@ public class NamedEntryPoint
         }
     }
 
+    /**
+     * Inserts all the given objects holding the entry point lock only once. The facts are inserted in the order
+     * of the collection and each run of consecutive objects of the same type takes its ids and recencies from
+     * a single reserved range. The run is then enqueued as a single PropagationEntry, propagated in one pass
+     * through each ObjectTypeNode and its sinks. The facts requiring truth maintenance or property change
+     * listeners are inserted one by one as usual.
+     */
+    public List<FactHandle> insertAll(Collection<?> objects) {
+        List<FactHandle> handles = new ArrayList<FactHandle>( objects.size() );
+        if ( this.wm.isSequential() ) {
+            for ( Object object : objects ) {
+                handles.add( insert( object ) );
+            }
+            return handles;
+        }
+
+        try {
+            this.wm.startOperation();
+            this.lock.lock();
+
+            this.kBase.executeQueuedActions();
+            this.wm.executeQueuedActionsForRete();
+
+            boolean identity = AssertBehaviour.IDENTITY.equals( this.kBase.getConfiguration().getAssertBehaviour() );
+
+            InsertBatch batch = null;
+            for ( Object object : objects ) {
+                if ( object == null ) {
+                    // you cannot assert a null object
+                    handles.add( null );
+                    continue;
+                }
+
+                ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                                              object );
+                if ( typeConf.isTMSEnabled() || typeConf.isDynamic() ) {
+                    // the pending facts are propagated first, so the collection order is preserved
+                    assertBatch( batch, handles );
+                    batch = null;
+                    handles.add( insert( object ) );
+                    continue;
+                }
+
+                // check if the object already exists in the WM, the ones of the previous runs included
+                InternalFactHandle handle = this.objectStore.getHandleForObject( object );
+                if ( handle != null ) {
+                    handles.add( handle );
+                    continue;
+                }
+
+                if ( batch != null && batch.typeConf != typeConf ) {
+                    assertBatch( batch, handles );
+                    batch = null;
+                }
+                if ( batch == null ) {
+                    batch = new InsertBatch( typeConf, identity );
+                }
+                // the handle is set once the whole run has its range of ids
+                batch.add( object, handles.size() );
+                handles.add( null );
+            }
+            assertBatch( batch, handles );
+
+            this.wm.executeQueuedActionsForRete();
+            this.wm.getAgenda().unstageActivations();
+        } finally {
+            this.lock.unlock();
+            this.wm.endOperation();
+        }
+        return handles;
+    }
+
+    private void assertBatch( InsertBatch batch, List<FactHandle> handles ) {
+        if ( batch == null ) {
+            return;
+        }
+
+        // the run is known to hold only new distinct objects, so it takes exactly as many ids and recencies
+        int size = batch.objects.size();
+        int nextId = this.handleFactory.getAtomicId().getAndAdd( size ) + 1;
+        long nextRecency = this.handleFactory.getAtomicRecency().getAndAdd( size ) + 1;
+
+        InternalFactHandle[] batchHandles = new InternalFactHandle[size];
+        PropagationContext[] contexts = new PropagationContext[size];
+        for (int i = 0; i < size; i++) {
+            Object object = batch.objects.get( i );
+            InternalFactHandle handle = this.handleFactory.newFactHandle( nextId++,
+                                                                          object,
+                                                                          nextRecency++,
+                                                                          batch.typeConf,
+                                                                          this.wm,
+                                                                          this );
+            contexts[i] = this.pctxFactory.createPropagationContext( this.wm.getNextPropagationIdCounter(), PropagationContext.Type.INSERTION,
+                                                                     null, null, handle, entryPoint );
+            this.objectStore.addHandle( handle,
+                                        object );
+            batchHandles[i] = handle;
+        }
+        for ( int[] position : batch.positions ) {
+            handles.set( position[0], batchHandles[position[1]] );
+        }
+
+        this.entryPointNode.assertObjects( batchHandles,
+                                           contexts,
+                                           batch.typeConf,
+                                           this.wm );
+
+        for (int i = 0; i < size; i++) {
+            contexts[i].evaluateActionQueue( this.wm );
+            this.wm.getRuleRuntimeEventSupport().fireObjectInserted( contexts[i],
+                                                                     batchHandles[i],
+                                                                     batchHandles[i].getObject(),
+                                                                     this.wm );
+        }
+    }
+
     public FactHandle insertAsync(Object object) {
         ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint, object );
 
@@ -437,6 +561,75 @@ public class NamedEntryPoint
         return handle;
     }
 
+    /**
+     * Notifies the engine that the objects of all the given FactHandles have been modified, holding the entry point
+     * lock only once. The facts are updated in the order of the collection and each run of consecutive facts
+     * of the same type is enqueued as a single PropagationEntry. As a modify walks the tuples of its own fact,
+     * each fact is still propagated as by a single update.
+     */
+    public void updateAll(Collection<? extends FactHandle> factHandles) {
+        try {
+            this.lock.lock();
+            this.wm.startOperation();
+            this.kBase.executeQueuedActions();
+
+            boolean identity = AssertBehaviour.IDENTITY.equals( this.kBase.getConfiguration().getAssertBehaviour() );
+            BitMask mask = allSetButTraitBitMask();
+
+            FactHandleBatch batch = null;
+            for ( FactHandle factHandle : factHandles ) {
+                InternalFactHandle handle = (InternalFactHandle) factHandle;
+
+                // the handle might have been disconnected, so reconnect if it has
+                if ( handle.isDisconnected() ) {
+                    handle = this.objectStore.reconnect( handle );
+                }
+
+                if ( handle.getEntryPoint() != this ) {
+                    throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
+                }
+
+                final Object object = handle.getObject();
+                if ( handle.getId() == -1 || object == null || handle.isExpired() ) {
+                    // the handle is invalid, most likely already retracted
+                    continue;
+                }
+
+                final ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                                                    object );
+                if ( typeConf.isTMSEnabled() || handle.isTraitable() ) {
+                    modifyBatch( batch );
+                    batch = null;
+                    update( handle, object, mask, Object.class, null );
+                    continue;
+                }
+
+                if ( !identity ) {
+                    this.objectStore.updateHandle( handle, object );
+                }
+                this.handleFactory.increaseFactHandleRecency( handle );
+
+                PropagationContext pctx = pctxFactory.createPropagationContext( this.wm.getNextPropagationIdCounter(), PropagationContext.Type.MODIFICATION,
+                                                                                null, null, handle, entryPoint, mask, Object.class, null );
+                if ( batch != null && batch.typeConf != typeConf ) {
+                    modifyBatch( batch );
+                    batch = null;
+                }
+                if ( batch == null ) {
+                    batch = new FactHandleBatch( typeConf );
+                }
+                batch.add( handle, pctx );
+            }
+            modifyBatch( batch );
+
+            this.wm.executeQueuedActionsForRete();
+            this.wm.getAgenda().unstageActivations();
+        } finally {
+            this.wm.endOperation();
+            this.lock.unlock();
+        }
+    }
+
     public void update(InternalFactHandle handle, Object object, Object originalObject, ObjectTypeConf typeConf, RuleImpl rule, PropagationContext propagationContext) {
         this.entryPointNode.modifyObject( handle,
                                           propagationContext,
@@ -519,6 +712,68 @@ public class NamedEntryPoint
         }
     }
 
+    /**
+     * Deletes all the given FactHandles, holding the entry point lock only once. The facts are deleted in the order
+     * of the collection and each run of consecutive facts of the same type is enqueued as a single PropagationEntry.
+     * As a retract walks the tuples of its own fact, each fact is still propagated as by a single delete.
+     */
+    public void deleteAll(Collection<? extends FactHandle> factHandles) {
+        try {
+            this.lock.lock();
+            this.wm.startOperation();
+            this.kBase.executeQueuedActions();
+
+            FactHandleBatch batch = null;
+            Set<InternalFactHandle> deleted = Collections.newSetFromMap( new IdentityHashMap<InternalFactHandle, Boolean>() );
+            for ( FactHandle factHandle : factHandles ) {
+                if ( factHandle == null ) {
+                    throw new IllegalArgumentException( "FactHandle cannot be null " );
+                }
+
+                InternalFactHandle handle = (InternalFactHandle) factHandle;
+                if ( handle.getId() == -1 || !handle.isValid() || !deleted.add( handle ) ) {
+                    // can't retract an already retracted handle
+                    continue;
+                }
+
+                // the handle might have been disconnected, so reconnect if it has
+                if ( handle.isDisconnected() ) {
+                    handle = this.objectStore.reconnect( handle );
+                }
+
+                if ( handle.getEntryPoint() != this ) {
+                    throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
+                }
+
+                final ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint, handle.getObject() );
+                if ( typeConf.isTMSEnabled() || typeConf.isSupportsPropertyChangeListeners() || handle.isTraitable() || handle.isTraiting() ) {
+                    retractBatch( batch );
+                    batch = null;
+                    delete( handle );
+                    continue;
+                }
+
+                PropagationContext pctx = pctxFactory.createPropagationContext( this.wm.getNextPropagationIdCounter(), PropagationContext.Type.DELETION,
+                                                                                null, null, handle, this.entryPoint );
+                if ( batch != null && batch.typeConf != typeConf ) {
+                    retractBatch( batch );
+                    batch = null;
+                }
+                if ( batch == null ) {
+                    batch = new FactHandleBatch( typeConf );
+                }
+                batch.add( handle, pctx );
+            }
+            retractBatch( batch );
+
+            this.wm.executeQueuedActionsForRete();
+            this.wm.getAgenda().unstageActivations();
+        } finally {
+            this.wm.endOperation();
+            this.lock.unlock();
+        }
+    }
+
     private void deleteStated( RuleImpl rule, Activation activation, InternalFactHandle handle, EqualityKey key ) {
         if ( key != null && key.getStatus() == EqualityKey.JUSTIFIED ) {
             return;
@@ -819,4 +1074,98 @@ public class NamedEntryPoint
     public String toString() {
         return entryPoint.toString();
     }
+
+    private void modifyBatch( FactHandleBatch batch ) {
+        if ( batch == null ) {
+            return;
+        }
+        this.entryPointNode.modifyObjects( batch.getHandles(),
+                                           batch.getContexts(),
+                                           batch.typeConf,
+                                           this.wm );
+
+        for (int i = 0; i < batch.size(); i++) {
+            InternalFactHandle handle = batch.handles.get( i );
+            batch.contexts.get( i ).evaluateActionQueue( this.wm );
+            this.wm.getRuleRuntimeEventSupport().fireObjectUpdated( batch.contexts.get( i ),
+                                                                    handle,
+                                                                    handle.getObject(),
+                                                                    handle.getObject(),
+                                                                    this.wm );
+        }
+    }
+
+    private void retractBatch( FactHandleBatch batch ) {
+        if ( batch == null ) {
+            return;
+        }
+        this.entryPointNode.retractObjects( batch.getHandles(),
+                                            batch.getContexts(),
+                                            batch.typeConf,
+                                            this.wm );
+        for ( InternalFactHandle handle : batch.handles ) {
+            this.objectStore.removeHandle( handle );
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            InternalFactHandle handle = batch.handles.get( i );
+            batch.contexts.get( i ).evaluateActionQueue( this.wm );
+            this.wm.getRuleRuntimeEventSupport().fireObjectRetracted( batch.contexts.get( i ),
+                                                                      handle,
+                                                                      handle.getObject(),
+                                                                      this.wm );
+            this.handleFactory.destroyFactHandle( handle );
+        }
+    }
+
+    private static class InsertBatch {
+        private final ObjectTypeConf typeConf;
+        private final List<Object> objects = new ArrayList<Object>();
+        // the new objects of this run, by identity or equality as the object store finds them
+        private final Map<Object, Integer> indexes;
+        // the pairs of position in the returned list and index among the objects of this run
+        private final List<int[]> positions = new ArrayList<int[]>();
+
+        private InsertBatch( ObjectTypeConf typeConf, boolean identity ) {
+            this.typeConf = typeConf;
+            this.indexes = identity ? new IdentityHashMap<Object, Integer>() : new HashMap<Object, Integer>();
+        }
+
+        private void add( Object object, int position ) {
+            Integer index = indexes.get( object );
+            if ( index == null ) {
+                index = objects.size();
+                indexes.put( object, index );
+                objects.add( object );
+            }
+            positions.add( new int[] { position, index } );
+        }
+    }
+
+    private static class FactHandleBatch {
+        private final ObjectTypeConf typeConf;
+        private final List<InternalFactHandle> handles = new ArrayList<InternalFactHandle>();
+        private final List<PropagationContext> contexts = new ArrayList<PropagationContext>();
+
+        private FactHandleBatch( ObjectTypeConf typeConf ) {
+            this.typeConf = typeConf;
+        }
+
+        private void add( InternalFactHandle handle, PropagationContext pctx ) {
+            handles.add( handle );
+            contexts.add( pctx );
+        }
+
+        private int size() {
+            return handles.size();
+        }
+
+        private InternalFactHandle[] getHandles() {
+            return handles.toArray( new InternalFactHandle[handles.size()] );
+        }
+
+        private PropagationContext[] getContexts() {
+            return contexts.toArray( new PropagationContext[contexts.size()] );
+        }
+    }
 }
@@ -52,6 +52,11 @@ public interface ObjectStore {
      */
     Iterator<Object> iterateObjects(ObjectFilter filter);
 
+    /**
+     * This class is not thread safe, changes to the working memory during iteration may give unexpected results
+     */
+    Iterator<Object> iterateObjects(Class<?> clazz);
+
     /**
      * This class is not thread safe, changes to the working memory during iteration may give unexpected results
      */
@@ -62,6 +67,11 @@ public interface ObjectStore {
      */
     Iterator<InternalFactHandle> iterateFactHandles(ObjectFilter filter);
 
+    /**
+     * This class is not thread safe, changes to the working memory during iteration may give unexpected results
+     */
+    Iterator<InternalFactHandle> iterateFactHandles(Class<?> clazz);
+
     Iterator<Object> iterateNegObjects(ObjectFilter filter);
 
     Iterator<InternalFactHandle> iterateNegFactHandles(ObjectFilter filter);
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.common;
+
+import org.drools.core.impl.PartitionedKieSession;
+import org.kie.api.runtime.ObjectFilter;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An entry point of a {@link PartitionedKieSession}, inserting each fact in the same entry point of the partition
+ * chosen by its partition key, or of all of them when the fact doesn't have one. The handle of a fact inserted
+ * in all the partitions is the one of the first partition, and it is used to update or delete all its copies.
+ * The facts inserted by the consequences of the rules don't go through this entry point, so they aren't routed.
+ */
+public class PartitionedEntryPoint implements EntryPoint {
+
+    private final PartitionedKieSession session;
+
+    private final String entryPointId;
+
+    // the handles are compared by identity, since the ids of the handles of different partitions overlap
+    private final Map<FactHandle, FactHandle[]> broadcastHandles = Collections.synchronizedMap( new IdentityHashMap<FactHandle, FactHandle[]>() );
+
+    public PartitionedEntryPoint(PartitionedKieSession session, String entryPointId) {
+        this.session = session;
+        this.entryPointId = entryPointId;
+    }
+
+    public String getEntryPointId() {
+        return entryPointId;
+    }
+
+    public EntryPoint getPartitionEntryPoint(int partitionNr) {
+        return session.getPartition( partitionNr ).getEntryPoint( entryPointId );
+    }
+
+    public FactHandle insert(Object object) {
+        int partitionNr = session.getPartitionFor( object );
+        if ( partitionNr >= 0 ) {
+            return getPartitionEntryPoint( partitionNr ).insert( object );
+        }
+        FactHandle[] handles = new FactHandle[session.getPartitionsNr()];
+        for ( int i = 0; i < handles.length; i++ ) {
+            handles[i] = getPartitionEntryPoint( i ).insert( object );
+        }
+        broadcastHandles.put( handles[0], handles );
+        return handles[0];
+    }
+
+    public void retract(FactHandle handle) {
+        delete( handle );
+    }
+
+    public void delete(FactHandle handle) {
+        FactHandle[] handles = broadcastHandles.remove( handle );
+        if ( handles == null ) {
+            getOwner( handle ).delete( handle );
+            return;
+        }
+        for ( int i = 0; i < handles.length; i++ ) {
+            getPartitionEntryPoint( i ).delete( handles[i] );
+        }
+    }
+
+    public void delete(FactHandle handle, FactHandle.State fhState) {
+        FactHandle[] handles = broadcastHandles.remove( handle );
+        if ( handles == null ) {
+            getOwner( handle ).delete( handle, fhState );
+            return;
+        }
+        for ( int i = 0; i < handles.length; i++ ) {
+            getPartitionEntryPoint( i ).delete( handles[i], fhState );
+        }
+    }
+
+    public void update(FactHandle handle, Object object) {
+        FactHandle[] handles = broadcastHandles.get( handle );
+        if ( handles == null ) {
+            checkPartition( handle, object );
+            getOwner( handle ).update( handle, object );
+            return;
+        }
+        for ( int i = 0; i < handles.length; i++ ) {
+            getPartitionEntryPoint( i ).update( handles[i], object );
+        }
+    }
+
+    public void update(FactHandle handle, Object object, String... modifiedProperties) {
+        FactHandle[] handles = broadcastHandles.get( handle );
+        if ( handles == null ) {
+            checkPartition( handle, object );
+            getOwner( handle ).update( handle, object, modifiedProperties );
+            return;
+        }
+        for ( int i = 0; i < handles.length; i++ ) {
+            getPartitionEntryPoint( i ).update( handles[i], object, modifiedProperties );
+        }
+    }
+
+    public FactHandle getFactHandle(Object object) {
+        int partitionNr = session.getPartitionFor( object );
+        return getPartitionEntryPoint( partitionNr >= 0 ? partitionNr : 0 ).getFactHandle( object );
+    }
+
+    public Object getObject(FactHandle handle) {
+        return getOwner( handle ).getObject( handle );
+    }
+
+    public Collection<? extends Object> getObjects() {
+        return getObjects( null );
+    }
+
+    public Collection<? extends Object> getObjects(ObjectFilter filter) {
+        List<Object> objects = new ArrayList<Object>();
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            EntryPoint entryPoint = getPartitionEntryPoint( i );
+            for ( Object object : filter == null ? entryPoint.getObjects() : entryPoint.getObjects( filter ) ) {
+                // the facts inserted in all the partitions are returned only once
+                if ( i == 0 || session.getPartitionFor( object ) >= 0 ) {
+                    objects.add( object );
+                }
+            }
+        }
+        return objects;
+    }
+
+    public <T extends FactHandle> Collection<T> getFactHandles() {
+        return getFactHandles( null );
+    }
+
+    public <T extends FactHandle> Collection<T> getFactHandles(ObjectFilter filter) {
+        List<T> handles = new ArrayList<T>();
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            EntryPoint entryPoint = getPartitionEntryPoint( i );
+            Collection<T> partitionHandles = filter == null ? entryPoint.<T>getFactHandles() : entryPoint.<T>getFactHandles( filter );
+            for ( T handle : partitionHandles ) {
+                if ( i == 0 || session.getPartitionFor( ( (InternalFactHandle) handle ).getObject() ) >= 0 ) {
+                    handles.add( handle );
+                }
+            }
+        }
+        return handles;
+    }
+
+    public long getFactCount() {
+        long count = 0;
+        for ( int i = 0; i < session.getPartitionsNr(); i++ ) {
+            count += getPartitionEntryPoint( i ).getFactCount();
+        }
+        return count - (long) broadcastHandles.size() * ( session.getPartitionsNr() - 1 );
+    }
+
+    private EntryPoint getOwner(FactHandle handle) {
+        return ( (InternalFactHandle) handle ).getEntryPoint();
+    }
+
+    private void checkPartition(FactHandle handle, Object object) {
+        InternalWorkingMemory owner = ( (InternalFactHandle) handle ).getEntryPoint().getInternalWorkingMemory();
+        if ( session.getPartitionNr( owner ) != session.getPartitionFor( object ) ) {
+            throw new UnsupportedOperationException( "The partition key of " + object + " can't be changed while it is in the session" );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedEntryPoint[" + entryPointId + " over " + session.getPartitionsNr() + " partitions]";
+    }
+}
@@ -22,16 +22,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.drools.core.util.ClassUtils.convertClassToResourcePath;
+import static org.drools.core.util.ClassUtils.convertResourceToClassName;
 
 public class ProjectClassLoader extends ClassLoader {
 
@@ -44,6 +50,8 @@ public class ProjectClassLoader extends ClassLoader {
 
     private Map<String, byte[]> store;
 
+    private volatile List<Map<String, byte[]>> lazyStores;
+
     private Map<String, ClassBytecode> definedTypes;
 
     private final Set<String> nonExistingClasses = new HashSet<String>();
@@ -194,7 +202,7 @@ public class ProjectClassLoader extends ClassLoader {
             definedTypes = new HashMap<String, ClassBytecode>();
         } else {
             ClassBytecode existingClass = definedTypes.get(name);
-            if (existingClass != null && Arrays.equals(bytecode, existingClass.bytes)) {
+            if (existingClass != null && existingClass.isDefinedBy(bytecode)) {
                 return existingClass.clazz;
             }
         }
@@ -318,7 +326,42 @@ public class ProjectClassLoader extends ClassLoader {
     }
 
     public byte[] getBytecode(String resourceName) {
-        return store == null ? null : store.get(resourceName);
+        byte[] bytecode = store == null ? null : store.get(resourceName);
+        List<Map<String, byte[]>> currentLazyStores = lazyStores;
+        if (bytecode == null && currentLazyStores != null) {
+            for (int i = currentLazyStores.size()-1; bytecode == null && i >= 0; i--) {
+                bytecode = currentLazyStores.get(i).get(resourceName);
+            }
+        }
+        return bytecode;
+    }
+
+    /**
+     * Sets the stores of classes whose bytecode is retrieved only when one of them has to be defined, e.g. because it is
+     * read from a memory mapped jar, so it doesn't have to be kept on the heap for the whole life of this class loader.
+     * They replace the lazy stores previously set, e.g. the ones of the KieModule from which a KieContainer has been
+     * updated. The classes stored with storeClass take precedence over the ones of the lazy stores, and among them
+     * the last one of the list wins. The new list is published in a single assignment, so a class being loaded
+     * concurrently sees either the old lazy stores or the new ones.
+     */
+    public void setLazyStores(List<Map<String, byte[]>> lazyStores) {
+        publishLazyStores(new ArrayList<Map<String, byte[]>>(lazyStores));
+    }
+
+    private void publishLazyStores(List<Map<String, byte[]>> newLazyStores) {
+        this.lazyStores = newLazyStores;
+        if (CACHE_NON_EXISTING_CLASSES) {
+            for (Map<String, byte[]> lazyStore : newLazyStores) {
+                for (String resourceName : lazyStore.keySet()) {
+                    nonExistingClasses.remove(convertResourceToClassName(resourceName));
+                }
+            }
+        }
+    }
+
+    public List<Map<String, byte[]>> getLazyStores() {
+        List<Map<String, byte[]>> currentLazyStores = lazyStores;
+        return currentLazyStores == null ? Collections.<Map<String, byte[]>>emptyList() : Collections.unmodifiableList(currentLazyStores);
     }
 
     public Map<String, byte[]> getStore() {
@@ -342,6 +385,12 @@ public class ProjectClassLoader extends ClassLoader {
             store.putAll(other.store);
         }
         nonExistingClasses.addAll(other.nonExistingClasses);
+        List<Map<String, byte[]>> otherLazyStores = other.lazyStores;
+        if (otherLazyStores != null) {
+            List<Map<String, byte[]>> newLazyStores = new ArrayList<Map<String, byte[]>>(getLazyStores());
+            newLazyStores.addAll(otherLazyStores);
+            publishLazyStores(newLazyStores);
+        }
     }
 
     private InternalTypesClassLoader makeClassLoader() {
@@ -416,13 +465,30 @@ public class ProjectClassLoader extends ClassLoader {
         loadedClasses.clear();
     }
 
+    /**
+     * A defined class with the digest of its bytecode, used to find out if it is defined again with the same bytecode.
+     * The bytecode itself isn't kept, since it may have been read from a lazy store only to define the class.
+     */
     private static class ClassBytecode {
         private final Class<?> clazz;
-        private final byte[] bytes;
+        private final byte[] digest;
 
         private ClassBytecode(Class<?> clazz, byte[] bytes) {
             this.clazz = clazz;
-            this.bytes = bytes;
+            this.digest = digest(bytes);
+        }
+
+        private boolean isDefinedBy(byte[] bytes) {
+            return Arrays.equals(digest, digest(bytes));
+        }
+
+        private static byte[] digest(byte[] bytes) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(bytes);
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform supports SHA-256
+                throw new IllegalStateException(e);
+            }
         }
     }
 }
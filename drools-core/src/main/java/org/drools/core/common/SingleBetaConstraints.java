@@ -77,12 +77,12 @@ public class SingleBetaConstraints
         if ((disableIndex) || (!config.isIndexLeftBetaMemory() && !config.isIndexRightBetaMemory())) {
             this.indexed = false;
         } else {
-            initIndexes(config.getCompositeKeyDepth(), betaNodeType);
+            initIndexes(config.getCompositeKeyDepth(), betaNodeType, IndexUtil.isRangeIndexEnabled(config));
         }
     }
 
-    public void initIndexes(int depth, short betaNodeType) {
-        indexed = depth >= 1 && IndexUtil.isIndexableForNode(betaNodeType, constraint);
+    public void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) {
+        indexed = depth >= 1 && IndexUtil.isIndexableForNode(betaNodeType, constraint, rangeIndexEnabled);
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
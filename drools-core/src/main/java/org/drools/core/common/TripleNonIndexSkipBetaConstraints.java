@@ -67,8 +67,8 @@ public class TripleNonIndexSkipBetaConstraints
         constraints.init(context, betaNodeType);
     }
 
-    public void initIndexes(int depth, short betaNodeType) {
-        constraints.initIndexes(depth, betaNodeType);
+    public void initIndexes(int depth, short betaNodeType, boolean rangeIndexEnabled) {
+        constraints.initIndexes(depth, betaNodeType, rangeIndexEnabled);
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
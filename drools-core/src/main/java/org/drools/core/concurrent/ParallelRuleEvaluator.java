@@ -22,37 +22,56 @@ import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.spi.Activation;
 import org.drools.core.spi.KnowledgeHelper;
+import org.kie.api.concurrent.KieExecutors;
 import org.kie.api.runtime.rule.AgendaFilter;
-import org.kie.internal.concurrent.ExecutorProviderFactory;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Evaluates the rules of an agenda group in parallel on a work-stealing pool.
+ * The RuleAgendaItems are grouped by the partition of their terminal node and the items of a given
+ * partition are always evaluated in sequence, because they may share segment memories. Each partition
+ * is a task of a ForkJoinPool though, so any idle worker can steal the evaluation of a pending partition
+ * instead of having a fixed thread per partition slot.
+ */
 public class ParallelRuleEvaluator extends AbstractRuleEvaluator implements RuleEvaluator {
 
-    private static final RuleAgendaItem POISON_PILL = new RuleAgendaItem();
+    public static final String POOL_SIZE_PROPERTY = "drools.parallelEvaluatorPoolSize";
+
+    private static class PoolHolder {
+        private static final ForkJoinPool pool = newPool( Integer.getInteger( POOL_SIZE_PROPERTY, KieExecutors.Pool.SIZE ) );
+    }
 
-    private final int evaluatorsNr = RuleBasePartitionId.PARALLEL_PARTITIONS_NUMBER;
+    private final ForkJoinPool pool;
 
-    private RuleEvaluatorCallable[] evaluators = new RuleEvaluatorCallable[evaluatorsNr];
-    private Future<Integer>[] results = new Future[evaluatorsNr];
+    private final Map<RuleBasePartitionId, PartitionQueue> queues = new ConcurrentHashMap<RuleBasePartitionId, PartitionQueue>();
 
     private AgendaFilter filter;
     private int fireCount;
     private int fireLimit;
 
     public ParallelRuleEvaluator( DefaultAgenda agenda ) {
+        this( agenda, PoolHolder.pool );
+    }
+
+    public ParallelRuleEvaluator( DefaultAgenda agenda, ForkJoinPool pool ) {
         super(agenda);
-        for (int i = 0; i < evaluatorsNr; i++) {
-            evaluators[i] = new RuleEvaluatorCallable();
-        }
+        this.pool = pool;
     }
 
-    private static class Completion {
-        private static final CompletionService<Integer> service = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+    public static ForkJoinPool newPool( int size ) {
+        return new ForkJoinPool( size, EvaluatorThreadFactory.INSTANCE, null, false );
     }
 
     @Override
@@ -64,33 +83,33 @@ public class ParallelRuleEvaluator extends AbstractRuleEvaluator implements Rule
         this.fireCount = fireCount;
         this.fireLimit = fireLimit;
 
-        Activation[] activations = group.getActivations();
-        for ( Activation activation : activations ) {
+        List<PartitionQueue> pending = new ArrayList<PartitionQueue>();
+        for ( Activation activation : group.getActivations() ) {
             RuleAgendaItem item = (RuleAgendaItem) activation;
-            int index = item.getPartition().getParallelEvaluationSlot();
-            RuleEvaluatorCallable evaluator = evaluators[index];
-            evaluator.enqueue( item );
-            if ( !evaluator.running ) {
-                evaluator.running = true;
-                results[index] = Completion.service.submit( evaluator );
+            PartitionQueue queue = getPartitionQueue( item.getPartition() );
+            if ( queue.isEmpty() ) {
+                pending.add( queue );
             }
+            queue.enqueue( item );
         }
 
-        int localFireCount = 0;
-        for (int i = 0; i < evaluatorsNr; i++) {
-            if (results[i] != null) {
-                try {
-                    evaluators[i].enqueue( POISON_PILL );
-                    localFireCount += results[i].get();
-                } catch (Exception e) {
-                    throw new RuntimeException( e );
-                } finally {
-                    results[i] = null;
-                }
+        try {
+            switch ( pending.size() ) {
+                case 0:
+                    return 0;
+                case 1:
+                    // nothing to share with other workers, so avoid the hand off to the pool
+                    return pending.get( 0 ).evaluate();
+                default:
+                    return pool.invoke( new PartitionsEvaluation( pending ) );
+            }
+        } finally {
+            // if an evaluation failed the remaining items must not leak into the next one,
+            // and since all the forked evaluations have been joined no worker is still polling these queues
+            for ( PartitionQueue queue : pending ) {
+                queue.clear();
             }
         }
-
-        return localFireCount;
     }
 
     @Override
@@ -98,33 +117,149 @@ public class ParallelRuleEvaluator extends AbstractRuleEvaluator implements Rule
         throw new UnsupportedOperationException();
     }
 
-    public class RuleEvaluatorCallable implements Callable<Integer> {
-        private final BlockingQueue<RuleAgendaItem> queue = new LinkedBlockingQueue<>();
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the number of RuleAgendaItems of the given partition still waiting to be evaluated
+     */
+    public int getQueueDepth( RuleBasePartitionId partition ) {
+        PartitionQueue queue = queues.get( partition );
+        return queue != null ? queue.depth.get() : 0;
+    }
+
+    /**
+     * Returns the highest number of RuleAgendaItems ever enqueued at the same time for the given partition
+     */
+    public int getMaxQueueDepth( RuleBasePartitionId partition ) {
+        PartitionQueue queue = queues.get( partition );
+        return queue != null ? queue.maxDepth : 0;
+    }
+
+    /**
+     * Returns the number of RuleAgendaItems of the given partition evaluated so far
+     */
+    public long getEvaluatedItemsCount( RuleBasePartitionId partition ) {
+        PartitionQueue queue = queues.get( partition );
+        return queue != null ? queue.evaluated.get() : 0L;
+    }
+
+    public Map<RuleBasePartitionId, Integer> getQueueDepths() {
+        Map<RuleBasePartitionId, Integer> depths = new HashMap<RuleBasePartitionId, Integer>();
+        for ( Map.Entry<RuleBasePartitionId, PartitionQueue> entry : queues.entrySet() ) {
+            depths.put( entry.getKey(), entry.getValue().depth.get() );
+        }
+        return depths;
+    }
+
+    private PartitionQueue getPartitionQueue( RuleBasePartitionId partition ) {
+        PartitionQueue queue = queues.get( partition );
+        if ( queue == null ) {
+            queue = new PartitionQueue();
+            queues.put( partition, queue );
+        }
+        return queue;
+    }
+
+    private class PartitionQueue {
+        // only accessed by the thread evaluating the partition, the fork of the task is a sufficient memory barrier
+        private final Queue<RuleAgendaItem> items = new ArrayDeque<RuleAgendaItem>();
+
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicLong evaluated = new AtomicLong();
+        private volatile int maxDepth;
+
+        private KnowledgeHelper knowledgeHelper;
+
+        private boolean isEmpty() {
+            return items.isEmpty();
+        }
+
+        private void enqueue( RuleAgendaItem item ) {
+            items.offer( item );
+            int newDepth = depth.incrementAndGet();
+            if ( newDepth > maxDepth ) {
+                maxDepth = newDepth;
+            }
+        }
+
+        private int evaluate() {
+            if ( knowledgeHelper == null ) {
+                knowledgeHelper = newKnowledgeHelper();
+            }
+            int count = 0;
+            for ( RuleAgendaItem item = items.poll(); item != null; item = items.poll() ) {
+                depth.decrementAndGet();
+                count += internalEvaluateAndFire( knowledgeHelper, filter, fireCount, fireLimit, item );
+                evaluated.incrementAndGet();
+            }
+            return count;
+        }
+
+        private void clear() {
+            items.clear();
+            depth.set( 0 );
+        }
+    }
+
+    private static class PartitionTask extends RecursiveTask<Integer> {
+        private final PartitionQueue queue;
 
-        private final KnowledgeHelper knowledgeHelper = newKnowledgeHelper();
+        private PartitionTask( PartitionQueue queue ) {
+            this.queue = queue;
+        }
 
-        private boolean running = false;
+        @Override
+        protected Integer compute() {
+            return queue.evaluate();
+        }
+    }
+
+    private static class PartitionsEvaluation extends RecursiveTask<Integer> {
+        private final List<PartitionQueue> pending;
+
+        private PartitionsEvaluation( List<PartitionQueue> pending ) {
+            this.pending = pending;
+        }
 
         @Override
-        public Integer call() {
+        protected Integer compute() {
+            PartitionTask[] tasks = new PartitionTask[pending.size()];
+            for (int i = 1; i < tasks.length; i++) {
+                tasks[i] = new PartitionTask( pending.get( i ) );
+                tasks[i].fork();
+            }
+
             int count = 0;
-            while (true) {
-                try {
-                    RuleAgendaItem item = queue.take();
-                    if (item == POISON_PILL) {
-                        break;
-                    }
-                    count += internalEvaluateAndFire( knowledgeHelper, filter, fireCount, fireLimit, item );
-                } catch (InterruptedException e) {
-                    throw new RuntimeException( e );
+            try {
+                count = pending.get( 0 ).evaluate();
+            } finally {
+                // every fork has to be completed, even when an evaluation failed, before the caller clears the queues
+                // join in reverse order, so this worker first gets back the tasks that nobody has stolen yet
+                for (int i = tasks.length - 1; i > 0; i--) {
+                    tasks[i].quietlyJoin();
                 }
             }
-            running = false;
+            for (int i = 1; i < tasks.length; i++) {
+                // rethrows the failure of a fork, if any
+                count += tasks[i].join();
+            }
             return count;
         }
+    }
 
-        private void enqueue(RuleAgendaItem item) {
-            queue.offer( item );
+    private static class EvaluatorThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private static final EvaluatorThreadFactory INSTANCE = new EvaluatorThreadFactory();
+
+        private static final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread( ForkJoinPool pool ) {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+            t.setName( "drools-evaluator-" + threadCount.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
         }
     }
 }
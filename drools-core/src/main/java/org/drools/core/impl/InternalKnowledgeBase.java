@@ -23,6 +23,7 @@ import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.definitions.InternalKnowledgePackage;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.factmodel.traits.TraitRegistry;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.reteoo.*;
 import org.drools.core.rule.InvalidPatternException;
 import org.drools.core.rule.TypeDeclaration;
@@ -98,6 +99,28 @@ public interface InternalKnowledgeBase extends KnowledgeBase {
 
     StatefulKnowledgeSessionImpl getCachedSession(SessionConfiguration config, Environment environment);
 
+    /**
+     * Returns the profiler of the nodes of this kbase or null if the node profiling is not enabled
+     */
+    NodeProfiler getNodeProfiler();
+
+    /**
+     * Returns the number of times the kbase has been modified, so who caches state depending on the
+     * structure of the network can detect that it has changed
+     */
+    int getModificationsCount();
+
+    /**
+     * Returns the number of pages of node memories that the new sessions should allocate in advance,
+     * according to the ones actually used by the sessions created so far
+     */
+    int getNodeMemoriesSizeHint();
+
+    /**
+     * Notifies that a session of this kbase grew its node memories to the given number of pages
+     */
+    void updateNodeMemoriesSizeHint(int size);
+
     TripleStore getTripleStore();
 
     TraitRegistry getTraitRegistry();
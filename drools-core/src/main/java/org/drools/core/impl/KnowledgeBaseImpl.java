@@ -36,6 +36,7 @@ import org.drools.core.event.KieBaseEventSupport;
 import org.drools.core.factmodel.ClassDefinition;
 import org.drools.core.factmodel.traits.TraitRegistry;
 import org.drools.core.management.DroolsManagementAgent;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.reteoo.CompositePartitionAwareObjectSinkAdapter;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.KieComponentFactory;
@@ -48,6 +49,7 @@ import org.drools.core.reteoo.ReteooBuilder;
 import org.drools.core.reteoo.SegmentMemory;
 import org.drools.core.reteoo.builder.BuildContext;
 import org.drools.core.reteoo.builder.NodeFactory;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompilerFactory;
 import org.drools.core.rule.DialectRuntimeRegistry;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.rule.Function;
@@ -176,6 +178,12 @@ public class KnowledgeBaseImpl
 
     private transient SessionsCache sessionsCache;
 
+    private transient NodeProfiler nodeProfiler;
+
+    private transient volatile int modificationsCount;
+
+    private transient volatile int nodeMemoriesSizeHint;
+
     private transient Queue<Runnable> kbaseModificationsQueue = new ConcurrentLinkedQueue<Runnable>();
 
 
@@ -224,6 +232,26 @@ public class KnowledgeBaseImpl
                 logger.warn("Session cache can be enabled only in PHREAK mode");
             }
         }
+
+        if ( this.config.getStatelessSessionPoolSize() > 0 && ( !this.config.isPhreakEnabled() || this.config.isSequential() ) ) {
+            logger.warn("Stateless session pool can be enabled only in PHREAK and not sequential mode");
+        }
+
+        initNodeProfiler();
+    }
+
+    private void initNodeProfiler() {
+        if ( this.config.isNodeProfiling() ) {
+            if ( this.config.isPhreakEnabled() ) {
+                nodeProfiler = new NodeProfiler();
+            } else {
+                logger.warn("Node profiling can be enabled only in PHREAK mode");
+            }
+        }
+    }
+
+    public NodeProfiler getNodeProfiler() {
+        return nodeProfiler;
     }
 
     @Override
@@ -454,6 +482,7 @@ public class KnowledgeBaseImpl
         this.config = (RuleBaseConfiguration) droolsStream.readObject();
         this.config.setClassLoader(droolsStream.getParentClassLoader());
         kieComponentFactory = getConfiguration().getComponentFactory();
+        initNodeProfiler();
 
         this.pkgs = (Map<String, InternalKnowledgePackage>) droolsStream.readObject();
 
@@ -625,6 +654,21 @@ public class KnowledgeBaseImpl
         return sessionsCache != null ? sessionsCache.getCachedSession(config) : null;
     }
 
+    public int getModificationsCount() {
+        return modificationsCount;
+    }
+
+    public int getNodeMemoriesSizeHint() {
+        return nodeMemoriesSizeHint;
+    }
+
+    public void updateNodeMemoriesSizeHint(int size) {
+        // it's only a hint, so a lost update between concurrent sessions is harmless
+        if ( size > nodeMemoriesSizeHint ) {
+            nodeMemoriesSizeHint = size;
+        }
+    }
+
     public FactHandleFactory getFactHandleFactory() {
         return this.factHandleFactory;
     }
@@ -683,6 +727,8 @@ public class KnowledgeBaseImpl
     public void unlock() {
         boolean lastUnlock = this.lock.getWriteHoldCount() == 1;
         if (lastUnlock) {
+            // only the thread holding the write lock can get here, so the increment is safe
+            this.modificationsCount++;
             this.eventSupport.fireBeforeRuleBaseUnlocked();
         }
         this.lock.writeLock().unlock();
@@ -755,8 +801,30 @@ public class KnowledgeBaseImpl
     }
 
     private void unlockAndActivate() {
-        activateAllSessions();
-        unlock();
+        try {
+            updateCompiledAlphaNetworks();
+        } finally {
+            activateAllSessions();
+            unlock();
+        }
+    }
+
+    private void updateCompiledAlphaNetworks() {
+        if ( !config.isCompiledAlphaNetwork() || !config.isPhreakEnabled() ) {
+            return;
+        }
+        // the compiled networks are discarded when the kbase changes them, so they have to be compiled again
+        List<ObjectTypeNode> otnsToBeCompiled = new ArrayList<ObjectTypeNode>();
+        for (EntryPointNode entryPointNode : rete.getEntryPointNodes().values()) {
+            for (ObjectTypeNode otn : entryPointNode.getObjectTypeNodes().values()) {
+                if ( otn.getCompiledNetwork() == null && otn.getObjectType() instanceof ClassObjectType && otn.getObjectSinkPropagator().size() > 0 ) {
+                    otnsToBeCompiled.add( otn );
+                }
+            }
+        }
+        if ( !otnsToBeCompiled.isEmpty() && !AlphaNetworkCompilerFactory.compile( this, otnsToBeCompiled ) ) {
+            logger.warn( "Cannot compile the alpha network without drools-compiler: it will be interpreted" );
+        }
     }
 
     private boolean tryDeactivateAllSessions() {
@@ -1149,6 +1217,16 @@ public class KnowledgeBaseImpl
                                                        true,
                                                        false ) );
 
+        if ( existingDecl.getPartitionAttribute() == null ) {
+            existingDecl.setPartitionExtractor( newDecl.getPartitionExtractor() );
+        }
+        existingDecl.setPartitionAttribute( mergeLeft( existingDecl.getTypeName(),
+                                                       "Unable to merge @partitionBy attribute for type declaration of class:",
+                                                       existingDecl.getPartitionAttribute(),
+                                                       newDecl.getPartitionAttribute(),
+                                                       true,
+                                                       false ) );
+
         existingDecl.setTypesafe( mergeLeft(existingDecl.getTypeName(),
                                             "Unable to merge @typesafe attribute for type declaration of class:",
                                             existingDecl.isTypesafe(),
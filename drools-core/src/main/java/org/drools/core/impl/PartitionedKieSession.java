@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.PartitionedEntryPoint;
+import org.drools.core.common.RuleBasePartitionId;
+import org.drools.core.rule.EntryPointId;
+import org.drools.core.rule.TypeDeclaration;
+import org.drools.core.spi.InternalReadAccessor;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+/**
+ * A set of independent sessions created from the same KieBase, whose entry points route each inserted fact
+ * to one of them by the key declared with @partitionBy on its type. Since all the facts with the same key end up
+ * in the same partition, the rules correlating them by their key give the same results of a single session,
+ * while the partitions evaluate them in parallel, each one on its own thread.
+ * <p>
+ * The facts of a type without a partition key, like the reference data joined by the events, are inserted
+ * in all the partitions. For this reason a rule matching only facts without a partition key fires once
+ * in each partition. The partition key of a fact can't change while it is in the session.
+ * <p>
+ * Only the facts inserted through this session and its entry points are routed: the facts inserted by the
+ * consequence of a rule stay in the partition firing it, regardless of their partition key.
+ */
+public class PartitionedKieSession {
+
+    private static final long HALT_RETRY_MILLIS = 10;
+
+    private final InternalKnowledgeBase kBase;
+
+    private final StatefulKnowledgeSessionImpl[] partitions;
+
+    private final Executor[] executors;
+
+    private final ConcurrentMap<String, PartitionedEntryPoint> entryPoints = new ConcurrentHashMap<String, PartitionedEntryPoint>();
+
+    private volatile List<CompletableFuture<?>> firingPartitions;
+
+    public PartitionedKieSession(InternalKnowledgeBase kBase) {
+        this( kBase, RuleBasePartitionId.PARALLEL_PARTITIONS_NUMBER, null, null );
+    }
+
+    public PartitionedKieSession(InternalKnowledgeBase kBase, int partitionsNr, KieSessionConfiguration conf, Environment environment) {
+        if ( partitionsNr < 1 ) {
+            throw new IllegalArgumentException( "A partitioned session needs at least one partition" );
+        }
+        this.kBase = kBase;
+        this.partitions = new StatefulKnowledgeSessionImpl[partitionsNr];
+        this.executors = new Executor[partitionsNr];
+        for ( int i = 0; i < partitionsNr; i++ ) {
+            partitions[i] = (StatefulKnowledgeSessionImpl) kBase.newStatefulKnowledgeSession( conf, environment );
+            executors[i] = ExecutorProviderFactory.getExecutorProvider().newSingleThreadExecutor();
+        }
+    }
+
+    public InternalKnowledgeBase getKieBase() {
+        return kBase;
+    }
+
+    public int getPartitionsNr() {
+        return partitions.length;
+    }
+
+    public StatefulKnowledgeSessionImpl getPartition(int partitionNr) {
+        return partitions[partitionNr];
+    }
+
+    /**
+     * Returns the number of the partition of the session owning the given working memory, or -1 if it isn't one of them
+     */
+    public int getPartitionNr(InternalWorkingMemory workingMemory) {
+        for ( int i = 0; i < partitions.length; i++ ) {
+            if ( partitions[i] == workingMemory ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the partition where the given fact is inserted, or -1 if it doesn't have a partition key
+     * and then it is inserted in all of them
+     */
+    public int getPartitionFor(Object object) {
+        TypeDeclaration type = kBase.getTypeDeclaration( object.getClass() );
+        InternalReadAccessor extractor = type != null ? type.getPartitionExtractor() : null;
+        if ( extractor == null ) {
+            return -1;
+        }
+        Object key = extractor.getValue( null, object );
+        if ( key == null ) {
+            return 0;
+        }
+        int h = key.hashCode();
+        // spreads the higher bits of the hash like HashMap, so close keys don't collide on few partitions
+        h ^= h >>> 16;
+        return ( h & Integer.MAX_VALUE ) % partitions.length;
+    }
+
+    public EntryPoint getEntryPoint(String name) {
+        PartitionedEntryPoint entryPoint = entryPoints.get( name );
+        if ( entryPoint == null ) {
+            if ( partitions[0].getEntryPoint( name ) == null ) {
+                return null;
+            }
+            entryPoint = new PartitionedEntryPoint( this, name );
+            PartitionedEntryPoint existing = entryPoints.putIfAbsent( name, entryPoint );
+            if ( existing != null ) {
+                entryPoint = existing;
+            }
+        }
+        return entryPoint;
+    }
+
+    public FactHandle insert(Object object) {
+        return getEntryPoint( EntryPointId.DEFAULT.getEntryPointId() ).insert( object );
+    }
+
+    public void delete(FactHandle handle) {
+        getEntryPoint( EntryPointId.DEFAULT.getEntryPointId() ).delete( handle );
+    }
+
+    public void update(FactHandle handle, Object object) {
+        getEntryPoint( EntryPointId.DEFAULT.getEntryPointId() ).update( handle, object );
+    }
+
+    public long getFactCount() {
+        return getEntryPoint( EntryPointId.DEFAULT.getEntryPointId() ).getFactCount();
+    }
+
+    public void setGlobal(String identifier, Object value) {
+        for ( StatefulKnowledgeSessionImpl partition : partitions ) {
+            partition.setGlobal( identifier, value );
+        }
+    }
+
+    /**
+     * Fires the activations of all the partitions in parallel and returns the total number of fired rules
+     */
+    public int fireAllRules() {
+        List<CompletableFuture<Integer>> results = new ArrayList<CompletableFuture<Integer>>( partitions.length );
+        for ( int i = 0; i < partitions.length; i++ ) {
+            StatefulKnowledgeSessionImpl partition = partitions[i];
+            results.add( supplyAsync( () -> partition.fireAllRules(), executors[i] ) );
+        }
+        int fired = 0;
+        for ( CompletableFuture<Integer> result : results ) {
+            fired += result.join();
+        }
+        return fired;
+    }
+
+    /**
+     * Keeps firing the activations of each partition on its own thread, until this session is halted
+     */
+    public void fireUntilHalt() {
+        List<CompletableFuture<?>> futures = new ArrayList<CompletableFuture<?>>( partitions.length );
+        for ( int i = 0; i < partitions.length; i++ ) {
+            StatefulKnowledgeSessionImpl partition = partitions[i];
+            futures.add( runAsync( () -> partition.fireUntilHalt(), executors[i] ) );
+        }
+        firingPartitions = futures;
+        try {
+            CompletableFuture.allOf( futures.toArray( new CompletableFuture<?>[futures.size()] ) ).join();
+        } finally {
+            firingPartitions = null;
+        }
+    }
+
+    /**
+     * Halts all the partitions. It has to be called from outside the partitions' threads, because when they are
+     * firing until halt it waits for each of them to stop, since a partition ignores the halt until it starts firing.
+     */
+    public void halt() {
+        List<CompletableFuture<?>> futures = firingPartitions;
+        for ( int i = 0; i < partitions.length; i++ ) {
+            partitions[i].halt();
+            if ( futures != null ) {
+                awaitHalt( partitions[i], futures.get( i ) );
+            }
+        }
+    }
+
+    private static void awaitHalt(StatefulKnowledgeSessionImpl partition, CompletableFuture<?> firing) {
+        while ( true ) {
+            try {
+                firing.get( HALT_RETRY_MILLIS, TimeUnit.MILLISECONDS );
+                return;
+            } catch (TimeoutException e) {
+                // the partition wasn't firing yet when it has been halted
+                partition.halt();
+            } catch (ExecutionException e) {
+                // the failure is thrown by fireUntilHalt
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void dispose() {
+        for ( int i = 0; i < partitions.length; i++ ) {
+            partitions[i].dispose();
+            if ( executors[i] instanceof ExecutorService ) {
+                ( (ExecutorService) executors[i] ).shutdown();
+            }
+        }
+    }
+}
@@ -71,6 +71,7 @@ import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.phreak.SegmentUtilities;
 import org.drools.core.reteoo.ClassObjectTypeConf;
 import org.drools.core.reteoo.EntryPointNode;
+import org.drools.core.reteoo.ExpirationBuckets;
 import org.drools.core.reteoo.InitialFactImpl;
 import org.drools.core.reteoo.LeftInputAdapterNode;
 import org.drools.core.reteoo.LeftTuple;
@@ -84,11 +85,13 @@ import org.drools.core.reteoo.SegmentMemory;
 import org.drools.core.reteoo.TerminalNode;
 import org.drools.core.rule.Declaration;
 import org.drools.core.rule.EntryPointId;
+import org.drools.core.rule.QueryImpl;
 import org.drools.core.runtime.impl.ExecutionResultImpl;
 import org.drools.core.runtime.process.InternalProcessRuntime;
 import org.drools.core.runtime.process.ProcessRuntimeFactory;
 import org.drools.core.runtime.rule.impl.LiveQueryImpl;
 import org.drools.core.runtime.rule.impl.OpenQueryViewChangedEventListenerAdapter;
+import org.drools.core.runtime.rule.impl.SnapshotQuery;
 import org.drools.core.spi.Activation;
 import org.drools.core.spi.AsyncExceptionHandler;
 import org.drools.core.spi.FactHandleFactory;
@@ -152,6 +155,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -220,6 +224,8 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
 
     private TimerService timerService;
 
+    private ExpirationBuckets expirationBuckets;
+
     protected Map<String, WorkingMemoryEntryPoint> entryPoints;
 
     protected InternalFactHandle initialFactHandle;
@@ -245,6 +251,8 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
 
     private boolean alive = true;
 
+    private final List<SnapshotQuery> snapshotQueries = new CopyOnWriteArrayList<SnapshotQuery>();
+
     private AtomicBoolean mbeanRegistered = new AtomicBoolean(false);
     private DroolsManagementAgent.CBSKey mbeanRegisteredCBSKey;
 
@@ -357,6 +365,7 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         this.lock = new ReentrantLock();
 
         timerService = TimerServiceFactory.getTimerService(this.config);
+        expirationBuckets = new ExpirationBuckets(this, this.config.getExpirationBucketSize());
 
         initTransient();
 
@@ -508,6 +517,8 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
             ((org.drools.core.process.instance.WorkItemManager)this.workItemManager).dispose();
         }
 
+        this.snapshotQueries.clear();
+
         this.kBase.disposeStatefulSession( this );
 
         if (this.mbeanRegistered.get()) {
@@ -867,6 +878,34 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         }
     }
 
+    /**
+     * Opens a query whose results can be read by any thread without taking the lock of this session,
+     * from a snapshot published each time the engine comes to rest.
+     * (This shall NOT be exposed on public API)
+     */
+    public SnapshotQuery openSnapshotQuery(final String query) {
+        BaseNode[] tnodes = kBase.getReteooBuilder().getTerminalNodesForQuery( query );
+        if ( tnodes == null ) {
+            throw new RuntimeException( "Query '" + query + "' does not exist" );
+        }
+
+        SnapshotQuery snapshotQuery = new SnapshotQuery( this, (QueryImpl) ( (QueryTerminalNode) tnodes[0] ).getRule() );
+        snapshotQuery.setLiveQuery( openLiveQuery( query, snapshotQuery.getUnboundArguments(), snapshotQuery ) );
+        this.snapshotQueries.add( snapshotQuery );
+        snapshotQuery.publish();
+        return snapshotQuery;
+    }
+
+    public void closeSnapshotQuery(final SnapshotQuery snapshotQuery) {
+        this.snapshotQueries.remove( snapshotQuery );
+    }
+
+    public void publishSnapshotQueries() {
+        for ( SnapshotQuery snapshotQuery : this.snapshotQueries ) {
+            snapshotQuery.publish();
+        }
+    }
+
     protected BaseNode[] evalQuery(final String queryName, final DroolsQuery queryObject, final InternalFactHandle handle, final PropagationContext pCtx, final boolean isCalledFromRHS) {
         ExecuteQuery executeQuery = new ExecuteQuery( queryName, queryObject, handle, pCtx, isCalledFromRHS);
         addPropagation( executeQuery );
@@ -1072,6 +1111,7 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         }
 
         this.agenda.reset();
+        this.snapshotQueries.clear();
 
         this.globalResolver.clear();
         this.kieBaseEventListeners.clear();
@@ -1083,12 +1123,34 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         initTransient();
 
         timerService = TimerServiceFactory.getTimerService(this.config);
+        expirationBuckets = new ExpirationBuckets(this, this.config.getExpirationBucketSize());
 
         this.processRuntime = null;
 
         initInitialFact(kBase, null);
     }
 
+    /**
+     * Brings the session back to the state of a newly created one, like a dispose followed by a reset
+     * does for the sessions kept in the SessionsCache, but without removing the agenda and rule runtime
+     * event listeners and the channels registered on it, so it can be reused by a pooled stateless session.
+     */
+    public void resetForReuse() {
+        for (WorkingMemoryEntryPoint ep : this.entryPoints.values()) {
+            ep.dispose();
+        }
+        for (KieBaseEventListener listener : kieBaseEventListeners) {
+            this.kBase.removeEventListener(listener);
+        }
+        if (processRuntime != null) {
+            this.processRuntime.dispose();
+        }
+        if (timerService != null) {
+            this.timerService.shutdown();
+        }
+        reset();
+    }
+
     public void reset(int handleId,
                       long handleCounter,
                       long propagationCounter) {
@@ -1485,6 +1547,21 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
                                              activation);
     }
 
+    public List<FactHandle> insertAll(Collection<?> objects) {
+        checkAlive();
+        return this.defaultEntryPoint.insertAll( objects );
+    }
+
+    public void updateAll(Collection<? extends FactHandle> handles) {
+        checkAlive();
+        this.defaultEntryPoint.updateAll( handles );
+    }
+
+    public void deleteAll(Collection<? extends FactHandle> handles) {
+        checkAlive();
+        this.defaultEntryPoint.deleteAll( handles );
+    }
+
     public void retract(FactHandle handle) {
         delete(handle);
     }
@@ -1940,6 +2017,10 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         return this.timerService;
     }
 
+    public ExpirationBuckets getExpirationBuckets() {
+        return this.expirationBuckets;
+    }
+
     public SessionClock getSessionClock() {
         return (SessionClock) this.timerService;
     }
@@ -16,6 +16,7 @@
 
 package org.drools.core.impl;
 
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.SessionConfiguration;
 import org.drools.core.SessionConfigurationImpl;
 import org.drools.core.base.MapGlobalResolver;
@@ -76,6 +77,8 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
     private DroolsManagementAgent.CBSKey mbeanRegisteredCBSKey;
     private AtomicLong wmCreated = new AtomicLong(0);
 
+    private StatelessSessionPool sessionPool;
+
     public StatelessKnowledgeSessionImpl() {
     }
 
@@ -85,6 +88,23 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
         this.conf = (conf != null) ? conf : SessionConfigurationImpl.getDefaultInstance();
         this.environment = EnvironmentFactory.newEnvironment();
         this.wmFactory = kBase.getConfiguration().getComponentFactory().getWorkingMemoryFactory();
+        initSessionPool();
+    }
+
+    private void initSessionPool() {
+        RuleBaseConfiguration config = kBase.getConfiguration();
+        // the kbase warns if the pool is configured where it isn't supported
+        if ( config.getStatelessSessionPoolSize() > 0 && config.isPhreakEnabled() && !config.isSequential() ) {
+            this.sessionPool = new StatelessSessionPool( kBase, config.getStatelessSessionPoolSize() );
+        }
+    }
+
+    /**
+     * Returns the pool of the sessions reused by the executions of this stateless session
+     * or null if the pool is not enabled in the configuration of the kbase
+     */
+    public StatelessSessionPool getSessionPool() {
+        return sessionPool;
     }
 
     public InternalKnowledgeBase getKnowledgeBase() {
@@ -92,6 +112,33 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
     }
 
 
+    private StatelessSessionPool.Entry borrowWorkingMemory() {
+        if ( sessionPool == null ) {
+            return new StatelessSessionPool.Entry( (StatefulKnowledgeSessionImpl) newWorkingMemory(), 0 );
+        }
+        StatelessSessionPool.Entry entry = sessionPool.poll();
+        if ( entry != null ) {
+            wmCreated.incrementAndGet();
+            return entry;
+        }
+        long stamp = sessionPool.currentStamp();
+        return new StatelessSessionPool.Entry( (StatefulKnowledgeSessionImpl) newWorkingMemory(), stamp );
+    }
+
+    private void releaseWorkingMemory(StatelessSessionPool.Entry entry, boolean completed) {
+        if ( sessionPool != null && completed ) {
+            sessionPool.release( entry );
+        } else {
+            dispose( entry.session );
+        }
+    }
+
+    private void invalidateSessionPool() {
+        if ( sessionPool != null ) {
+            sessionPool.invalidate();
+        }
+    }
+
     public StatefulKnowledgeSession newWorkingMemory() {
         this.kBase.readLock();
         try {
@@ -148,6 +195,7 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
 
     public void addEventListener(AgendaEventListener listener) {
         listeners.add( new ListnerHolder( ListnerHolder.Type.AGENDA, listener ) );
+        invalidateSessionPool();
     }
 
     public Collection<AgendaEventListener> getAgendaEventListeners() {
@@ -156,14 +204,17 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
 
     public void removeEventListener(AgendaEventListener listener) {
         listeners.remove( new ListnerHolder( ListnerHolder.Type.AGENDA, listener ) );
+        invalidateSessionPool();
     }
 
     public void addEventListener(RuleRuntimeEventListener listener) {
         listeners.add( new ListnerHolder( ListnerHolder.Type.RUNTIME, listener ) );
+        invalidateSessionPool();
     }
 
     public void removeEventListener(RuleRuntimeEventListener listener) {
         listeners.remove( new ListnerHolder( ListnerHolder.Type.RUNTIME, listener ) );
+        invalidateSessionPool();
     }
 
     public Collection<RuleRuntimeEventListener> getRuleRuntimeEventListeners() {
@@ -172,6 +223,7 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
 
     public void addEventListener(ProcessEventListener listener) {
         listeners.add( new ListnerHolder( ListnerHolder.Type.PROCESS, listener ) );
+        invalidateSessionPool();
     }
 
     public Collection<ProcessEventListener> getProcessEventListeners() {
@@ -193,6 +245,7 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
 
     public void removeEventListener(ProcessEventListener listener) {
         listeners.remove( new ListnerHolder( ListnerHolder.Type.RUNTIME, listener ) );
+        invalidateSessionPool();
     }
 
     public void setGlobal(String identifier, Object value) {
@@ -207,11 +260,13 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
     public void registerChannel(String name,
                                 Channel channel) {
         this.channels.put(name, channel);
+        invalidateSessionPool();
     }
     
     @Override
     public void unregisterChannel(String name) {
         this.channels.remove(name);
+        invalidateSessionPool();
     }
     
     @Override
@@ -225,7 +280,9 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
     }
 
     public <T> T execute(Command<T> command) {
-        StatefulKnowledgeSession ksession = newWorkingMemory();
+        StatelessSessionPool.Entry entry = borrowWorkingMemory();
+        StatefulKnowledgeSession ksession = entry.session;
+        boolean completed = false;
 
         RegistryContext context = new ContextImpl().register( KieSession.class, ksession );
 
@@ -252,6 +309,7 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
             if ( autoFireAllRules ) {
                 ksession.fireAllRules();
             }
+            completed = true;
             if ( command instanceof BatchExecutionCommand ) {
                 return (T) ((RegistryContext) context).lookup( ExecutionResultImpl.class );
             } else {
@@ -259,35 +317,43 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
             }
         } finally {
             ((StatefulKnowledgeSessionImpl) ksession).endBatchExecution();
-            dispose(ksession);
+            releaseWorkingMemory(entry, completed);
         }
     }
 
     public void execute(Object object) {
-        StatefulKnowledgeSession ksession = newWorkingMemory();
+        StatelessSessionPool.Entry entry = borrowWorkingMemory();
+        StatefulKnowledgeSession ksession = entry.session;
+        boolean completed = false;
         try {
             ksession.insert( object );
             ksession.fireAllRules();
+            completed = true;
         } finally {
-            dispose(ksession);
+            releaseWorkingMemory(entry, completed);
         }
     }
 
     public void execute(Iterable objects) {
-        StatefulKnowledgeSession ksession = newWorkingMemory();
+        StatelessSessionPool.Entry entry = borrowWorkingMemory();
+        StatefulKnowledgeSession ksession = entry.session;
+        boolean completed = false;
         try {
             for ( Object object : objects ) {
                 ksession.insert( object );
             }
             ksession.fireAllRules();
+            completed = true;
         } finally {
-            dispose(ksession);
+            releaseWorkingMemory(entry, completed);
         }
     }
 
     public List executeWithResults(Iterable objects, ObjectFilter filter) {
         List list = new ArrayList();
-        StatefulKnowledgeSession ksession = newWorkingMemory();
+        StatelessSessionPool.Entry entry = borrowWorkingMemory();
+        StatefulKnowledgeSession ksession = entry.session;
+        boolean completed = false;
         try {
             for ( Object object : objects ) {
                 ksession.insert( object );
@@ -296,8 +362,9 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
             for (FactHandle fh : ksession.getFactHandles(filter)) {
                 list.add(((InternalFactHandle) fh).getObject());
             }
+            completed = true;
         } finally {
-            dispose(ksession);
+            releaseWorkingMemory(entry, completed);
         }
         return list;
     }
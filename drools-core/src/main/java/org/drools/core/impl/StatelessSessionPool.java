@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded and thread safe pool of the idle sessions of a stateless session, so an execution can
+ * reuse a session reset at the end of a former one instead of creating a new session.
+ *
+ * No session is created in advance: the pool only keeps, up to its maximum size, the sessions released
+ * at the end of the executions. Each pooled session is stamped with the version of the configuration it has
+ * been created with, i.e. the modifications of the kbase and the listeners and channels of the stateless
+ * session, so a session created before any of them changed is discarded instead of being reused.
+ */
+public class StatelessSessionPool {
+
+    private final int                     maxSize;
+    private final InternalKnowledgeBase   kBase;
+
+    private final Queue<Entry>            idleSessions = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger           idleCount    = new AtomicInteger();
+    private final AtomicInteger           generation   = new AtomicInteger();
+
+    private final AtomicLong              hits         = new AtomicLong();
+    private final AtomicLong              misses       = new AtomicLong();
+    private final AtomicLong              discarded    = new AtomicLong();
+
+    public StatelessSessionPool(InternalKnowledgeBase kBase, int maxSize) {
+        this.kBase = kBase;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a pooled session created with the current configuration, or null if none is available.
+     * The idle sessions created with an outdated configuration are disposed on the way.
+     */
+    Entry poll() {
+        long stamp = currentStamp();
+        for ( Entry entry = idleSessions.poll(); entry != null; entry = idleSessions.poll() ) {
+            idleCount.decrementAndGet();
+            if ( entry.stamp == stamp ) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            discard( entry );
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns the stamp to be assigned to a session that is going to be created now. It has to be read
+     * before the session is created, so a concurrent change of the configuration makes it outdated.
+     */
+    long currentStamp() {
+        return ( (long) kBase.getModificationsCount() << 32 ) | ( generation.get() & 0xFFFFFFFFL );
+    }
+
+    /**
+     * Resets the session of the given entry and keeps it for the next executions if it is still
+     * up to date and the pool is not full, otherwise disposes it.
+     */
+    void release(Entry entry) {
+        if ( entry.stamp != currentStamp() || !reserveSlot() ) {
+            discard( entry );
+            return;
+        }
+        try {
+            entry.session.resetForReuse();
+        } catch (RuntimeException e) {
+            idleCount.decrementAndGet();
+            discard( entry );
+            throw e;
+        }
+        idleSessions.offer( entry );
+    }
+
+    private boolean reserveSlot() {
+        while ( true ) {
+            int count = idleCount.get();
+            if ( count >= maxSize ) {
+                return false;
+            }
+            if ( idleCount.compareAndSet( count, count + 1 ) ) {
+                return true;
+            }
+        }
+    }
+
+    private void discard(Entry entry) {
+        discarded.incrementAndGet();
+        entry.session.dispose();
+    }
+
+    /**
+     * Makes all the sessions created so far outdated, because the configuration they have been created with changed
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Disposes all the idle sessions
+     */
+    public void clear() {
+        for ( Entry entry = idleSessions.poll(); entry != null; entry = idleSessions.poll() ) {
+            idleCount.decrementAndGet();
+            discard( entry );
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of sessions currently waiting in the pool
+     */
+    public int getIdleSessions() {
+        return idleCount.get();
+    }
+
+    /**
+     * Returns the number of executions that reused a pooled session
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of executions that had to create a new session
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of sessions disposed instead of being pooled, because outdated or exceeding the size of the pool
+     */
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    public void resetStatistics() {
+        hits.set( 0 );
+        misses.set( 0 );
+        discarded.set( 0 );
+    }
+
+    static class Entry {
+        final StatefulKnowledgeSessionImpl session;
+        final long                         stamp;
+
+        Entry(StatefulKnowledgeSessionImpl session, long stamp) {
+            this.session = session;
+            this.stamp = stamp;
+        }
+    }
+}
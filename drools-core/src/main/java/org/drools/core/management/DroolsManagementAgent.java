@@ -124,10 +124,19 @@ public class DroolsManagementAgent
         registerMBean( kbase,
                        mbean,
                        mbean.getName() );
+        if ( kbase.getNodeProfiler() != null ) {
+            NodeProfilingMonitor profilingMBean = new NodeProfilingMonitor( kbase );
+            registerMBean( kbase.getNodeProfiler(),
+                           profilingMBean,
+                           profilingMBean.getName() );
+        }
     }
     
     public void unregisterKnowledgeBase(InternalKnowledgeBase kbase) {
         unregisterMBeansFromOwner(kbase);
+        if ( kbase.getNodeProfiler() != null ) {
+            unregisterMBeansFromOwner(kbase.getNodeProfiler());
+        }
     }
     
     public void registerKnowledgeSessionUnderName(CBSKey cbsKey, KieRuntimeEventManager ksession) {
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import org.drools.core.phreak.NodeProfiler.NodeProfile;
+
+import java.util.List;
+
+/**
+ * The MXBean exposing the profile of the nodes of a knowledge base with the node profiling enabled
+ */
+public interface NodeProfilingMXBean {
+
+    /**
+     * Returns the profiles of all the evaluated nodes sorted by the time spent evaluating them
+     */
+    List<NodeProfile> getNodeProfiles();
+
+    /**
+     * Returns the profiles of the n nodes with the highest evaluation time
+     */
+    List<NodeProfile> getTopNodes(int n);
+
+    /**
+     * Returns the overall time, in milliseconds, spent evaluating the nodes
+     */
+    long getTotalEvaluationTime();
+
+    void reset();
+}
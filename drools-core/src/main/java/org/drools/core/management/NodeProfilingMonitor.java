@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.phreak.NodeProfiler;
+import org.drools.core.phreak.NodeProfiler.NodeProfile;
+
+import javax.management.ObjectName;
+import java.util.List;
+
+/**
+ * The monitor MXBean for the NodeProfiler of a knowledge base
+ */
+public class NodeProfilingMonitor implements NodeProfilingMXBean {
+
+    private static final long NANO_TO_MILLISEC = 1000000;
+
+    private final NodeProfiler profiler;
+    private final ObjectName   name;
+
+    public NodeProfilingMonitor(InternalKnowledgeBase kbase) {
+        this.profiler = kbase.getNodeProfiler();
+        this.name = DroolsManagementAgent.createObjectName( DroolsManagementAgent.createObjectNameFor( kbase ) + ",group=NodeProfiling" );
+    }
+
+    public ObjectName getName() {
+        return name;
+    }
+
+    public List<NodeProfile> getNodeProfiles() {
+        return profiler.snapshot();
+    }
+
+    public List<NodeProfile> getTopNodes(int n) {
+        return profiler.getTopNodes( n );
+    }
+
+    public long getTotalEvaluationTime() {
+        long nanos = 0;
+        for ( NodeProfile profile : profiler.snapshot() ) {
+            nanos += profile.getNanos();
+        }
+        return nanos / NANO_TO_MILLISEC;
+    }
+
+    public void reset() {
+        profiler.reset();
+    }
+}
@@ -32,8 +32,6 @@ import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.phreak.PhreakTimerNode.TimerNodeJobContext;
 import org.drools.core.phreak.PhreakTimerNode.TimerNodeTimerOutputMarshaller;
 import org.drools.core.reteoo.LeftTuple;
-import org.drools.core.reteoo.ObjectTypeNode.ExpireJobContext;
-import org.drools.core.reteoo.ObjectTypeNode.ExpireJobContextTimerOutputMarshaller;
 import org.drools.core.rule.SlidingTimeWindow;
 import org.drools.core.rule.SlidingTimeWindow.BehaviorJobContextTimerOutputMarshaller;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
@@ -101,8 +99,6 @@ public class MarshallerWriteContext extends ObjectOutputStream {
 
         this.writersByClass.put( ActivationTimerJobContext.class, new ActivationTimerOutputMarshaller() );
 
-        this.writersByClass.put( ExpireJobContext.class, new ExpireJobContextTimerOutputMarshaller() );
-        
         this.writersByClass.put( TimerNodeJobContext.class, new TimerNodeTimerOutputMarshaller() );
 
         if ( resolverStrategyFactory == null ) {
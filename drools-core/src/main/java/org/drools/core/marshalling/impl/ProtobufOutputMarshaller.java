@@ -44,6 +44,7 @@ import org.drools.core.common.TruthMaintenanceSystem;
 import org.drools.core.common.WorkingMemoryAction;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl.WorkingMemoryReteExpireAction;
 import org.drools.core.marshalling.impl.ProtobufMessages.FactHandle;
 import org.drools.core.marshalling.impl.ProtobufMessages.ObjectTypeConfiguration;
 import org.drools.core.marshalling.impl.ProtobufMessages.ProcessData.Builder;
@@ -57,6 +58,7 @@ import org.drools.core.reteoo.AccumulateNode.AccumulateContext;
 import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
 import org.drools.core.reteoo.BetaMemory;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.ExpirationBuckets;
 import org.drools.core.reteoo.FromNode.FromMemory;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.NodeTypeEnums;
@@ -589,6 +591,12 @@ public class ProtobufOutputMarshaller {
             PropagationEntry entry = i.next();
             if (entry instanceof WorkingMemoryAction) {
                 _queue.addAction(((WorkingMemoryAction) entry).serialize(context));
+            } else if (entry instanceof ExpirationBuckets.ExpireBucketAction) {
+                for (PropagationEntry expireAction : ((ExpirationBuckets.ExpireBucketAction) entry).getExpireActions()) {
+                    if (expireAction instanceof WorkingMemoryAction) {
+                        _queue.addAction(((WorkingMemoryAction) expireAction).serialize(context));
+                    }
+                }
             }
         }
         _session.setActionQueue( _queue.build() );
@@ -879,8 +887,8 @@ public class ProtobufOutputMarshaller {
             ProtobufMessages.Timers.Builder _timers = ProtobufMessages.Timers.newBuilder();
             for ( TimerJobInstance timer : sortedTimers ) {
                 JobContext jctx = ((SelfRemovalJobContext) timer.getJobContext()).getJobContext();
-                if (jctx instanceof ObjectTypeNode.ExpireJobContext &&
-                    !((ObjectTypeNode.ExpireJobContext) jctx).getExpireAction().getFactHandle().isValid()) {
+                if (jctx instanceof ExpirationBuckets.ExpireBucket) {
+                    writeExpireBucket( (ExpirationBuckets.ExpireBucket) jctx, _timers );
                     continue;
                 }
                 TimersOutputMarshaller writer = outCtx.writersByClass.get( jctx.getClass() );
@@ -894,6 +902,22 @@ public class ProtobufOutputMarshaller {
         return null;
     }
 
+    private static void writeExpireBucket(ExpirationBuckets.ExpireBucket bucket,
+                                          ProtobufMessages.Timers.Builder _timers) {
+        // a bucket is written as a timer for each of its events, so it can be read also by the former versions
+        for ( WorkingMemoryReteExpireAction expireAction : bucket.getExpireActions() ) {
+            if ( expireAction.getFactHandle().isValid() ) {
+                _timers.addTimer( ProtobufMessages.Timers.Timer.newBuilder()
+                                                               .setType( ProtobufMessages.Timers.TimerType.EXPIRE )
+                                                               .setExpire( ProtobufMessages.Timers.ExpireTimer.newBuilder()
+                                                                                                              .setHandleId( expireAction.getFactHandle().getId() )
+                                                                                                              .setNextFireTimestamp( bucket.getTime() )
+                                                                                                              .build() )
+                                                               .build() );
+            }
+        }
+    }
+
     public static ProtobufMessages.Trigger writeTrigger(Trigger trigger,
                                                         MarshallerWriteContext outCtx) {
         if ( trigger instanceof CronTrigger ) {
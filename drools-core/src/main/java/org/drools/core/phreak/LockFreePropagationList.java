@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.drools.core.phreak;
+
+import org.drools.core.common.InternalWorkingMemory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A multi-producer / single-consumer PropagationList that never locks when adding an entry.
+ * The producers push their entries with a CAS on the tail, linking each new entry to the previous tail,
+ * while the consumer detaches the whole chain in one shot and reverses it in order to flush the
+ * entries in the same order they have been added.
+ * The monitor of the list is only used to park the consumer in waitOnRest, so the producers
+ * only need to acquire it when they wake up a consumer that is actually waiting.
+ */
+public class LockFreePropagationList implements PropagationList {
+
+    protected final InternalWorkingMemory workingMemory;
+
+    private final AtomicReference<PropagationEntry> tail = new AtomicReference<PropagationEntry>();
+
+    private volatile boolean waiting = false;
+
+    private volatile boolean disposed = false;
+
+    public LockFreePropagationList(InternalWorkingMemory workingMemory) {
+        this.workingMemory = workingMemory;
+    }
+
+    @Override
+    public void addEntry(final PropagationEntry entry) {
+        if (entry.requiresImmediateFlushing()) {
+            if (entry.isCalledFromRHS()) {
+                entry.execute(workingMemory);
+            } else {
+                workingMemory.getAgenda().executeTask( new ExecutableEntry() {
+                    @Override
+                    public void execute() {
+                        if (entry instanceof PhreakTimerNode.TimerAction) {
+                            ( (PhreakTimerNode.TimerAction) entry ).execute( workingMemory, true );
+                        } else {
+                            entry.execute( workingMemory );
+                        }
+                    }
+
+                    @Override
+                    public void enqueue() {
+                        internalAddEntry( entry );
+                    }
+                } );
+            }
+        } else {
+            internalAddEntry( entry );
+        }
+    }
+
+    void internalAddEntry( PropagationEntry entry ) {
+        while (true) {
+            PropagationEntry currentTail = tail.get();
+            entry.setNext( currentTail );
+            if ( tail.compareAndSet( currentTail, entry ) ) {
+                // the list was empty, so the consumer could be waiting on rest
+                if ( currentTail == null && waiting ) {
+                    notifyWaitOnRest();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+
+    @Override
+    public void flush() {
+        flush( workingMemory, takeAll() );
+    }
+
+    @Override
+    public void flush(PropagationEntry currentHead) {
+        flush( workingMemory, currentHead );
+    }
+
+    void flush( InternalWorkingMemory workingMemory, PropagationEntry currentHead ) {
+        for (PropagationEntry entry = currentHead; !disposed && entry != null; entry = entry.getNext()) {
+            entry.execute(workingMemory);
+        }
+    }
+
+    @Override
+    public PropagationEntry takeAll() {
+        return reverse( tail.getAndSet( null ) );
+    }
+
+    private static PropagationEntry reverse( PropagationEntry last ) {
+        PropagationEntry first = null;
+        while (last != null) {
+            PropagationEntry previous = last.getNext();
+            last.setNext( first );
+            first = last;
+            last = previous;
+        }
+        return first;
+    }
+
+    @Override
+    public void reset() {
+        tail.set( null );
+        disposed = false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == null;
+    }
+
+    @Override
+    public synchronized void waitOnRest() {
+        waiting = true;
+        try {
+            // a producer adding an entry after this check will find the waiting flag set and wake this thread up
+            if ( isEmpty() ) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            // do nothing
+        } finally {
+            waiting = false;
+        }
+    }
+
+    @Override
+    public synchronized void notifyWaitOnRest() {
+        notifyAll();
+    }
+
+    @Override
+    public Iterator<PropagationEntry> iterator() {
+        // the pending entries are linked from the most recent one, so they have to be collected backward
+        List<PropagationEntry> entries = new ArrayList<PropagationEntry>();
+        for (PropagationEntry entry = tail.get(); entry != null; entry = entry.getNext()) {
+            entries.add( entry );
+        }
+        Collections.reverse( entries );
+        return Collections.unmodifiableList( entries ).iterator();
+    }
+
+    @Override
+    public void onEngineInactive() { }
+}
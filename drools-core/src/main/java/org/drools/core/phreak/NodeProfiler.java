@@ -0,0 +1,423 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.phreak;
+
+import org.drools.core.common.BaseNode;
+import org.drools.core.common.Memory;
+import org.drools.core.common.NetworkNode;
+import org.drools.core.common.TupleSets;
+import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.drools.core.spi.Tuple;
+import org.kie.api.definition.rule.Rule;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects, for each node of the phreak network, the number of evaluations, the tuples it received and produced,
+ * the evaluations of its join constraints, the peak size of its memories and the time spent evaluating it.
+ * It is created by the kbase when the drools.nodeProfiling option is enabled and it is shared by all its sessions.
+ *
+ * Each thread only writes its own counters, so recording doesn't need any lock or CAS: the counters are
+ * published with lazySet and the threads' counters are summed when a snapshot is taken, so a snapshot
+ * taken while the sessions are running may miss the last few updates. The counters of the threads that
+ * ended are folded into the retired ones by the following snapshot or reset, so they aren't kept forever.
+ */
+public class NodeProfiler {
+
+    static final int EVALUATIONS            = 0;
+    static final int LEFT_TUPLES_IN         = 1;
+    static final int RIGHT_TUPLES_IN        = 2;
+    static final int TUPLES_OUT             = 3;
+    static final int CONSTRAINT_EVALUATIONS = 4;
+    static final int CONSTRAINT_MATCHES     = 5;
+    static final int PEERS_PROPAGATED       = 6;
+    static final int NANOS                  = 7;
+    static final int PEAK_LEFT_MEMORY       = 8;
+    static final int PEAK_RIGHT_MEMORY      = 9;
+    static final int COUNTERS_NR            = 10;
+
+    private final List<ThreadCounters> threadCounters = new CopyOnWriteArrayList<ThreadCounters>();
+
+    private final ThreadLocal<ThreadCounters> currentCounters = new ThreadLocal<ThreadCounters>() {
+        @Override
+        protected ThreadCounters initialValue() {
+            ThreadCounters counters = new ThreadCounters( Thread.currentThread() );
+            threadCounters.add( counters );
+            return counters;
+        }
+    };
+
+    // the counters of the threads that ended, guarded by the lock on this profiler
+    private final ThreadCounters retiredCounters = new ThreadCounters( null );
+
+    /**
+     * Records the tuples about to be evaluated by the node and returns the time the evaluation starts at
+     */
+    public long startNode( NetworkNode node, Memory nodeMem, TupleSets<? extends Tuple> srcTuples ) {
+        NodeCounters counters = currentCounters.get().get( node );
+        counters.add( EVALUATIONS, 1 );
+        counters.add( LEFT_TUPLES_IN, size( srcTuples ) );
+        BetaMemory bm = getBetaMemory( node, nodeMem );
+        if ( bm != null ) {
+            counters.add( RIGHT_TUPLES_IN, size( bm.getStagedRightTuples() ) );
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the tuples produced by the node, null if it doesn't produce any, and the time spent evaluating it
+     */
+    public void endNode( NetworkNode node, Memory nodeMem, TupleSets<? extends Tuple> trgTuples, long start ) {
+        long nanos = System.nanoTime() - start;
+        NodeCounters counters = currentCounters.get().get( node );
+        counters.add( NANOS, nanos );
+        if ( trgTuples != null ) {
+            counters.add( TUPLES_OUT, size( trgTuples ) );
+        }
+        BetaMemory bm = getBetaMemory( node, nodeMem );
+        if ( bm != null ) {
+            if ( bm.getLeftTupleMemory() != null ) {
+                counters.max( PEAK_LEFT_MEMORY, bm.getLeftTupleMemory().size() );
+            }
+            counters.max( PEAK_RIGHT_MEMORY, bm.getRightTupleMemory().size() );
+        }
+    }
+
+    /**
+     * Records how many pairs of tuples returned by the memories of a join, not, exists or accumulate node
+     * have been evaluated against its constraints while inserting and how many of them matched
+     */
+    public void constraintsEvaluated( NetworkNode node, int evaluations, int matches ) {
+        NodeCounters counters = currentCounters.get().get( node );
+        counters.add( CONSTRAINT_EVALUATIONS, evaluations );
+        counters.add( CONSTRAINT_MATCHES, matches );
+    }
+
+    /**
+     * Records how many peer tuples have been staged into the segments sharing the given tip node
+     */
+    public void peersPropagated( NetworkNode tipNode, int peers ) {
+        currentCounters.get().get( tipNode ).add( PEERS_PROPAGATED, peers );
+    }
+
+    /**
+     * Returns the profiles of all the evaluated nodes, with the counters of all the threads summed together,
+     * sorted by the time spent evaluating them
+     */
+    public synchronized List<NodeProfile> snapshot() {
+        retireEndedThreads();
+        List<ThreadCounters> allCounters = new ArrayList<ThreadCounters>( threadCounters );
+        allCounters.add( retiredCounters );
+
+        Map<Integer, long[]> totals = new HashMap<Integer, long[]>();
+        Map<Integer, NetworkNode> nodes = new HashMap<Integer, NetworkNode>();
+        for ( ThreadCounters threadCounter : allCounters ) {
+            for ( NodeCounters counters : threadCounter.counters ) {
+                if ( counters == null ) {
+                    continue;
+                }
+                long[] total = totals.get( counters.node.getId() );
+                if ( total == null ) {
+                    total = new long[COUNTERS_NR];
+                    totals.put( counters.node.getId(), total );
+                    nodes.put( counters.node.getId(), counters.node );
+                }
+                counters.addTo( total );
+            }
+        }
+
+        List<NodeProfile> profiles = new ArrayList<NodeProfile>( totals.size() );
+        for ( Map.Entry<Integer, long[]> entry : totals.entrySet() ) {
+            profiles.add( new NodeProfile( nodes.get( entry.getKey() ), entry.getValue() ) );
+        }
+        Collections.sort( profiles, new Comparator<NodeProfile>() {
+            public int compare( NodeProfile p1, NodeProfile p2 ) {
+                return p1.getNanos() < p2.getNanos() ? 1 : ( p1.getNanos() == p2.getNanos() ? 0 : -1 );
+            }
+        } );
+        return profiles;
+    }
+
+    /**
+     * Returns the profiles of the n nodes with the highest evaluation time
+     */
+    public List<NodeProfile> getTopNodes( int n ) {
+        List<NodeProfile> profiles = snapshot();
+        return profiles.size() > n ? new ArrayList<NodeProfile>( profiles.subList( 0, n ) ) : profiles;
+    }
+
+    public synchronized void reset() {
+        retireEndedThreads();
+        for ( ThreadCounters threadCounter : threadCounters ) {
+            threadCounter.reset();
+        }
+        retiredCounters.reset();
+    }
+
+    /**
+     * Returns the number of the threads whose counters are still tracked one by one
+     */
+    int getTrackedThreadsNr() {
+        return threadCounters.size();
+    }
+
+    private void retireEndedThreads() {
+        for ( ThreadCounters threadCounter : threadCounters ) {
+            if ( threadCounter.isEnded() ) {
+                // the thread can't write its counters anymore, so they can be read without races
+                retiredCounters.addAll( threadCounter );
+                threadCounters.remove( threadCounter );
+            }
+        }
+    }
+
+    private static BetaMemory getBetaMemory( NetworkNode node, Memory nodeMem ) {
+        if ( !NodeTypeEnums.isBetaNode( node ) || nodeMem == null ) {
+            return null;
+        }
+        return node.getType() == NodeTypeEnums.AccumulateNode ?
+               ( (AccumulateMemory) nodeMem ).getBetaMemory() :
+               (BetaMemory) nodeMem;
+    }
+
+    static int size( TupleSets<? extends Tuple> tuples ) {
+        return tuples.getInsertSize() +
+               size( tuples.getUpdateFirst() ) +
+               size( tuples.getDeleteFirst() ) +
+               size( tuples.getNormalizedDeleteFirst() );
+    }
+
+    private static int size( Tuple tuple ) {
+        int size = 0;
+        for ( ; tuple != null; tuple = tuple.getStagedNext() ) {
+            size++;
+        }
+        return size;
+    }
+
+    private static class ThreadCounters {
+
+        private final WeakReference<Thread> owner;
+
+        // written only by the owning thread, read by the snapshots
+        private volatile NodeCounters[] counters = new NodeCounters[64];
+
+        private ThreadCounters( Thread owner ) {
+            this.owner = new WeakReference<Thread>( owner );
+        }
+
+        private boolean isEnded() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        private NodeCounters get( NetworkNode node ) {
+            int id = node.getId();
+            NodeCounters[] current = counters;
+            if ( id >= current.length ) {
+                current = Arrays.copyOf( current, Math.max( id + 1, current.length * 2 ) );
+                counters = current;
+            }
+            NodeCounters nodeCounters = current[id];
+            if ( nodeCounters == null || nodeCounters.node != node ) {
+                // a node id can be reused after the removal of a rule
+                nodeCounters = new NodeCounters( node );
+                current[id] = nodeCounters;
+                counters = current;
+            }
+            return nodeCounters;
+        }
+
+        private void reset() {
+            for ( NodeCounters nodeCounters : counters ) {
+                if ( nodeCounters != null ) {
+                    nodeCounters.reset();
+                }
+            }
+        }
+
+        private void addAll( ThreadCounters other ) {
+            for ( NodeCounters nodeCounters : other.counters ) {
+                if ( nodeCounters != null ) {
+                    get( nodeCounters.node ).addAll( nodeCounters );
+                }
+            }
+        }
+    }
+
+    private static class NodeCounters {
+
+        private final NetworkNode    node;
+        private final AtomicLongArray values = new AtomicLongArray( COUNTERS_NR );
+
+        private NodeCounters( NetworkNode node ) {
+            this.node = node;
+        }
+
+        private void add( int counter, long delta ) {
+            // there is a single writer, so an ordered store is enough to publish the new value
+            values.lazySet( counter, values.get( counter ) + delta );
+        }
+
+        private void max( int counter, long value ) {
+            if ( value > values.get( counter ) ) {
+                values.lazySet( counter, value );
+            }
+        }
+
+        private void addTo( long[] total ) {
+            for ( int i = 0; i < COUNTERS_NR; i++ ) {
+                total[i] = merge( i, total[i], values.get( i ) );
+            }
+        }
+
+        private void addAll( NodeCounters other ) {
+            for ( int i = 0; i < COUNTERS_NR; i++ ) {
+                values.set( i, merge( i, values.get( i ), other.values.get( i ) ) );
+            }
+        }
+
+        private static long merge( int counter, long value1, long value2 ) {
+            return counter == PEAK_LEFT_MEMORY || counter == PEAK_RIGHT_MEMORY ? Math.max( value1, value2 ) : value1 + value2;
+        }
+
+        private void reset() {
+            // a reset from another thread can race with an add of the owning thread, losing the reset of that counter
+            for ( int i = 0; i < COUNTERS_NR; i++ ) {
+                values.set( i, 0 );
+            }
+        }
+    }
+
+    /**
+     * The counters of a node, summed over all the threads that evaluated it
+     */
+    public static class NodeProfile {
+
+        private final int      nodeId;
+        private final String   nodeType;
+        private final String[] rules;
+        private final long[]   values;
+
+        private NodeProfile( NetworkNode node, long[] values ) {
+            this.nodeId = node.getId();
+            this.nodeType = node.getClass().getSimpleName();
+            this.rules = getRuleNames( node );
+            this.values = values;
+        }
+
+        private static String[] getRuleNames( NetworkNode node ) {
+            if ( !( node instanceof BaseNode ) ) {
+                return new String[0];
+            }
+            Rule[] rules = ( (BaseNode) node ).getAssociatedRules();
+            String[] names = new String[rules.length];
+            for ( int i = 0; i < rules.length; i++ ) {
+                names[i] = rules[i].getName();
+            }
+            Arrays.sort( names );
+            return names;
+        }
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public String getNodeType() {
+            return nodeType;
+        }
+
+        /**
+         * The names of the rules sharing this node
+         */
+        public String[] getRules() {
+            return rules;
+        }
+
+        public long getEvaluations() {
+            return values[EVALUATIONS];
+        }
+
+        public long getLeftTuplesIn() {
+            return values[LEFT_TUPLES_IN];
+        }
+
+        public long getRightTuplesIn() {
+            return values[RIGHT_TUPLES_IN];
+        }
+
+        public long getTuplesOut() {
+            return values[TUPLES_OUT];
+        }
+
+        public long getConstraintEvaluations() {
+            return values[CONSTRAINT_EVALUATIONS];
+        }
+
+        public long getConstraintMatches() {
+            return values[CONSTRAINT_MATCHES];
+        }
+
+        /**
+         * The ratio of the tuples returned by the memories of a beta node on insertion that actually matched its
+         * constraints, that is how selective its index is: 1 means that the index returned only the matching tuples,
+         * while for a node without index it is the selectivity of its constraints. It is NaN when no evaluation
+         * has been recorded, as for the nodes that aren't beta nodes or whose memories have always been empty
+         */
+        public double getIndexHitRatio() {
+            long evaluations = getConstraintEvaluations();
+            return evaluations == 0 ? Double.NaN : (double) getConstraintMatches() / evaluations;
+        }
+
+        public long getPeersPropagated() {
+            return values[PEERS_PROPAGATED];
+        }
+
+        public long getNanos() {
+            return values[NANOS];
+        }
+
+        public long getPeakLeftMemorySize() {
+            return values[PEAK_LEFT_MEMORY];
+        }
+
+        public long getPeakRightMemorySize() {
+            return values[PEAK_RIGHT_MEMORY];
+        }
+
+        @Override
+        public String toString() {
+            return nodeType + "[id=" + nodeId + ", rules=" + Arrays.toString( rules ) +
+                   ", evaluations=" + getEvaluations() + ", leftIn=" + getLeftTuplesIn() + ", rightIn=" + getRightTuplesIn() +
+                   ", out=" + getTuplesOut() + ", constraintEvaluations=" + getConstraintEvaluations() +
+                   ", indexHitRatio=" + getIndexHitRatio() + ", peersPropagated=" + getPeersPropagated() +
+                   ", peakLeftMemory=" + getPeakLeftMemorySize() + ", peakRightMemory=" + getPeakRightMemorySize() +
+                   ", time=" + ( getNanos() / 1000000 ) + "ms]";
+        }
+    }
+}
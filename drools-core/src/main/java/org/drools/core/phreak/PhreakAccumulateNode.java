@@ -137,6 +137,8 @@ public class PhreakAccumulateNode {
         BetaConstraints constraints = accNode.getRawConstraints();
 
         boolean leftTupleMemoryEnabled = accNode.isLeftTupleMemoryEnabled();
+        int evaluations = 0;
+        int matches = 0;
 
         for (LeftTuple leftTuple = srcLeftTuples.getInsertFirst(); leftTuple != null; ) {
             LeftTuple next = leftTuple.getStagedNext();
@@ -170,8 +172,10 @@ public class PhreakAccumulateNode {
                                                                     rightIt); rightTuple != null; ) {
                 RightTuple nextRightTuple = (RightTuple) rightIt.next(rightTuple);
 
+                evaluations++;
                 if (constraints.isAllowedCachedLeft(contextEntry,
                                                     rightTuple.getFactHandleForEvaluation())) {
+                    matches++;
                     // add a match
                     addMatch(accNode,
                              accumulate,
@@ -201,6 +205,11 @@ public class PhreakAccumulateNode {
             leftTuple = next;
         }
         constraints.resetTuple( contextEntry );
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( accNode, evaluations, matches );
+        }
     }
 
     public void doRightInserts(AccumulateNode accNode,
@@ -220,6 +229,8 @@ public class PhreakAccumulateNode {
             ((AbstractHashTable) rtm).ensureCapacity(srcRightTuples.getInsertSize());
         }
 
+        int evaluations = 0;
+        int matches = 0;
         for (RightTuple rightTuple = srcRightTuples.getInsertFirst(); rightTuple != null; ) {
             RightTuple next = rightTuple.getStagedNext();
             rtm.add( rightTuple );
@@ -232,8 +243,10 @@ public class PhreakAccumulateNode {
                 FastIterator leftIt = accNode.getLeftIterator( ltm );
 
                 for ( LeftTuple leftTuple = accNode.getFirstLeftTuple( rightTuple, ltm, leftIt ); leftTuple != null; leftTuple = (LeftTuple) leftIt.next( leftTuple ) ) {
+                    evaluations++;
                     if ( constraints.isAllowedCachedRight( contextEntry,
                                                            leftTuple ) ) {
+                        matches++;
                         final AccumulateContext accctx = (AccumulateContext) leftTuple.getContextObject();
                         addMatch( accNode,
                                   accumulate,
@@ -259,6 +272,11 @@ public class PhreakAccumulateNode {
             rightTuple = next;
         }
         constraints.resetFactHandle( contextEntry );
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( accNode, evaluations, matches );
+        }
     }
 
     public void doLeftUpdates(AccumulateNode accNode,
@@ -139,6 +139,8 @@ public class PhreakExistsNode {
         ContextEntry[] contextEntry = bm.getContext();
         BetaConstraints constraints = existsNode.getRawConstraints();
 
+        int evaluations = 0;
+        int matches = 0;
         for (RightTuple rightTuple = srcRightTuples.getInsertFirst(); rightTuple != null; ) {
             RightTuple next = rightTuple.getStagedNext();
             rtm.add(rightTuple);
@@ -161,8 +163,10 @@ public class PhreakExistsNode {
                     }
 
                     // we know that only unblocked LeftTuples are  still in the memory
+                    evaluations++;
                     if ( constraints.isAllowedCachedRight( contextEntry,
                                                            leftTuple ) ) {
+                        matches++;
                         leftTuple.setBlocker( rightTuple );
                         rightTuple.addBlocked( leftTuple );
 
@@ -178,6 +182,11 @@ public class PhreakExistsNode {
             rightTuple = next;
         }
         constraints.resetFactHandle( contextEntry );
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( existsNode, evaluations, matches );
+        }
     }
 
     public void doLeftUpdates(ExistsNode existsNode,
@@ -471,7 +480,7 @@ public class PhreakExistsNode {
                                                 leftTuple);
 
                     if (useComparisonIndex) {
-                        rootBlocker = (RightTuple) rtm.getFirst(leftTuple);
+                        rootBlocker = (RightTuple) rtm.getFirst(leftTuple, it);
                     }
 
                     // we know that older tuples have been checked so continue previously
@@ -28,6 +28,9 @@ import org.drools.core.rule.ContextEntry;
 import org.drools.core.util.AbstractHashTable;
 import org.drools.core.util.FastIterator;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 public class PhreakJoinNode {
     public void doNode(JoinNode joinNode,
                        LeftTupleSink sink,
@@ -87,6 +90,8 @@ public class PhreakJoinNode {
         TupleMemory rtm = bm.getRightTupleMemory();
         ContextEntry[] contextEntry = bm.getContext();
         BetaConstraints constraints = joinNode.getRawConstraints();
+        int evaluations = 0;
+        int matches = 0;
 
         for (LeftTuple leftTuple = srcLeftTuples.getInsertFirst(); leftTuple != null; ) {
             LeftTuple next = leftTuple.getStagedNext();
@@ -107,8 +112,10 @@ public class PhreakJoinNode {
                                                                       rtm,
                                                                       null,
                                                                       it ); rightTuple != null; rightTuple = (RightTuple) it.next(rightTuple)) {
+                evaluations++;
                 if (constraints.isAllowedCachedLeft( contextEntry,
                                                      rightTuple.getFactHandle() )) {
+                    matches++;
                     insertChildLeftTuple(trgLeftTuples,
                                          leftTuple,
                                          rightTuple,
@@ -123,6 +130,11 @@ public class PhreakJoinNode {
             leftTuple = next;
         }
         constraints.resetTuple( contextEntry );
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( joinNode, evaluations, matches );
+        }
     }
 
     public void doRightInserts(JoinNode joinNode,
@@ -139,6 +151,8 @@ public class PhreakJoinNode {
         if (srcRightTuples.getInsertSize() > 32 && rtm instanceof AbstractHashTable ) {
             ((AbstractHashTable) rtm).ensureCapacity(srcRightTuples.getInsertSize());
         }
+        int evaluations = 0;
+        int matches = 0;
 
         for (RightTuple rightTuple = srcRightTuples.getInsertFirst(); rightTuple != null; ) {
             RightTuple next = rightTuple.getStagedNext();
@@ -157,8 +171,10 @@ public class PhreakJoinNode {
                         continue;
                     }
 
+                    evaluations++;
                     if ( constraints.isAllowedCachedRight( contextEntry,
                                                            leftTuple ) ) {
+                        matches++;
                         insertChildLeftTuple( trgLeftTuples,
                                               leftTuple,
                                               rightTuple,
@@ -173,6 +189,11 @@ public class PhreakJoinNode {
             rightTuple = next;
         }
         constraints.resetFactHandle( contextEntry );
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( joinNode, evaluations, matches );
+        }
     }
 
     public void doLeftUpdates(JoinNode joinNode,
@@ -185,6 +206,8 @@ public class PhreakJoinNode {
         TupleMemory rtm = bm.getRightTupleMemory();
         ContextEntry[] contextEntry = bm.getContext();
         BetaConstraints constraints = joinNode.getRawConstraints();
+        // reused by all the left tuples when the memory is unordered
+        Map<RightTuple, LeftTuple> children = null;
 
         for (LeftTuple leftTuple = srcLeftTuples.getUpdateFirst(); leftTuple != null; ) {
             LeftTuple next = leftTuple.getStagedNext();
@@ -199,6 +222,16 @@ public class PhreakJoinNode {
                                                                 null,
                                                                 it);
 
+            if (rtm.getIndexType().isComparison()) {
+                if (children == null) {
+                    children = new IdentityHashMap<RightTuple, LeftTuple>();
+                }
+                doLeftUpdatesProcessChildrenUnordered(leftTuple, rightTuple, stagedLeftTuples, contextEntry, constraints, sink, it, trgLeftTuples, children);
+                leftTuple.clearStaged();
+                leftTuple = next;
+                continue;
+            }
+
             // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
             // if rightTuple is null, we assume there was a bucket change and that bucket is empty
             if (rtm.isIndexed() && !it.isFullIterator()) {
@@ -281,6 +314,52 @@ public class PhreakJoinNode {
         return childLeftTuple;
     }
 
+    /**
+     * A comparison index doesn't return the matching right tuples in the same order of the existing children,
+     * so they cannot be merged positionally: the children are instead looked up by their right parent.
+     */
+    private void doLeftUpdatesProcessChildrenUnordered(LeftTuple leftTuple,
+                                                       RightTuple rightTuple,
+                                                       TupleSets<LeftTuple> stagedLeftTuples,
+                                                       ContextEntry[] contextEntry,
+                                                       BetaConstraints constraints,
+                                                       LeftTupleSink sink,
+                                                       FastIterator it,
+                                                       TupleSets<LeftTuple> trgLeftTuples,
+                                                       Map<RightTuple, LeftTuple> children) {
+        if (leftTuple.getFirstChild() != null) {
+            for (LeftTuple childLeftTuple = leftTuple.getFirstChild(); childLeftTuple != null; childLeftTuple = childLeftTuple.getHandleNext()) {
+                children.put(childLeftTuple.getRightParent(), childLeftTuple);
+            }
+        }
+
+        for (; rightTuple != null; rightTuple = (RightTuple) it.next(rightTuple)) {
+            if (constraints.isAllowedCachedLeft(contextEntry,
+                                                rightTuple.getFactHandle())) {
+                LeftTuple childLeftTuple = children.isEmpty() ? null : children.remove(rightTuple);
+                if (childLeftTuple == null) {
+                    insertChildLeftTuple(trgLeftTuples,
+                                         leftTuple,
+                                         rightTuple,
+                                         null,
+                                         null,
+                                         sink,
+                                         true);
+                } else {
+                    childLeftTuple.setPropagationContext(rightTuple.getPropagationContext());
+                    updateChildLeftTuple(childLeftTuple, stagedLeftTuples, trgLeftTuples);
+                    childLeftTuple.reAddRight();
+                }
+            }
+        }
+
+        // the remaining children are no longer matched
+        for (LeftTuple childLeftTuple : children.values()) {
+            RuleNetworkEvaluator.unlinkAndDeleteChildLeftTuple( childLeftTuple, trgLeftTuples, stagedLeftTuples );
+        }
+        children.clear();
+    }
+
     public void doRightUpdates(JoinNode joinNode,
                                LeftTupleSink sink,
                                BetaMemory bm,
@@ -291,6 +370,8 @@ public class PhreakJoinNode {
         TupleMemory ltm = bm.getLeftTupleMemory();
         ContextEntry[] contextEntry = bm.getContext();
         BetaConstraints constraints = joinNode.getRawConstraints();
+        // reused by all the right tuples when the memory is unordered
+        Map<LeftTuple, LeftTuple> children = null;
 
         for (RightTuple rightTuple = srcRightTuples.getUpdateFirst(); rightTuple != null; ) {
             RightTuple next = rightTuple.getStagedNext();
@@ -303,6 +384,16 @@ public class PhreakJoinNode {
                                                   wm,
                                                   rightTuple.getFactHandleForEvaluation() );
 
+                if ( ltm.getIndexType().isComparison() ) {
+                    if ( children == null ) {
+                        children = new IdentityHashMap<LeftTuple, LeftTuple>();
+                    }
+                    doRightUpdatesProcessChildrenUnordered( leftTuple, rightTuple, stagedLeftTuples, contextEntry, constraints, sink, it, trgLeftTuples, children );
+                    rightTuple.clearStaged();
+                    rightTuple = next;
+                    continue;
+                }
+
                 // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
                 // We assume a bucket change if leftTuple == null
                 LeftTuple childLeftTuple = rightTuple.getFirstChild();
@@ -397,6 +488,61 @@ public class PhreakJoinNode {
         return childLeftTuple;
     }
 
+    /**
+     * A comparison index doesn't return the matching left tuples in the same order of the existing children,
+     * so they cannot be merged positionally: the children are instead looked up by their left parent.
+     */
+    private void doRightUpdatesProcessChildrenUnordered(LeftTuple leftTuple,
+                                                        RightTuple rightTuple,
+                                                        TupleSets<LeftTuple> stagedLeftTuples,
+                                                        ContextEntry[] contextEntry,
+                                                        BetaConstraints constraints,
+                                                        LeftTupleSink sink,
+                                                        FastIterator it,
+                                                        TupleSets<LeftTuple> trgLeftTuples,
+                                                        Map<LeftTuple, LeftTuple> children) {
+        if (rightTuple.getFirstChild() != null) {
+            for (LeftTuple childLeftTuple = rightTuple.getFirstChild(); childLeftTuple != null; childLeftTuple = childLeftTuple.getRightParentNext()) {
+                if (childLeftTuple.getLeftParent().getStagedType() != LeftTuple.UPDATE) {
+                    // children of updated left tuples will be processed via left iteration
+                    children.put(childLeftTuple.getLeftParent(), childLeftTuple);
+                }
+            }
+        }
+
+        for (; leftTuple != null; leftTuple = (LeftTuple) it.next(leftTuple)) {
+            if (leftTuple.getStagedType() == LeftTuple.UPDATE) {
+                // ignore, as it will get processed via left iteration. Children cannot be processed twice
+                continue;
+            }
+
+            if (constraints.isAllowedCachedRight(contextEntry,
+                                                 leftTuple)) {
+                LeftTuple childLeftTuple = children.isEmpty() ? null : children.remove(leftTuple);
+                if (childLeftTuple == null) {
+                    insertChildLeftTuple(trgLeftTuples,
+                                         leftTuple,
+                                         rightTuple,
+                                         null,
+                                         null,
+                                         sink,
+                                         true);
+                } else {
+                    childLeftTuple.setPropagationContext(rightTuple.getPropagationContext());
+                    updateChildLeftTuple(childLeftTuple, stagedLeftTuples, trgLeftTuples);
+                    childLeftTuple.reAddLeft();
+                }
+            }
+        }
+
+        // the remaining children are no longer matched
+        for (LeftTuple childLeftTuple : children.values()) {
+            childLeftTuple.setPropagationContext(rightTuple.getPropagationContext());
+            RuleNetworkEvaluator.unlinkAndDeleteChildLeftTuple( childLeftTuple, trgLeftTuples, stagedLeftTuples );
+        }
+        children.clear();
+    }
+
     public void doLeftDeletes(BetaMemory bm,
                               TupleSets<LeftTuple> srcLeftTuples,
                               TupleSets<LeftTuple> trgLeftTuples,
@@ -138,6 +138,8 @@ public class PhreakNotNode {
                                    bm,
                                    wm);
 
+        int evaluations = 0;
+        int matches = 0;
         for (RightTuple rightTuple = srcRightTuples.getInsertFirst(); rightTuple != null; ) {
             RightTuple next = rightTuple.getStagedNext();
 
@@ -159,8 +161,10 @@ public class PhreakNotNode {
                     }
 
                     // we know that only unblocked LeftTuples are  still in the memory
+                    evaluations++;
                     if ( constraints.isAllowedCachedRight( contextEntry,
                                                            leftTuple ) ) {
+                        matches++;
                         leftTuple.setBlocker( rightTuple );
                         rightTuple.addBlocked( leftTuple );
 
@@ -184,6 +188,11 @@ public class PhreakNotNode {
             rightTuple = next;
         }
         constraints.resetFactHandle(contextEntry);
+
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null) {
+            profiler.constraintsEvaluated( notNode, evaluations, matches );
+        }
     }
 
     public static void unlinkNotNodeOnRightInsert(NotNode notNode,
@@ -479,7 +488,7 @@ public class PhreakNotNode {
                                                 leftTuple);
 
                     if (useComparisonIndex) {
-                        rootBlocker = (RightTuple) rtm.getFirst(leftTuple);
+                        rootBlocker = (RightTuple) rtm.getFirst(leftTuple, it);
                     }
 
                     // we know that older tuples have been checked so continue next
@@ -28,9 +28,6 @@ import org.drools.core.reteoo.ModifyPreviousTuples;
 import org.drools.core.reteoo.ObjectTypeConf;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.spi.PropagationContext;
-import org.drools.core.time.JobContext;
-import org.drools.core.time.JobHandle;
-import org.drools.core.time.impl.PointInTimeTrigger;
 
 import java.util.concurrent.CountDownLatch;
 
@@ -124,8 +121,6 @@ public interface PropagationEntry {
     }
 
     class Insert extends AbstractPropagationEntry {
-        private static final transient ObjectTypeNode.ExpireJob job = new ObjectTypeNode.ExpireJob();
-
         private final InternalFactHandle handle;
         private final PropagationContext context;
         private final ObjectTypeConf objectTypeConf;
@@ -179,13 +174,8 @@ public interface PropagationEntry {
             if (nextTimestamp < wm.getTimerService().getCurrentTime()) {
                 wm.addPropagation( action );
             } else {
-                JobContext jobctx = new ObjectTypeNode.ExpireJobContext( action, wm );
-                JobHandle jobHandle = wm.getTimerService()
-                                        .scheduleJob( job,
-                                                      jobctx,
-                                                      new PointInTimeTrigger( nextTimestamp, null, null ) );
-                jobctx.setJobHandle( jobHandle );
-                eventFactHandle.addJob( jobHandle );
+                // the events expiring together are grouped in a bucket, expired by a single job and propagation entry
+                wm.getExpirationBuckets().scheduleExpiration( action, nextTimestamp );
             }
         }
 
@@ -332,4 +322,85 @@ public interface PropagationEntry {
             return "Delete of " + handle.getObject() + " for partition " + partition;
         }
     }
+
+    class BatchInsert extends AbstractPropagationEntry {
+        private final InternalFactHandle[] handles;
+        private final PropagationContext[] contexts;
+        private final ObjectTypeConf objectTypeConf;
+
+        public BatchInsert( InternalFactHandle[] handles, PropagationContext[] contexts, InternalWorkingMemory workingMemory, ObjectTypeConf objectTypeConf) {
+            this.handles = handles;
+            this.contexts = contexts;
+            this.objectTypeConf = objectTypeConf;
+
+            if ( objectTypeConf.isEvent() ) {
+                long insertionTime = workingMemory.getTimerService().getCurrentTime();
+                for (int i = 0; i < handles.length; i++) {
+                    Insert.scheduleExpiration( workingMemory, handles[i], contexts[i], objectTypeConf, insertionTime );
+                }
+            }
+        }
+
+        public void execute( InternalWorkingMemory wm ) {
+            // each ObjectTypeNode propagates the whole group in a single pass through its sinks
+            for ( ObjectTypeNode otn : objectTypeConf.getObjectTypeNodes() ) {
+                otn.propagateAssert( handles, contexts, wm );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Batch insert of " + handles.length + " facts";
+        }
+    }
+
+    class BatchUpdate extends AbstractPropagationEntry {
+        private final InternalFactHandle[] handles;
+        private final PropagationContext[] contexts;
+        private final ObjectTypeConf objectTypeConf;
+
+        public BatchUpdate( InternalFactHandle[] handles, PropagationContext[] contexts, ObjectTypeConf objectTypeConf ) {
+            this.handles = handles;
+            this.contexts = contexts;
+            this.objectTypeConf = objectTypeConf;
+        }
+
+        public void execute( InternalWorkingMemory wm ) {
+            // a modify walks the tuples of its own fact, so the facts are modified one by one under a single entry
+            for (int i = 0; i < handles.length; i++) {
+                EntryPointNode.propagateModify( handles[i], contexts[i], objectTypeConf, wm );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Batch update of " + handles.length + " facts";
+        }
+    }
+
+    class BatchDelete extends AbstractPropagationEntry {
+        private final EntryPointNode epn;
+        private final InternalFactHandle[] handles;
+        private final PropagationContext[] contexts;
+        private final ObjectTypeConf objectTypeConf;
+
+        public BatchDelete( EntryPointNode epn, InternalFactHandle[] handles, PropagationContext[] contexts, ObjectTypeConf objectTypeConf ) {
+            this.epn = epn;
+            this.handles = handles;
+            this.contexts = contexts;
+            this.objectTypeConf = objectTypeConf;
+        }
+
+        public void execute( InternalWorkingMemory wm ) {
+            // a retract walks the tuples of its own fact, so the facts are retracted one by one under a single entry
+            for (int i = 0; i < handles.length; i++) {
+                epn.propagateRetract( handles[i], contexts[i], objectTypeConf, wm );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Batch delete of " + handles.length + " facts";
+        }
+    }
 }
@@ -245,6 +245,7 @@ public class RuleNetworkEvaluator {
         TupleSets<LeftTuple> srcTuples;
         SegmentMemory smem = smems[smemIndex];
         TupleSets<LeftTuple> stagedLeftTuples = null;
+        NodeProfiler profiler = agenda.getWorkingMemory().getKnowledgeBase().getNodeProfiler();
         while (true) {
             srcTuples = trgTuples; // previous target, is now the source
             if (log.isTraceEnabled()) {
@@ -309,6 +310,8 @@ public class RuleNetworkEvaluator {
                 }
             }
 
+            long profilingStart = profiler != null ? profiler.startNode(node, nodeMem, srcTuples) : 0;
+
             if (NodeTypeEnums.isTerminalNode(node)) {
                 TerminalNode rtn = ( TerminalNode ) node;
                 if (node.getType() == NodeTypeEnums.QueryTerminalNode) {
@@ -322,9 +325,15 @@ public class RuleNetworkEvaluator {
                                    srcTuples,
                                    executor);
                 }
+                if (profiler != null) {
+                    profiler.endNode(node, nodeMem, null, profilingStart);
+                }
                 break;
             } else if (NodeTypeEnums.RightInputAdaterNode == node.getType()) {
                 doRiaNode2(agenda.getWorkingMemory(), srcTuples, (RightInputAdapterNode) node);
+                if (profiler != null) {
+                    profiler.endNode(node, nodeMem, null, profilingStart);
+                }
                 break;
             }
 
@@ -332,6 +341,9 @@ public class RuleNetworkEvaluator {
             LeftTupleSinkNode sink = ((LeftTupleSource) node).getSinkPropagator().getFirstLeftTupleSink();
 
             trgTuples = evalNode( pmem, node, bit, nodeMem, smems, smemIndex, agenda, stack, processRian, executor, srcTuples, smem, stagedLeftTuples, sink );
+            if (profiler != null) {
+                profiler.endNode(node, nodeMem, trgTuples, profilingStart);
+            }
             if ( trgTuples == null ) {
                 break; // Queries exists and has been placed StackEntry, and there are no current trgTuples to process
             }
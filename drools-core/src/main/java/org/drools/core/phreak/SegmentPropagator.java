@@ -44,6 +44,12 @@ public class SegmentPropagator {
     private static void processPeers(SegmentMemory sourceSegment, TupleSets<LeftTuple> leftTuples, InternalWorkingMemory wm) {
         SegmentMemory firstSmem = sourceSegment.getFirst();
 
+        NodeProfiler profiler = wm.getKnowledgeBase().getNodeProfiler();
+        if (profiler != null && firstSmem.getNext() != null) {
+            // each tuple is staged as a peer in all the segments following the first one
+            profiler.peersPropagated( sourceSegment.getTipNode(), NodeProfiler.size( leftTuples ) * countPeerSegments( firstSmem ) );
+        }
+
         // Process Deletes
         processPeerDeletes( leftTuples, leftTuples.getDeleteFirst(), firstSmem, wm );
         processPeerDeletes( leftTuples, leftTuples.getNormalizedDeleteFirst(), firstSmem, wm );
@@ -98,6 +104,14 @@ public class SegmentPropagator {
         leftTuples.resetAll();
     }
 
+    private static int countPeerSegments(SegmentMemory firstSmem) {
+        int peerSegments = 0;
+        for (SegmentMemory smem = firstSmem.getNext(); smem != null; smem = smem.getNext()) {
+            peerSegments++;
+        }
+        return peerSegments;
+    }
+
     private static void processPeerDeletes( TupleSets<LeftTuple> leftTuples, LeftTuple leftTuple, SegmentMemory firstSmem, InternalWorkingMemory wm ) {
         for (; leftTuple != null; leftTuple = leftTuple.getStagedNext()) {
             SegmentMemory smem = firstSmem.getNext();
@@ -33,6 +33,7 @@ import org.kie.api.runtime.rule.Operator;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.drools.core.reteoo.PropertySpecificUtil.allSetButTraitBitMask;
@@ -137,6 +138,29 @@ public class AlphaNode extends ObjectSource
         }
     }
 
+    @Override
+    public void assertObjects(final InternalFactHandle[] factHandles,
+                              final PropagationContext[] contexts,
+                              final InternalWorkingMemory workingMemory) {
+        int allowed = 0;
+        InternalFactHandle[] allowedHandles = new InternalFactHandle[factHandles.length];
+        PropagationContext[] allowedContexts = new PropagationContext[factHandles.length];
+        for (int i = 0; i < factHandles.length; i++) {
+            if (this.constraint.isAllowed(factHandles[i], workingMemory)) {
+                allowedHandles[allowed] = factHandles[i];
+                allowedContexts[allowed++] = contexts[i];
+            }
+        }
+
+        if (allowed == factHandles.length) {
+            this.sink.propagateAssertObjects(factHandles, contexts, workingMemory);
+        } else if (allowed > 0) {
+            this.sink.propagateAssertObjects(Arrays.copyOf(allowedHandles, allowed),
+                                             Arrays.copyOf(allowedContexts, allowed),
+                                             workingMemory);
+        }
+    }
+
     public void modifyObject(final InternalFactHandle factHandle,
                              final ModifyPreviousTuples modifyPreviousTuples,
                              final PropagationContext context,
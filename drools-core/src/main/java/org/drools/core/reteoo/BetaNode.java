@@ -433,7 +433,7 @@ public abstract class BetaNode extends LeftTupleSource
                                          final InternalFactHandle factHandle,
                                          final FastIterator it) {
         if ( !this.indexedUnificationJoin ) {
-            return (RightTuple) memory.getFirst(leftTuple);
+            return (RightTuple) memory.getFirst(leftTuple, it);
         } else {
             return (RightTuple) it.next( null );
         }
@@ -443,7 +443,7 @@ public abstract class BetaNode extends LeftTupleSource
                                        final TupleMemory memory,
                                        final FastIterator it) {
         if ( !this.indexedUnificationJoin ) {
-            return (LeftTuple) memory.getFirst(rightTuple);
+            return (LeftTuple) memory.getFirst(rightTuple, it);
         } else {
             return (LeftTuple) it.next( null );
         }
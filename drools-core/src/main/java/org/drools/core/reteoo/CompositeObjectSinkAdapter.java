@@ -97,6 +97,10 @@ public class CompositeObjectSinkAdapter implements ObjectSinkPropagator {
         return this.hashedSinkMap;
     }
 
+    public LinkedList<FieldIndex> getHashedFieldIndexes() {
+        return this.hashedFieldIndexes;
+    }
+
     public ObjectSinkPropagator addObjectSink(ObjectSink sink) {
         return addObjectSink(sink, 0);
     }
@@ -390,6 +394,45 @@ public class CompositeObjectSinkAdapter implements ObjectSinkPropagator {
         }
     }
 
+    /**
+     * Propagates a group of facts of the same type in a single pass over the sinks: each hashed field index
+     * looks up the AlphaNode of all the facts, and each unhashed sink gets the whole group at once.
+     */
+    public void propagateAssertObjects(final InternalFactHandle[] factHandles,
+                                       final PropagationContext[] contexts,
+                                       final InternalWorkingMemory workingMemory) {
+        if ( this.hashedFieldIndexes != null ) {
+            for ( FieldIndex fieldIndex = this.hashedFieldIndexes.getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext() ) {
+                if ( !fieldIndex.isHashed() ) {
+                    continue;
+                }
+                for ( int i = 0; i < factHandles.length; i++ ) {
+                    final AlphaNode sink = (AlphaNode) this.hashedSinkMap.get( new HashKey( fieldIndex, factHandles[i].getObject() ) );
+                    if ( sink != null ) {
+                        // go straight to the AlphaNode's propagator, as we know it's true and no need to retest
+                        sink.getObjectSinkPropagator().propagateAssertObject( factHandles[i], contexts[i], workingMemory );
+                    }
+                }
+            }
+        }
+
+        if ( this.hashableSinks != null ) {
+            for ( ObjectSinkNode sink = this.hashableSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
+                sink.assertObjects( factHandles,
+                                    contexts,
+                                    workingMemory );
+            }
+        }
+
+        if ( this.otherSinks != null ) {
+            for ( ObjectSinkNode sink = this.otherSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
+                sink.assertObjects( factHandles,
+                                    contexts,
+                                    workingMemory );
+            }
+        }
+    }
+
     public void propagateModifyObject(final InternalFactHandle factHandle,
                                       final ModifyPreviousTuples modifyPreviousTuples,
                                       final PropagationContext context,
@@ -58,6 +58,12 @@ public class EmptyObjectSinkAdapter implements ObjectSinkPropagator {
 
     }
 
+    public void propagateAssertObjects(final InternalFactHandle[] factHandles,
+                                       final PropagationContext[] contexts,
+                                       final InternalWorkingMemory workingMemory) {
+
+    }
+
     public void propagateRetractObject(final InternalFactHandle handle,
                                        final PropagationContext context,
                                        final InternalWorkingMemory workingMemory,
@@ -230,6 +230,23 @@ public class EntryPointNode extends ObjectSource
     }
 
 
+    public void assertObjects(final InternalFactHandle[] handles,
+                              final PropagationContext[] contexts,
+                              final ObjectTypeConf objectTypeConf,
+                              final InternalWorkingMemory workingMemory) {
+        if ( log.isTraceEnabled() ) {
+            log.trace("Insert batch of {} facts", handles.length);
+        }
+
+        if ( partitionsEnabled ) {
+            for (int i = 0; i < handles.length; i++) {
+                PropagationEntry.Insert.execute( handles[i], contexts[i], workingMemory, objectTypeConf );
+            }
+        } else {
+            workingMemory.addPropagation( new PropagationEntry.BatchInsert( handles, contexts, workingMemory, objectTypeConf ) );
+        }
+    }
+
     public void modifyObject(final InternalFactHandle handle,
                              final PropagationContext pctx,
                              final ObjectTypeConf objectTypeConf,
@@ -241,6 +258,24 @@ public class EntryPointNode extends ObjectSource
         workingMemory.addPropagation(new PropagationEntry.Update(handle, pctx, objectTypeConf));
     }
 
+    public void modifyObjects(final InternalFactHandle[] handles,
+                              final PropagationContext[] contexts,
+                              final ObjectTypeConf objectTypeConf,
+                              final InternalWorkingMemory workingMemory) {
+        if ( log.isTraceEnabled() ) {
+            log.trace( "Update batch of {} facts", handles.length );
+        }
+
+        if ( partitionsEnabled ) {
+            // the single updates can be split among the partitioned agendas
+            for (int i = 0; i < handles.length; i++) {
+                workingMemory.addPropagation( new PropagationEntry.Update( handles[i], contexts[i], objectTypeConf ) );
+            }
+        } else {
+            workingMemory.addPropagation( new PropagationEntry.BatchUpdate( handles, contexts, objectTypeConf ) );
+        }
+    }
+
     public static void propagateModify(InternalFactHandle handle, PropagationContext pctx, ObjectTypeConf objectTypeConf, InternalWorkingMemory wm) {
         // make a reference to the previous tuples, then null then on the handle
         propagateModify( handle, pctx, objectTypeConf, wm, new ModifyPreviousTuples( handle.detachLinkedTuples() ) );
@@ -340,6 +375,24 @@ public class EntryPointNode extends ObjectSource
         workingMemory.addPropagation(new PropagationEntry.Delete(this, handle, context, objectTypeConf));
     }
 
+    public void retractObjects(final InternalFactHandle[] handles,
+                               final PropagationContext[] contexts,
+                               final ObjectTypeConf objectTypeConf,
+                               final InternalWorkingMemory workingMemory) {
+        if ( log.isTraceEnabled() ) {
+            log.trace( "Delete batch of {} facts", handles.length );
+        }
+
+        if ( partitionsEnabled ) {
+            // the single deletes can be split among the partitioned agendas
+            for (int i = 0; i < handles.length; i++) {
+                workingMemory.addPropagation( new PropagationEntry.Delete( this, handles[i], contexts[i], objectTypeConf ) );
+            }
+        } else {
+            workingMemory.addPropagation( new PropagationEntry.BatchDelete( this, handles, contexts, objectTypeConf ) );
+        }
+    }
+
     public void propagateRetract(InternalFactHandle handle, PropagationContext context, ObjectTypeConf objectTypeConf, InternalWorkingMemory workingMemory) {
         ObjectTypeNode[] cachedNodes = objectTypeConf.getObjectTypeNodes();
 
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo;
+
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl.WorkingMemoryReteExpireAction;
+import org.drools.core.phreak.PropagationEntry;
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.impl.PointInTimeTrigger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the expirations of the events of a session in buckets of time, one for each ObjectTypeNode and bucket,
+ * so all the events of a bucket are expired by a single timer job, queueing a single propagation entry, instead of
+ * scheduling a job and queueing a propagation entry for each of them. The entry still expires the events one by one.
+ * <p>
+ * Each event keeps the buckets it is in, so when it is deleted before expiring its expiration is removed from them,
+ * and a bucket left empty cancels its timer job.
+ *
+ * An event expires at the end of the bucket containing its expiration time, so with buckets of n milliseconds
+ * it can be expired up to n - 1 milliseconds late. With the default size of 1 millisecond only the events expiring
+ * at the same time are grouped, so no event is expired late. The size is set with the drools.expirationBucketSize
+ * session property.
+ */
+public class ExpirationBuckets {
+
+    private static final ExpireBucketJob job = new ExpireBucketJob();
+
+    private final InternalWorkingMemory workingMemory;
+    private final long                  bucketSize;
+
+    private final Map<BucketKey, ExpireBucket> buckets = new HashMap<BucketKey, ExpireBucket>();
+
+    public ExpirationBuckets(InternalWorkingMemory workingMemory, long bucketSize) {
+        this.workingMemory = workingMemory;
+        this.bucketSize = bucketSize;
+    }
+
+    public long getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * Returns the time the bucket containing the given expiration time is expired at, i.e. its end
+     */
+    public long getBucketTime(long expirationTime) {
+        if ( bucketSize == 1 ) {
+            return expirationTime;
+        }
+        long bucketTime = Math.floorDiv( expirationTime, bucketSize ) * bucketSize;
+        if ( bucketTime == expirationTime ) {
+            return bucketTime;
+        }
+        bucketTime += bucketSize;
+        return bucketTime > expirationTime ? bucketTime : Long.MAX_VALUE;
+    }
+
+    /**
+     * Adds the given expiration to the bucket containing its expiration time, scheduling the bucket
+     * if this is the first expiration falling into it.
+     */
+    public void scheduleExpiration(WorkingMemoryReteExpireAction action, long expirationTime) {
+        BucketKey key = new BucketKey( action.getNode(), getBucketTime( expirationTime ) );
+        synchronized (buckets) {
+            ExpireBucket bucket = buckets.get( key );
+            if ( bucket == null ) {
+                bucket = new ExpireBucket( this, key );
+                buckets.put( key, bucket );
+                JobHandle jobHandle = workingMemory.getTimerService()
+                                                   .scheduleJob( job,
+                                                                 bucket,
+                                                                 new PointInTimeTrigger( key.time, null, null ) );
+                bucket.setJobHandle( jobHandle );
+            }
+            bucket.actions.put( action.getFactHandle(), action );
+            action.getFactHandle().addExpireBucket( bucket );
+        }
+    }
+
+    /**
+     * Removes the expirations of the given event, e.g. because it has been deleted
+     */
+    public void unscheduleExpirations(EventFactHandle handle) {
+        synchronized (buckets) {
+            List<ExpireBucket> handleBuckets = handle.removeExpireBuckets();
+            if ( handleBuckets == null ) {
+                return;
+            }
+            // a closed bucket is no longer in the buckets of its events, so these are all still scheduled
+            for ( ExpireBucket bucket : handleBuckets ) {
+                bucket.actions.remove( handle );
+                if ( bucket.actions.isEmpty() ) {
+                    buckets.remove( bucket.key );
+                    workingMemory.getTimerService().removeJob( bucket.jobHandle );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buckets scheduled and not yet expired
+     */
+    public int size() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+
+    private List<WorkingMemoryReteExpireAction> close(ExpireBucket bucket) {
+        synchronized (buckets) {
+            // once removed no expiration can be added to or removed from this bucket
+            buckets.remove( bucket.key );
+            for ( EventFactHandle handle : bucket.actions.keySet() ) {
+                handle.removeExpireBucket( bucket );
+            }
+            return new ArrayList<WorkingMemoryReteExpireAction>( bucket.actions.values() );
+        }
+    }
+
+    private static class BucketKey {
+        private final ObjectTypeNode node;
+        private final long           time;
+
+        private BucketKey(ObjectTypeNode node, long time) {
+            this.node = node;
+            this.time = time;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj ) {
+                return true;
+            }
+            if ( !(obj instanceof BucketKey) ) {
+                return false;
+            }
+            BucketKey other = (BucketKey) obj;
+            return node == other.node && time == other.time;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * ( node != null ? node.getId() : 0 ) + (int) ( time ^ ( time >>> 32 ) );
+        }
+    }
+
+    public static class ExpireBucketJob
+            implements
+            Job {
+
+        public void execute(JobContext ctx) {
+            ExpireBucket bucket = (ExpireBucket) ctx;
+            List<WorkingMemoryReteExpireAction> actions = bucket.buckets.close( bucket );
+            InternalWorkingMemory workingMemory = bucket.getWorkingMemory();
+            try {
+                workingMemory.startOperation();
+                workingMemory.addPropagation( new ExpireBucketAction( actions ) );
+            } finally {
+                workingMemory.endOperation();
+            }
+        }
+    }
+
+    public static class ExpireBucket
+            implements
+            JobContext {
+
+        private final transient ExpirationBuckets buckets;
+        private final BucketKey                   key;
+        private JobHandle                         jobHandle;
+
+        // the events are unique in a session, so they are keyed by their handles
+        private final Map<EventFactHandle, WorkingMemoryReteExpireAction> actions = new LinkedHashMap<EventFactHandle, WorkingMemoryReteExpireAction>();
+
+        private ExpireBucket(ExpirationBuckets buckets, BucketKey key) {
+            this.buckets = buckets;
+            this.key = key;
+        }
+
+        public long getTime() {
+            return key.time;
+        }
+
+        public ObjectTypeNode getNode() {
+            return key.node;
+        }
+
+        /**
+         * Returns the expirations in this bucket. It must be read only while the session is not running, e.g. to marshall it.
+         */
+        public Collection<WorkingMemoryReteExpireAction> getExpireActions() {
+            return actions.values();
+        }
+
+        public void setJobHandle(JobHandle jobHandle) {
+            this.jobHandle = jobHandle;
+        }
+
+        public JobHandle getJobHandle() {
+            return jobHandle;
+        }
+
+        public InternalWorkingMemory getWorkingMemory() {
+            return buckets.workingMemory;
+        }
+    }
+
+    /**
+     * Expires all the events of a bucket, one after the other
+     */
+    public static class ExpireBucketAction extends PropagationEntry.AbstractPropagationEntry {
+
+        private final List<? extends PropagationEntry> actions;
+
+        public ExpireBucketAction(List<? extends PropagationEntry> actions) {
+            this.actions = actions;
+        }
+
+        public List<? extends PropagationEntry> getExpireActions() {
+            return actions;
+        }
+
+        public void execute(InternalWorkingMemory wm) {
+            // an event deleted after its bucket has been closed is skipped by its expire action
+            for ( PropagationEntry action : actions ) {
+                action.execute( wm );
+            }
+        }
+
+        @Override
+        public boolean isPartitionSplittable() {
+            return true;
+        }
+
+        @Override
+        public PropagationEntry getSplitForPartition(int partitionNr) {
+            List<PropagationEntry> splits = new ArrayList<PropagationEntry>( actions.size() );
+            for ( PropagationEntry action : actions ) {
+                splits.add( action.getSplitForPartition( partitionNr ) );
+            }
+            return new ExpireBucketAction( splits );
+        }
+
+        @Override
+        public String toString() {
+            return "Expiration of " + actions.size() + " events";
+        }
+    }
+}
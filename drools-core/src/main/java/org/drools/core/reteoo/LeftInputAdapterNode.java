@@ -172,6 +172,25 @@ public class LeftInputAdapterNode extends LeftTupleSource
                         true );
     }
 
+    /**
+     * Stages the left tuples of a group of facts, looking up the node and segment memories only once
+     */
+    @Override
+    public void assertObjects(final InternalFactHandle[] factHandles,
+                              final PropagationContext[] contexts,
+                              final InternalWorkingMemory workingMemory) {
+        LiaNodeMemory lm = workingMemory.getNodeMemory( this );
+        if ( lm.getSegmentMemory() == null ) {
+            SegmentUtilities.createSegmentMemory(this, workingMemory);
+        }
+
+        for ( int i = 0; i < factHandles.length; i++ ) {
+            doInsertObject( factHandles[i], contexts[i], this, workingMemory,
+                            lm, true, // queries are handled directly, and not through here
+                            true );
+        }
+    }
+
     public static void doInsertObject(final InternalFactHandle factHandle,
                                       final PropagationContext context,
                                       final LeftInputAdapterNode liaNode,
@@ -34,6 +34,18 @@ public interface ObjectSink
                              PropagationContext propagationContext,
                              InternalWorkingMemory workingMemory);
 
+    /**
+     * Asserts a group of facts of the same type, each one with its own context. The sinks that can share
+     * their work among the facts override it, the others assert them one by one.
+     */
+    default void assertObjects(InternalFactHandle[] factHandles,
+                               PropagationContext[] contexts,
+                               InternalWorkingMemory workingMemory) {
+        for ( int i = 0; i < factHandles.length; i++ ) {
+            assertObject( factHandles[i], contexts[i], workingMemory );
+        }
+    }
+
     public void modifyObject(InternalFactHandle factHandle,
                              ModifyPreviousTuples modifyPreviousTuples,
                              PropagationContext context,
@@ -37,6 +37,14 @@ public interface ObjectSinkPropagator
                                PropagationContext context,
                                InternalWorkingMemory workingMemory);
 
+    default void propagateAssertObjects(InternalFactHandle[] factHandles,
+                                        PropagationContext[] contexts,
+                                        InternalWorkingMemory workingMemory) {
+        for ( int i = 0; i < factHandles.length; i++ ) {
+            propagateAssertObject( factHandles[i], contexts[i], workingMemory );
+        }
+    }
+
     BaseNode getMatchingNode(BaseNode candidate);
 
     ObjectSink[] getSinks();
@@ -213,6 +213,7 @@ public abstract class ObjectSource extends BaseNode
      */
     public void addObjectSink(final ObjectSink objectSink) {
         this.sink = this.sink.addObjectSink( objectSink, this.alphaNodeHashingThreshold );
+        resetCompiledNetwork();
     }
 
     /**
@@ -223,6 +224,17 @@ public abstract class ObjectSource extends BaseNode
      */
     public void removeObjectSink(final ObjectSink objectSink) {
         this.sink = this.sink.removeObjectSink( objectSink );
+        resetCompiledNetwork();
+    }
+
+    /**
+     * Discards the compiled network containing this node, if any, since it doesn't reflect
+     * the sinks of this node anymore.
+     */
+    protected void resetCompiledNetwork() {
+        if ( this.source != null ) {
+            this.source.resetCompiledNetwork();
+        }
     }
 
     public abstract void updateSink(ObjectSink sink,
@@ -239,6 +251,7 @@ public abstract class ObjectSource extends BaseNode
 
     public void setObjectSinkPropagator(ObjectSinkPropagator sink) {
         this.sink = sink;
+        resetCompiledNetwork();
     }
 
     public boolean isInUse() {
@@ -20,7 +20,6 @@ import org.drools.core.InitialFact;
 import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.base.ClassObjectType;
 import org.drools.core.base.ValueType;
-import org.drools.core.common.ClassAwareObjectStore;
 import org.drools.core.common.DefaultFactHandle;
 import org.drools.core.common.DroolsObjectInputStream;
 import org.drools.core.common.EventFactHandle;
@@ -29,29 +28,20 @@ import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.InternalWorkingMemoryEntryPoint;
 import org.drools.core.common.Memory;
 import org.drools.core.common.MemoryFactory;
+import org.drools.core.common.ObjectStore;
 import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.common.UpdateContext;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl.WorkingMemoryReteExpireAction;
 import org.drools.core.marshalling.impl.MarshallerReaderContext;
-import org.drools.core.marshalling.impl.MarshallerWriteContext;
-import org.drools.core.marshalling.impl.PersisterEnums;
-import org.drools.core.marshalling.impl.ProtobufMessages;
 import org.drools.core.marshalling.impl.ProtobufMessages.Timers.ExpireTimer;
 import org.drools.core.marshalling.impl.ProtobufMessages.Timers.Timer;
 import org.drools.core.marshalling.impl.TimersInputMarshaller;
-import org.drools.core.marshalling.impl.TimersOutputMarshaller;
 import org.drools.core.reteoo.RuleRemovalContext.CleanupAdapter;
 import org.drools.core.reteoo.builder.BuildContext;
 import org.drools.core.reteoo.compiled.CompiledNetwork;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.spi.ObjectType;
 import org.drools.core.spi.PropagationContext;
-import org.drools.core.time.Job;
-import org.drools.core.time.JobContext;
-import org.drools.core.time.JobHandle;
-import org.drools.core.time.TimerService;
-import org.drools.core.time.impl.DefaultJobHandle;
-import org.drools.core.time.impl.PointInTimeTrigger;
 import org.drools.core.util.bitmask.BitMask;
 import org.drools.core.util.bitmask.EmptyBitMask;
 
@@ -95,8 +85,6 @@ public class ObjectTypeNode extends ObjectSource
 
     private boolean objectMemoryEnabled;
 
-    private static final transient ExpireJob job = new ExpireJob();
-
     private long                            expirationOffset = -1;
 
     private boolean queryNode;
@@ -263,10 +251,21 @@ public class ObjectTypeNode extends ObjectSource
         return this.objectType.isAssignableFrom(objectType);
     }
 
+    public CompiledNetwork getCompiledNetwork() {
+        return this.compiledNetwork;
+    }
+
     public void setCompiledNetwork(CompiledNetwork compiledNetwork) {
+        if (compiledNetwork != null) {
+            compiledNetwork.setObjectTypeNode(this);
+        }
         this.compiledNetwork = compiledNetwork;
+    }
 
-        this.compiledNetwork.setObjectTypeNode(this);
+    @Override
+    protected void resetCompiledNetwork() {
+        // the network below this node changed, so it will be interpreted until it gets compiled again
+        this.compiledNetwork = null;
     }
 
     public void assertInitialFact(final InternalFactHandle factHandle,
@@ -320,6 +319,22 @@ public class ObjectTypeNode extends ObjectSource
         }
     }
 
+    /**
+     * Propagates a group of facts of the type of this node in a single pass through its sinks
+     */
+    public void propagateAssert(InternalFactHandle[] factHandles, PropagationContext[] contexts, InternalWorkingMemory workingMemory) {
+        checkDirty();
+        if (compiledNetwork != null) {
+            compiledNetwork.assertObjects(factHandles,
+                                          contexts,
+                                          workingMemory);
+        } else {
+            this.sink.propagateAssertObjects(factHandles,
+                                             contexts,
+                                             workingMemory);
+        }
+    }
+
     /**
      * Retract the <code>FactHandleimpl</code> from the <code>Rete</code> network. Also remove the
      * <code>FactHandleImpl</code> from the node memory.
@@ -585,103 +600,6 @@ public class ObjectTypeNode extends ObjectSource
         }
     }
 
-    public static class ExpireJob
-            implements
-            Job {
-
-        public void execute(JobContext ctx) {
-            ExpireJobContext context = (ExpireJobContext) ctx;
-            context.workingMemory.queueWorkingMemoryAction(context.expireAction);
-            context.getExpireAction().getFactHandle().removeJob( context.getJobHandle());
-        }
-    }
-
-    public static class ExpireJobContext
-            implements
-            JobContext,
-            Externalizable {
-        public final WorkingMemoryReteExpireAction expireAction;
-        public final InternalWorkingMemory         workingMemory;
-        public JobHandle                     handle;
-
-        public ExpireJobContext(WorkingMemoryReteExpireAction expireAction,
-                                InternalWorkingMemory workingMemory) {
-            super();
-            this.expireAction = expireAction;
-            this.workingMemory = workingMemory;
-        }
-
-        public JobHandle getJobHandle() {
-            return this.handle;
-        }
-
-        public void setJobHandle(JobHandle jobHandle) {
-            this.handle = jobHandle;
-        }
-
-        public WorkingMemoryReteExpireAction getExpireAction() {
-            return expireAction;
-        }
-
-        public InternalWorkingMemory getWorkingMemory() {
-            return workingMemory;
-        }
-
-        public JobHandle getHandle() {
-            return handle;
-        }
-
-        public void setHandle(JobHandle handle) {
-            this.handle = handle;
-        }
-
-        public void readExternal(ObjectInput in) throws IOException,
-                                                        ClassNotFoundException {
-            //this.behavior = (O)
-        }
-
-        public void writeExternal(ObjectOutput out) throws IOException {
-            // TODO Auto-generated method stub
-
-        }
-    }
-
-    public static class ExpireJobContextTimerOutputMarshaller
-            implements
-            TimersOutputMarshaller {
-        public void write(JobContext jobCtx,
-                          MarshallerWriteContext outputCtx) throws IOException {
-            outputCtx.writeShort( PersisterEnums.EXPIRE_TIMER );
-
-            // ExpireJob, no state
-            ExpireJobContext ejobCtx = (ExpireJobContext) jobCtx;
-            WorkingMemoryReteExpireAction expireAction = ejobCtx.getExpireAction();
-            outputCtx.writeInt( expireAction.getFactHandle().getId() );
-
-            DefaultJobHandle jobHandle = (DefaultJobHandle) ejobCtx.getJobHandle();
-            PointInTimeTrigger trigger = (PointInTimeTrigger) jobHandle.getTimerJobInstance().getTrigger();
-            outputCtx.writeLong( trigger.hasNextFireTime().getTime() );
-
-        }
-
-        public ProtobufMessages.Timers.Timer serialize(JobContext jobCtx,
-                                                       MarshallerWriteContext outputCtx) {
-            // ExpireJob, no state
-            ExpireJobContext ejobCtx = ( ExpireJobContext ) jobCtx;
-            WorkingMemoryReteExpireAction expireAction = ejobCtx.getExpireAction();
-            DefaultJobHandle jobHandle = ( DefaultJobHandle ) ejobCtx.getJobHandle();
-            PointInTimeTrigger trigger = ( PointInTimeTrigger ) jobHandle.getTimerJobInstance().getTrigger();
-
-            return ProtobufMessages.Timers.Timer.newBuilder()
-                                                .setType( ProtobufMessages.Timers.TimerType.EXPIRE )
-                                                .setExpire( ProtobufMessages.Timers.ExpireTimer.newBuilder()
-                                                                                               .setHandleId( expireAction.getFactHandle().getId() )
-                                                                                               .setNextFireTimestamp( trigger.hasNextFireTime().getTime() )
-                                                                                               .build() )
-                                                .build();
-        }
-    }
-
     public static class ExpireJobContextTimerInputMarshaller
             implements
             TimersInputMarshaller {
@@ -692,17 +610,8 @@ public class ObjectTypeNode extends ObjectSource
 
             long nextTimeStamp = inCtx.readLong();
 
-            TimerService clock = inCtx.wm.getTimerService();
-
-            JobContext jobctx = new ExpireJobContext( new WorkingMemoryReteExpireAction( (EventFactHandle) factHandle ),
-                                                      inCtx.wm );
-            JobHandle handle = clock.scheduleJob( job,
-                                                  jobctx,
-                                                  new PointInTimeTrigger( nextTimeStamp,
-                                                                          null,
-                                                                          null ) );
-            jobctx.setJobHandle( handle );
-
+            inCtx.wm.getExpirationBuckets().scheduleExpiration( new WorkingMemoryReteExpireAction( (EventFactHandle) factHandle ),
+                                                                nextTimeStamp );
         }
 
         public void deserialize(MarshallerReaderContext inCtx,
@@ -710,15 +619,9 @@ public class ObjectTypeNode extends ObjectSource
             ExpireTimer _expire = _timer.getExpire();
             InternalFactHandle factHandle = inCtx.handles.get( _expire.getHandleId() );
 
-            TimerService clock = inCtx.wm.getTimerService();
-
-            JobContext jobctx = new ExpireJobContext( new WorkingMemoryReteExpireAction((EventFactHandle)factHandle),
-                                                      inCtx.wm );
-            JobHandle jobHandle = clock.scheduleJob( job,
-                                                     jobctx,
-                                                     new PointInTimeTrigger( _expire.getNextFireTimestamp(), null, null ) );
-            jobctx.setJobHandle( jobHandle );
-            ((EventFactHandle) factHandle).addJob(jobHandle);
+            // the expirations are restored in buckets, also when they have been marshalled by a job for each event
+            inCtx.wm.getExpirationBuckets().scheduleExpiration( new WorkingMemoryReteExpireAction( (EventFactHandle) factHandle ),
+                                                                _expire.getNextFireTimestamp() );
         }
     }
 
@@ -731,7 +634,7 @@ public class ObjectTypeNode extends ObjectSource
 
 
     public static class ObjectTypeNodeMemory implements Memory {
-        private ClassAwareObjectStore.SingleClassStore store;
+        private ObjectStore store;
         private Class<?> classType;
 
         ObjectTypeNodeMemory(Class<?> classType) {
@@ -740,7 +643,7 @@ public class ObjectTypeNode extends ObjectSource
 
         ObjectTypeNodeMemory(Class<?> classType, InternalWorkingMemory wm) {
             this(classType);
-            store = ((ClassAwareObjectStore) wm.getObjectStore()).getOrCreateClassStore(classType);
+            store = wm.getObjectStore();
         }
 
         public short getNodeType() {
@@ -748,7 +651,7 @@ public class ObjectTypeNode extends ObjectSource
         }
 
         public Iterator<InternalFactHandle> iterator() {
-            return store.factHandlesIterator(true);
+            return store.iterateFactHandles(classType);
         }
 
         public SegmentMemory getSegmentMemory() {
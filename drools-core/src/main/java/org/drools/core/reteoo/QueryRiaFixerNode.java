@@ -369,7 +369,7 @@ public class QueryRiaFixerNode extends LeftTupleSource
                 contextEntry.updateFromTuple(workingMemory, leftTuple);
 
                 FastIterator rightIt = rightMemory.fastIterator();
-                for (Tuple rightTuple = rightMemory.getFirst(leftTuple); rightTuple != null; ) {
+                for (Tuple rightTuple = rightMemory.getFirst(leftTuple, rightIt); rightTuple != null; ) {
                     Tuple temp = (Tuple) rightIt.next(rightTuple);
 
                     if (constraint.isAllowedCachedLeft(contextEntry, rightTuple.getFactHandle())) {
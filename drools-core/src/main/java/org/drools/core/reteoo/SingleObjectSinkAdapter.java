@@ -72,6 +72,14 @@ public class SingleObjectSinkAdapter implements ObjectSinkPropagator {
                                 workingMemory );
     }
 
+    public void propagateAssertObjects(final InternalFactHandle[] factHandles,
+                                       final PropagationContext[] contexts,
+                                       final InternalWorkingMemory workingMemory) {
+        this.sink.assertObjects( factHandles,
+                                 contexts,
+                                 workingMemory );
+    }
+
     public void propagateModifyObject(InternalFactHandle factHandle,
                                             ModifyPreviousTuples modifyPreviousTuples,
                                             PropagationContext context,
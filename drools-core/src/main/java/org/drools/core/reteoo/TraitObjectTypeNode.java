@@ -68,6 +68,14 @@ public class TraitObjectTypeNode extends ObjectTypeNode {
         }
     }
 
+    @Override
+    public void propagateAssert( InternalFactHandle[] factHandles, PropagationContext[] contexts, InternalWorkingMemory workingMemory ) {
+        // the veto of the trait proxies is checked fact by fact
+        for ( int i = 0; i < factHandles.length; i++ ) {
+            propagateAssert( factHandles[i], contexts[i], workingMemory );
+        }
+    }
+
     private boolean isAssertAllowed( InternalFactHandle factHandle ) {
         if ( factHandle.isTraiting() )  {
             TraitProxy proxy = (TraitProxy) factHandle.getObject();
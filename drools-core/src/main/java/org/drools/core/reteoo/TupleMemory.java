@@ -24,10 +24,10 @@ import org.drools.core.util.Iterator;
 public interface TupleMemory {
 
     enum IndexType {
-        NONE, EQUAL, COMPARISON, RANGE;
+        NONE, EQUAL, COMPARISON, RANGE, TEMPORAL;
 
         public boolean isComparison() {
-            return this == COMPARISON || this == RANGE;
+            return this == COMPARISON || this == RANGE || this == TEMPORAL;
         }
     }
 
@@ -38,6 +38,15 @@ public interface TupleMemory {
      * the same as the context fact.
      */
     Tuple getFirst( Tuple leftTuple );
+
+    /**
+     * Returns the first tuple matching the given one, as getFirst(Tuple), starting an iteration of the given iterator,
+     * obtained from fastIterator, to get the following ones. A memory whose iteration depends on the given tuple keeps
+     * its state in the iterator, so the iterations of different tuples on the same memory don't interfere.
+     */
+    default Tuple getFirst( Tuple leftTuple, FastIterator it ) {
+        return getFirst( leftTuple );
+    }
     
     void removeAdd( Tuple rightTuple );
 
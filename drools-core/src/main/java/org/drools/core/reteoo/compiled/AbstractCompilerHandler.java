@@ -16,40 +16,42 @@
 
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.HashKey;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.Sink;
-import org.drools.core.rule.ContextEntry;
+import org.drools.core.spi.AlphaNodeFieldConstraint;
+
+import java.lang.reflect.Modifier;
 
 /**
  * This handler is used as a base class for all {@link org.kie.reteoo.compiled.NetworkHandler}s used for
  * generating a compiled network. It provides methods to return the variable type and names used for storing
- * refernces to different {@link org.kie.common.NetworkNode}s and variable names for {@link ClassFieldReader}s.
+ * refernces to different {@link org.kie.common.NetworkNode}s and to the hashed alphas of a node.
  */
 abstract class AbstractCompilerHandler extends NetworkHandlerAdaptor {
     protected static final String NEWLINE = "\n";
 
-    private static final String MAP_VARIABLE_NAME_SUFFIX = "ToNodeId";
+    private static final String HASHED_SINKS_VARIABLE_PREFIX = "hashedSinks";
+    private static final String FIELD_INDEX_VARIABLE_PREFIX = "fieldIndex";
+    private static final String HASHED_ALPHA_VARIABLE_PREFIX = "hashedAlpha";
 
-    protected Class<?> getVariableType(AlphaNode alphaNode) {
+    protected Class<?> getConstraintVariableType(AlphaNode alphaNode) {
 
-        // for alphas, we use the constraint of the alpha for the declaration
-        return alphaNode.getConstraint().getClass();
+        // the constraint is only invoked through its interface, so it can be of any type
+        return AlphaNodeFieldConstraint.class;
     }
 
     protected Class<?> getVariableType(Sink sink) {
-
-        return sink.getClass();
-    }
-
-    protected String getVariableName(AlphaNode alphaNode) {
-        Class<?> variableType = getVariableType(alphaNode);
-
-        return getVariableName(variableType, alphaNode.getId());
+        Class<?> sinkClass = sink.getClass();
+        // the sink could be of a type not visible from the generated class
+        return Modifier.isPublic(sinkClass.getModifiers()) && sinkClass.getEnclosingClass() == null ? sinkClass : ObjectSink.class;
     }
 
-    protected String getContextVariableName(AlphaNode alphaNode) {
-        Class<?> variableType = ContextEntry.class;
+    protected String getConstraintVariableName(AlphaNode alphaNode) {
+        Class<?> variableType = getConstraintVariableType(alphaNode);
 
         return getVariableName(variableType, alphaNode.getId());
     }
@@ -60,8 +62,52 @@ abstract class AbstractCompilerHandler extends NetworkHandlerAdaptor {
         return getVariableName(variableType, sink.getId());
     }
 
-    protected String getVariableName(ClassFieldReader fieldReader) {
-        return fieldReader.getFieldName() + MAP_VARIABLE_NAME_SUFFIX;
+    protected String getHashedSinksVariableName(ObjectSource parent, FieldIndex fieldIndex) {
+        return HASHED_SINKS_VARIABLE_PREFIX + getHashedAlphasSuffix(parent, fieldIndex.getIndex());
+    }
+
+    protected String getFieldIndexVariableName(ObjectSource parent, FieldIndex fieldIndex) {
+        return FIELD_INDEX_VARIABLE_PREFIX + getHashedAlphasSuffix(parent, fieldIndex.getIndex());
+    }
+
+    protected String getHashedAlphaVariableName(ObjectSource parent, FieldIndex fieldIndex) {
+        return HASHED_ALPHA_VARIABLE_PREFIX + getHashedAlphasSuffix(parent, fieldIndex.getIndex());
+    }
+
+    /**
+     * Appends the opening of the switch statement over the hashed alpha matching the fact, if any. Every
+     * hashed alpha is then a case of the switch, closed by {@link #appendHashedAlphaSwitchEnd}.
+     */
+    protected void appendHashedAlphaSwitchStart(StringBuilder builder, ObjectSource parent, FieldIndex fieldIndex, String factHandleVariableName) {
+        String hashedAlphaVariableName = getHashedAlphaVariableName(parent, fieldIndex);
+
+        // example of what this will look like
+        // AlphaNode hashedAlpha4_0 = (AlphaNode) hashedSinks4_0.get(new HashKey(fieldIndex4_0, handle.getObject()));
+        builder.append(AlphaNode.class.getName()).append(" ").append(hashedAlphaVariableName).
+                append(" = (").append(AlphaNode.class.getName()).append(") ").
+                append(getHashedSinksVariableName(parent, fieldIndex)).append(".get(new ").
+                append(HashKey.class.getCanonicalName()).append("(").
+                append(getFieldIndexVariableName(parent, fieldIndex)).append(", ").
+                append(factHandleVariableName).append(".getObject()));").append(NEWLINE);
+
+        // ensure that an alpha with the fact's value exists
+        builder.append("if(").append(hashedAlphaVariableName).append(" != null) {").append(NEWLINE);
+        builder.append("switch(").append(hashedAlphaVariableName).append(".getId()) {").append(NEWLINE);
+    }
+
+    protected void appendHashedAlphaSwitchEnd(StringBuilder builder) {
+        // close switch statement
+        builder.append("}").append(NEWLINE);
+        // and if statement for ensuring non-null
+        builder.append("}").append(NEWLINE);
+    }
+
+    /**
+     * Returns the suffix of the variables used for a group of hashed alphas, made of the id of the node
+     * owning them and of the index of the hashed field, since the same node can hash its alphas on more fields.
+     */
+    private String getHashedAlphasSuffix(ObjectSource parent, int fieldIndex) {
+        return parent.getId() + "_" + fieldIndex;
     }
 
     /**
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.reteoo.compiled;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.kie.internal.utils.ServiceRegistryImpl;
+
+import java.util.Collection;
+
+public class AlphaNetworkCompilerFactory {
+
+    private static final String PROVIDER_CLASS = "org.drools.compiler.reteoo.compiled.AlphaNetworkCompilerServiceImpl";
+
+    private static AlphaNetworkCompilerService provider = initializeProvider();
+
+    private static AlphaNetworkCompilerService initializeProvider() {
+        AlphaNetworkCompilerService service = null;
+        try {
+            ServiceRegistryImpl.getInstance().addDefault(AlphaNetworkCompilerService.class, PROVIDER_CLASS);
+            service = ServiceRegistryImpl.getInstance().get(AlphaNetworkCompilerService.class);
+        } catch (IllegalArgumentException e) {
+            // intentionally ignored
+        }
+        return service;
+    }
+
+    /**
+     * Compiles the networks of the given ObjectTypeNodes, returning false if drools-compiler is not available
+     */
+    public static boolean compile(InternalKnowledgeBase kbase, Collection<ObjectTypeNode> objectTypeNodes) {
+        if (provider == null) {
+            return false;
+        }
+        provider.compile(kbase, objectTypeNodes);
+        return true;
+    }
+
+    public static void setAlphaNetworkCompilerService(AlphaNetworkCompilerService provider) {
+        AlphaNetworkCompilerFactory.provider = provider;
+    }
+
+    public static AlphaNetworkCompilerService getAlphaNetworkCompilerService() {
+        return provider;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.reteoo.compiled;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.kie.api.Service;
+
+import java.util.Collection;
+
+/**
+ * AlphaNetworkCompilerService is used by the KnowledgeBaseImpl to compile the alpha networks of its
+ * ObjectTypeNodes into {@link CompiledNetwork}s, when enabled in the RuleBaseConfiguration.
+ */
+public interface AlphaNetworkCompilerService extends Service {
+
+    /**
+     * Compiles the network of each of the given ObjectTypeNodes and sets it on the node. The nodes whose
+     * network cannot be compiled are left unchanged, so they keep being interpreted.
+     */
+    void compile(InternalKnowledgeBase kbase, Collection<ObjectTypeNode> objectTypeNodes);
+}
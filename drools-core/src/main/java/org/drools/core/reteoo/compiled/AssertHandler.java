@@ -14,22 +14,28 @@
  * limitations under the License.
  */
 
+
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.Sink;
 import org.drools.core.spi.PropagationContext;
 
 /**
- * todo: document
+ * This handler is used to create the {@link CompiledNetwork#assertObject} method of a generated subclass of
+ * a {@link CompiledNetwork}: every non-hashed alpha becomes an if statement evaluating its constraint, every set
+ * of hashed alphas a switch statement over the alpha matching the value of the fact, while the other sinks are
+ * asserted into.
  */
 public class AssertHandler extends AbstractCompilerHandler {
-    private static final String LOCAL_FACT_VAR_NAME = "fact";
 
     private static final String FACT_HANDLE_PARAM_TYPE = InternalFactHandle.class.getName();
     private static final String PROP_CONTEXT_PARAM_TYPE = PropagationContext.class.getName();
@@ -44,66 +50,44 @@ public class AssertHandler extends AbstractCompilerHandler {
             + PROP_CONTEXT_PARAM_TYPE + " " + PROP_CONTEXT_PARAM_NAME + ","
             + WORKING_MEMORY_PARAM_TYPE + " " + WORKING_MEMORY_PARAM_NAME + "){";
 
-    /**
-     * This flag is used to instruct the AssertHandler to tell it to generate a local varible
-     * in the {@link org.kie.reteoo.compiled.CompiledNetwork#assertObject} for holding the value returned
-     * from the {@link org.kie.common.InternalFactHandle#getFactHandle()}.
-     *
-     * This is only needed if there is at least 1 set of hashed alpha nodes in the network
-     */
-    private final boolean alphaNetContainsHashedField;
-
     private final StringBuilder builder;
-    private final String factClassName;
 
-    AssertHandler(StringBuilder builder, String factClassName) {
-        this(builder, factClassName, false);
-    }
-
-    public AssertHandler(StringBuilder builder, String factClassName, boolean alphaNetContainsHashedField) {
+    public AssertHandler(StringBuilder builder) {
         this.builder = builder;
-        this.factClassName = factClassName;
-        this.alphaNetContainsHashedField = alphaNetContainsHashedField;
     }
 
     @Override
     public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
         builder.append(ASSERT_METHOD_SIGNATURE).append(NEWLINE);
-
-        // we only need to create a reference to the object, not handle, if there is a hashed alpha in the network
-        if (alphaNetContainsHashedField) {
-            // example of what this will look like
-            // ExampleFact fact = (ExampleFact) handle.getObject();
-            builder.append(factClassName).append(" ").append(LOCAL_FACT_VAR_NAME).
-                    append(" = (").append(factClassName).append(")").
-                    append(FACT_HANDLE_PARAM_NAME).append(".getObject();").
-                    append(NEWLINE);
-        }
     }
 
-    @Override
-    public void startBetaNode(BetaNode betaNode) {
-        builder.append(getVariableName(betaNode)).append(".assertObject(").
+    private void appendAssertObject(Sink sink) {
+        builder.append(getVariableName(sink)).append(".assertObject(").
                 append(FACT_HANDLE_PARAM_NAME).append(",").
                 append(PROP_CONTEXT_PARAM_NAME).append(",").
                 append(WORKING_MEMORY_PARAM_NAME).append(");").append(NEWLINE);
     }
 
+    @Override
+    public void startBetaNode(BetaNode betaNode) {
+        appendAssertObject(betaNode);
+    }
+
     @Override
     public void startLeftInputAdapterNode(LeftInputAdapterNode leftInputAdapterNode) {
-        builder.append(getVariableName(leftInputAdapterNode)).append(".assertObject(").
-                append(FACT_HANDLE_PARAM_NAME).append(",").
-                append(PROP_CONTEXT_PARAM_NAME).append(",").
-                append(WORKING_MEMORY_PARAM_NAME).append(");").append(NEWLINE);
+        appendAssertObject(leftInputAdapterNode);
+    }
+
+    @Override
+    public void startObjectSink(ObjectSink sink) {
+        appendAssertObject(sink);
     }
 
     @Override
     public void startNonHashedAlphaNode(AlphaNode alphaNode) {
-        builder.append("if ( ").append(getVariableName(alphaNode)).
+        builder.append("if ( ").append(getConstraintVariableName(alphaNode)).
                 append(".isAllowed(").append(FACT_HANDLE_PARAM_NAME).append(",").
-                append(WORKING_MEMORY_PARAM_NAME).append(", ").
-                append(getContextVariableName(alphaNode)).append(") ) {").append(NEWLINE);
-
+                append(WORKING_MEMORY_PARAM_NAME).append(") ) {").append(NEWLINE);
     }
 
     @Override
@@ -113,28 +97,13 @@ public class AssertHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        String attributeName = hashedFieldReader.getFieldName();
-        String localVariableName = attributeName + "NodeId";
-
-        // todo get accessor smarter because of booleans. Note that right now booleans wouldn't be hashed
-        String attributeGetterName = "get" + Character.toTitleCase(attributeName.charAt(0)) + attributeName.substring(1);
-
-        // get the attribute from the fact that we are switching over
-        builder.append("Integer ").append(localVariableName);
-        // todo we are casting to Integer because generics aren't supported
-        builder.append(" = (Integer)").append(getVariableName(hashedFieldReader)).append(".get(").
-                append(LOCAL_FACT_VAR_NAME).append(".").append(attributeGetterName)
-                .append("());").append(NEWLINE);
-
-        // ensure that the value is present in the node map
-        builder.append("if(").append(localVariableName).append(" != null) {").append(NEWLINE);
-        // todo we had the .intValue() because JANINO has a problem with it
-        builder.append("switch(").append(localVariableName).append(".intValue()) {").append(NEWLINE);
+    public void startHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
+        appendHashedAlphaSwitchStart(builder, parent, hashedFieldIndex, FACT_HANDLE_PARAM_NAME);
     }
 
     @Override
     public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        // no need to evaluate the constraint, as we know it's true
         builder.append("case ").append(hashedAlpha.getId()).append(" : ").append(NEWLINE);
     }
 
@@ -144,11 +113,8 @@ public class AssertHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void endHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        // close switch statement
-        builder.append("}").append(NEWLINE);
-        // and if statement for ensuring non-null
-        builder.append("}").append(NEWLINE);
+    public void endHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
+        appendHashedAlphaSwitchEnd(builder);
     }
 
     @Override
@@ -16,9 +16,13 @@
 
 package org.drools.core.reteoo.compiled;
 
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.NetworkNode;
 import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.reteoo.*;
+import org.drools.core.spi.PropagationContext;
+import org.kie.api.definition.rule.Rule;
 
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -27,6 +31,8 @@ import java.io.ObjectOutput;
 /**
  * This is the base type for all generated classes that that represent a "compiled" portion of the RETE network.
  * By compiled we mean IF statements, switch statements, etc. as opposed to nodes, propagators, etc.
+ * The generated subclasses implement the assertObject and modifyObject methods, while the other methods of
+ * the sink are delegated to the {@link ObjectTypeNode} the network has been compiled for.
  */
 public abstract class CompiledNetwork implements ObjectSink {
 
@@ -50,6 +56,41 @@ public abstract class CompiledNetwork implements ObjectSink {
         return objectTypeNode.getPartitionId();
     }
 
+    public short getType() {
+        return objectTypeNode.getType();
+    }
+
+    public int getAssociationsSize() {
+        return objectTypeNode.getAssociationsSize();
+    }
+
+    public int getAssociatedRuleSize() {
+        return objectTypeNode.getAssociatedRuleSize();
+    }
+
+    public int getAssociationsSize(Rule rule) {
+        return objectTypeNode.getAssociationsSize(rule);
+    }
+
+    public boolean isAssociatedWith(Rule rule) {
+        return objectTypeNode.isAssociatedWith(rule);
+    }
+
+    public boolean thisNodeEquals(Object object) {
+        return objectTypeNode.thisNodeEquals(object);
+    }
+
+    public ObjectTypeNode getObjectTypeNode() {
+        return objectTypeNode;
+    }
+
+    public void byPassModifyToBetaNode(InternalFactHandle factHandle,
+                                       ModifyPreviousTuples modifyPreviousTuples,
+                                       PropagationContext context,
+                                       InternalWorkingMemory workingMemory) {
+        objectTypeNode.getObjectSinkPropagator().byPassModifyToBetaNode(factHandle, modifyPreviousTuples, context, workingMemory);
+    }
+
     /**
      * The object implements the writeExternal method to save its contents
      * by calling the methods of DataOutput for its primitive values or
@@ -123,6 +164,10 @@ public abstract class CompiledNetwork implements ObjectSink {
             setNetworkNodeReference(leftInputAdapterNode);
         }
 
+        public void startObjectSink(ObjectSink sink) {
+            setNetworkNodeReference(sink);
+        }
+
         public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
             setNetworkNodeReference(hashedAlpha);
         }
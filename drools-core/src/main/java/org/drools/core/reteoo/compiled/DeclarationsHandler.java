@@ -16,93 +16,62 @@
 
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.Sink;
-import org.drools.core.rule.ContextEntry;
-
-import java.util.*;
+import org.drools.core.util.ObjectHashMap;
 
 /**
  * This handler is used to create the member declarations section of a generated subclass of a {@link CompiledNetwork}.
- * Currently we only create member variables for the following types of nodes:
+ * Currently we create member variables for the following types of nodes:
  * <p/>
- * <li>Non-hashed {@link AlphaNode}s</li>
+ * <li>Non-hashed {@link AlphaNode}s, together with their constraint</li>
  * <li>{@link LeftInputAdapterNode}s</li>
  * <li>{@link BetaNode}s</li>
- * <li>A {@link Map} for each set of hashed {@link AlphaNode}s. The keys are the hashed values, and the values are
- * the IDs of the alphas</li>
+ * <li>Any other {@link ObjectSink}</li>
+ * <li>The {@link ObjectHashMap} containing each set of hashed {@link AlphaNode}s, together with the
+ * {@link CompositeObjectSinkAdapter.FieldIndex} used to look them up</li>
  */
 public class DeclarationsHandler extends AbstractCompilerHandler {
     private static final String PRIVATE_MODIFIER = "private";
 
-    /**
-     * This field keeps track of the current set of hashed AlphaNodes for a ClassReader.
-     *
-     * @see #startHashedAlphaNodes(org.kie.base.ClassFieldReader)
-     * @see #startHashedAlphaNode(org.kie.reteoo.AlphaNode, Object)
-     */
-    private HashedAlphasDeclaration currentHashedAlpha;
-
     private final StringBuilder builder;
 
-    /**
-     * Keeps track of all the ClassFieldReaders for hashed alphas, and the maps that contain hashed values/node ids
-     * for said alphas.
-     */
-    private final Collection<HashedAlphasDeclaration> hashedAlphaDeclarations;
-
     public DeclarationsHandler(StringBuilder builder) {
         this.builder = builder;
-        this.hashedAlphaDeclarations = new LinkedList<HashedAlphasDeclaration>();
     }
 
-    private String getVariableDeclaration(AlphaNode alphaNode) {
-        Class<?> variableType = getVariableType(alphaNode);
-        String variableName = getVariableName(alphaNode);
+    private String getConstraintVariableDeclaration(AlphaNode alphaNode) {
+        Class<?> variableType = getConstraintVariableType(alphaNode);
+        String variableName = getConstraintVariableName(alphaNode);
         // comment for variable declaration is just the toString of the node
-        String comment = alphaNode.toString();
-
-        return PRIVATE_MODIFIER + " " + variableType.getName() + " " + variableName + "; // " + comment;
-    }
-
-    private String getContextVariableDeclaration(AlphaNode alphaNode){
-        Class<?> variableType = ContextEntry.class;
-        String variableName = getContextVariableName(alphaNode);
+        String comment = getComment(alphaNode);
 
-        return PRIVATE_MODIFIER + " " + variableType.getName() + " " + variableName + ";";
+        return PRIVATE_MODIFIER + " " + variableType.getCanonicalName() + " " + variableName + "; // " + comment;
     }
 
     private String getVariableDeclaration(Sink sink) {
         Class<?> declarationType = getVariableType(sink);
         String variableName = getVariableName(sink);
         // comment for variable declaration is just the toString of the node
-        String comment = sink.toString();
+        String comment = getComment(sink);
 
-        return PRIVATE_MODIFIER + " " + declarationType.getName() + " " + variableName + "; // " + comment;
+        return PRIVATE_MODIFIER + " " + declarationType.getCanonicalName() + " " + variableName + "; // " + comment;
     }
 
-    private String getVariableDeclaration(ClassFieldReader fieldReader) {
-        Class<?> declarationType = Map.class;
-        Class<?> createType = HashMap.class;
-        String variableName = getVariableName(fieldReader);
-
-        // todo JANINO doesn't support generics
-        // return "private java.util.Map<Object,Integer> " + variableName + " = new java.util.HashMap<Object,Integer>();";
-        return PRIVATE_MODIFIER + " " + declarationType.getName() + " " + variableName
-                + " = new " + createType.getName() + "();";
-    }
-
-    public Collection<HashedAlphasDeclaration> getHashedAlphaDeclarations() {
-        return Collections.unmodifiableCollection(hashedAlphaDeclarations);
+    private String getComment(Sink sink) {
+        // the constraints of the node can span more lines or contain unicode escapes
+        return sink.toString().replace('\n', ' ').replace('\r', ' ').replace("\\", "\\\\");
     }
 
     @Override
     public void startNonHashedAlphaNode(AlphaNode alphaNode) {
+        builder.append(getConstraintVariableDeclaration(alphaNode)).append(NEWLINE);
         builder.append(getVariableDeclaration(alphaNode)).append(NEWLINE);
-        builder.append(getContextVariableDeclaration(alphaNode)).append(NEWLINE);
     }
 
     @Override
@@ -116,20 +85,15 @@ public class DeclarationsHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        // we create a new hashed alpha that will be used to keep track of the hashes values to node ID for each
-        // class field reader.
-        currentHashedAlpha = new HashedAlphasDeclaration(getVariableName(hashedFieldReader),
-                hashedFieldReader.getValueType());
-
-        // add the new declaration
-        hashedAlphaDeclarations.add(currentHashedAlpha);
-
-        builder.append(getVariableDeclaration(hashedFieldReader)).append(NEWLINE);
+    public void startObjectSink(ObjectSink sink) {
+        builder.append(getVariableDeclaration(sink)).append(NEWLINE);
     }
 
     @Override
-    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
-        currentHashedAlpha.add(hashedValue, String.valueOf(hashedAlpha.getId()));
+    public void startHashedAlphaNodes(ObjectSource parent, CompositeObjectSinkAdapter.FieldIndex hashedFieldIndex) {
+        builder.append(PRIVATE_MODIFIER).append(" ").append(ObjectHashMap.class.getCanonicalName()).append(" ").
+                append(getHashedSinksVariableName(parent, hashedFieldIndex)).append(";").append(NEWLINE);
+        builder.append(PRIVATE_MODIFIER).append(" ").append(CompositeObjectSinkAdapter.FieldIndex.class.getCanonicalName()).append(" ").
+                append(getFieldIndexVariableName(parent, hashedFieldIndex)).append(";").append(NEWLINE);
     }
 }
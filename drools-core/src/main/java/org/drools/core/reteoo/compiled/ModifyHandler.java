@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.reteoo.compiled;
+
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
+import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ModifyPreviousTuples;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.Sink;
+import org.drools.core.spi.PropagationContext;
+
+/**
+ * This handler is used to create the {@link CompiledNetwork#modifyObject} method of a generated subclass of
+ * a {@link CompiledNetwork}. It follows the same structure of the {@link AssertHandler}, but a non-hashed alpha
+ * evaluates its constraint only if the modification is relevant for it, otherwise the modification bypasses it
+ * exactly as it happens in {@link AlphaNode#modifyObject}.
+ */
+public class ModifyHandler extends AbstractCompilerHandler {
+
+    private static final String FACT_HANDLE_PARAM_TYPE = InternalFactHandle.class.getName();
+    private static final String MODIFY_PREVIOUS_TUPLES_PARAM_TYPE = ModifyPreviousTuples.class.getName();
+    private static final String PROP_CONTEXT_PARAM_TYPE = PropagationContext.class.getName();
+    private static final String WORKING_MEMORY_PARAM_TYPE = InternalWorkingMemory.class.getName();
+
+    private static final String FACT_HANDLE_PARAM_NAME = "handle";
+    private static final String MODIFY_PREVIOUS_TUPLES_PARAM_NAME = "modifyPreviousTuples";
+    private static final String PROP_CONTEXT_PARAM_NAME = "context";
+    private static final String WORKING_MEMORY_PARAM_NAME = "wm";
+
+    private static final String MODIFY_METHOD_SIGNATURE = "public final void modifyObject("
+            + FACT_HANDLE_PARAM_TYPE + " " + FACT_HANDLE_PARAM_NAME + ","
+            + MODIFY_PREVIOUS_TUPLES_PARAM_TYPE + " " + MODIFY_PREVIOUS_TUPLES_PARAM_NAME + ","
+            + PROP_CONTEXT_PARAM_TYPE + " " + PROP_CONTEXT_PARAM_NAME + ","
+            + WORKING_MEMORY_PARAM_TYPE + " " + WORKING_MEMORY_PARAM_NAME + "){";
+
+    private static final String PROPAGATION_ARGUMENTS = "(" + FACT_HANDLE_PARAM_NAME + ","
+            + MODIFY_PREVIOUS_TUPLES_PARAM_NAME + ","
+            + PROP_CONTEXT_PARAM_NAME + ","
+            + WORKING_MEMORY_PARAM_NAME + ");";
+
+    private final StringBuilder builder;
+
+    public ModifyHandler(StringBuilder builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
+        builder.append(MODIFY_METHOD_SIGNATURE).append(NEWLINE);
+    }
+
+    private void appendModifyObject(Sink sink) {
+        builder.append(getVariableName(sink)).append(".modifyObject").append(PROPAGATION_ARGUMENTS).append(NEWLINE);
+    }
+
+    @Override
+    public void startBetaNode(BetaNode betaNode) {
+        appendModifyObject(betaNode);
+    }
+
+    @Override
+    public void startLeftInputAdapterNode(LeftInputAdapterNode leftInputAdapterNode) {
+        appendModifyObject(leftInputAdapterNode);
+    }
+
+    @Override
+    public void startObjectSink(ObjectSink sink) {
+        appendModifyObject(sink);
+    }
+
+    @Override
+    public void startNonHashedAlphaNode(AlphaNode alphaNode) {
+        builder.append("if ( ").append(PROP_CONTEXT_PARAM_NAME).append(".getModificationMask().intersects(").
+                append(getVariableName(alphaNode)).append(".getInferredMask()) ) {").append(NEWLINE);
+        builder.append("if ( ").append(getConstraintVariableName(alphaNode)).
+                append(".isAllowed(").append(FACT_HANDLE_PARAM_NAME).append(",").
+                append(WORKING_MEMORY_PARAM_NAME).append(") ) {").append(NEWLINE);
+    }
+
+    @Override
+    public void endNonHashedAlphaNode(AlphaNode alphaNode) {
+        // close the if statement of the constraint
+        builder.append("}").append(NEWLINE);
+        // and the one of the modification mask, bypassing the alpha when the modification is not relevant for it
+        builder.append("} else {").append(NEWLINE);
+        builder.append(getVariableName(alphaNode)).append(".byPassModifyToBetaNode").append(PROPAGATION_ARGUMENTS).append(NEWLINE);
+        builder.append("}").append(NEWLINE);
+    }
+
+    @Override
+    public void startHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
+        appendHashedAlphaSwitchStart(builder, parent, hashedFieldIndex, FACT_HANDLE_PARAM_NAME);
+    }
+
+    @Override
+    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        // no need to evaluate the constraint, as we know it's true
+        builder.append("case ").append(hashedAlpha.getId()).append(" : ").append(NEWLINE);
+    }
+
+    @Override
+    public void endHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        builder.append("break;").append(NEWLINE);
+    }
+
+    @Override
+    public void endHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
+        appendHashedAlphaSwitchEnd(builder);
+    }
+
+    @Override
+    public void endObjectTypeNode(ObjectTypeNode objectTypeNode) {
+        // close the modifyObject method
+        builder.append("}").append(NEWLINE);
+    }
+}
@@ -16,10 +16,12 @@
 
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 
 /**
@@ -69,6 +71,16 @@ public interface NetworkHandler {
 
     void endLeftInputAdapterNode(LeftInputAdapterNode leftInputAdapterNode);
 
+    /**
+     * Receive notification of a sink that is neither an alpha, a beta nor a {@link LeftInputAdapterNode},
+     * like a {@link org.drools.core.reteoo.WindowNode}. Its descendants are not reported.
+     *
+     * @param sink the sink
+     */
+    void startObjectSink(ObjectSink sink);
+
+    void endObjectSink(ObjectSink sink);
+
     /**
      * Receive notification of the a group of hashed {@link org.kie.reteoo.AlphaNode}s.
      *
@@ -79,13 +91,14 @@ public interface NetworkHandler {
      * node's decendants, in order, before the corresponding {@link #endHashedAlphaNode}
      * event.</p>
      *
-     * @param hashedFieldReader field reader that is used to access the hashed attribute
+     * @param parent node whose sinks are hashed
+     * @param hashedFieldIndex index of the hashed attribute, also used to access its value
      * @see #endHashedAlphaNodes
      * @see #startHashedAlphaNode
      */
-    void startHashedAlphaNodes(ClassFieldReader hashedFieldReader);
+    void startHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex);
 
-    void endHashedAlphaNodes(ClassFieldReader hashedFieldReader);
+    void endHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex);
 
     void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue);
 
@@ -16,10 +16,12 @@
 
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 
 /**
@@ -62,11 +64,19 @@ public class NetworkHandlerAdaptor implements NetworkHandler {
 
     }
 
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
+    public void startObjectSink(ObjectSink sink) {
 
     }
 
-    public void endHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
+    public void endObjectSink(ObjectSink sink) {
+
+    }
+
+    public void startHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
+
+    }
+
+    public void endHashedAlphaNodes(ObjectSource parent, FieldIndex hashedFieldIndex) {
 
     }
 
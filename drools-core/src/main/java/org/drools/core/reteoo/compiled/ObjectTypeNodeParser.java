@@ -16,12 +16,11 @@
 
 package org.drools.core.reteoo.compiled;
 
-import org.drools.core.base.ClassFieldReader;
 import org.drools.core.util.Iterator;
+import org.drools.core.util.LinkedList;
 import org.drools.core.util.ObjectHashMap;
 import org.drools.core.reteoo.*;
-import org.drools.core.rule.constraint.MvelConstraint;
-import org.drools.core.spi.AlphaNodeFieldConstraint;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter.FieldIndex;
 
 /**
  * This class is used for reading an {@link ObjectTypeNode} using callbacks.
@@ -32,8 +31,10 @@ import org.drools.core.spi.AlphaNodeFieldConstraint;
  * <li>Non-hashed and hashed AlphaNodes</li>
  * <li>BetaNodes</li>
  * <li>LeftInputAdapterNodes</li>
+ * <li>Any other ObjectSink</li>
  * <p/>
  * Events are fired when each of these network features are encountered, and again when the end of them is encountered.
+ * The sinks of each node are reported in the same order used by its {@link ObjectSinkPropagator} to propagate to them.
  * OTN parsing is unidirectional; previously parsed data cannot be re-read without starting the parsing operation again.
  */
 public class ObjectTypeNodeParser {
@@ -61,17 +62,19 @@ public class ObjectTypeNodeParser {
      * {@link NetworkHandler}.</p>
      *
      * @param handler handler that will receieve the events generated by this parser
+     * @throws IllegalArgumentException thrown if the network contains an {@link ObjectSinkPropagator} that
+     *                                  cannot be parsed, like the partition aware ones
      * @see NetworkHandler
      */
-    public void accept(NetworkHandler handler) {
+    public void accept(NetworkHandler handler) throws IllegalArgumentException {
         ObjectSinkPropagator propagator = objectTypeNode.getObjectSinkPropagator();
 
         handler.startObjectTypeNode(objectTypeNode);
-        traversePropagator(propagator, handler);
+        traversePropagator(objectTypeNode, propagator, handler);
         handler.endObjectTypeNode(objectTypeNode);
     }
 
-    private void traversePropagator(ObjectSinkPropagator propagator, NetworkHandler handler) {
+    private void traversePropagator(ObjectSource parent, ObjectSinkPropagator propagator, NetworkHandler handler) {
         if (propagator instanceof SingleObjectSinkAdapter) {
             // we know there is only a single child sink for this propagator
             ObjectSink sink = propagator.getSinks()[0];
@@ -80,9 +83,12 @@ public class ObjectTypeNodeParser {
         } else if (propagator instanceof CompositeObjectSinkAdapter) {
             CompositeObjectSinkAdapter composite = (CompositeObjectSinkAdapter) propagator;
 
+            // same order of CompositeObjectSinkAdapter.propagateAssertObject
+            traverseHashedAlphaNodes(parent, composite, handler);
             traverseSinkLisk(composite.getHashableSinks(), handler);
             traverseSinkLisk(composite.getOthers(), handler);
-            traverseHashedAlphaNodes(composite.getHashedSinkMap(), handler);
+        } else if (!(propagator instanceof EmptyObjectSinkAdapter)) {
+            throw new IllegalArgumentException("Unsupported ObjectSinkPropagator " + propagator.getClass());
         }
     }
 
@@ -117,38 +123,50 @@ public class ObjectTypeNodeParser {
         }
     }
 
-    private void traverseHashedAlphaNodes(ObjectHashMap hashedAlphaNodes, NetworkHandler handler) {
-        if (hashedAlphaNodes != null && hashedAlphaNodes.size() > 0) {
-            AlphaNode firstAlpha = getFirstAlphaNode(hashedAlphaNodes);
-            ClassFieldReader hashedFieldReader = getClassFieldReaderForHashedAlpha(firstAlpha);
+    private void traverseHashedAlphaNodes(ObjectSource parent, CompositeObjectSinkAdapter composite, NetworkHandler handler) {
+        ObjectHashMap hashedAlphaNodes = composite.getHashedSinkMap();
+        LinkedList<FieldIndex> hashedFieldIndexes = composite.getHashedFieldIndexes();
+        if (hashedAlphaNodes == null || hashedFieldIndexes == null) {
+            return;
+        }
+
+        // the alphas on different fields share the same map, but each field is looked up separately
+        for (FieldIndex fieldIndex = hashedFieldIndexes.getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext()) {
+            if (!fieldIndex.isHashed()) {
+                continue;
+            }
 
             // start the hashed alphas
-            handler.startHashedAlphaNodes(hashedFieldReader);
+            handler.startHashedAlphaNodes(parent, fieldIndex);
 
-            Iterator iter = hashedAlphaNodes.iterator();
+            Iterator iter = hashedAlphaNodes.newIterator();
             for (ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next(); entry != null; entry = (ObjectHashMap.ObjectEntry) iter.next()) {
                 CompositeObjectSinkAdapter.HashKey hashKey = (CompositeObjectSinkAdapter.HashKey) entry.getKey();
+                if (hashKey.getIndex() != fieldIndex.getIndex()) {
+                    continue;
+                }
                 AlphaNode alphaNode = (AlphaNode) entry.getValue();
 
                 handler.startHashedAlphaNode(alphaNode, hashKey.getObjectValue());
                 // traverse the propagator for each alpha
-                traversePropagator( alphaNode.getObjectSinkPropagator(), handler );
+                traversePropagator( alphaNode, alphaNode.getObjectSinkPropagator(), handler );
 
                 handler.endHashedAlphaNode(alphaNode, hashKey.getObjectValue());
             }
 
             // end of the hashed alphas
-            handler.endHashedAlphaNodes(hashedFieldReader);
+            handler.endHashedAlphaNodes(parent, fieldIndex);
         }
     }
 
     private void traverseSink(ObjectSink sink, NetworkHandler handler) {
-        if (sink.getType() == NodeTypeEnums.AlphaNode) {
+        // the subclasses of AlphaNode can change how it propagates, so they are handled as any other sink
+        if (sink.getType() == NodeTypeEnums.AlphaNode && sink.getClass() == AlphaNode.class) {
             AlphaNode alphaNode = (AlphaNode) sink;
 
             handler.startNonHashedAlphaNode(alphaNode);
 
-            traversePropagator( alphaNode.getObjectSinkPropagator(), handler );
+            traversePropagator( alphaNode, alphaNode.getObjectSinkPropagator(), handler );
 
             handler.endNonHashedAlphaNode(alphaNode);
         } else if (NodeTypeEnums.isBetaNode( sink ) ) {
@@ -163,52 +181,13 @@ public class ObjectTypeNodeParser {
             handler.startLeftInputAdapterNode(leftInputAdapterNode);
             // todo traverse lia
             handler.endLeftInputAdapterNode(leftInputAdapterNode);
+        } else {
+            handler.startObjectSink(sink);
+            handler.endObjectSink(sink);
         }
     }
 
     private void traverseSink(LeftTupleSink sink, NetworkHandler handler) {
         // todo traverse sink's propagator
     }
-
-    /**
-     * Returns the first {@link org.kie.reteoo.AlphaNode} from the specified {@link ObjectHashMap}.
-     *
-     * @param hashedAlphaNodes map of hashed AlphaNodes
-     * @return first alpha from the specified map
-     * @throws IllegalArgumentException thrown if the map doesn't contain any alpha nodes
-     */
-    private AlphaNode getFirstAlphaNode(final ObjectHashMap hashedAlphaNodes) throws IllegalArgumentException {
-        AlphaNode firstAlphaNode;
-
-        final Iterator iter = hashedAlphaNodes.iterator();
-        final ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next();
-
-        if (entry != null) {
-            firstAlphaNode = (AlphaNode) entry.getValue();
-        } else {
-            throw new IllegalArgumentException("ObjectHashMap does not contain any hashed AlphaNodes!");
-        }
-
-        return firstAlphaNode;
-    }
-
-    /**
-     * Returns the {@link ClassFieldReader} for the hashed AlphaNode. The AlphaNode's constraint has to be a
-     * MvelConstraint. This is the only type of hashed alpha currently supported.
-     *
-     * @param alphaNode hashed alpha to get reader for
-     * @return ClassFieldReader
-     * @throws IllegalArgumentException thrown if the AlphaNode's {@link org.kie.spi.AlphaNodeFieldConstraint} is not a
-     *                                  {@link MvelConstraint}.
-     */
-    private ClassFieldReader getClassFieldReaderForHashedAlpha(final AlphaNode alphaNode) throws IllegalArgumentException {
-        final AlphaNodeFieldConstraint fieldConstraint = alphaNode.getConstraint();
-
-        if (!(fieldConstraint instanceof MvelConstraint)) {
-            throw new IllegalArgumentException("Only support MvelConstraint hashed AlphaNodes, not " + fieldConstraint.getClass());
-        }
-        // we need to get the first alpha in the map to get the attribute name that be use for the prefix of the
-        // generated variable name
-        return (ClassFieldReader) ((MvelConstraint)fieldConstraint).getFieldExtractor();
-    }
 }
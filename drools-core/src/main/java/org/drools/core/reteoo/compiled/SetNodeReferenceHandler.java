@@ -18,15 +18,18 @@ package org.drools.core.reteoo.compiled;
 
 import org.drools.core.common.NetworkNode;
 import org.drools.core.reteoo.*;
+import org.drools.core.rule.IndexableConstraint;
 
 /**
  * This handler is used to create the member variable assignment statements section of a generated subclass of a
  * {@link CompiledNetwork#setNetworkNodeReference(org.kie.common.NetworkNode)}.
- * Currently we only need to create member variable assignments for the following types of nodes:
+ * Currently we need to create member variable assignments for the following types of nodes:
  * <p/>
- * <li>Non-hashed {@link AlphaNode}s</li>
+ * <li>Non-hashed {@link AlphaNode}s, together with their constraint</li>
  * <li>{@link LeftInputAdapterNode}s</li>
  * <li>{@link BetaNode}s</li>
+ * <li>Any other {@link ObjectSink}</li>
+ * <li>Hashed {@link AlphaNode}s, whose parent provides the map and the field index of the hashed alphas</li>
  */
 public class SetNodeReferenceHandler extends AbstractCompilerHandler {
 
@@ -37,6 +40,11 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
 
     private final StringBuilder builder;
 
+    /**
+     * The field index of the group of hashed alphas currently being parsed
+     */
+    private CompositeObjectSinkAdapter.FieldIndex currentHashedFieldIndex;
+
     public SetNodeReferenceHandler(StringBuilder builder) {
         this.builder = builder;
     }
@@ -46,35 +54,22 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
         String assignmentStatement;
 
         // for non alphas, we just need to cast to the right variable type
-        assignmentStatement = getVariableName(sink) + " = (" + variableType.getName() + ")" + nodeVariableName + ";";
+        assignmentStatement = getVariableName(sink) + " = (" + variableType.getCanonicalName() + ")" + nodeVariableName + ";";
 
         return assignmentStatement;
     }
 
-    private String getVariableAssignmentStatement(AlphaNode alphaNode, String nodeVariableName) {
-        Class<?> variableType = getVariableType(alphaNode);
+    private String getConstraintVariableAssignmentStatement(AlphaNode alphaNode, String nodeVariableName) {
+        Class<?> variableType = getConstraintVariableType(alphaNode);
         String assignmentStatement;
 
         // we need the constraint for an alpha node assignment, so generate a cast, plus the method call to get
         // the constraint
-        assignmentStatement = getVariableName(alphaNode) + " = (" + variableType.getName() + ") ((" + AlphaNode.class.getName() + ")" + nodeVariableName + ").getConstraint();";
+        assignmentStatement = getConstraintVariableName(alphaNode) + " = (" + variableType.getCanonicalName() + ") ((" + AlphaNode.class.getName() + ")" + nodeVariableName + ").getConstraint();";
 
         return assignmentStatement;
     }
 
-    private String getContextVariableAssignmentStatement(AlphaNode alphaNode) {
-        String contextVariableName = getContextVariableName(alphaNode);
-        String alphaVariableName = getVariableName(alphaNode);
-        String assignmentStatement;
-
-        // we need the constraint for an alpha node assignment, so generate a cast, plus the method call to get
-        // the constraint
-        assignmentStatement = contextVariableName + " = " + alphaVariableName + ".createContextEntry();";
-
-        return assignmentStatement;
-    }
-
-
     @Override
     public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
         builder.append(SET_NETWORK_NODE_REFERENCE_SIGNATURE).append(NEWLINE);
@@ -94,12 +89,13 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
     public void startNonHashedAlphaNode(AlphaNode alphaNode) {
         // case statement for the non-hashed alphas looks like the following
         // case 24:
-        //      variableConstraint24 = (VariableConstraint) ((AlphaNode) node).getConstraint();
+        //      alphaNodeFieldConstraint24 = (AlphaNodeFieldConstraint) ((AlphaNode) node).getConstraint();
+        //      alphaNode24 = (AlphaNode) node;
         //      break;
 
         builder.append("case ").append(alphaNode.getId()).append(": ").append(NEWLINE);
+        builder.append(getConstraintVariableAssignmentStatement(alphaNode, PARAM_NAME)).append(NEWLINE);
         builder.append(getVariableAssignmentStatement(alphaNode, PARAM_NAME)).append(NEWLINE);
-        builder.append(getContextVariableAssignmentStatement(alphaNode)).append(NEWLINE);
         builder.append("break;").append(NEWLINE);
     }
 
@@ -125,4 +121,44 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
         builder.append(getVariableAssignmentStatement(leftInputAdapterNode, PARAM_NAME)).append(NEWLINE);
         builder.append("break;").append(NEWLINE);
     }
+
+    @Override
+    public void startObjectSink(ObjectSink sink) {
+        builder.append("case ").append(sink.getId()).append(": ").append(NEWLINE);
+        builder.append(getVariableAssignmentStatement(sink, PARAM_NAME)).append(NEWLINE);
+        builder.append("break;").append(NEWLINE);
+    }
+
+    @Override
+    public void startHashedAlphaNodes(ObjectSource parent, CompositeObjectSinkAdapter.FieldIndex hashedFieldIndex) {
+        currentHashedFieldIndex = hashedFieldIndex;
+    }
+
+    @Override
+    public void endHashedAlphaNodes(ObjectSource parent, CompositeObjectSinkAdapter.FieldIndex hashedFieldIndex) {
+        currentHashedFieldIndex = null;
+    }
+
+    @Override
+    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        // the hashed alphas themselves are never referenced, but any of them can be used to get the map
+        // containing all of them and the field index to look them up, so case statement looks like the following
+        // case 12:
+        //      hashedSinks4_0 = ((CompositeObjectSinkAdapter) ((AlphaNode) node).getParentObjectSource().getObjectSinkPropagator()).getHashedSinkMap();
+        //      fieldIndex4_0 = new CompositeObjectSinkAdapter.FieldIndex(0, ((IndexableConstraint) ((AlphaNode) node).getConstraint()).getFieldExtractor());
+        //      break;
+        ObjectSource parent = hashedAlpha.getParentObjectSource();
+        String alphaNodeCast = "((" + AlphaNode.class.getName() + ")" + PARAM_NAME + ")";
+
+        builder.append("case ").append(hashedAlpha.getId()).append(": ").append(NEWLINE);
+        builder.append(getHashedSinksVariableName(parent, currentHashedFieldIndex)).append(" = ((").
+                append(CompositeObjectSinkAdapter.class.getName()).append(") ").append(alphaNodeCast).
+                append(".getParentObjectSource().getObjectSinkPropagator()).getHashedSinkMap();").append(NEWLINE);
+        builder.append(getFieldIndexVariableName(parent, currentHashedFieldIndex)).append(" = new ").
+                append(CompositeObjectSinkAdapter.FieldIndex.class.getCanonicalName()).append("(").
+                append(currentHashedFieldIndex.getIndex()).append(", ((").
+                append(IndexableConstraint.class.getName()).append(") ").append(alphaNodeCast).
+                append(".getConstraint()).getFieldExtractor());").append(NEWLINE);
+        builder.append("break;").append(NEWLINE);
+    }
 }
@@ -21,13 +21,13 @@ import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.spi.PropagationContext;
+import org.drools.core.util.EventRingBuffer;
 
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Collection;
-import java.util.Collections;
 
 import static org.drools.core.common.PhreakPropagationContextFactory.createPropagationContextForFact;
 
@@ -103,15 +103,17 @@ public class SlidingLengthWindow
                               final PropagationContext pctx,
                               final InternalWorkingMemory workingMemory) {
         SlidingLengthWindowContext window = (SlidingLengthWindowContext) context;
-        window.pos = (window.pos + 1) % window.handles.length;
-        if ( window.handles[window.pos] != null ) {
-            final EventFactHandle previous = window.handles[window.pos];
+        if ( window.handles.length() >= this.size ) {
+            // the oldest position leaves the window: the head of the buffer is never an empty slot
+            final EventFactHandle previous = window.handles.poll();
             // retract previous
+            window.expiringHandle = previous;
             final PropagationContext expiresPctx = createPropagationContextForFact( workingMemory, previous, PropagationContext.Type.EXPIRATION );
             ObjectTypeNode.doRetractObject( previous, expiresPctx, workingMemory);
             expiresPctx.evaluateActionQueue( workingMemory );
+            window.expiringHandle = null;
         }
-        window.handles[window.pos] = (EventFactHandle) handle;
+        window.handles.add( (EventFactHandle) handle );
         return true;
     }
 
@@ -120,15 +122,10 @@ public class SlidingLengthWindow
                             final PropagationContext pctx,
                             final InternalWorkingMemory workingMemory) {
         SlidingLengthWindowContext window = (SlidingLengthWindowContext) context;
-        final int last = (window.pos == 0) ? window.handles.length - 1 : window.pos - 1;
-        // we start the loop on current pos because the most common scenario is to retract the
-        // right tuple referenced by the current "pos" position, causing this loop to only execute
-        // the first iteration
-        for ( int i = window.pos; i != last; i = (i + 1) % window.handles.length ) {
-            if ( window.handles[i] == handle ) {
-                window.handles[i] = null;
-                break;
-            }
+        // it may be a call back to retract the fact that is already leaving the window
+        if ( window.expiringHandle != handle ) {
+            // the slot of the fact is left empty, so it still counts for the length of the window
+            window.handles.remove( (EventFactHandle) handle );
         }
     }
 
@@ -158,27 +155,33 @@ public class SlidingLengthWindow
         Behavior.Context,
         Externalizable {
 
-        public EventFactHandle[] handles;
-        public int               pos = 0;
+        private static final int MAX_INITIAL_CAPACITY = 1024;
+
+        public EventRingBuffer handles;
+        public EventFactHandle expiringHandle;
+
+        public SlidingLengthWindowContext() {
+            // constructor for serialisation
+        }
 
         public SlidingLengthWindowContext(final int size) {
-            this.handles = new EventFactHandle[size];
+            // the events are kept in their arrival order, and the buffer grows up to the size of the window
+            this.handles = new EventRingBuffer( false, Math.min( size, MAX_INITIAL_CAPACITY ) );
         }
 
         public void readExternal(ObjectInput in) throws IOException,
                                                 ClassNotFoundException {
-            this.pos = in.readInt();
-            this.handles = (EventFactHandle[]) in.readObject();
-
+            this.handles = (EventRingBuffer) in.readObject();
+            this.expiringHandle = (EventFactHandle) in.readObject();
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
-            out.writeInt( this.pos );
             out.writeObject( this.handles );
+            out.writeObject( this.expiringHandle );
         }
 
         public Collection<EventFactHandle> getFactHandles() {
-            return Collections.emptyList();
+            return handles.toList();
         }
     }
 
@@ -38,13 +38,14 @@ import org.drools.core.time.JobContext;
 import org.drools.core.time.JobHandle;
 import org.drools.core.time.TimerService;
 import org.drools.core.time.impl.PointInTimeTrigger;
+import org.drools.core.util.EventRingBuffer;
 
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Collection;
-import java.util.PriorityQueue;
+import java.util.NoSuchElementException;
 
 import static org.drools.core.common.PhreakPropagationContextFactory.createPropagationContextForFact;
 
@@ -227,17 +228,17 @@ public class SlidingTimeWindow
             Behavior.Context,
             Externalizable {
 
-        private PriorityQueue<EventFactHandle> queue;
-        private EventFactHandle                expiringHandle;
+        private EventRingBuffer queue;
+        private EventFactHandle expiringHandle;
 
         public SlidingTimeWindowContext() {
-            this.queue = new PriorityQueue<EventFactHandle>( 16 ); // arbitrary size... can we improve it?
+            // the events mostly arrive in timestamp order, so they are just appended to the buffer
+            this.queue = new EventRingBuffer( true );
         }
 
-        @SuppressWarnings("unchecked")
         public void readExternal(ObjectInput in) throws IOException,
                                                         ClassNotFoundException {
-            this.queue = (PriorityQueue<EventFactHandle>) in.readObject();
+            this.queue = (EventRingBuffer) in.readObject();
             this.expiringHandle = (EventFactHandle) in.readObject();
         }
 
@@ -275,11 +276,19 @@ public class SlidingTimeWindow
         }
 
         public EventFactHandle remove() {
-            return queue.remove( );
+            EventFactHandle handle = queue.poll();
+            if ( handle == null ) {
+                throw new NoSuchElementException();
+            }
+            return handle;
+        }
+
+        public int size() {
+            return queue.size();
         }
 
         public Collection<EventFactHandle> getFactHandles() {
-            return queue;
+            return queue.toList();
         }
     }
 
@@ -96,6 +96,8 @@ public class TypeDeclaration
     private String                 durationAttribute;
     private InternalReadAccessor   durationExtractor;
     private InternalReadAccessor   timestampExtractor;
+    private String                 partitionAttribute;
+    private InternalReadAccessor   partitionExtractor;
     private transient Class< ? >   typeClass;
     private String                 typeClassName;
     private FactTemplate           typeTemplate;
@@ -160,6 +162,8 @@ public class TypeDeclaration
         this.typeClassDef = (ClassDefinition) in.readObject();
         this.durationExtractor = (InternalReadAccessor) in.readObject();
         this.timestampExtractor = (InternalReadAccessor) in.readObject();
+        this.partitionAttribute = (String) in.readObject();
+        this.partitionExtractor = (InternalReadAccessor) in.readObject();
         this.resource = (Resource) in.readObject();
         this.expirationOffset = in.readLong();
         this.dynamic = in.readBoolean();
@@ -181,6 +185,8 @@ public class TypeDeclaration
         out.writeObject( typeClassDef );
         out.writeObject( durationExtractor );
         out.writeObject( timestampExtractor );
+        out.writeObject( partitionAttribute );
+        out.writeObject( partitionExtractor );
         out.writeObject( this.resource );
         out.writeLong(expirationOffset);
         out.writeBoolean(dynamic);
@@ -397,6 +403,25 @@ public class TypeDeclaration
         this.timestampExtractor = timestampExtractor;
     }
 
+    /**
+     * @return the attribute used to partition the facts of this type, or null if they aren't partitioned
+     */
+    public String getPartitionAttribute() {
+        return partitionAttribute;
+    }
+
+    public void setPartitionAttribute(String partitionAttribute) {
+        this.partitionAttribute = partitionAttribute;
+    }
+
+    public InternalReadAccessor getPartitionExtractor() {
+        return partitionExtractor;
+    }
+
+    public void setPartitionExtractor(InternalReadAccessor partitionExtractor) {
+        this.partitionExtractor = partitionExtractor;
+    }
+
     public Resource getResource() {
         return resource;
     }
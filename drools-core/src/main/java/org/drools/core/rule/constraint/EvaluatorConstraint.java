@@ -15,11 +15,13 @@
 
 package org.drools.core.rule.constraint;
 
+import org.drools.core.base.evaluators.TemporalIndexableEvaluator;
 import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.rule.ContextEntry;
 import org.drools.core.rule.Declaration;
+import org.drools.core.rule.IndexableConstraint;
 import org.drools.core.rule.IntervalProviderConstraint;
 import org.drools.core.rule.MutableTypeConstraint;
 import org.drools.core.rule.VariableRestriction;
@@ -29,13 +31,15 @@ import org.drools.core.spi.FieldValue;
 import org.drools.core.spi.InternalReadAccessor;
 import org.drools.core.spi.Tuple;
 import org.drools.core.time.Interval;
+import org.drools.core.util.AbstractHashTable.FieldIndex;
+import org.drools.core.util.index.IndexUtil;
 
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Arrays;
 
-public class EvaluatorConstraint extends MutableTypeConstraint implements IntervalProviderConstraint {
+public class EvaluatorConstraint extends MutableTypeConstraint implements IntervalProviderConstraint, IndexableConstraint {
 
     protected Declaration[] declarations;
     protected Evaluator evaluator;
@@ -125,6 +129,38 @@ public class EvaluatorConstraint extends MutableTypeConstraint implements Interv
         return evaluator;
     }
 
+    /**
+     * A temporal constraint between two events, like <code>this after[0,10s] $a</code>, can be indexed
+     * by keeping the events of the beta memories sorted by the timestamps compared by its evaluator
+     */
+    public boolean isTemporallyIndexable() {
+        return !isLiteral() && declarations.length == 1 &&
+               rightReadAccessor.isSelfReference() && declarations[0].getExtractor().isSelfReference() &&
+               evaluator instanceof TemporalIndexableEvaluator &&
+               ( (TemporalIndexableEvaluator) evaluator ).getIndexedDistance() != null;
+    }
+
+    public boolean isUnification() {
+        return false;
+    }
+
+    public boolean isIndexable(short nodeType) {
+        return getConstraintType().isIndexableForNode(nodeType);
+    }
+
+    public IndexUtil.ConstraintType getConstraintType() {
+        return isTemporallyIndexable() ? IndexUtil.ConstraintType.TEMPORAL : IndexUtil.ConstraintType.UNKNOWN;
+    }
+
+    public FieldIndex getFieldIndex() {
+        // a temporal index is not based on a field
+        return null;
+    }
+
+    public InternalReadAccessor getFieldExtractor() {
+        return rightReadAccessor;
+    }
+
     public FieldValue getField() {
         return field;
     }
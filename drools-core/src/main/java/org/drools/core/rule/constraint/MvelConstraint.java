@@ -15,6 +15,7 @@
 
 package org.drools.core.rule.constraint;
 
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.base.DroolsQuery;
 import org.drools.core.base.EvaluatorWrapper;
@@ -83,7 +84,8 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
     private static final Logger logger = LoggerFactory.getLogger(MvelConstraint.class);
 
     protected final transient AtomicInteger invocationCounter = new AtomicInteger(1);
-    protected transient boolean jitted = false;
+    protected transient volatile boolean jitted = false;
+    private transient volatile boolean eagerJittingFailed = false;
 
     private Set<String> packageNames;
     protected String expression;
@@ -244,16 +246,21 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
 
     protected boolean evaluate(InternalFactHandle handle, InternalWorkingMemory workingMemory, Tuple tuple) {
         if (!jitted) {
-            int jittingThreshold = TEST_JITTING ? 0 : workingMemory.getKnowledgeBase().getConfiguration().getJittingThreshold();
-            if (conditionEvaluator == null) {
-                createMvelConditionEvaluator(workingMemory);
-                if (jittingThreshold == 0 && !isDynamic) { // Only for test purposes
-                    forceJitEvaluator(handle, workingMemory, tuple);
+            RuleBaseConfiguration configuration = workingMemory.getKnowledgeBase().getConfiguration();
+            if (!TEST_JITTING && !isDynamic && configuration.isEagerJitting() && !eagerJittingFailed) {
+                eagerlyJitEvaluator(handle, workingMemory, tuple);
+            } else {
+                int jittingThreshold = TEST_JITTING ? 0 : configuration.getJittingThreshold();
+                if (conditionEvaluator == null) {
+                    createMvelConditionEvaluator(workingMemory);
+                    if (jittingThreshold == 0 && !isDynamic) { // Only for test purposes
+                        forceJitEvaluator(handle, workingMemory, tuple);
+                    }
                 }
-            }
 
-            if (!TEST_JITTING && !isDynamic && invocationCounter.getAndIncrement() == jittingThreshold) {
-                jitEvaluator(handle, workingMemory, tuple);
+                if (!TEST_JITTING && !isDynamic && invocationCounter.getAndIncrement() == jittingThreshold) {
+                    jitEvaluator(handle, workingMemory, tuple);
+                }
             }
         }
         try {
@@ -296,6 +303,28 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
         }
     }
 
+    private synchronized void eagerlyJitEvaluator(InternalFactHandle handle, InternalWorkingMemory workingMemory, Tuple tuple) {
+        // the other threads evaluating this constraint in the meanwhile wait for the jitted evaluator
+        if (!jitted && !eagerJittingFailed) {
+            try {
+                if (conditionEvaluator == null) {
+                    createMvelConditionEvaluator(workingMemory);
+                }
+                // MVEL resolves the accessors to be analyzed only while evaluating the expression
+                conditionEvaluator.evaluate(handle, workingMemory, tuple);
+                if (executeJitting(handle, workingMemory, tuple)) {
+                    jitted = true;
+                    return;
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to eagerly jit the constraint '" + expression + "' in " + evaluationContext +
+                            ", it will be evaluated in interpreted mode until it reaches the jitting threshold", e);
+            }
+            // the constraint falls back to the jitting threshold
+            eagerJittingFailed = true;
+        }
+    }
+
     private static class ConditionJitter implements Runnable {
         private MvelConstraint mvelConstraint;
         private InternalFactHandle rightHandle;
@@ -322,10 +351,13 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
         private static final Executor executor = ExecutorProviderFactory.getExecutorProvider().getExecutor();
     }
 
-    private void executeJitting(InternalFactHandle handle, InternalWorkingMemory workingMemory, Tuple tuple) {
+    /**
+     * Replaces the interpreted evaluator with a jitted one, returning false when the constraint hasn't been jitted
+     */
+    private boolean executeJitting(InternalFactHandle handle, InternalWorkingMemory workingMemory, Tuple tuple) {
         InternalKnowledgeBase kBase = workingMemory.getKnowledgeBase();
         if ( !isJmxAvailable() && MemoryUtil.permGenStats.isUsageThresholdExceeded(kBase.getConfiguration().getPermGenThreshold()) ) {
-            return;
+            return false;
         }
 
         try {
@@ -333,6 +365,7 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
                 analyzedCondition = ((MvelConditionEvaluator) conditionEvaluator).getAnalyzedCondition(handle, workingMemory, tuple);
             }
             conditionEvaluator = ASMConditionEvaluatorJitter.jitEvaluator(expression, analyzedCondition, declarations, operators, kBase.getRootClassLoader(), tuple);
+            return true;
         } catch (Throwable t) {
             if (TEST_JITTING) {
                 if (analyzedCondition == null) {
@@ -344,6 +377,7 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
                 logger.warn( "Exception jitting: " + expression +
                              " This is NOT an error and NOT prevent the correct execution since the constraint will be evaluated in intrepreted mode" );
             }
+            return false;
         }
     }
 
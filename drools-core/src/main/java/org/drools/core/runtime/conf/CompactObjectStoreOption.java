@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.conf;
+
+import org.kie.api.runtime.conf.SingleValueKieSessionOption;
+
+/**
+ * An option to store the fact handles of the session in a compact object store,
+ * trading a slower iteration of the facts of a given class for a much smaller
+ * memory footprint of the working memories holding millions of facts.
+ */
+public enum CompactObjectStoreOption implements SingleValueKieSessionOption {
+
+    YES(true),
+    NO(false);
+
+    private static final long serialVersionUID = 510l;
+
+    /**
+     * The property name for the compact object store configuration
+     */
+    public static final String PROPERTY_NAME = "drools.compactObjectStore";
+
+    private final boolean compactObjectStore;
+
+    CompactObjectStoreOption( final boolean compactObjectStore ) {
+        this.compactObjectStore = compactObjectStore;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isCompactObjectStore() {
+        return this.compactObjectStore;
+    }
+}
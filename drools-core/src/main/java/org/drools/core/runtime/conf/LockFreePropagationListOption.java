@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.conf;
+
+import org.kie.api.runtime.conf.SingleValueKieSessionOption;
+
+/**
+ * An option to queue the propagations of the session in a lock-free list, where the threads
+ * inserting, updating and deleting facts concurrently append their propagations with a CAS
+ * instead of contending on the monitor of the default synchronized list.
+ */
+public enum LockFreePropagationListOption implements SingleValueKieSessionOption {
+
+    YES(true),
+    NO(false);
+
+    private static final long serialVersionUID = 510l;
+
+    /**
+     * The property name for the lock-free propagation list configuration
+     */
+    public static final String PROPERTY_NAME = "drools.lockFreePropagationList";
+
+    private final boolean lockFreePropagationList;
+
+    LockFreePropagationListOption( final boolean lockFreePropagationList ) {
+        this.lockFreePropagationList = lockFreePropagationList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isLockFreePropagationList() {
+        return this.lockFreePropagationList;
+    }
+}
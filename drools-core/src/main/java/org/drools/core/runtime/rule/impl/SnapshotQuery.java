@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.rule.impl;
+
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.rule.Declaration;
+import org.drools.core.rule.QueryImpl;
+import org.drools.core.util.PersistentHashMap;
+import org.kie.api.runtime.rule.LiveQuery;
+import org.kie.api.runtime.rule.Row;
+import org.kie.api.runtime.rule.Variable;
+import org.kie.api.runtime.rule.ViewChangedEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A query kept open on a session, whose results are published as an immutable and versioned snapshot
+ * each time the engine comes to rest, i.e. when fireAllRules returns and when fireUntilHalt goes idle waiting
+ * for new facts. Reading a snapshot neither takes the session lock nor goes through the propagation queue,
+ * so any number of threads can look up the results of the query while another one is firing the rules.</p>
+ *
+ * <p>The results are maintained by a live query opened with all the parameters unbound, so a snapshot contains all
+ * the rows of the query and it is indexed by the values of its parameters. The values bound to the declarations of
+ * a row are copied when the live query notifies its insertion or update, but the facts themselves are shared with
+ * the session, so a fact modified by the rules after the snapshot has been published is seen modified by its readers.</p>
+ *
+ * <p>The rows and their indexes are kept in persistent maps, updated by each notification of the live query
+ * in O(log n), so publishing a snapshot doesn't copy them and costs O(1) whatever the number of rows, while the
+ * snapshots already published keep seeing their own version of the maps.</p>
+ */
+public class SnapshotQuery implements ViewChangedEventListener {
+
+    private final InternalWorkingMemory wm;
+    private final String                name;
+    private final String[]              parameters;
+    private final String[]              identifiers;
+
+    // the state of the live query, changed by the thread firing the rules and shared with the published snapshots
+    private final Map<Row, Long> rowIds = new IdentityHashMap<Row, Long>();
+    private long                 nextRowId;
+    private Indexes              indexes;
+    private boolean              dirty;
+
+    private volatile Snapshot snapshot;
+
+    private LiveQuery liveQuery;
+
+    public SnapshotQuery(InternalWorkingMemory wm, QueryImpl query) {
+        this.wm = wm;
+        this.name = query.getName();
+        Declaration[] params = query.getParameters();
+        this.parameters = new String[params.length];
+        Set<String> ids = new LinkedHashSet<String>();
+        for ( int i = 0; i < params.length; i++ ) {
+            parameters[i] = params[i].getIdentifier();
+            ids.add( parameters[i] );
+        }
+        ids.addAll( query.getDeclarations().keySet() );
+        this.identifiers = ids.toArray( new String[ids.size()] );
+        this.indexes = new Indexes( parameters );
+        this.snapshot = new Snapshot( 0, indexes );
+    }
+
+    /**
+     * Returns the arguments to open the live query backing this snapshot, i.e. all its parameters unbound
+     */
+    public Object[] getUnboundArguments() {
+        Object[] args = new Object[parameters.length];
+        Arrays.fill( args, Variable.v );
+        return args;
+    }
+
+    public void setLiveQuery(LiveQuery liveQuery) {
+        this.liveQuery = liveQuery;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the last published snapshot. Reading the version and the rows from the same Snapshot
+     * guarantees that they are consistent among them.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Returns the rows of the last published snapshot matching the given arguments, see Snapshot.getRows
+     */
+    public List<Map<String, Object>> getRows(Object... arguments) {
+        return snapshot.getRows( arguments );
+    }
+
+    public void close() {
+        wm.closeSnapshotQuery( this );
+        if ( liveQuery != null ) {
+            liveQuery.close();
+        }
+    }
+
+    public synchronized void rowInserted(Row row) {
+        Long id = nextRowId++;
+        rowIds.put( row, id );
+        indexes = indexes.add( id, getValues( row ) );
+        dirty = true;
+    }
+
+    public synchronized void rowDeleted(Row row) {
+        Long id = rowIds.remove( row );
+        if ( id != null ) {
+            indexes = indexes.remove( id );
+            dirty = true;
+        }
+    }
+
+    public synchronized void rowUpdated(Row row) {
+        Long id = rowIds.get( row );
+        if ( id == null ) {
+            rowInserted( row );
+            return;
+        }
+        indexes = indexes.remove( id ).add( id, getValues( row ) );
+        dirty = true;
+    }
+
+    private Map<String, Object> getValues(Row row) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        for ( String identifier : identifiers ) {
+            values.put( identifier, row.get( identifier ) );
+        }
+        return Collections.unmodifiableMap( values );
+    }
+
+    /**
+     * Publishes a new snapshot if the results of the query changed since the last one has been published.
+     * It has to be invoked when the engine is at rest, so the rows are consistent among them.
+     */
+    public synchronized void publish() {
+        if ( !dirty ) {
+            return;
+        }
+        snapshot = new Snapshot( snapshot.getVersion() + 1, indexes );
+        dirty = false;
+    }
+
+    public String toString() {
+        return "SnapshotQuery[name=" + name + ",version=" + getVersion() + "]";
+    }
+
+    /**
+     * The rows of a query by their id, indexed by the values of all the parameters and by the value of each parameter.
+     * Each update returns new Indexes sharing with the former ones all the rows and buckets it doesn't change.
+     */
+    private static class Indexes {
+        private final String[]                                                            parameters;
+        private final PersistentHashMap<Long, Map<String, Object>>                        rows;
+        private final PersistentHashMap<List<Object>, PersistentHashMap<Long, Map<String, Object>>> index;
+        private final PersistentHashMap<Object, PersistentHashMap<Long, Map<String, Object>>>[]    parameterIndexes;
+
+        private Indexes(String[] parameters) {
+            this( parameters,
+                  PersistentHashMap.<Long, Map<String, Object>>empty(),
+                  PersistentHashMap.<List<Object>, PersistentHashMap<Long, Map<String, Object>>>empty(),
+                  new PersistentHashMap[parameters.length] );
+            Arrays.fill( parameterIndexes, PersistentHashMap.empty() );
+        }
+
+        private Indexes(String[] parameters,
+                        PersistentHashMap<Long, Map<String, Object>> rows,
+                        PersistentHashMap<List<Object>, PersistentHashMap<Long, Map<String, Object>>> index,
+                        PersistentHashMap<Object, PersistentHashMap<Long, Map<String, Object>>>[] parameterIndexes) {
+            this.parameters = parameters;
+            this.rows = rows;
+            this.index = index;
+            this.parameterIndexes = parameterIndexes;
+        }
+
+        private Indexes add(Long id, Map<String, Object> row) {
+            PersistentHashMap<Object, PersistentHashMap<Long, Map<String, Object>>>[] newParameterIndexes = parameterIndexes.clone();
+            for ( int i = 0; i < parameters.length; i++ ) {
+                newParameterIndexes[i] = add( parameterIndexes[i], row.get( parameters[i] ), id, row );
+            }
+            return new Indexes( parameters, rows.put( id, row ), add( index, getKey( row ), id, row ), newParameterIndexes );
+        }
+
+        private Indexes remove(Long id) {
+            Map<String, Object> row = rows.get( id );
+            PersistentHashMap<Object, PersistentHashMap<Long, Map<String, Object>>>[] newParameterIndexes = parameterIndexes.clone();
+            for ( int i = 0; i < parameters.length; i++ ) {
+                newParameterIndexes[i] = remove( parameterIndexes[i], row.get( parameters[i] ), id );
+            }
+            return new Indexes( parameters, rows.remove( id ), remove( index, getKey( row ), id ), newParameterIndexes );
+        }
+
+        private static <K> PersistentHashMap<K, PersistentHashMap<Long, Map<String, Object>>> add(PersistentHashMap<K, PersistentHashMap<Long, Map<String, Object>>> index,
+                                                                                                 K key, Long id, Map<String, Object> row) {
+            PersistentHashMap<Long, Map<String, Object>> bucket = index.get( key );
+            if ( bucket == null ) {
+                bucket = PersistentHashMap.empty();
+            }
+            return index.put( key, bucket.put( id, row ) );
+        }
+
+        private static <K> PersistentHashMap<K, PersistentHashMap<Long, Map<String, Object>>> remove(PersistentHashMap<K, PersistentHashMap<Long, Map<String, Object>>> index,
+                                                                                                    K key, Long id) {
+            PersistentHashMap<Long, Map<String, Object>> bucket = index.get( key ).remove( id );
+            return bucket.isEmpty() ? index.remove( key ) : index.put( key, bucket );
+        }
+
+        private List<Object> getKey(Map<String, Object> row) {
+            Object[] key = new Object[parameters.length];
+            for ( int i = 0; i < parameters.length; i++ ) {
+                key[i] = row.get( parameters[i] );
+            }
+            return Arrays.asList( key );
+        }
+    }
+
+    /**
+     * An immutable version of the results of a query
+     */
+    public static class Snapshot {
+        private final long    version;
+        private final Indexes indexes;
+
+        private volatile List<Map<String, Object>> allRows;
+
+        private Snapshot(long version, Indexes indexes) {
+            this.version = version;
+            this.indexes = indexes;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return indexes.rows.size();
+        }
+
+        /**
+         * Returns the rows matching the given arguments, each of them as an immutable map of the identifiers of the query
+         * to their values. Invoked without arguments it returns all the rows, otherwise it requires a value for each parameter
+         * of the query, where a null or Variable.v matches any value. The rows matching all the parameters are
+         * taken from the index of all of them, while the ones matching only some of them are taken from the smallest
+         * of the indexes of the bound parameters and filtered by the other ones.
+         */
+        public List<Map<String, Object>> getRows(Object... arguments) {
+            if ( arguments == null || arguments.length == 0 ) {
+                return getAllRows();
+            }
+            String[] parameters = indexes.parameters;
+            if ( arguments.length != parameters.length ) {
+                throw new IllegalArgumentException( "Expected " + parameters.length + " arguments, but got " + arguments.length );
+            }
+            PersistentHashMap<Long, Map<String, Object>> smallest = null;
+            int boundNr = 0;
+            for ( int i = 0; i < arguments.length; i++ ) {
+                if ( !isUnbound( arguments[i] ) ) {
+                    PersistentHashMap<Long, Map<String, Object>> bucket = indexes.parameterIndexes[i].get( arguments[i] );
+                    if ( bucket == null ) {
+                        return Collections.emptyList();
+                    }
+                    if ( smallest == null || bucket.size() < smallest.size() ) {
+                        smallest = bucket;
+                    }
+                    boundNr++;
+                }
+            }
+            if ( boundNr == 0 ) {
+                return getAllRows();
+            }
+            if ( boundNr == arguments.length ) {
+                PersistentHashMap<Long, Map<String, Object>> indexed = indexes.index.get( Arrays.asList( arguments ) );
+                return indexed != null ?
+                       Collections.unmodifiableList( indexed.addValuesTo( new ArrayList<Map<String, Object>>( indexed.size() ) ) ) :
+                       Collections.<Map<String, Object>>emptyList();
+            }
+
+            List<Map<String, Object>> matching = new ArrayList<Map<String, Object>>();
+            for ( Map<String, Object> row : smallest.addValuesTo( new ArrayList<Map<String, Object>>( smallest.size() ) ) ) {
+                if ( matches( row, parameters, arguments ) ) {
+                    matching.add( row );
+                }
+            }
+            return matching;
+        }
+
+        private List<Map<String, Object>> getAllRows() {
+            List<Map<String, Object>> rows = allRows;
+            if ( rows == null ) {
+                // built only once per snapshot by the first reader asking for them
+                rows = Collections.unmodifiableList( indexes.rows.addValuesTo( new ArrayList<Map<String, Object>>( indexes.rows.size() ) ) );
+                allRows = rows;
+            }
+            return rows;
+        }
+
+        private static boolean matches(Map<String, Object> row, String[] parameters, Object[] arguments) {
+            for ( int i = 0; i < arguments.length; i++ ) {
+                if ( !isUnbound( arguments[i] ) && !arguments[i].equals( row.get( parameters[i] ) ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isUnbound(Object arg) {
+            return arg == null || arg == Variable.v;
+        }
+    }
+}
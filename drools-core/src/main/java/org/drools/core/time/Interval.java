@@ -71,6 +71,18 @@ public class Interval implements Cloneable {
         this.upperBound = ( this.upperBound == MAX || another.upperBound == MAX ) ? MAX : this.upperBound+another.upperBound;
     }
 
+    /**
+     * Returns the interval of the opposite values of this interval,
+     * keeping an open bound open:
+     *
+     * lowerBound = ( this.upperBound == MAX ) ? MIN : -this.upperBound;
+     * upperBound = ( this.lowerBound == MIN ) ? MAX : -this.lowerBound;
+     */
+    public Interval negate() {
+        return new Interval( this.upperBound == MAX ? MIN : -this.upperBound,
+                             this.lowerBound == MIN ? MAX : -this.lowerBound );
+    }
+
     public long getLowerBound() {
         return lowerBound;
     }
@@ -42,6 +42,9 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * A PseudoClockScheduler is a scheduler based on a user controlled clock 
  * that allows the user to explicitly control current time.
+ *
+ * The jobs are kept in a TimingWheel with a resolution of one millisecond,
+ * so scheduling and cancelling a job are O(1).
  */
 public class PseudoClockScheduler
     implements
@@ -53,7 +56,9 @@ public class PseudoClockScheduler
     private Logger logger = LoggerFactory.getLogger( PseudoClockScheduler.class ); 
 
     private AtomicLong                      timer;
-    private PriorityBlockingQueue<Callable<Void>>   queue;
+    private TimingWheel<TimerJobInstance>   queue;
+
+    private transient TimingWheelEntries    entries           = new TimingWheelEntries();
     private transient InternalWorkingMemory session;
 
     private TimerJobFactoryManager          jobFactoryManager = DefaultTimerJobFactoryManager.instance;
@@ -66,7 +71,7 @@ public class PseudoClockScheduler
 
     public PseudoClockScheduler(InternalWorkingMemory session) {
         this.timer = new AtomicLong(0);
-        this.queue = new PriorityBlockingQueue<Callable<Void>>();
+        this.queue = new TimingWheel<TimerJobInstance>();
         this.session = session;
     }
 
@@ -74,18 +79,35 @@ public class PseudoClockScheduler
     public void readExternal(ObjectInput in) throws IOException,
                                             ClassNotFoundException {
         timer = new AtomicLong( in.readLong() );
+        queue = new TimingWheel<TimerJobInstance>( timer.get() );
         PriorityBlockingQueue<Callable<Void>> tmp = (PriorityBlockingQueue<Callable<Void>>) in.readObject();
         if ( tmp != null ) {
-            queue = tmp;
+            for ( Callable<Void> item : tmp ) {
+                TimerJobInstance timerJobInstance = (TimerJobInstance) item;
+                // the jobs written before the scheduler used the wheel have a DefaultJobHandle
+                queue.add( entries.getEntry( timerJobInstance ),
+                           timerJobInstance.getTrigger().hasNextFireTime().getTime() );
+            }
         }
         session = ((DroolsObjectInputStream) in).getWorkingMemory();
     }
 
+    @SuppressWarnings("unchecked")
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeLong( timer.get() );
+        // the jobs are still written in a priority queue, to keep the format of the stream
+        PriorityBlockingQueue<Callable<Void>> tmp = null;
+        synchronized( queue ) {
+            if ( !queue.isEmpty() ) {
+                tmp = new PriorityBlockingQueue<Callable<Void>>();
+                for ( TimerJobInstance timerJobInstance : queue.values() ) {
+                    tmp.add( (Callable<Void>) timerJobInstance );
+                }
+            }
+        }
         // this is a work around to a bug in the object stream code, where it raises exceptions
         // when trying to de-serialize an empty priority queue.
-        out.writeObject( queue.isEmpty() ? null : queue );
+        out.writeObject( tmp );
     }
 
     public void setTimerJobFactoryManager(TimerJobFactoryManager timerJobFactoryManager) {
@@ -117,7 +139,7 @@ public class PseudoClockScheduler
         Date date = trigger.hasNextFireTime();
 
         if ( date != null ) {
-            DefaultJobHandle jobHandle = new DefaultJobHandle( idCounter.getAndIncrement() );
+            TimingWheelJobHandle jobHandle = new TimingWheelJobHandle( idCounter.getAndIncrement() );
             TimerJobInstance jobInstance = jobFactoryManager.createTimerJobInstance( job,
                                                                                    ctx,
                                                                                    trigger,
@@ -134,8 +156,9 @@ public class PseudoClockScheduler
 
     public void internalSchedule(TimerJobInstance timerJobInstance) {
         jobFactoryManager.addTimerJobInstance(timerJobInstance);
+        long fireTime = timerJobInstance.getTrigger().hasNextFireTime().getTime();
         synchronized(queue) {
-            queue.add( ( Callable<Void> ) timerJobInstance );
+            queue.add( entries.getEntry( timerJobInstance ), fireTime );
         }
     }
 
@@ -148,7 +171,7 @@ public class PseudoClockScheduler
         jobHandle.setCancel( true );
         jobFactoryManager.removeTimerJobInstance( ((DefaultJobHandle) jobHandle).getTimerJobInstance() );
         synchronized( queue ) {
-            return this.queue.remove( ((DefaultJobHandle) jobHandle).getTimerJobInstance() );
+            return entries.remove( this.queue, jobHandle );
         }
     }
 
@@ -160,8 +183,17 @@ public class PseudoClockScheduler
         return this.runCallBacksAndIncreaseTimer( unit.toMillis( amount ) );
     }
 
+    /**
+     * Sets the clock, also backward or to a negative time. When there are pending jobs the wheel isn't moved,
+     * and the jobs scheduled before its current tick are kept sorted aside by the wheel.
+     */
     public void setStartupTime(long i) {
         this.timer.set( i );
+        synchronized( queue ) {
+            if ( queue.isEmpty() ) {
+                queue.setCurrentTick( i );
+            }
+        }
     }
 
     /**
@@ -188,40 +220,45 @@ public class PseudoClockScheduler
     @SuppressWarnings("unchecked")
     private synchronized long runCallBacksAndIncreaseTimer( long increase ) {
         long endTime = this.timer.get() + increase;
-        TimerJobInstance item = (TimerJobInstance) queue.peek();
-        long fireTime;
-        while ( item != null && ((item.getTrigger().hasNextFireTime() != null && ( ( fireTime = item.getTrigger().hasNextFireTime().getTime()) <= endTime ) ) )  ) {
-            // remove the head
-            synchronized( queue ) {
-                queue.remove(item);
-            }
+        TimerJobInstance item = pollExpiredJob( endTime );
+        while ( item != null ) {
+            Date fireTime = item.getTrigger().hasNextFireTime();
 
-            if ( item.getJobHandle().isCancel() ) {
+            if ( fireTime == null || item.getJobHandle().isCancel() ) {
                 // do not call it, do not reschedule it
+                item = pollExpiredJob( endTime );
                 continue;
             }
             
             try {
                 // set the clock back to the trigger's fire time
-                this.timer.getAndSet( fireTime );
+                this.timer.getAndSet( fireTime.getTime() );
                 // execute the call
                 ((Callable<Void>) item).call();
             } catch ( Exception e ) {
                 logger.error( "Exception running callbacks: ", e );
             }
             // get next head
-            synchronized( queue ) {
-                item = (TimerJobInstance) queue.peek();
-            }
+            item = pollExpiredJob( endTime );
         }
         this.timer.set( endTime );
         return this.timer.get(); 
     }
 
+    private TimerJobInstance pollExpiredJob( long endTime ) {
+        synchronized( queue ) {
+            TimingWheel.Entry<TimerJobInstance> entry = queue.poll( endTime );
+            if ( entry == null ) {
+                return null;
+            }
+            entries.polled( entry );
+            return entry.getValue();
+        }
+    }
+
     public long getTimeToNextJob() {
         synchronized( queue ) {
-            TimerJobInstance item = (TimerJobInstance) queue.peek();
-            return (item != null) ? item.getTrigger().hasNextFireTime().getTime() - this.timer.get() : -1;
+            return queue.isEmpty() ? -1 : queue.getNextTick() - this.timer.get();
         }
     }
 
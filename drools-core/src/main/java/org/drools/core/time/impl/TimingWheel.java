@@ -0,0 +1,334 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.time.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * A hashed hierarchical timing wheel, where the entries are scheduled at a given tick.
+ *
+ * The wheel has 11 levels of 64 slots each, so it can hold any long tick, negative ones included: the slots
+ * are indexed by the tick offset by Long.MIN_VALUE, so the order of the slots is the one of the ticks.
+ * An entry is stored in the level of the highest 6 bits group in which its tick differs from the
+ * current tick and in the slot given by the value of that group. When the current tick reaches the
+ * first tick covered by a slot of an upper level, the entries of that slot are cascaded to the lower
+ * levels, until they reach the level 0 where each slot contains only the entries of a single tick.
+ *
+ * Adding and removing an entry are O(1), while the occupied slots of each level are tracked by a
+ * bitmap, so advancing the wheel skips the empty slots regardless of the distance between two ticks.
+ *
+ * The entries scheduled before the current tick, as when the clock driving the wheel is moved backward,
+ * can't be stored in the wheel, so they are kept sorted by tick in an overflow set, in O(log n), and they
+ * are expired before all the entries of the wheel. This class isn't thread safe.
+ */
+public class TimingWheel<T> {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS      = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK  = SLOTS - 1;
+    private static final int LEVELS     = ( Long.SIZE + LEVEL_BITS - 1 ) / LEVEL_BITS;
+    private static final int OVERFLOW   = LEVELS;
+
+    private static final Comparator<Entry<?>> TICK_ORDER = new Comparator<Entry<?>>() {
+        public int compare(Entry<?> e1, Entry<?> e2) {
+            int result = Long.compare( e1.tick, e2.tick );
+            return result != 0 ? result : Long.compare( e1.sequence, e2.sequence );
+        }
+    };
+
+    private final Entry<T>[][] heads;
+    private final Entry<T>[][] tails;
+    private final long[]       occupiedSlots = new long[LEVELS];
+    private final TreeSet<Entry<T>> overflow = new TreeSet<Entry<T>>( TICK_ORDER );
+
+    private long               currentTick;
+    private int                size;
+    private long               overflowSequence;
+
+    public TimingWheel() {
+        this( 0 );
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+        this.heads = new Entry[LEVELS][];
+        this.tails = new Entry[LEVELS][];
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Moves the wheel to the given tick, that can also be in the past. It is allowed only when the wheel is empty.
+     */
+    public void setCurrentTick(long currentTick) {
+        if ( size > 0 ) {
+            throw new IllegalStateException( "Cannot move a TimingWheel containing " + size + " entries" );
+        }
+        this.currentTick = currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Schedules the entry at the given tick, rescheduling it if it is already in the wheel.
+     * An entry scheduled before the current tick keeps its tick and is expired by the first poll reaching it.
+     */
+    public void add(Entry<T> entry, long tick) {
+        if ( entry.isScheduled() ) {
+            unlink( entry );
+        } else {
+            size++;
+        }
+        entry.tick = tick;
+        if ( tick < currentTick ) {
+            entry.sequence = overflowSequence++;
+            entry.level = OVERFLOW;
+            overflow.add( entry );
+        } else {
+            link( entry );
+        }
+    }
+
+    public boolean remove(Entry<T> entry) {
+        if ( !entry.isScheduled() ) {
+            return false;
+        }
+        unlink( entry );
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given tick, removing and returning the first entry expired on the way or
+     * null if no entry expires until then. The current tick is moved to the tick of the returned entry, so the
+     * entries added while processing it are still expired in order by the following polls with the same target.
+     * The entries before the current tick are returned first and don't move it.
+     */
+    public Entry<T> poll(long targetTick) {
+        if ( !overflow.isEmpty() ) {
+            // the entries before the current tick are expired first, without moving the current tick
+            Entry<T> entry = overflow.first();
+            if ( entry.tick > targetTick ) {
+                return null;
+            }
+            unlink( entry );
+            size--;
+            return entry;
+        }
+        while ( size > 0 ) {
+            int level = lowestOccupiedLevel();
+            int slot = Long.numberOfTrailingZeros( occupiedSlots[level] );
+            long slotTick = firstTickOf( level, slot );
+            if ( slotTick > targetTick ) {
+                break;
+            }
+            currentTick = slotTick;
+            if ( level == 0 ) {
+                Entry<T> entry = heads[0][slot];
+                unlink( entry );
+                size--;
+                return entry;
+            }
+            cascade( level, slot );
+        }
+        if ( targetTick > currentTick ) {
+            currentTick = targetTick;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the tick of the next entry to be expired. Any long is a valid tick, so the wheel must not be empty.
+     * This may have to scan all the entries of a slot of an upper level.
+     */
+    public long getNextTick() {
+        if ( size == 0 ) {
+            throw new NoSuchElementException( "The TimingWheel is empty" );
+        }
+        if ( !overflow.isEmpty() ) {
+            return overflow.first().tick;
+        }
+        int level = lowestOccupiedLevel();
+        int slot = Long.numberOfTrailingZeros( occupiedSlots[level] );
+        if ( level == 0 ) {
+            return firstTickOf( 0, slot );
+        }
+        long nextTick = Long.MAX_VALUE;
+        for ( Entry<T> entry = heads[level][slot]; entry != null; entry = entry.next ) {
+            nextTick = Math.min( nextTick, entry.tick );
+        }
+        return nextTick;
+    }
+
+    /**
+     * Returns, without scanning any slot, a tick not after the next expiration at which a poll has some work
+     * to do. It is the tick a thread driving the wheel can sleep until, and as getNextTick the wheel must not be empty.
+     */
+    public long getNextWakeUpTick() {
+        if ( size == 0 ) {
+            throw new NoSuchElementException( "The TimingWheel is empty" );
+        }
+        if ( !overflow.isEmpty() ) {
+            return overflow.first().tick;
+        }
+        int level = lowestOccupiedLevel();
+        return firstTickOf( level, Long.numberOfTrailingZeros( occupiedSlots[level] ) );
+    }
+
+    public List<T> values() {
+        List<T> values = new ArrayList<T>( size );
+        for ( Entry<T> entry : overflow ) {
+            values.add( entry.value );
+        }
+        for ( int level = 0; level < LEVELS; level++ ) {
+            if ( heads[level] == null ) {
+                continue;
+            }
+            for ( Entry<T> head : heads[level] ) {
+                for ( Entry<T> entry = head; entry != null; entry = entry.next ) {
+                    values.add( entry.value );
+                }
+            }
+        }
+        return values;
+    }
+
+    private int lowestOccupiedLevel() {
+        int level = 0;
+        while ( occupiedSlots[level] == 0 ) {
+            level++;
+        }
+        return level;
+    }
+
+    private long firstTickOf(int level, int slot) {
+        int shift = level * LEVEL_BITS;
+        int upperShift = shift + LEVEL_BITS;
+        long position = currentTick ^ Long.MIN_VALUE;
+        long upperBits = upperShift < Long.SIZE ? ( position >>> upperShift ) << upperShift : 0;
+        return ( upperBits | ( (long) slot << shift ) ) ^ Long.MIN_VALUE;
+    }
+
+    private void cascade(int level, int slot) {
+        Entry<T> entry = heads[level][slot];
+        heads[level][slot] = null;
+        tails[level][slot] = null;
+        occupiedSlots[level] &= ~( 1L << slot );
+        while ( entry != null ) {
+            Entry<T> next = entry.next;
+            entry.previous = null;
+            entry.next = null;
+            link( entry );
+            entry = next;
+        }
+    }
+
+    private void link(Entry<T> entry) {
+        long diff = entry.tick ^ currentTick;
+        int level = diff == 0 ? 0 : ( Long.SIZE - 1 - Long.numberOfLeadingZeros( diff ) ) / LEVEL_BITS;
+        int slot = (int) ( ( entry.tick ^ Long.MIN_VALUE ) >>> ( level * LEVEL_BITS ) ) & SLOT_MASK;
+
+        if ( heads[level] == null ) {
+            heads[level] = newSlots();
+            tails[level] = newSlots();
+        }
+
+        Entry<T> tail = tails[level][slot];
+        if ( tail == null ) {
+            heads[level][slot] = entry;
+            occupiedSlots[level] |= 1L << slot;
+        } else {
+            tail.next = entry;
+            entry.previous = tail;
+        }
+        tails[level][slot] = entry;
+        entry.level = level;
+        entry.slot = slot;
+    }
+
+    private void unlink(Entry<T> entry) {
+        if ( entry.level == OVERFLOW ) {
+            overflow.remove( entry );
+            entry.level = -1;
+            return;
+        }
+        int level = entry.level;
+        int slot = entry.slot;
+        if ( entry.previous == null ) {
+            heads[level][slot] = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+        if ( entry.next == null ) {
+            tails[level][slot] = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+        if ( heads[level][slot] == null ) {
+            occupiedSlots[level] &= ~( 1L << slot );
+        }
+        entry.previous = null;
+        entry.next = null;
+        entry.level = -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<T>[] newSlots() {
+        return new Entry[SLOTS];
+    }
+
+    public static class Entry<T> {
+
+        private final T  value;
+
+        private long     tick;
+        private long     sequence;
+        private int      level = -1;
+        private int      slot;
+        private Entry<T> previous;
+        private Entry<T> next;
+
+        public Entry(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public boolean isScheduled() {
+            return level >= 0;
+        }
+    }
+}
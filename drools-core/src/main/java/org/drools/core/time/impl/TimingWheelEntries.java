@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.time.impl;
+
+import org.drools.core.time.JobHandle;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Finds the entries in a TimingWheel of the scheduled jobs. A TimingWheelJobHandle keeps the entry of its job,
+ * while the entries of the jobs with a plain DefaultJobHandle, like the ones read from a stream written before
+ * the schedulers used the wheel, are kept here until their jobs leave the wheel.
+ * It isn't thread safe, so it has to be guarded by the same lock of its wheel.
+ */
+class TimingWheelEntries {
+
+    private final Map<JobHandle, TimingWheel.Entry<TimerJobInstance>> migratedEntries = new IdentityHashMap<JobHandle, TimingWheel.Entry<TimerJobInstance>>();
+
+    TimingWheel.Entry<TimerJobInstance> getEntry(TimerJobInstance timerJobInstance) {
+        JobHandle jobHandle = timerJobInstance.getJobHandle();
+        if ( jobHandle instanceof TimingWheelJobHandle ) {
+            return ( (TimingWheelJobHandle) jobHandle ).getEntry();
+        }
+        TimingWheel.Entry<TimerJobInstance> entry = migratedEntries.get( jobHandle );
+        if ( entry == null ) {
+            entry = new TimingWheel.Entry<TimerJobInstance>( timerJobInstance );
+            migratedEntries.put( jobHandle, entry );
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the job of the given handle from the wheel, returning true if it was scheduled there
+     */
+    boolean remove(TimingWheel<TimerJobInstance> wheel, JobHandle jobHandle) {
+        if ( jobHandle instanceof TimingWheelJobHandle ) {
+            return wheel.remove( ( (TimingWheelJobHandle) jobHandle ).getEntry() );
+        }
+        TimingWheel.Entry<TimerJobInstance> entry = migratedEntries.remove( jobHandle );
+        return entry != null && wheel.remove( entry );
+    }
+
+    /**
+     * Forgets the entry of a job polled from the wheel: if the job is rescheduled it gets a new one
+     */
+    void polled(TimingWheel.Entry<TimerJobInstance> entry) {
+        JobHandle jobHandle = entry.getValue().getJobHandle();
+        if ( !( jobHandle instanceof TimingWheelJobHandle ) ) {
+            migratedEntries.remove( jobHandle );
+        }
+    }
+}
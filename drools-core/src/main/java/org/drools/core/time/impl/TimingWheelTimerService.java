@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.time.impl;
+
+import org.drools.core.time.InternalSchedulerService;
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.Trigger;
+import org.kie.api.time.SessionClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A realtime TimerService keeping the jobs in a TimingWheel with a resolution of one millisecond,
+ * so scheduling and cancelling a job are O(1) and don't allocate anything more than the job handle.
+ * The jobs are executed by a single daemon thread, started with the first scheduled job, that sleeps
+ * until the next tick at which the wheel has some work to do.
+ *
+ * It can be used in place of the JDKTimerService setting the drools.timerService property to
+ * org.drools.core.time.impl.TimingWheelTimerService
+ */
+public class TimingWheelTimerService
+        implements
+        TimerService,
+        SessionClock,
+        InternalSchedulerService {
+
+    private static final Logger                 logger            = LoggerFactory.getLogger( TimingWheelTimerService.class );
+
+    private static final AtomicInteger          threadCounter     = new AtomicInteger();
+
+    private final AtomicLong                    idCounter         = new AtomicLong();
+
+    private final TimingWheel<TimerJobInstance> wheel;
+
+    private final TimingWheelEntries            entries           = new TimingWheelEntries();
+
+    private TimerJobFactoryManager              jobFactoryManager = DefaultTimerJobFactoryManager.instance;
+
+    private Thread                              worker;
+
+    private long                                wakeUpTick        = -1;
+
+    private boolean                             shutdown;
+
+    public TimingWheelTimerService() {
+        this.wheel = new TimingWheel<TimerJobInstance>( System.currentTimeMillis() );
+    }
+
+    public void setTimerJobFactoryManager(TimerJobFactoryManager timerJobFactoryManager) {
+        this.jobFactoryManager = timerJobFactoryManager;
+    }
+
+    public TimerJobFactoryManager getTimerJobFactoryManager() {
+        return this.jobFactoryManager;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    public void shutdown() {
+        Thread thread;
+        synchronized ( wheel ) {
+            shutdown = true;
+            thread = worker;
+            worker = null;
+        }
+        if ( thread != null ) {
+            thread.interrupt();
+        }
+    }
+
+    public JobHandle scheduleJob(Job job,
+                                 JobContext ctx,
+                                 Trigger trigger) {
+        Date date = trigger.hasNextFireTime();
+        if ( date != null ) {
+            TimingWheelJobHandle jobHandle = new TimingWheelJobHandle( idCounter.getAndIncrement() );
+
+            TimerJobInstance jobInstance = jobFactoryManager.createTimerJobInstance( job,
+                                                                                   ctx,
+                                                                                   trigger,
+                                                                                   jobHandle,
+                                                                                   this );
+            jobHandle.setTimerJobInstance( jobInstance );
+            internalSchedule( jobInstance );
+
+            return jobHandle;
+        } else {
+            return null;
+        }
+    }
+
+    public void internalSchedule(TimerJobInstance timerJobInstance) {
+        long tick = timerJobInstance.getTrigger().hasNextFireTime().getTime();
+
+        synchronized ( wheel ) {
+            if ( shutdown ) {
+                return;
+            }
+            wheel.add( entries.getEntry( timerJobInstance ), tick );
+            if ( worker == null ) {
+                worker = new Thread( new Worker(), "drools-timer-wheel-" + threadCounter.incrementAndGet() );
+                worker.setDaemon( true );
+                worker.start();
+            } else if ( wakeUpTick < 0 || tick < wakeUpTick ) {
+                wheel.notifyAll();
+            }
+        }
+        jobFactoryManager.addTimerJobInstance( timerJobInstance );
+    }
+
+    public boolean removeJob(JobHandle jobHandle) {
+        jobHandle.setCancel( true );
+        jobFactoryManager.removeTimerJobInstance( ( (DefaultJobHandle) jobHandle ).getTimerJobInstance() );
+        synchronized ( wheel ) {
+            return entries.remove( wheel, jobHandle );
+        }
+    }
+
+    public long getTimeToNextJob() {
+        synchronized ( wheel ) {
+            return wheel.isEmpty() ? -1 : Math.max( 0, wheel.getNextTick() - System.currentTimeMillis() );
+        }
+    }
+
+    public Collection<TimerJobInstance> getTimerJobInstances(long id) {
+        return jobFactoryManager.getTimerJobInstances();
+    }
+
+    private TimerJobInstance nextExpiredJob() throws InterruptedException {
+        synchronized ( wheel ) {
+            while ( !shutdown ) {
+                long now = System.currentTimeMillis();
+                TimingWheel.Entry<TimerJobInstance> entry = wheel.poll( now );
+                if ( entry != null ) {
+                    wakeUpTick = -1;
+                    entries.polled( entry );
+                    return entry.getValue();
+                }
+                wakeUpTick = wheel.isEmpty() ? -1 : wheel.getNextWakeUpTick();
+                // a spurious wake up or a notification only cause the wheel to be polled again
+                wheel.wait( wakeUpTick < 0 ? 0 : Math.max( 1, wakeUpTick - now ) );
+            }
+            return null;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try {
+                for ( TimerJobInstance job = nextExpiredJob(); job != null; job = nextExpiredJob() ) {
+                    if ( job.getJobHandle().isCancel() ) {
+                        continue;
+                    }
+                    try {
+                        ( (Callable<Void>) job ).call();
+                    } catch ( Exception e ) {
+                        logger.error( "Exception running timer job: ", e );
+                    }
+                }
+            } catch ( InterruptedException e ) {
+                // the service has been shut down
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.drools.core.common.EventFactHandle;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A growable ring buffer of events, used as the memory of the sliding windows.
+ * <p>
+ * The events are appended at the tail and removed from the head, so a window receiving the events in the
+ * order they happen adds and expires each of them in constant time. When created as ordered, the buffer
+ * keeps its events sorted by start timestamp: an event older than the last appended one is kept apart in a
+ * priority queue, so only the out-of-order arrivals pay for a sorted structure, and the head of the buffer
+ * is the oldest event among both. An unordered buffer just keeps the events in their arrival order.
+ * <p>
+ * An event removed from the middle of the buffer leaves an empty slot, that is discarded when it reaches the
+ * head. The empty slots still count in the {@link #length()} of the buffer, so a length window can keep
+ * counting the events by their position in the stream even after some of them have been deleted.
+ * <p>
+ * The ring doubles its capacity when it is full, and halves it when removing from the head leaves it less than
+ * a quarter full, never going below its initial capacity, so a window releases the memory taken by a burst of
+ * events once they expire.
+ */
+public class EventRingBuffer implements Externalizable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private boolean ordered;
+
+    private EventFactHandle[] handles;
+
+    // the start timestamps of the events in the ring, kept also for the empty slots so they can be binary searched
+    private long[] timestamps;
+
+    private int head;
+
+    private int length;
+
+    private int size;
+
+    private PriorityQueue<EventFactHandle> outOfOrder;
+
+    private int minCapacity;
+
+    public EventRingBuffer() {
+        // constructor for serialisation
+    }
+
+    public EventRingBuffer(boolean ordered) {
+        this( ordered, DEFAULT_CAPACITY );
+    }
+
+    public EventRingBuffer(boolean ordered, int initialCapacity) {
+        this.ordered = ordered;
+        allocate( initialCapacity );
+        this.minCapacity = handles.length;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeBoolean( ordered );
+        out.writeInt( length );
+        for ( int i = 0; i < length; i++ ) {
+            out.writeObject( handles[slot( i )] );
+        }
+        out.writeObject( outOfOrder );
+    }
+
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        ordered = in.readBoolean();
+        int slots = in.readInt();
+        allocate( slots );
+        minCapacity = DEFAULT_CAPACITY;
+        for ( int i = 0; i < slots; i++ ) {
+            EventFactHandle handle = (EventFactHandle) in.readObject();
+            handles[i] = handle;
+            if ( handle != null ) {
+                timestamps[i] = handle.getStartTimestamp();
+                size++;
+            } else {
+                timestamps[i] = i > 0 ? timestamps[i - 1] : Long.MIN_VALUE;
+            }
+        }
+        length = slots;
+        outOfOrder = (PriorityQueue<EventFactHandle>) in.readObject();
+    }
+
+    /**
+     * Adds an event to this buffer: it is appended at the tail, unless the buffer is ordered
+     * and the event is older than the last appended one.
+     */
+    public void add(EventFactHandle handle) {
+        if ( ordered && length > 0 && handle.getStartTimestamp() < timestamps[slot( length - 1 )] ) {
+            if ( outOfOrder == null ) {
+                outOfOrder = new PriorityQueue<EventFactHandle>();
+            }
+            outOfOrder.add( handle );
+            return;
+        }
+
+        if ( length == handles.length ) {
+            resize( handles.length << 1 );
+        }
+        int slot = slot( length );
+        handles[slot] = handle;
+        timestamps[slot] = handle.getStartTimestamp();
+        length++;
+        size++;
+    }
+
+    /**
+     * Returns the first event of this buffer, i.e. the oldest one if the buffer is ordered, without removing it
+     */
+    public EventFactHandle peek() {
+        // the head of the ring is never an empty slot
+        EventFactHandle first = length > 0 ? handles[head] : null;
+        if ( outOfOrder == null || outOfOrder.isEmpty() ) {
+            return first;
+        }
+        EventFactHandle late = outOfOrder.peek();
+        return first == null || late.getStartTimestamp() < first.getStartTimestamp() ? late : first;
+    }
+
+    /**
+     * Removes and returns the first event of this buffer
+     */
+    public EventFactHandle poll() {
+        EventFactHandle first = peek();
+        if ( first == null ) {
+            return null;
+        }
+        if ( length > 0 && first == handles[head] ) {
+            removeHead();
+        } else {
+            outOfOrder.poll();
+        }
+        return first;
+    }
+
+    /**
+     * Removes the given event from this buffer, leaving its slot empty if it wasn't the first one
+     *
+     * @return true if the event was found in this buffer
+     */
+    public boolean remove(EventFactHandle handle) {
+        int pos = indexOf( handle );
+        if ( pos < 0 ) {
+            return outOfOrder != null && outOfOrder.remove( handle );
+        }
+        if ( pos == 0 ) {
+            removeHead();
+        } else {
+            handles[slot( pos )] = null;
+            size--;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of events in this buffer
+     */
+    public int size() {
+        return size + ( outOfOrder != null ? outOfOrder.size() : 0 );
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of slots between the head and the tail of the ring, including the empty ones
+     * left by the removed events and excluding the out-of-order events
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the events in this buffer, the ones in order first
+     */
+    public List<EventFactHandle> toList() {
+        List<EventFactHandle> list = new ArrayList<EventFactHandle>( size() );
+        for ( int i = 0; i < length; i++ ) {
+            EventFactHandle handle = handles[slot( i )];
+            if ( handle != null ) {
+                list.add( handle );
+            }
+        }
+        if ( outOfOrder != null ) {
+            list.addAll( outOfOrder );
+        }
+        return list;
+    }
+
+    private int indexOf(EventFactHandle handle) {
+        if ( !ordered ) {
+            // the events being removed are usually the most recent ones, so it looks from the tail
+            for ( int i = length - 1; i >= 0; i-- ) {
+                if ( handles[slot( i )] == handle ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        long timestamp = handle.getStartTimestamp();
+        int low = 0;
+        int high = length;
+        while ( low < high ) {
+            int mid = ( low + high ) >>> 1;
+            if ( timestamps[slot( mid )] < timestamp ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for ( int i = low; i < length && timestamps[slot( i )] == timestamp; i++ ) {
+            if ( handles[slot( i )] == handle ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeHead() {
+        handles[head] = null;
+        size--;
+        do {
+            head = ( head + 1 ) & ( handles.length - 1 );
+            length--;
+        } while ( length > 0 && handles[head] == null );
+        if ( length == 0 ) {
+            head = 0;
+        }
+        if ( handles.length > minCapacity && length < handles.length >>> 2 ) {
+            resize( handles.length >>> 1 );
+        }
+    }
+
+    private int slot(int pos) {
+        return ( head + pos ) & ( handles.length - 1 );
+    }
+
+    private void allocate(int requiredCapacity) {
+        int capacity = DEFAULT_CAPACITY;
+        while ( capacity < requiredCapacity ) {
+            capacity <<= 1;
+        }
+        handles = new EventFactHandle[capacity];
+        timestamps = new long[capacity];
+    }
+
+    int capacity() {
+        return handles.length;
+    }
+
+    private void resize(int capacity) {
+        EventFactHandle[] oldHandles = handles;
+        long[] oldTimestamps = timestamps;
+        int firstPart = Math.min( length, oldHandles.length - head );
+
+        handles = new EventFactHandle[capacity];
+        timestamps = new long[capacity];
+        System.arraycopy( oldHandles, head, handles, 0, firstPart );
+        System.arraycopy( oldHandles, 0, handles, firstPart, length - firstPart );
+        System.arraycopy( oldTimestamps, head, timestamps, 0, firstPart );
+        System.arraycopy( oldTimestamps, 0, timestamps, firstPart, length - firstPart );
+        head = 0;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable hash map, where put and remove return a new map sharing with this one all the entries they don't change.
+ * The entries are kept in a hash array mapped trie, branching on 5 bits of the hash of the key at each level,
+ * so both the lookups and the updates are O(log32 n), and an update copies only the path to the changed entry.
+ * Being immutable, a map can be safely read by any number of threads once it has been published.
+ * Null keys and values are allowed.
+ */
+public final class PersistentHashMap<K, V> {
+
+    private static final PersistentHashMap EMPTY = new PersistentHashMap( null, 0 );
+
+    private static final int BITS = 5;
+    private static final int MASK = ( 1 << BITS ) - 1;
+
+    // either null, a Leaf or a Branch
+    private final Object root;
+    private final int    size;
+
+    private PersistentHashMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(Object key) {
+        int hash = hash( key );
+        Object node = root;
+        for ( int shift = 0; node instanceof Branch; shift += BITS ) {
+            node = ( (Branch) node ).getChild( hash, shift );
+        }
+        return node != null && ( (Leaf) node ).hash == hash ? (V) ( (Leaf) node ).get( key ) : null;
+    }
+
+    public boolean containsKey(Object key) {
+        int hash = hash( key );
+        Object node = root;
+        for ( int shift = 0; node instanceof Branch; shift += BITS ) {
+            node = ( (Branch) node ).getChild( hash, shift );
+        }
+        return node != null && ( (Leaf) node ).hash == hash && ( (Leaf) node ).indexOf( key ) >= 0;
+    }
+
+    /**
+     * Returns a map with the given key mapped to the given value
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        int newSize = containsKey( key ) ? size : size + 1;
+        return new PersistentHashMap<K, V>( put( root, 0, hash( key ), key, value ), newSize );
+    }
+
+    /**
+     * Returns a map without the given key, or this one if it doesn't contain it
+     */
+    public PersistentHashMap<K, V> remove(Object key) {
+        if ( !containsKey( key ) ) {
+            return this;
+        }
+        return size == 1 ? EMPTY : new PersistentHashMap<K, V>( remove( root, 0, hash( key ), key ), size - 1 );
+    }
+
+    /**
+     * Adds all the values of this map to the given collection
+     */
+    public <C extends Collection<? super V>> C addValuesTo(C values) {
+        addValues( root, values );
+        return values;
+    }
+
+    private static int hash(Object key) {
+        if ( key == null ) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return h ^ ( h >>> 16 );
+    }
+
+    private static int index(int hash, int shift) {
+        return ( hash >>> shift ) & MASK;
+    }
+
+    private static Object put(Object node, int shift, int hash, Object key, Object value) {
+        if ( node == null ) {
+            return new Leaf( hash, new Object[] { key }, new Object[] { value } );
+        }
+        if ( node instanceof Leaf ) {
+            Leaf leaf = (Leaf) node;
+            if ( leaf.hash == hash ) {
+                return leaf.put( key, value );
+            }
+            // two different hashes differ in at least one of the bits of the levels, so this ends before the shift goes over 30
+            return merge( leaf, new Leaf( hash, new Object[] { key }, new Object[] { value } ), shift );
+        }
+        Branch branch = (Branch) node;
+        int bit = 1 << index( hash, shift );
+        int pos = branch.position( bit );
+        if ( ( branch.bitmap & bit ) == 0 ) {
+            Object[] children = new Object[branch.children.length + 1];
+            System.arraycopy( branch.children, 0, children, 0, pos );
+            children[pos] = new Leaf( hash, new Object[] { key }, new Object[] { value } );
+            System.arraycopy( branch.children, pos, children, pos + 1, branch.children.length - pos );
+            return new Branch( branch.bitmap | bit, children );
+        }
+        Object[] children = branch.children.clone();
+        children[pos] = put( children[pos], shift + BITS, hash, key, value );
+        return new Branch( branch.bitmap, children );
+    }
+
+    private static Object merge(Leaf leaf1, Leaf leaf2, int shift) {
+        int index1 = index( leaf1.hash, shift );
+        int index2 = index( leaf2.hash, shift );
+        if ( index1 == index2 ) {
+            return new Branch( 1 << index1, new Object[] { merge( leaf1, leaf2, shift + BITS ) } );
+        }
+        Object[] children = index1 < index2 ? new Object[] { leaf1, leaf2 } : new Object[] { leaf2, leaf1 };
+        return new Branch( ( 1 << index1 ) | ( 1 << index2 ), children );
+    }
+
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if ( node instanceof Leaf ) {
+            return ( (Leaf) node ).remove( key );
+        }
+        Branch branch = (Branch) node;
+        int bit = 1 << index( hash, shift );
+        int pos = branch.position( bit );
+        Object child = remove( branch.children[pos], shift + BITS, hash, key );
+        if ( child == null ) {
+            if ( branch.children.length == 1 ) {
+                return null;
+            }
+            Object[] children = new Object[branch.children.length - 1];
+            System.arraycopy( branch.children, 0, children, 0, pos );
+            System.arraycopy( branch.children, pos + 1, children, pos, children.length - pos );
+            // a branch left with a single leaf is replaced by the leaf itself
+            return children.length == 1 && children[0] instanceof Leaf ? children[0] : new Branch( branch.bitmap & ~bit, children );
+        }
+        if ( branch.children.length == 1 && child instanceof Leaf ) {
+            return child;
+        }
+        Object[] children = branch.children.clone();
+        children[pos] = child;
+        return new Branch( branch.bitmap, children );
+    }
+
+    private static void addValues(Object node, Collection values) {
+        if ( node instanceof Leaf ) {
+            values.addAll( Arrays.asList( ( (Leaf) node ).values ) );
+        } else if ( node != null ) {
+            for ( Object child : ( (Branch) node ).children ) {
+                addValues( child, values );
+            }
+        }
+    }
+
+    /**
+     * A node holding only the children in use, whose positions are given by the bits set in the bitmap
+     */
+    private static final class Branch {
+        private final int      bitmap;
+        private final Object[] children;
+
+        private Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int position(int bit) {
+            return Integer.bitCount( bitmap & ( bit - 1 ) );
+        }
+
+        private Object getChild(int hash, int shift) {
+            int bit = 1 << index( hash, shift );
+            return ( bitmap & bit ) == 0 ? null : children[position( bit )];
+        }
+    }
+
+    /**
+     * The entries whose keys have the same hash, usually only one
+     */
+    private static final class Leaf {
+        private final int      hash;
+        private final Object[] keys;
+        private final Object[] values;
+
+        private Leaf(int hash, Object[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(Object key) {
+            for ( int i = 0; i < keys.length; i++ ) {
+                if ( key == null ? keys[i] == null : key.equals( keys[i] ) ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Object get(Object key) {
+            int i = indexOf( key );
+            return i >= 0 ? values[i] : null;
+        }
+
+        private Leaf put(Object key, Object value) {
+            int i = indexOf( key );
+            if ( i >= 0 ) {
+                Object[] newValues = values.clone();
+                newValues[i] = value;
+                return new Leaf( hash, keys, newValues );
+            }
+            Object[] newKeys = Arrays.copyOf( keys, keys.length + 1 );
+            Object[] newValues = Arrays.copyOf( values, values.length + 1 );
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            return new Leaf( hash, newKeys, newValues );
+        }
+
+        private Leaf remove(Object key) {
+            int i = indexOf( key );
+            if ( keys.length == 1 ) {
+                return null;
+            }
+            Object[] newKeys = new Object[keys.length - 1];
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy( keys, 0, newKeys, 0, i );
+            System.arraycopy( keys, i + 1, newKeys, i, newKeys.length - i );
+            System.arraycopy( values, 0, newValues, 0, i );
+            System.arraycopy( values, i + 1, newValues, i, newValues.length - i );
+            return new Leaf( hash, newKeys, newValues );
+        }
+    }
+}
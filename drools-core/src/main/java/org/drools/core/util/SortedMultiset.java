@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A multiset of Comparable values kept sorted in an AVL tree, where equal values (according to compareTo)
+ * share a single node counting the occurrences of each of their instances. Removing a value takes out that
+ * very instance, found by identity in O(1), so the values returned are always still present, even when distinct
+ * objects compare equal. Each node also keeps the total count of its subtree, so it is an order statistic tree:
+ * adding and removing a value, getting the first and the last one and getting the value at a given rank are all
+ * O(log n), where n is the number of distinct values, regardless of how many occurrences compare equal.
+ */
+public class SortedMultiset<T extends Comparable<? super T>> implements Serializable {
+
+    private static final long serialVersionUID = 510l;
+
+    private transient Node<T> root;
+
+    /**
+     * Adds an occurrence of the given value
+     */
+    public void add(T value) {
+        root = add( root, value );
+    }
+
+    /**
+     * Removes an occurrence of the given value, returning false if there was none. When that instance isn't
+     * in the multiset, another instance comparing equal is removed in its place.
+     */
+    public boolean remove(T value) {
+        int size = size();
+        root = remove( root, value );
+        return size() < size;
+    }
+
+    /**
+     * Returns the number of values, counting all the occurrences of each of them
+     */
+    public int size() {
+        return size( root );
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the number of occurrences of the given value
+     */
+    public int count(T value) {
+        Node<T> node = root;
+        while ( node != null ) {
+            int cmp = value.compareTo( node.first() );
+            if ( cmp == 0 ) {
+                return node.count();
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the lowest value or null if the multiset is empty
+     */
+    public T first() {
+        Node<T> node = root;
+        if ( node == null ) {
+            return null;
+        }
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        return node.first();
+    }
+
+    /**
+     * Returns the highest value or null if the multiset is empty
+     */
+    public T last() {
+        Node<T> node = root;
+        if ( node == null ) {
+            return null;
+        }
+        while ( node.right != null ) {
+            node = node.right;
+        }
+        return node.first();
+    }
+
+    /**
+     * Returns the value at the given 0-based rank in the sorted sequence of all the occurrences. Among the
+     * occurrences comparing equal any of their instances is returned.
+     */
+    public T get(int rank) {
+        if ( rank < 0 || rank >= size() ) {
+            throw new NoSuchElementException( "Rank " + rank + " out of a multiset of size " + size() );
+        }
+        Node<T> node = root;
+        while ( true ) {
+            int leftSize = size( node.left );
+            if ( rank < leftSize ) {
+                node = node.left;
+            } else if ( rank < leftSize + node.count() ) {
+                return node.first();
+            } else {
+                rank -= leftSize + node.count();
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns all the occurrences in ascending order
+     */
+    public List<T> toList() {
+        List<T> list = new ArrayList<T>( size() );
+        addAll( root, list );
+        return list;
+    }
+
+    private static <T> void addAll(Node<T> node, List<T> list) {
+        if ( node != null ) {
+            addAll( node.left, list );
+            for ( Instance<T> instance = node.head; instance != null; instance = instance.next ) {
+                for ( int i = 0; i < instance.count; i++ ) {
+                    list.add( instance.value );
+                }
+            }
+            addAll( node.right, list );
+        }
+    }
+
+    private Node<T> add(Node<T> node, T value) {
+        if ( node == null ) {
+            return new Node<T>( value );
+        }
+        int cmp = value.compareTo( node.first() );
+        if ( cmp == 0 ) {
+            node.addInstance( value );
+            node.size++;
+            return node;
+        }
+        if ( cmp < 0 ) {
+            node.left = add( node.left, value );
+        } else {
+            node.right = add( node.right, value );
+        }
+        return balance( node );
+    }
+
+    private Node<T> remove(Node<T> node, T value) {
+        if ( node == null ) {
+            return null;
+        }
+        int cmp = value.compareTo( node.first() );
+        if ( cmp < 0 ) {
+            node.left = remove( node.left, value );
+        } else if ( cmp > 0 ) {
+            node.right = remove( node.right, value );
+        } else if ( node.count() > 1 ) {
+            node.removeInstance( value );
+            node.size--;
+            return node;
+        } else if ( node.left == null ) {
+            return node.right;
+        } else if ( node.right == null ) {
+            return node.left;
+        } else {
+            // replace the node with the lowest node of its right subtree
+            Node<T> successor = node.right;
+            while ( successor.left != null ) {
+                successor = successor.left;
+            }
+            successor.right = removeFirst( node.right );
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance( node );
+    }
+
+    private Node<T> removeFirst(Node<T> node) {
+        if ( node.left == null ) {
+            return node.right;
+        }
+        node.left = removeFirst( node.left );
+        return balance( node );
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max( height( node.left ), height( node.right ) );
+        node.size = node.count() + size( node.left ) + size( node.right );
+    }
+
+    private Node<T> balance(Node<T> node) {
+        update( node );
+        int factor = height( node.left ) - height( node.right );
+        if ( factor > 1 ) {
+            if ( height( node.left.left ) < height( node.left.right ) ) {
+                node.left = rotateLeft( node.left );
+            }
+            return rotateRight( node );
+        }
+        if ( factor < -1 ) {
+            if ( height( node.right.right ) < height( node.right.left ) ) {
+                node.right = rotateRight( node.right );
+            }
+            return rotateLeft( node );
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update( node );
+        update( left );
+        return left;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update( node );
+        update( right );
+        return right;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        List<Node<T>> nodes = new ArrayList<Node<T>>();
+        addNodes( root, nodes );
+        out.writeInt( nodes.size() );
+        for ( Node<T> node : nodes ) {
+            out.writeInt( node.count() );
+            for ( Instance<T> instance = node.head; instance != null; instance = instance.next ) {
+                for ( int i = 0; i < instance.count; i++ ) {
+                    out.writeObject( instance.value );
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int distinct = in.readInt();
+        for ( int i = 0; i < distinct; i++ ) {
+            int count = in.readInt();
+            for ( int j = 0; j < count; j++ ) {
+                add( (T) in.readObject() );
+            }
+        }
+    }
+
+    private static <T> void addNodes(Node<T> node, List<Node<T>> nodes) {
+        if ( node != null ) {
+            addNodes( node.left, nodes );
+            nodes.add( node );
+            addNodes( node.right, nodes );
+        }
+    }
+
+    private static class Node<T> {
+        // the distinct instances of the node, each with its number of occurrences
+        private Instance<T>                      head;
+        // the instances by identity, created only when a second distinct instance is added to the node
+        private IdentityHashMap<T, Instance<T>>  instances;
+        private int                              count  = 1;
+        private int                              size   = 1;
+        private int                              height = 1;
+        private Node<T>                          left;
+        private Node<T>                          right;
+
+        private Node(T value) {
+            head = new Instance<T>( value );
+        }
+
+        private T first() {
+            return head.value;
+        }
+
+        private int count() {
+            return count;
+        }
+
+        private void addInstance(T value) {
+            count++;
+            Instance<T> instance = findInstance( value );
+            if ( instance != null ) {
+                instance.count++;
+                return;
+            }
+            if ( instances == null ) {
+                instances = new IdentityHashMap<T, Instance<T>>();
+                instances.put( head.value, head );
+            }
+            // linked after the head, so the instance returned by first() doesn't change
+            instance = new Instance<T>( value );
+            instance.previous = head;
+            instance.next = head.next;
+            if ( head.next != null ) {
+                head.next.previous = instance;
+            }
+            head.next = instance;
+            instances.put( value, instance );
+        }
+
+        private void removeInstance(T value) {
+            count--;
+            Instance<T> instance = findInstance( value );
+            if ( instance == null ) {
+                // not this very instance, so any of the ones comparing equal
+                instance = head;
+            }
+            if ( --instance.count > 0 ) {
+                return;
+            }
+            if ( instance.previous == null ) {
+                head = instance.next;
+            } else {
+                instance.previous.next = instance.next;
+            }
+            if ( instance.next != null ) {
+                instance.next.previous = instance.previous;
+            }
+            if ( instances != null ) {
+                instances.remove( instance.value );
+            }
+        }
+
+        private Instance<T> findInstance(T value) {
+            if ( head.value == value ) {
+                return head;
+            }
+            return instances == null ? null : instances.get( value );
+        }
+    }
+
+    private static class Instance<T> {
+        private final T     value;
+        private int         count = 1;
+        private Instance<T> previous;
+        private Instance<T> next;
+
+        private Instance(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -115,7 +115,7 @@ public class TupleRBTree<K extends Comparable< ? super K>> {
 
         public Entry next(Entry object) {
             Entry temp = next;
-            next = checkUpperBound( recurse( next ) );
+            next = checkUpperBound( successor( next ) );
             return temp;
         }
 
@@ -123,28 +123,6 @@ public class TupleRBTree<K extends Comparable< ? super K>> {
             return false;
         }
 
-        private Node<K> recurse(Node<K> current) {
-            if (current == null) {
-                return null;
-            }
-
-            if (current.right != null) {
-                Node<K> p = current.right;
-                while (p.left != null) {
-                    p = p.left;
-                }
-                return p;
-            }
-
-            Node<K> p = current.parent;
-            Node<K> ch = current;
-            while (p != null && ch == p.right) {
-                ch = p;
-                p = p.parent;
-            }
-            return p;
-        }
-
         public Node<K> checkUpperBound(Node<K> current) {
             if (upperBound == null) {
                 return current;
@@ -157,6 +135,50 @@ public class TupleRBTree<K extends Comparable< ? super K>> {
         return root == null;
     }
 
+    public static <K extends Comparable< ? super K>> Node<K> successor(Node<K> current) {
+        if (current == null) {
+            return null;
+        }
+
+        if (current.right != null) {
+            Node<K> p = current.right;
+            while (p.left != null) {
+                p = p.left;
+            }
+            return p;
+        }
+
+        Node<K> p = current.parent;
+        Node<K> ch = current;
+        while (p != null && ch == p.right) {
+            ch = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    public static <K extends Comparable< ? super K>> Node<K> predecessor(Node<K> current) {
+        if (current == null) {
+            return null;
+        }
+
+        if (current.left != null) {
+            Node<K> p = current.left;
+            while (p.right != null) {
+                p = p.right;
+            }
+            return p;
+        }
+
+        Node<K> p = current.parent;
+        Node<K> ch = current;
+        while (p != null && ch == p.left) {
+            ch = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
     public Node<K> first() {
         if (root == null) {
             return null;
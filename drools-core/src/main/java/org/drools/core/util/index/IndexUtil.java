@@ -16,18 +16,22 @@
 package org.drools.core.util.index;
 
 import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.base.ValueType;
 import org.drools.core.reteoo.BetaMemory;
 import org.drools.core.reteoo.BetaNode;
 import org.drools.core.reteoo.NodeTypeEnums;
 import org.drools.core.reteoo.TupleMemory;
 import org.drools.core.rule.ContextEntry;
 import org.drools.core.rule.IndexableConstraint;
+import org.drools.core.rule.constraint.EvaluatorConstraint;
 import org.drools.core.rule.constraint.MvelConstraint;
 import org.drools.core.spi.BetaNodeFieldConstraint;
 import org.drools.core.spi.Constraint;
 import org.drools.core.util.AbstractHashTable.FieldIndex;
 import org.kie.internal.conf.IndexPrecedenceOption;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -37,7 +41,14 @@ import static org.drools.core.util.ClassUtils.getter2property;
 public class IndexUtil {
 
     private static final boolean USE_COMPARISON_INDEX = true;
-    private static final boolean USE_RANGE_INDEX = USE_COMPARISON_INDEX && false;
+
+    /**
+     * Comparison indexes on join nodes and dual (range) indexes are only supported by the phreak evaluators,
+     * so they are enabled only when both the betaRangeIndexEnabled option and phreak are switched on.
+     */
+    public static boolean isRangeIndexEnabled(RuleBaseConfiguration config) {
+        return USE_COMPARISON_INDEX && config.isBetaRangeIndexEnabled() && config.isPhreakEnabled();
+    }
 
     public static boolean compositeAllowed(BetaNodeFieldConstraint[] constraints, short betaNodeType) {
         // 1) If there is 1 or more unification restrictions it cannot be composite
@@ -70,42 +81,55 @@ public class IndexUtil {
         return constraint instanceof IndexableConstraint && ((IndexableConstraint)constraint).isIndexable(nodeType);
     }
 
-    private static boolean canHaveRangeIndex(short nodeType) {
-        return USE_COMPARISON_INDEX && ( nodeType == NodeTypeEnums.NotNode || nodeType == NodeTypeEnums.ExistsNode );
+    private static boolean isIndexable(BetaNodeFieldConstraint constraint, short nodeType, boolean rangeIndexEnabled) {
+        return isIndexable(constraint, nodeType) || ( rangeIndexEnabled && isIndexableForNode(nodeType, constraint, true) );
+    }
+
+    private static boolean canHaveRangeIndex(short nodeType, boolean rangeIndexEnabled) {
+        return USE_COMPARISON_INDEX && ( nodeType == NodeTypeEnums.NotNode || nodeType == NodeTypeEnums.ExistsNode ||
+                                         ( rangeIndexEnabled && nodeType == NodeTypeEnums.JoinNode ) );
     }
 
     public static boolean isIndexableForNode(short nodeType, BetaNodeFieldConstraint constraint) {
+        return isIndexableForNode(nodeType, constraint, false);
+    }
+
+    public static boolean isIndexableForNode(short nodeType, BetaNodeFieldConstraint constraint, boolean rangeIndexEnabled) {
         if ( !(constraint instanceof IndexableConstraint) ) {
             return false;
         }
 
         ConstraintType constraintType = ((IndexableConstraint)constraint).getConstraintType();
-        return constraintType.isIndexableForNode(nodeType);
+        return constraintType.isIndexableForNode(nodeType, rangeIndexEnabled);
     }
 
     public static boolean[] isIndexableForNode(IndexPrecedenceOption indexPrecedenceOption, short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+        return isIndexableForNode(indexPrecedenceOption, nodeType, keyDepth, constraints, false);
+    }
+
+    public static boolean[] isIndexableForNode(IndexPrecedenceOption indexPrecedenceOption, short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
         if (keyDepth < 1) {
             return new boolean[constraints.length];
         }
 
         return indexPrecedenceOption == IndexPrecedenceOption.EQUALITY_PRIORITY ?
-                findIndexableWithEqualityPriority(nodeType, keyDepth, constraints) :
-                findIndexableWithPatternOrder(nodeType, keyDepth, constraints);
+                findIndexableWithEqualityPriority(nodeType, keyDepth, constraints, rangeIndexEnabled) :
+                findIndexableWithPatternOrder(nodeType, keyDepth, constraints, rangeIndexEnabled);
     }
 
-    private static boolean[] findIndexableWithEqualityPriority(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+    private static boolean[] findIndexableWithEqualityPriority(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
         boolean[] indexable = new boolean[constraints.length];
         if (hasEqualIndexable(keyDepth, indexable, constraints)) {
             return indexable;
         }
 
-        if (!canHaveRangeIndex(nodeType)) {
+        if (!canHaveRangeIndex(nodeType, rangeIndexEnabled)) {
             return indexable;
         }
 
         for (int i = 0; i < constraints.length; i++) {
-            if (isIndexable(constraints[i], nodeType)) {
-                sortRangeIndexable(constraints, indexable, i);
+            if (isIndexable(constraints[i], nodeType, rangeIndexEnabled)) {
+                sortRangeIndexable(constraints, indexable, i, rangeIndexEnabled);
                 break;
             }
         }
@@ -113,14 +137,14 @@ public class IndexUtil {
         return indexable;
     }
 
-    private static boolean[] findIndexableWithPatternOrder(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+    private static boolean[] findIndexableWithPatternOrder(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
         boolean[] indexable = new boolean[constraints.length];
         for (int i = 0; i < constraints.length; i++) {
-            if (isIndexable(constraints[i], nodeType)) {
+            if (isIndexable(constraints[i], nodeType, rangeIndexEnabled)) {
                 if (isEqualIndexable(constraints[i])) {
                     sortEqualIndexable(keyDepth, indexable, constraints, i);
                 } else {
-                    sortRangeIndexable(constraints, indexable, i);
+                    sortRangeIndexable(constraints, indexable, i, rangeIndexEnabled);
                 }
                 break;
             }
@@ -148,8 +172,8 @@ public class IndexUtil {
         return hasEqualIndexable;
     }
 
-    private static void sortRangeIndexable(BetaNodeFieldConstraint[] constraints, boolean[] indexable, int i) {
-        int dualConstraintPosition = findDualConstraint(constraints, i);
+    private static void sortRangeIndexable(BetaNodeFieldConstraint[] constraints, boolean[] indexable, int i, boolean rangeIndexEnabled) {
+        int dualConstraintPosition = rangeIndexEnabled ? findDualConstraint(constraints, i) : -1;
         swap(constraints, i, 0);
         indexable[0] = true;
         if (dualConstraintPosition > 0) {
@@ -159,7 +183,7 @@ public class IndexUtil {
     }
 
     private static int findDualConstraint(BetaNodeFieldConstraint[] constraints, int comparisonPos) {
-        if ( !(USE_RANGE_INDEX && constraints[comparisonPos] instanceof MvelConstraint) ) {
+        if ( !(constraints[comparisonPos] instanceof MvelConstraint) ) {
             return -1;
         }
         MvelConstraint firstConstraint = (MvelConstraint) constraints[comparisonPos];
@@ -195,6 +219,7 @@ public class IndexUtil {
         LESS_THAN(true),
         LESS_OR_EQUAL(true),
         RANGE(true),
+        TEMPORAL(true),
         UNKNOWN(false);
 
         private final boolean indexable;
@@ -224,6 +249,10 @@ public class IndexUtil {
         }
 
         public boolean isIndexableForNode(short nodeType) {
+            return isIndexableForNode(nodeType, false);
+        }
+
+        public boolean isIndexableForNode(short nodeType, boolean rangeIndexEnabled) {
             switch (this) {
                 case EQUAL:
                     return true;
@@ -231,7 +260,7 @@ public class IndexUtil {
                 case UNKNOWN:
                     return false;
                 default:
-                    return canHaveRangeIndex(nodeType);
+                    return canHaveRangeIndex(nodeType, rangeIndexEnabled);
             }
         }
 
@@ -262,13 +291,76 @@ public class IndexUtil {
         }
     }
 
+    /**
+     * The type the keys of a comparison or range index are converted to, so that values extracted from
+     * both sides of the constraint can be compared even when their numeric types differ, e.g. an int field
+     * against a long declaration.
+     */
+    public enum ComparisonKeyType {
+        NONE, LONG, DOUBLE, BIG_DECIMAL;
+
+        public Comparable coerce(Object value) {
+            if ( this == NONE || !(value instanceof Number) ) {
+                return (Comparable) value;
+            }
+            Number number = (Number) value;
+            switch (this) {
+                case LONG:
+                    return number instanceof Long ? (Long) number : Long.valueOf( number.longValue() );
+                case DOUBLE:
+                    return number instanceof Double ? (Double) number : Double.valueOf( number.doubleValue() );
+                default:
+                    if ( number instanceof BigDecimal ) {
+                        return (BigDecimal) number;
+                    }
+                    if ( number instanceof BigInteger ) {
+                        return new BigDecimal( (BigInteger) number );
+                    }
+                    return new BigDecimal( number.toString() );
+            }
+        }
+
+        public static ComparisonKeyType get(FieldIndex... indexes) {
+            ValueType first = null;
+            boolean sameType = true;
+            boolean integer = true;
+            boolean decimal = false;
+            for (FieldIndex index : indexes) {
+                for (ValueType type : new ValueType[] { index.getExtractor().getValueType(), index.getDeclaration().getValueType() }) {
+                    if ( type == null ) {
+                        return NONE;
+                    }
+                    if ( first == null ) {
+                        first = type;
+                    } else if ( !first.equals( type ) ) {
+                        sameType = false;
+                    }
+                    if ( type.isIntegerNumber() ) {
+                        continue;
+                    }
+                    if ( type.isFloatNumber() ) {
+                        integer = false;
+                    } else if ( type.isNumber() && !type.isChar() ) {
+                        decimal = true;
+                    } else {
+                        return NONE;
+                    }
+                }
+            }
+            if ( sameType ) {
+                return NONE;
+            }
+            return decimal ? BIG_DECIMAL : integer ? LONG : DOUBLE;
+        }
+    }
+
     public static List<String> getIndexedProperties(BetaNode betaNode, RuleBaseConfiguration config) {
         int keyDepth = config.getCompositeKeyDepth();
         if (config.getCompositeKeyDepth() < 1) {
             return Collections.emptyList();
         }
 
-        Factory.IndexSpec indexSpec = new Factory.IndexSpec(config.getIndexPrecedenceOption(), keyDepth, betaNode.getType(), betaNode.getConstraints());
+        Factory.IndexSpec indexSpec = new Factory.IndexSpec(config.getIndexPrecedenceOption(), keyDepth, betaNode.getType(), betaNode.getConstraints(), isRangeIndexEnabled(config));
         List<String> indexedProps = new ArrayList<String>();
         for (FieldIndex fieldIndex : indexSpec.indexes) {
             indexedProps.add( getter2property(fieldIndex.getExtractor().getNativeReadMethodName()) );
@@ -287,7 +379,7 @@ public class IndexUtil {
                                        nodeType );
             }
 
-            IndexSpec indexSpec = new IndexSpec(config.getIndexPrecedenceOption(), keyDepth, nodeType, constraints);
+            IndexSpec indexSpec = new IndexSpec(config.getIndexPrecedenceOption(), keyDepth, nodeType, constraints, isRangeIndexEnabled(config));
             return new BetaMemory( createLeftMemory(config, indexSpec),
                                    createRightMemory(config, indexSpec),
                                    createContext(constraints),
@@ -300,7 +392,9 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.EQUAL) {
-                return new TupleIndexHashTable( indexSpec.indexes, false );
+                return indexSpec.primitiveIndex ?
+                       TupleIndexPrimitiveHashTable.create( indexSpec.indexes, false ) :
+                       new TupleIndexHashTable( indexSpec.indexes, false );
             }
 
             if (indexSpec.constraintType.isComparison()) {
@@ -308,11 +402,14 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.RANGE) {
-                // missing TreeMap based implementation for range indexes
                 return new RightTupleIndexRangeRBTree( indexSpec.ascendingConstraintType, indexSpec.indexes[0],
                                                        indexSpec.descendingConstraintType, indexSpec.indexes[1] );
             }
 
+            if (indexSpec.constraintType == ConstraintType.TEMPORAL) {
+                return new TupleIndexTemporalRBTree( indexSpec.temporalConstraint, false );
+            }
+
             return new TupleList();
         }
 
@@ -325,7 +422,9 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.EQUAL) {
-                return new TupleIndexHashTable( indexSpec.indexes, true );
+                return indexSpec.primitiveIndex ?
+                       TupleIndexPrimitiveHashTable.create( indexSpec.indexes, true ) :
+                       new TupleIndexHashTable( indexSpec.indexes, true );
             }
 
             if (indexSpec.constraintType.isComparison()) {
@@ -333,11 +432,14 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.RANGE) {
-                // missing TreeMap based implementation for range indexes
                 return new LeftTupleIndexRangeRBTree( indexSpec.ascendingConstraintType, indexSpec.indexes[0],
                                                       indexSpec.descendingConstraintType, indexSpec.indexes[1] );
             }
 
+            if (indexSpec.constraintType == ConstraintType.TEMPORAL) {
+                return new TupleIndexTemporalRBTree( indexSpec.temporalConstraint, true );
+            }
+
             return new TupleList();
         }
 
@@ -353,17 +455,23 @@ public class IndexUtil {
             private ConstraintType constraintType = ConstraintType.UNKNOWN;
             private FieldIndex[] indexes;
 
+            // a single equality on int, long or double fields can be hashed without boxing the values
+            private boolean primitiveIndex;
+
             private ConstraintType ascendingConstraintType = null;
             private ConstraintType descendingConstraintType = null;
 
-            private IndexSpec(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
-                init(indexPrecedenceOption, keyDepth, nodeType, constraints);
+            // a temporal index isn't based on fields, but on the timestamps of the events compared by the constraint
+            private EvaluatorConstraint temporalConstraint;
+
+            private IndexSpec(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
+                init(indexPrecedenceOption, keyDepth, nodeType, constraints, rangeIndexEnabled);
             }
 
-            private void init(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
+            private void init(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
                 int firstIndexableConstraint = indexPrecedenceOption == IndexPrecedenceOption.EQUALITY_PRIORITY ?
-                        determineTypeWithEqualityPriority(nodeType, constraints) :
-                        determineTypeWithPatternOrder(nodeType, constraints);
+                        determineTypeWithEqualityPriority(nodeType, constraints, rangeIndexEnabled) :
+                        determineTypeWithPatternOrder(nodeType, constraints, rangeIndexEnabled);
 
                 if (constraintType == ConstraintType.EQUAL) {
                     List<FieldIndex> indexList = new ArrayList<FieldIndex>();
@@ -376,10 +484,12 @@ public class IndexUtil {
                         }
                     }
                     indexes = indexList.toArray(new FieldIndex[indexList.size()]);
+                    primitiveIndex = !((IndexableConstraint)constraints[firstIndexableConstraint]).isUnification() &&
+                                     TupleIndexPrimitiveHashTable.isSupported(indexes);
 
                 } else if (constraintType.isComparison()) {
                     // look for a dual constraint to create a range index
-                    if (USE_RANGE_INDEX && constraints[firstIndexableConstraint] instanceof MvelConstraint) {
+                    if (rangeIndexEnabled && constraints[firstIndexableConstraint] instanceof MvelConstraint) {
                         MvelConstraint firstConstraint = (MvelConstraint) constraints[firstIndexableConstraint];
                         String leftValue = getLeftValueInExpression(firstConstraint.getExpression());
                         for (int i = firstIndexableConstraint+1; i < constraints.length; i++) {
@@ -403,10 +513,14 @@ public class IndexUtil {
                     }
 
                     indexes = new FieldIndex[]{ ((IndexableConstraint)constraints[firstIndexableConstraint]).getFieldIndex() };
+
+                } else if (constraintType == ConstraintType.TEMPORAL) {
+                    temporalConstraint = (EvaluatorConstraint) constraints[firstIndexableConstraint];
+                    indexes = new FieldIndex[0];
                 }
             }
 
-            private int determineTypeWithEqualityPriority(short nodeType, BetaNodeFieldConstraint[] constraints) {
+            private int determineTypeWithEqualityPriority(short nodeType, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
                 int indexedConstraintPos = 0;
                 for (int i = 0; i < constraints.length; i++) {
                     if (constraints[i] instanceof IndexableConstraint) {
@@ -415,7 +529,7 @@ public class IndexUtil {
                         if (type == ConstraintType.EQUAL) {
                             constraintType = type;
                             return i;
-                        } else if (constraintType == ConstraintType.UNKNOWN && type.isIndexableForNode(nodeType)) {
+                        } else if (constraintType == ConstraintType.UNKNOWN && type.isIndexableForNode(nodeType, rangeIndexEnabled)) {
                             constraintType = type;
                             indexedConstraintPos = i;
                         }
@@ -424,10 +538,10 @@ public class IndexUtil {
                 return indexedConstraintPos;
             }
 
-            private int determineTypeWithPatternOrder(short nodeType, BetaNodeFieldConstraint[] constraints) {
+            private int determineTypeWithPatternOrder(short nodeType, BetaNodeFieldConstraint[] constraints, boolean rangeIndexEnabled) {
                 for (int i = 0; i < constraints.length; i++) {
                     ConstraintType type = ConstraintType.getType(constraints[i]);
-                    if ( type.isIndexableForNode(nodeType) ) {
+                    if ( type.isIndexableForNode(nodeType, rangeIndexEnabled) ) {
                         constraintType = type;
                         return i;
                     }
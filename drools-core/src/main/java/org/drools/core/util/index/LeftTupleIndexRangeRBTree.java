@@ -22,18 +22,30 @@ import org.drools.core.util.AbstractHashTable;
 import org.drools.core.util.Entry;
 import org.drools.core.util.FastIterator;
 import org.drools.core.util.Iterator;
-import org.drools.core.util.RBTree;
+import org.drools.core.util.TupleRBTree;
+import org.drools.core.util.TupleRBTree.Boundary;
+import org.drools.core.util.TupleRBTree.Node;
 
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Left memory for a pair of dual comparisons like <code>value > $lower, value < $upper</code>. Left tuples are sorted
+ * by their (lower, upper) bounds: for a given right value the nodes with an acceptable lower bound are a prefix of the
+ * tree and, inside each group sharing the same lower bound, the ones with an acceptable upper bound are a suffix, so
+ * the non matching nodes of each group are skipped with a single tree lookup.
+ */
 public class LeftTupleIndexRangeRBTree implements Externalizable, TupleMemory {
 
-    private RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>> tree;
+    private TupleRBTree<RangeKey> tree;
+
+    // tuples with a null bound can never satisfy a comparison, so they are kept out of the tree
+    private TupleList nullTuples;
 
     private AbstractHashTable.FieldIndex ascendingIndex;
     private IndexUtil.ConstraintType ascendingConstraintType;
@@ -41,6 +53,7 @@ public class LeftTupleIndexRangeRBTree implements Externalizable, TupleMemory {
     private AbstractHashTable.FieldIndex descendingIndex;
     private IndexUtil.ConstraintType descendingConstraintType;
 
+    private IndexUtil.ComparisonKeyType keyType;
 
     private transient TupleFastIterator tupleFastIterator;
 
@@ -56,53 +69,52 @@ public class LeftTupleIndexRangeRBTree implements Externalizable, TupleMemory {
         this.ascendingConstraintType = ascendingConstraintType;
         this.descendingIndex = descendingIndex;
         this.descendingConstraintType = descendingConstraintType;
-        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>>();
+        this.keyType = IndexUtil.ComparisonKeyType.get( ascendingIndex, descendingIndex );
+        tree = new TupleRBTree<RangeKey>();
+        nullTuples = new TupleList();
     }
 
-
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( ascendingIndex );
         out.writeObject( ascendingConstraintType );
         out.writeObject( descendingIndex );
         out.writeObject( descendingConstraintType );
+        out.writeObject( keyType );
         out.writeInt(size);
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        tree = (RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>>) in.readObject();
+        tree = (TupleRBTree<RangeKey>) in.readObject();
+        nullTuples = (TupleList) in.readObject();
         ascendingIndex = (AbstractHashTable.FieldIndex) in.readObject();
         ascendingConstraintType = (IndexUtil.ConstraintType) in.readObject();
         descendingIndex = (AbstractHashTable.FieldIndex) in.readObject();
         descendingConstraintType = (IndexUtil.ConstraintType) in.readObject();
+        keyType = (IndexUtil.ComparisonKeyType) in.readObject();
         size = in.readInt();
     }
 
     public void add(Tuple tuple) {
-        Comparable lowerBound = getLeftAscendingIndexedValue(tuple);
-        Comparable upperBound = getLeftDescendingIndexedValue(tuple);
-        RBTree<Comparable<Comparable>, TupleList> nestedTree = tree.lookup(lowerBound);
-        if (nestedTree == null) {
-            nestedTree = new RBTree<Comparable<Comparable>, TupleList>();
-            tree.insert(lowerBound, nestedTree);
-        }
-        TupleList list = nestedTree.lookup(upperBound);
-        if (list == null) {
-            list = new TupleList();
-            nestedTree.insert(upperBound, list);
-        }
+        RangeKey key = getLeftIndexedValue(tuple);
+        TupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
 
     public void remove(Tuple tuple) {
-        tuple.getMemory().remove(tuple);
+        TupleList list = tuple.getMemory();
+        list.remove(tuple);
+        if (list != nullTuples && list.getFirst() == null) {
+            tree.delete(((Node<RangeKey>)list).key);
+        }
         size--;
     }
 
     public void removeAdd(Tuple tuple) {
-        remove( tuple );
-        add( tuple );
+        remove(tuple);
+        add(tuple);
     }
 
     public boolean isIndexed() {
@@ -114,207 +126,137 @@ public class LeftTupleIndexRangeRBTree implements Externalizable, TupleMemory {
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
+        FastIterator it = fullFastIterator();
+        List<Tuple> result = new ArrayList<Tuple>();
+        for ( Tuple entry = (Tuple) it.next( null ); entry != null; entry = (Tuple) it.next( entry ) ) {
+            result.add(entry);
         }
+        return result.toArray(new Tuple[result.size()]);
+    }
 
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
-        List<Comparable> nestedToBeRemoved = new ArrayList<Comparable>();
-        List<Tuple> result = new ArrayList<Tuple>();
+    public Tuple getFirst(Tuple rightTuple) {
+        Comparable value = getRightIndexedValue(rightTuple);
+        if (value == null) {
+            return null;
+        }
 
-        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>> node = null;
-        RBTree.Node<Comparable<Comparable>, TupleList> nestedNode = null;
-
-        while ( (node = (RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>>) it.next( node )) != null ) {
-            nestedToBeRemoved.clear();
-            RBTree<Comparable<Comparable>, TupleList> nestedTree = node.value;
-            FastIterator nestedIt = nestedTree.fastIterator();
-
-            while ( (nestedNode = (RBTree.Node<Comparable<Comparable>, TupleList>) nestedIt.next( nestedNode )) != null ) {
-                TupleList list = nestedNode.value;
-                int listSize = list.size();
-                if (listSize == 0) {
-                    nestedToBeRemoved.add(nestedNode.key);
-                } else {
-                    Tuple entry = list.getFirst();
-                    while (entry != null) {
-                        result.add(entry);
-                        entry = (Tuple) entry.getNext();
-                    }
-                }
-            }
+        // the right value is kept by the iterator, as the iteration always starts from here
+        ((TupleFastIterator) fastIterator()).value = value;
 
-            for (Comparable key : nestedToBeRemoved) {
-                nestedTree.delete(key);
-            }
+        return findFirst(tree.first(), value);
+    }
 
-            if (nestedTree.isEmpty()) {
-                toBeRemoved.add(node.key);
+    private Tuple findFirst(Node<RangeKey> node, Comparable value) {
+        while (node != null) {
+            RangeKey key = node.key;
+            if ( !acceptsLowerBound(key.lowerBound, value) ) {
+                // all the following nodes have an even greater lower bound
+                return null;
             }
+            if ( acceptsUpperBound(key.upperBound, value) ) {
+                return node.getFirst();
+            }
+            // skip the nodes with the same lower bound and an upper bound that is still too small
+            node = tree.findNearestNode( new RangeKey( key.lowerBound, value ),
+                                         descendingConstraintType == IndexUtil.ConstraintType.LESS_OR_EQUAL,
+                                         Boundary.LOWER );
         }
+        return null;
+    }
 
-        for (Comparable key : toBeRemoved) {
-            tree.delete(key);
-        }
-
-        return result.toArray(new Tuple[result.size()]);
+    private boolean acceptsLowerBound(Comparable lowerBound, Comparable value) {
+        int compResult = value.compareTo(lowerBound);
+        return compResult > 0 || (compResult == 0 && ascendingConstraintType == IndexUtil.ConstraintType.GREATER_OR_EQUAL);
     }
 
-    public Tuple getFirst(Tuple tuple) {
-        Comparable key = getRightIndexedValue(tuple);
-        return getFirst(key);
+    private boolean acceptsUpperBound(Comparable upperBound, Comparable value) {
+        int compResult = value.compareTo(upperBound);
+        return compResult < 0 || (compResult == 0 && descendingConstraintType == IndexUtil.ConstraintType.LESS_OR_EQUAL);
     }
 
-    public Iterator<Tuple> iterator() {
-        TupleList list = tree.first().value.first().value;
-        Tuple firstTuple = list != null ? list.getFirst() : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+    public Iterator iterator() {
+        FastIterator it = fullFastIterator();
+        return new FastIterator.IteratorAdapter(it, it.next(null));
     }
 
     public boolean contains(Tuple tuple) {
-        Comparable lowerBound = getLeftAscendingIndexedValue(tuple);
-        RBTree<Comparable<Comparable>, TupleList> nestedTree = tree.lookup(lowerBound);
-        return nestedTree == null ? false : nestedTree.lookup(getLeftDescendingIndexedValue(tuple)) != null;
+        RangeKey key = getLeftIndexedValue(tuple);
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
-        if ( tupleFastIterator == null ) {
+        if (tupleFastIterator == null) {
             tupleFastIterator = new TupleFastIterator();
         }
         return tupleFastIterator;
     }
 
     public FastIterator fullFastIterator() {
-        if ( tupleFastIterator == null ) {
-            tupleFastIterator = new TupleFastIterator();
-        }
-        return tupleFastIterator;
+        return new TupleIndexRBTree.FullFastIterator(tree, nullTuples);
     }
 
     public FastIterator fullFastIterator(Tuple tuple) {
-        FastIterator fastIterator = fullFastIterator();
-        fastIterator.next(getNext(tuple));
-        return fastIterator;
+        return fullFastIterator();
     }
 
-    private Comparable getLeftAscendingIndexedValue(Tuple tuple) {
-        return (Comparable) ascendingIndex.getDeclaration().getExtractor().getValue( tuple.get( ascendingIndex.getDeclaration() ).getObject() );
+    private RangeKey getLeftIndexedValue(Tuple leftTuple) {
+        Comparable lowerBound = keyType.coerce( ascendingIndex.getDeclaration().getExtractor().getValue( leftTuple.getObject( ascendingIndex.getDeclaration() ) ) );
+        Comparable upperBound = keyType.coerce( descendingIndex.getDeclaration().getExtractor().getValue( leftTuple.getObject( descendingIndex.getDeclaration() ) ) );
+        return lowerBound == null || upperBound == null ? null : new RangeKey( lowerBound, upperBound );
     }
 
-    private Comparable getLeftDescendingIndexedValue(Tuple tuple) {
-        return (Comparable) descendingIndex.getDeclaration().getExtractor().getValue( tuple.get( descendingIndex.getDeclaration() ).getObject() );
+    private Comparable getRightIndexedValue(Tuple rightTuple) {
+        return keyType.coerce( ascendingIndex.getExtractor().getValue( rightTuple.getFactHandle().getObject() ) );
     }
 
-    private Comparable getRightIndexedValue(Tuple tuple) {
-        return (Comparable) ascendingIndex.getExtractor().getValue( tuple.getFactHandle().getObject() );
-    }
+    public class TupleFastIterator implements FastIterator {
 
-    private Tuple getFirst(Comparable key) {
-        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>> nestedNode = null;
-        RBTree.Node<Comparable<Comparable>, TupleList> firstNode;
-
-        boolean findNextNestedNode = true;
-        while (true) {
-            if (findNextNestedNode) {
-                switch (ascendingConstraintType) {
-                    case GREATER_THAN:
-                        nestedNode = tree.findNearestNode(key, false, RBTree.Boundary.UPPER);
-                        break;
-                    case GREATER_OR_EQUAL:
-                        nestedNode = tree.findNearestNode(key, true, RBTree.Boundary.UPPER);
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("Cannot call remove constraint of type: " + ascendingConstraintType);
-                }
-            }
+        private Comparable value;
 
-            findNextNestedNode = true;
-            if (nestedNode == null) {
+        public Entry next(Entry object) {
+            if (object == null) {
                 return null;
             }
-            if (nestedNode.value.isEmpty()) {
-                tree.delete(nestedNode.key);
-                continue;
-            }
-
-            RBTree<Comparable<Comparable>, TupleList> nestedTree = nestedNode.value;
-            while (true) {
-                switch (descendingConstraintType) {
-                    case LESS_THAN:
-                        firstNode = nestedTree.findNearestNode(key, false, RBTree.Boundary.LOWER);
-                        break;
-                    case LESS_OR_EQUAL:
-                        firstNode = nestedTree.findNearestNode(key, true, RBTree.Boundary.LOWER);
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("Cannot call remove constraint of type: " + descendingConstraintType);
-                }
-
-                if (firstNode != null && firstNode.value.size() == 0) {
-                    nestedTree.delete(firstNode.key);
-                    firstNode = null;
-                }
-
-                if (firstNode == null) {
-                    nestedNode = tree.findNearestNode(nestedNode.key, false, RBTree.Boundary.UPPER);
-                    if (nestedNode == null) {
-                        return null;
-                    }
-                    findNextNestedNode = false;
-                    break;
-                }
-
-                return firstNode.value.getFirst();
+            Tuple leftTuple = (Tuple) object;
+            Tuple next = (Tuple) leftTuple.getNext();
+            if (next != null) {
+                return next;
             }
+            return findFirst(TupleRBTree.successor((Node<RangeKey>) leftTuple.getMemory()), value);
         }
-    }
 
-    private Entry getNext(Tuple tuple) {
-        Tuple next = (Tuple) tuple.getNext();
-        if (next != null) {
-            return next;
+        public boolean isFullIterator() {
+            return false;
         }
+    }
 
-        Comparable ascendingKey = getLeftAscendingIndexedValue(tuple);
-        Comparable descendingKey = getLeftDescendingIndexedValue(tuple);
-
-        RBTree<Comparable<Comparable>, TupleList> nestedTree = tree.lookup(ascendingKey);
-        while (nestedTree != null) {
-            while (true) {
-                RBTree.Node<Comparable<Comparable>, TupleList> nextNode = nestedTree.findNearestNode(descendingKey, false, RBTree.Boundary.LOWER);
-                if (nextNode == null) {
-                    break;
-                }
-                if (nextNode.value.size() == 0) {
-                    nestedTree.delete(nextNode.key);
-                } else {
-                    return nextNode.value.getFirst();
-                }
-            }
-
-            RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>> nextNode = tree.findNearestNode(ascendingKey, false, RBTree.Boundary.UPPER);
-            nestedTree = nextNode == null ? null : nextNode.value;
-        }
+    public void clear() {
+        tree = new TupleRBTree<RangeKey>();
+        nullTuples = new TupleList();
+        size = 0;
+    }
 
-        return null;
+    public IndexType getIndexType() {
+        return IndexType.RANGE;
     }
 
-    public class TupleFastIterator implements FastIterator {
-        public Entry next(Entry object) {
-            return object == null ? null : getNext((Tuple) object);
-        }
+    public static class RangeKey implements Comparable<RangeKey>, Serializable {
+        private final Comparable lowerBound;
+        private final Comparable upperBound;
 
-        public boolean isFullIterator() {
-            return false;
+        public RangeKey(Comparable lowerBound, Comparable upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
         }
-    }
 
-    public void clear() {
-        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, TupleList>>();
-    }
+        public int compareTo(RangeKey other) {
+            int compResult = lowerBound.compareTo(other.lowerBound);
+            return compResult != 0 ? compResult : upperBound.compareTo(other.upperBound);
+        }
 
-    public TupleMemory.IndexType getIndexType() {
-        return TupleMemory.IndexType.COMPARISON;
+        @Override
+        public String toString() {
+            return "[" + lowerBound + ", " + upperBound + "]";
+        }
     }
 }
@@ -21,7 +21,10 @@ import org.drools.core.util.AbstractHashTable.FieldIndex;
 import org.drools.core.util.Entry;
 import org.drools.core.util.FastIterator;
 import org.drools.core.util.Iterator;
-import org.drools.core.util.RBTree;
+import org.drools.core.util.TupleRBTree;
+import org.drools.core.util.TupleRBTree.Boundary;
+import org.drools.core.util.TupleRBTree.Node;
+import org.drools.core.util.index.IndexUtil.ComparisonKeyType;
 import org.drools.core.util.index.IndexUtil.ConstraintType;
 
 import java.io.Externalizable;
@@ -31,9 +34,16 @@ import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Right memory for a pair of dual comparisons like <code>value > $lower, value < $upper</code>. Right tuples are
+ * sorted by their value and a left tuple matches the contiguous run of nodes between its lower and upper bound.
+ */
 public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
 
-    private RBTree<Comparable<Comparable>, TupleList> tree;
+    private TupleRBTree<Comparable<Comparable>> tree;
+
+    // tuples with a null indexed value can never satisfy a comparison, so they are kept out of the tree
+    private TupleList nullTuples;
 
     private FieldIndex ascendingIndex;
     private ConstraintType ascendingConstraintType;
@@ -41,7 +51,9 @@ public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
     private FieldIndex descendingIndex;
     private ConstraintType descendingConstraintType;
 
-    private RightTupleBoundedFastIterator rightTupleBoundedFastIterator;
+    private ComparisonKeyType keyType;
+
+    private transient RightTupleBoundedFastIterator rightTupleBoundedFastIterator;
 
     private int size;
 
@@ -55,41 +67,46 @@ public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
         this.ascendingConstraintType = ascendingConstraintType;
         this.descendingIndex = descendingIndex;
         this.descendingConstraintType = descendingConstraintType;
-        tree = new RBTree<Comparable<Comparable>, TupleList>();
+        this.keyType = ComparisonKeyType.get( ascendingIndex, descendingIndex );
+        tree = new TupleRBTree<Comparable<Comparable>>();
+        nullTuples = new TupleList();
     }
 
-
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( ascendingIndex );
         out.writeObject( ascendingConstraintType );
         out.writeObject( descendingIndex );
         out.writeObject( descendingConstraintType );
+        out.writeObject( keyType );
         out.writeInt(size);
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        tree = (RBTree<Comparable<Comparable>, TupleList>) in.readObject();
+        tree = (TupleRBTree<Comparable<Comparable>>) in.readObject();
+        nullTuples = (TupleList) in.readObject();
         ascendingIndex = (FieldIndex) in.readObject();
         ascendingConstraintType = (ConstraintType) in.readObject();
         descendingIndex = (FieldIndex) in.readObject();
         descendingConstraintType = (ConstraintType) in.readObject();
+        keyType = (ComparisonKeyType) in.readObject();
         size = in.readInt();
     }
 
     public void add(Tuple tuple) {
         Comparable key = getRightIndexedValue(tuple);
-        TupleList list = tree.lookup(key);
-        if (list == null) {
-            list = new TupleList();
-            tree.insert(key, list);
-        }
+        TupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
 
     public void remove(Tuple tuple) {
-        tuple.getMemory().remove(tuple);
+        TupleList list = tuple.getMemory();
+        list.remove(tuple);
+        if (list != nullTuples && list.getFirst() == null) {
+            tree.delete(((Node<Comparable<Comparable>>)list).key);
+        }
         size--;
     }
 
@@ -107,124 +124,81 @@ public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
+        FastIterator it = fullFastIterator();
         List<Tuple> result = new ArrayList<Tuple>();
-
-        RBTree.Node<Comparable<Comparable>, TupleList> node;
-        while ( (node = (RBTree.Node<Comparable<Comparable>, TupleList>) it.next( null )) != null ) {
-            TupleList bucket = node.value;
-            if (bucket.size() == 0) {
-                toBeRemoved.add(node.key);
-            } else {
-                Tuple entry = bucket.getFirst();
-                while (entry != null) {
-                    result.add(entry);
-                    entry = (Tuple) entry.getNext();
-                }
-            }
-        }
-
-        for (Comparable key : toBeRemoved) {
-            tree.delete(key);
+        for ( Tuple entry = (Tuple) it.next( null ); entry != null; entry = (Tuple) it.next( entry ) ) {
+            result.add(entry);
         }
-
         return result.toArray(new Tuple[result.size()]);
     }
 
     public Tuple getFirst(Tuple leftTuple) {
         Comparable lowerBound = getLeftAscendingIndexedValue(leftTuple);
-        Tuple rightTuple = getNext(lowerBound, true);
-        return rightTuple == null ? null : checkUpperBound(rightTuple, getLeftDescendingIndexedValue(leftTuple));
+        Comparable upperBound = getLeftDescendingIndexedValue(leftTuple);
+        if (lowerBound == null || upperBound == null) {
+            return null;
+        }
+
+        // the upper bound is kept by the iterator, as the iteration always starts from here
+        ((RightTupleBoundedFastIterator) fastIterator()).upperBound = upperBound;
+
+        Node<Comparable<Comparable>> firstNode = tree.findNearestNode(lowerBound, ascendingConstraintType == ConstraintType.GREATER_OR_EQUAL, Boundary.LOWER);
+        return checkUpperBound(firstNode, upperBound);
     }
 
-    private Tuple checkUpperBound(Tuple rightTuple, Comparable upperBound) {
-        int compResult = getRightIndexedValue(rightTuple).compareTo(upperBound);
-        return compResult < 0 || (compResult == 0 && descendingConstraintType == ConstraintType.LESS_OR_EQUAL) ? rightTuple : null;
+    private Tuple checkUpperBound(Node<Comparable<Comparable>> node, Comparable upperBound) {
+        if (node == null) {
+            return null;
+        }
+        int compResult = node.key.compareTo(upperBound);
+        return compResult < 0 || (compResult == 0 && descendingConstraintType == ConstraintType.LESS_OR_EQUAL) ? node.getFirst() : null;
     }
 
     public Iterator iterator() {
-        TupleList list = tree.first().value;
-        Tuple firstTuple = list != null ? list.getFirst() : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        FastIterator it = fullFastIterator();
+        return new FastIterator.IteratorAdapter(it, it.next(null));
     }
 
     public boolean contains(Tuple tuple) {
         Comparable key = getRightIndexedValue(tuple);
-        return tree.lookup(key) != null;
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
-        if ( rightTupleBoundedFastIterator != null ) {
+        if ( rightTupleBoundedFastIterator == null ) {
             rightTupleBoundedFastIterator = new RightTupleBoundedFastIterator();
         }
         return rightTupleBoundedFastIterator;
     }
 
     public FastIterator fullFastIterator() {
-        if ( rightTupleBoundedFastIterator != null ) {
-            rightTupleBoundedFastIterator = new RightTupleBoundedFastIterator();
-        }
-        return rightTupleBoundedFastIterator;
+        return new TupleIndexRBTree.FullFastIterator(tree, nullTuples);
     }
 
     public FastIterator fullFastIterator(Tuple tuple) {
-        FastIterator fastIterator = fullFastIterator();
-        Comparable key = getRightIndexedValue(tuple);
-        fastIterator.next(getNext(key, true));
-        return fastIterator;
+        return fullFastIterator();
     }
 
     public IndexType getIndexType() {
-        return IndexType.COMPARISON;
-    }
-
-    private Tuple getNext(Comparable lowerBound, boolean first) {
-        RBTree.Node<Comparable<Comparable>, TupleList> firstNode;
-        while (true) {
-            switch (ascendingConstraintType) {
-                case GREATER_THAN:
-                    firstNode = tree.findNearestNode(lowerBound, false, RBTree.Boundary.LOWER);
-                    break;
-                case GREATER_OR_EQUAL:
-                    firstNode = tree.findNearestNode(lowerBound, first, RBTree.Boundary.LOWER);
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Cannot call remove constraint of type: " + ascendingConstraintType);
-            }
-            if (firstNode != null && firstNode.value.size() == 0) {
-                tree.delete(firstNode.key);
-            } else {
-                break;
-            }
-        }
-        return firstNode == null ? null : firstNode.value.getFirst();
+        return IndexType.RANGE;
     }
 
     private Comparable getLeftAscendingIndexedValue(Tuple leftTuple) {
-        return (Comparable) ascendingIndex.getDeclaration().getExtractor().getValue(leftTuple.get(ascendingIndex.getDeclaration()).getObject());
+        return keyType.coerce( ascendingIndex.getDeclaration().getExtractor().getValue( leftTuple.getObject( ascendingIndex.getDeclaration() ) ) );
     }
 
     private Comparable getLeftDescendingIndexedValue(Tuple leftTuple) {
-        return (Comparable) descendingIndex.getDeclaration().getExtractor().getValue(leftTuple.get(descendingIndex.getDeclaration()).getObject());
+        return keyType.coerce( descendingIndex.getDeclaration().getExtractor().getValue( leftTuple.getObject( descendingIndex.getDeclaration() ) ) );
     }
 
     private Comparable getRightIndexedValue(Tuple rightTuple) {
-        return (Comparable) ascendingIndex.getExtractor().getValue( rightTuple.getFactHandle().getObject() );
+        return keyType.coerce( ascendingIndex.getExtractor().getValue( rightTuple.getFactHandle().getObject() ) );
     }
 
     public class RightTupleBoundedFastIterator implements FastIterator {
 
         private Comparable upperBound;
 
-        public void setUpperBound(Tuple leftTuple) {
-            upperBound = getLeftDescendingIndexedValue(leftTuple);
-        }
-
         public Entry next(Entry object) {
             if (object == null) {
                 return null;
@@ -234,9 +208,7 @@ public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
             if (next != null) {
                 return next;
             }
-            Comparable key = getRightIndexedValue(rightTuple);
-            next = getNext(key, false);
-            return next == null ? null : checkUpperBound(next, upperBound);
+            return checkUpperBound(TupleRBTree.successor((Node<Comparable<Comparable>>) rightTuple.getMemory()), upperBound);
         }
 
         public boolean isFullIterator() {
@@ -245,6 +217,8 @@ public class RightTupleIndexRangeRBTree implements TupleMemory, Externalizable {
     }
 
     public void clear() {
-        tree = new RBTree<Comparable<Comparable>, TupleList>();
+        tree = new TupleRBTree<Comparable<Comparable>>();
+        nullTuples = new TupleList();
+        size = 0;
     }
 }
@@ -39,13 +39,13 @@ public class TupleIndexHashTable extends AbstractHashTable implements TupleMemor
 
     private transient FieldIndexHashTableFullIterator tupleValueFullIterator;
 
-    private transient FullFastIterator                fullFastIterator;
+    transient FullFastIterator                        fullFastIterator;
 
-    private int                                       factSize;
+    int                                               factSize;
 
-    private Index                                     index;
+    Index                                             index;
 
-    private boolean                                   left;
+    boolean                                           left;
 
     public TupleIndexHashTable() {
         // constructor for serialisation
@@ -154,10 +154,12 @@ public class TupleIndexHashTable extends AbstractHashTable implements TupleMemor
         }
 
         public void resume(Entry target, Entry[] table) {
+            resume( indexOf( target.hashCode(), table.length ), table );
+        }
+
+        public void resume(int targetRow, Entry[] table) {
             this.table = table;
-            row = indexOf( target.hashCode(),
-                           this.table.length );
-            row++; // row always points to the row after the current list
+            row = targetRow + 1; // row always points to the row after the current list
         }
 
         public Entry next(Entry object) {
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.drools.core.util.index;
+
+import org.drools.core.base.ClassFieldReader;
+import org.drools.core.base.ValueType;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.rule.Declaration;
+import org.drools.core.spi.InternalReadAccessor;
+import org.drools.core.spi.Tuple;
+import org.drools.core.util.Entry;
+import org.drools.core.util.FastIterator;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A TupleIndexHashTable for a single equality constraint between two int, long or double fields.
+ *
+ * The buckets are stored in the table with open addressing instead of being chained, while a parallel
+ * array holds the key of each bucket as a long (the raw bits in case of a double, consistently with
+ * Double.equals). In this way a lookup only reads the primitive value out of the tuple and probes the
+ * keys array, without boxing the values to compare them through the IndexEvaluator.
+ *
+ * The buckets are matched by the key they have been created with and not by the current value of their
+ * first fact, so, differently from the TupleIndexHashTable, there is no need to skip the fact being
+ * modified when it is also in the opposite memory.
+ */
+public abstract class TupleIndexPrimitiveHashTable extends TupleIndexHashTable {
+
+    private static final long    serialVersionUID = 510l;
+
+    private static final int     MAX_CAPACITY     = 1 << 30;
+
+    protected InternalReadAccessor extractor;
+    protected Declaration          declaration;
+
+    private long[]                 keys;
+
+    public TupleIndexPrimitiveHashTable() {
+        // constructor for serialisation
+    }
+
+    protected TupleIndexPrimitiveHashTable( FieldIndex[] index, boolean left ) {
+        super( index, left );
+        this.extractor = (InternalReadAccessor) index[0].getExtractor();
+        this.declaration = index[0].getDeclaration();
+        this.keys = new long[this.table.length];
+        // keep the load factor under 0.5, so the probing sequences stay short
+        this.threshold = this.table.length / 2;
+    }
+
+    public static boolean isSupported( FieldIndex[] index ) {
+        if ( index.length != 1 ) {
+            return false;
+        }
+        Declaration declaration = index[0].getDeclaration();
+        if ( declaration == null ||
+             !( index[0].getExtractor() instanceof ClassFieldReader ) ||
+             !( declaration.getExtractor() instanceof ClassFieldReader ) ) {
+            return false;
+        }
+        ValueType valueType = ( (ClassFieldReader) index[0].getExtractor() ).getValueType();
+        return valueType.equals( declaration.getValueType() ) &&
+               ( valueType.equals( ValueType.PINTEGER_TYPE ) ||
+                 valueType.equals( ValueType.PLONG_TYPE ) ||
+                 valueType.equals( ValueType.PDOUBLE_TYPE ) );
+    }
+
+    public static TupleIndexPrimitiveHashTable create( FieldIndex[] index, boolean left ) {
+        ValueType valueType = ( (ClassFieldReader) index[0].getExtractor() ).getValueType();
+        if ( valueType.equals( ValueType.PINTEGER_TYPE ) ) {
+            return new IntKeys( index, left );
+        }
+        if ( valueType.equals( ValueType.PLONG_TYPE ) ) {
+            return new LongKeys( index, left );
+        }
+        if ( valueType.equals( ValueType.PDOUBLE_TYPE ) ) {
+            return new DoubleKeys( index, left );
+        }
+        throw new IllegalArgumentException( "Unsupported primitive index type: " + valueType );
+    }
+
+    public void readExternal(ObjectInput in) throws IOException,
+                                            ClassNotFoundException {
+        super.readExternal( in );
+        extractor = (InternalReadAccessor) in.readObject();
+        declaration = (Declaration) in.readObject();
+        keys = (long[]) in.readObject();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal( out );
+        out.writeObject( extractor );
+        out.writeObject( declaration );
+        out.writeObject( keys );
+    }
+
+    /**
+     * Reads the key out of a fact matched by the indexed field
+     */
+    protected abstract long getRightKey( Object object );
+
+    /**
+     * Reads the key out of the object bound to the declaration of the index
+     */
+    protected abstract long getLeftKey( Object object );
+
+    private long keyOf( Tuple tuple, boolean isLeftTuple ) {
+        return isLeftTuple ?
+               getLeftKey( tuple.getObject( this.declaration ) ) :
+               getRightKey( tuple.getFactHandle().getObject() );
+    }
+
+    private static int hashOf( long key ) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) ( hash ^ ( hash >>> 32 ) );
+    }
+
+    @Override
+    public Tuple getFirst( Tuple tuple ) {
+        KeyedTupleList bucket = get( keyOf( tuple, !left ) );
+        return bucket != null ? bucket.getFirst() : null;
+    }
+
+    @Override
+    public Tuple getFirst( Tuple leftTuple, InternalFactHandle factHandle ) {
+        return getFirst( leftTuple );
+    }
+
+    @Override
+    public boolean contains( Tuple tuple ) {
+        return get( keyOf( tuple, left ) ) != null;
+    }
+
+    @Override
+    public void add( Tuple tuple ) {
+        getOrCreate( keyOf( tuple, left ) ).add( tuple );
+        this.factSize++;
+    }
+
+    @Override
+    public void remove( Tuple tuple ) {
+        KeyedTupleList memory = (KeyedTupleList) tuple.getMemory();
+        memory.remove( tuple );
+        this.factSize--;
+        if ( memory.getFirst() == null ) {
+            removeBucket( memory );
+        }
+        tuple.clear();
+    }
+
+    @Override
+    public void removeAdd( Tuple tuple ) {
+        KeyedTupleList memory = (KeyedTupleList) tuple.getMemory();
+        memory.remove( tuple );
+
+        long key = keyOf( tuple, left );
+        if ( key == memory.key ) {
+            // it's the same bucket, so re-use and return
+            memory.add( tuple );
+            return;
+        }
+
+        if ( memory.getFirst() == null ) {
+            removeBucket( memory );
+        }
+        getOrCreate( key ).add( tuple );
+    }
+
+    @Override
+    public FastIterator fullFastIterator( Tuple tuple ) {
+        fullFastIterator.resume( rowOf( (KeyedTupleList) tuple.getMemory() ), this.table );
+        return fullFastIterator;
+    }
+
+    /**
+     * The given buckets may be chained or laid out for a different capacity, so instead of adopting them
+     * as they are, their tuples are indexed again by key
+     */
+    @Override
+    public void init( Entry[] table, int size, int factSize ) {
+        clear();
+        for ( Entry entry : table ) {
+            for ( Entry bucket = entry; bucket != null; bucket = bucket.getNext() ) {
+                Tuple tuple = ( (TupleList) bucket ).getFirst();
+                while ( tuple != null ) {
+                    Tuple next = (Tuple) tuple.getNext();
+                    tuple.clear();
+                    add( tuple );
+                    tuple = next;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.keys = new long[this.table.length];
+        this.threshold = this.table.length / 2;
+    }
+
+    private KeyedTupleList get( long key ) {
+        int mask = this.table.length - 1;
+        for ( int i = hashOf( key ) & mask; this.table[i] != null; i = ( i + 1 ) & mask ) {
+            if ( this.keys[i] == key ) {
+                return (KeyedTupleList) this.table[i];
+            }
+        }
+        return null;
+    }
+
+    private KeyedTupleList getOrCreate( long key ) {
+        int hashCode = hashOf( key );
+        int mask = this.table.length - 1;
+        int i = hashCode & mask;
+        for ( ; this.table[i] != null; i = ( i + 1 ) & mask ) {
+            if ( this.keys[i] == key ) {
+                return (KeyedTupleList) this.table[i];
+            }
+        }
+
+        // entry does not exist, so create
+        KeyedTupleList bucket = new KeyedTupleList( this.index, hashCode, key );
+        this.table[i] = bucket;
+        this.keys[i] = key;
+
+        if ( ++this.size > this.threshold ) {
+            resize( 2 * this.table.length );
+        }
+        return bucket;
+    }
+
+    private int rowOf( KeyedTupleList bucket ) {
+        int mask = this.table.length - 1;
+        int i = bucket.hashCode() & mask;
+        while ( this.table[i] != bucket ) {
+            i = ( i + 1 ) & mask;
+        }
+        return i;
+    }
+
+    private void removeBucket( KeyedTupleList bucket ) {
+        int mask = this.table.length - 1;
+        int i = rowOf( bucket );
+
+        // shift back the following buckets of the probing sequence, so no tombstone is necessary
+        int j = i;
+        while ( true ) {
+            j = ( j + 1 ) & mask;
+            if ( this.table[j] == null ) {
+                break;
+            }
+            int home = this.table[j].hashCode() & mask;
+            if ( i <= j ? ( home <= i || home > j ) : ( home <= i && home > j ) ) {
+                this.table[i] = this.table[j];
+                this.keys[i] = this.keys[j];
+                i = j;
+            }
+        }
+        this.table[i] = null;
+        this.size--;
+    }
+
+    @Override
+    protected void resize( int newCapacity ) {
+        Entry[] oldTable = this.table;
+        long[] oldKeys = this.keys;
+        if ( oldTable.length == MAX_CAPACITY ) {
+            this.threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        this.table = new Entry[newCapacity];
+        this.keys = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for ( int i = 0; i < oldTable.length; i++ ) {
+            if ( oldTable[i] != null ) {
+                int j = oldTable[i].hashCode() & mask;
+                while ( this.table[j] != null ) {
+                    j = ( j + 1 ) & mask;
+                }
+                this.table[j] = oldTable[i];
+                this.keys[j] = oldKeys[i];
+            }
+        }
+        this.threshold = newCapacity / 2;
+    }
+
+    public static class KeyedTupleList extends TupleList {
+
+        private final long key;
+
+        public KeyedTupleList( Index index, int hashCode, long key ) {
+            super( index, hashCode );
+            this.key = key;
+        }
+
+        public long getKey() {
+            return key;
+        }
+    }
+
+    public static class IntKeys extends TupleIndexPrimitiveHashTable {
+
+        public IntKeys() { }
+
+        public IntKeys( FieldIndex[] index, boolean left ) {
+            super( index, left );
+        }
+
+        @Override
+        protected long getRightKey( Object object ) {
+            return extractor.getIntValue( null, object );
+        }
+
+        @Override
+        protected long getLeftKey( Object object ) {
+            return declaration.getIntValue( null, object );
+        }
+    }
+
+    public static class LongKeys extends TupleIndexPrimitiveHashTable {
+
+        public LongKeys() { }
+
+        public LongKeys( FieldIndex[] index, boolean left ) {
+            super( index, left );
+        }
+
+        @Override
+        protected long getRightKey( Object object ) {
+            return extractor.getLongValue( null, object );
+        }
+
+        @Override
+        protected long getLeftKey( Object object ) {
+            return declaration.getLongValue( null, object );
+        }
+    }
+
+    public static class DoubleKeys extends TupleIndexPrimitiveHashTable {
+
+        public DoubleKeys() { }
+
+        public DoubleKeys( FieldIndex[] index, boolean left ) {
+            super( index, left );
+        }
+
+        @Override
+        protected long getRightKey( Object object ) {
+            return Double.doubleToLongBits( extractor.getDoubleValue( null, object ) );
+        }
+
+        @Override
+        protected long getLeftKey( Object object ) {
+            return Double.doubleToLongBits( declaration.getDoubleValue( null, object ) );
+        }
+    }
+}
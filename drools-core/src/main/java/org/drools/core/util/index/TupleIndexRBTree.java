@@ -37,13 +37,19 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
 
     private TupleRBTree<Comparable<Comparable>> tree;
 
+    // tuples with a null indexed value can never satisfy a comparison, so they are kept out of the tree
+    private TupleList nullTuples;
+
     private AbstractHashTable.FieldIndex index;
     private IndexUtil.ConstraintType constraintType;
+    private IndexUtil.ComparisonKeyType keyType;
 
     private int size;
 
     private boolean left;
 
+    private transient TupleFastIterator fastIterator;
+
     public TupleIndexRBTree() {
         // constructor for serialisation
     }
@@ -51,29 +57,35 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
     public TupleIndexRBTree( IndexUtil.ConstraintType constraintType, AbstractHashTable.FieldIndex index, boolean left ) {
         this.index = index;
         this.constraintType = constraintType;
+        this.keyType = IndexUtil.ComparisonKeyType.get( index );
         this.left = left;
         tree = new TupleRBTree<Comparable<Comparable>>();
+        nullTuples = new TupleList();
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( index );
         out.writeObject( constraintType );
+        out.writeObject( keyType );
         out.writeInt(size);
         out.writeBoolean( left );
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         tree = (TupleRBTree<Comparable<Comparable>>) in.readObject();
+        nullTuples = (TupleList) in.readObject();
         index = (AbstractHashTable.FieldIndex) in.readObject();
         constraintType = (IndexUtil.ConstraintType) in.readObject();
+        keyType = (IndexUtil.ComparisonKeyType) in.readObject();
         size = in.readInt();
         left = in.readBoolean();
     }
 
     public void add(Tuple tuple) {
         Comparable key = getLeftIndexedValue( tuple );
-        TupleList list = tree.insert(key);
+        TupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
@@ -81,7 +93,7 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
     public void remove(Tuple tuple) {
         TupleList list = tuple.getMemory();
         list.remove(tuple);
-        if (list.getFirst() == null) {
+        if (list != nullTuples && list.getFirst() == null) {
             tree.delete(((Node<Comparable<Comparable>>)list).key);
         }
         size--;
@@ -101,55 +113,42 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
+        FastIterator it = fullFastIterator();
         List<Tuple> result = new ArrayList<Tuple>();
-
-        TupleList list = null;
-        while ( (list = (TupleList) it.next( list )) != null ) {
-            Tuple entry = list.getFirst();
-            while (entry != null) {
-                result.add(entry);
-                entry = (Tuple) entry.getNext();
-            }
+        for ( Tuple entry = (Tuple) it.next( null ); entry != null; entry = (Tuple) it.next( entry ) ) {
+            result.add(entry);
         }
-
         return result.toArray(new Tuple[result.size()]);
     }
 
     public Tuple getFirst(Tuple rightTuple) {
         Comparable key = getRightIndexedValue( rightTuple );
-        return (Tuple)getNext(key, true);
+        return key == null ? null : getNext(key, true);
     }
 
     public Iterator<Tuple> iterator() {
-        TupleList list = tree.first();
-        Tuple firstTuple = list != null ? list.getFirst() : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        FastIterator it = fullFastIterator();
+        return new FastIterator.IteratorAdapter(it, it.next(null));
     }
 
     public boolean contains(Tuple leftTuple) {
         Comparable key = getLeftIndexedValue( leftTuple );
-        return tree.lookup(key) != null;
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
-        return new TupleFastIterator();
+        if ( fastIterator == null ) {
+            fastIterator = new TupleFastIterator();
+        }
+        return fastIterator;
     }
 
     public FastIterator fullFastIterator() {
-        return new TupleFastIterator();
+        return new FullFastIterator(tree, nullTuples);
     }
 
     public FastIterator fullFastIterator(Tuple leftTuple) {
-        FastIterator fastIterator = fullFastIterator();
-        Comparable key = getLeftIndexedValue( leftTuple );
-        fastIterator.next(getNext(key, true));
-        return fastIterator;
+        return fullFastIterator();
     }
 
     private Comparable getLeftIndexedValue( Tuple tuple ) {
@@ -161,9 +160,9 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
     }
 
     private Comparable getIndexedValue( Tuple tuple, boolean left ) {
-        return left ?
-               (Comparable) index.getDeclaration().getExtractor().getValue( tuple.getObject( index.getDeclaration() ) ) :
-               (Comparable) index.getExtractor().getValue( tuple.getFactHandle().getObject() );
+        return keyType.coerce( left ?
+                               index.getDeclaration().getExtractor().getValue( tuple.getObject( index.getDeclaration() ) ) :
+                               index.getExtractor().getValue( tuple.getFactHandle().getObject() ) );
     }
 
     private Tuple getNext(Comparable key, boolean first) {
@@ -212,6 +211,10 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
         return firstNode == null ? null : firstNode.getFirst();
     }
 
+    /**
+     * Iterates the tuples matching the value passed to getFirst: once a node is exhausted it moves to the
+     * adjacent node in the direction allowed by the constraint, as all of them still satisfy it.
+     */
     public class TupleFastIterator implements FastIterator {
         public Entry next(Entry object) {
             if (object == null) {
@@ -223,8 +226,14 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
             if (next != null) {
                 return next;
             }
-            Comparable key = getLeftIndexedValue( tuple );
-            return getNext(key, false);
+            Node<Comparable<Comparable>> node = (Node<Comparable<Comparable>>) tuple.getMemory();
+            Node<Comparable<Comparable>> nextNode = isAscending() ? TupleRBTree.successor( node ) : TupleRBTree.predecessor( node );
+            return nextNode == null ? null : nextNode.getFirst();
+        }
+
+        private boolean isAscending() {
+            // the left memory is iterated towards greater values for LESS_* constraints, the right memory for GREATER_* ones
+            return left ^ constraintType.isAscending();
         }
 
         public boolean isFullIterator() {
@@ -232,8 +241,52 @@ public class TupleIndexRBTree implements Externalizable, TupleMemory {
         }
     }
 
+    /**
+     * Iterates all the tuples in key order, followed by the ones with a null key.
+     */
+    static class FullFastIterator implements FastIterator {
+        private final TupleRBTree<?> tree;
+        private final TupleList nullTuples;
+
+        FullFastIterator(TupleRBTree<?> tree, TupleList nullTuples) {
+            this.tree = tree;
+            this.nullTuples = nullTuples;
+        }
+
+        public Entry next(Entry object) {
+            TupleList list;
+            if (object == null) {
+                list = tree.first();
+                if (list == null) {
+                    list = nullTuples;
+                }
+                return list.getFirst();
+            }
+            Tuple tuple = (Tuple) object;
+            Tuple next = (Tuple) tuple.getNext();
+            if (next != null) {
+                return next;
+            }
+            list = tuple.getMemory();
+            if (list == nullTuples) {
+                return null;
+            }
+            list = TupleRBTree.successor( (Node) list );
+            if (list == null) {
+                list = nullTuples;
+            }
+            return list.getFirst();
+        }
+
+        public boolean isFullIterator() {
+            return true;
+        }
+    }
+
     public void clear() {
         tree = new TupleRBTree<Comparable<Comparable>>();
+        nullTuples = new TupleList();
+        size = 0;
     }
 
     public IndexType getIndexType() {
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util.index;
+
+import org.drools.core.base.evaluators.TemporalIndexableEvaluator;
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.reteoo.TupleMemory;
+import org.drools.core.rule.Declaration;
+import org.drools.core.rule.constraint.EvaluatorConstraint;
+import org.drools.core.spi.Tuple;
+import org.drools.core.time.Interval;
+import org.drools.core.util.Entry;
+import org.drools.core.util.FastIterator;
+import org.drools.core.util.Iterator;
+import org.drools.core.util.TupleRBTree;
+import org.drools.core.util.TupleRBTree.Boundary;
+import org.drools.core.util.TupleRBTree.Node;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory for a temporal constraint between two events, like <code>this after[0,10s] $a</code>. The tuples are sorted
+ * by the timestamp of their event compared by the evaluator of the constraint, so a tuple on the other side only
+ * has to be tested against the contiguous run of nodes whose timestamps are at the distance allowed by the evaluator.
+ * Since the evaluator may also compare other timestamps, e.g. the end ones for during, each tuple in that run is
+ * tested with the evaluator, and the iterator only returns the ones actually matching the constraint.
+ */
+public class TupleIndexTemporalRBTree implements TupleMemory, Externalizable {
+
+    private TupleRBTree<Long> tree;
+
+    // tuples whose fact is not an event can never satisfy a temporal constraint, so they are kept out of the tree
+    private TupleList nullTuples;
+
+    private EvaluatorConstraint constraint;
+
+    private boolean left;
+
+    private int size;
+
+    public TupleIndexTemporalRBTree() {
+        // constructor for serialisation
+    }
+
+    public TupleIndexTemporalRBTree(EvaluatorConstraint constraint, boolean left) {
+        this.constraint = constraint;
+        this.left = left;
+        tree = new TupleRBTree<Long>();
+        nullTuples = new TupleList();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject( tree );
+        out.writeObject( nullTuples );
+        out.writeObject( constraint );
+        out.writeBoolean( left );
+        out.writeInt( size );
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        tree = (TupleRBTree<Long>) in.readObject();
+        nullTuples = (TupleList) in.readObject();
+        constraint = (EvaluatorConstraint) in.readObject();
+        left = in.readBoolean();
+        size = in.readInt();
+    }
+
+    public void add(Tuple tuple) {
+        Long key = getTimestamp( getHandle( tuple, left ), left );
+        TupleList list = key == null ? nullTuples : tree.insert( key );
+        list.add( tuple );
+        size++;
+    }
+
+    public void remove(Tuple tuple) {
+        TupleList list = tuple.getMemory();
+        list.remove( tuple );
+        if ( list != nullTuples && list.getFirst() == null ) {
+            tree.delete( ( (Node<Long>) list ).key );
+        }
+        size--;
+    }
+
+    public void removeAdd(Tuple tuple) {
+        remove( tuple );
+        add( tuple );
+    }
+
+    public boolean isIndexed() {
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Entry[] toArray() {
+        FastIterator it = fullFastIterator();
+        List<Tuple> result = new ArrayList<Tuple>();
+        for ( Tuple entry = (Tuple) it.next( null ); entry != null; entry = (Tuple) it.next( entry ) ) {
+            result.add( entry );
+        }
+        return result.toArray( new Tuple[result.size()] );
+    }
+
+    /**
+     * Returns the first tuple matching the given one, through a new iterator. Use getFirst(Tuple, FastIterator)
+     * to go on iterating the other matching tuples.
+     */
+    public Tuple getFirst(Tuple tuple) {
+        return getFirst( tuple, fastIterator() );
+    }
+
+    /**
+     * Returns the first tuple matching the given one, keeping in the given iterator, obtained from fastIterator,
+     * the bounds and the handle to match for the following tuples of the same iteration
+     */
+    public Tuple getFirst(Tuple tuple, FastIterator it) {
+        return ( (TemporalFastIterator) it ).getFirst( tuple );
+    }
+
+    public Iterator iterator() {
+        FastIterator it = fullFastIterator();
+        return new FastIterator.IteratorAdapter( it, it.next( null ) );
+    }
+
+    public boolean contains(Tuple tuple) {
+        Long key = getTimestamp( getHandle( tuple, left ), left );
+        return key == null ? nullTuples.getFirst() != null : tree.lookup( key ) != null;
+    }
+
+    /**
+     * Returns a new iterator, since each iteration keeps its own bounds and handle to match
+     */
+    public FastIterator fastIterator() {
+        return new TemporalFastIterator();
+    }
+
+    public FastIterator fullFastIterator() {
+        return new TupleIndexRBTree.FullFastIterator( tree, nullTuples );
+    }
+
+    public FastIterator fullFastIterator(Tuple tuple) {
+        return fullFastIterator();
+    }
+
+    public IndexType getIndexType() {
+        return IndexType.TEMPORAL;
+    }
+
+    public void clear() {
+        tree = new TupleRBTree<Long>();
+        nullTuples = new TupleList();
+        size = 0;
+    }
+
+    private TemporalIndexableEvaluator getEvaluator() {
+        return (TemporalIndexableEvaluator) constraint.getEvaluator();
+    }
+
+    private Declaration getDeclaration() {
+        return constraint.getRequiredDeclarations()[0];
+    }
+
+    private InternalFactHandle getHandle(Tuple tuple, boolean leftTuple) {
+        return leftTuple ? tuple.get( getDeclaration() ) : tuple.getFactHandle();
+    }
+
+    private Long getTimestamp(InternalFactHandle handle, boolean leftTuple) {
+        if ( !( handle instanceof EventFactHandle ) ) {
+            return null;
+        }
+        boolean onStart = leftTuple ? getEvaluator().isLeftIndexedOnStart() : getEvaluator().isRightIndexedOnStart();
+        EventFactHandle event = (EventFactHandle) handle;
+        return onStart ? event.getStartTimestamp() : event.getEndTimestamp();
+    }
+
+    private boolean matches(Tuple tuple, InternalFactHandle other) {
+        InternalFactHandle handle = getHandle( tuple, left );
+        // the self reference extractors of a temporal index don't need the working memory
+        return left ?
+               constraint.getEvaluator().evaluate( null, constraint.getFieldExtractor(), other, getDeclaration().getExtractor(), handle ) :
+               constraint.getEvaluator().evaluate( null, constraint.getFieldExtractor(), handle, getDeclaration().getExtractor(), other );
+    }
+
+    private static long add(long timestamp, long distance) {
+        if ( distance == Interval.MIN || distance == Interval.MAX ) {
+            return distance;
+        }
+        long sum = timestamp + distance;
+        // saturate on overflow, as the sign of the result can only be wrong when both operands have the same sign
+        if ( ( ( timestamp ^ sum ) & ( distance ^ sum ) ) < 0 ) {
+            return distance > 0 ? Interval.MAX : Interval.MIN;
+        }
+        return sum;
+    }
+
+    /**
+     * Iterates the tuples matching the tuple passed to getFirst, whose handle and upper bound it keeps for the
+     * following calls to next, so an iteration doesn't interfere with the other ones on the same memory
+     */
+    public class TemporalFastIterator implements FastIterator {
+
+        private InternalFactHandle other;
+        private long upperBound;
+
+        private Tuple getFirst(Tuple tuple) {
+            InternalFactHandle otherHandle = getHandle( tuple, !left );
+            Long otherKey = getTimestamp( otherHandle, !left );
+            if ( otherKey == null ) {
+                return null;
+            }
+
+            // the right timestamp minus the left one has to fall in the indexed distance
+            Interval distance = getEvaluator().getIndexedDistance();
+            if ( left ) {
+                distance = distance.negate();
+            }
+            long lowerBound = add( otherKey, distance.getLowerBound() );
+            other = otherHandle;
+            upperBound = add( otherKey, distance.getUpperBound() );
+
+            Node<Long> firstNode = tree.findNearestNode( lowerBound, true, Boundary.LOWER );
+            return firstNode == null || firstNode.key > upperBound ? null : nextMatching( firstNode.getFirst() );
+        }
+
+        public Entry next(Entry object) {
+            if ( object == null ) {
+                return null;
+            }
+            return nextMatching( nextInRange( (Tuple) object ) );
+        }
+
+        private Tuple nextMatching(Tuple tuple) {
+            while ( tuple != null && !matches( tuple, other ) ) {
+                tuple = nextInRange( tuple );
+            }
+            return tuple;
+        }
+
+        private Tuple nextInRange(Tuple tuple) {
+            Tuple next = (Tuple) tuple.getNext();
+            if ( next != null ) {
+                return next;
+            }
+            Node<Long> nextNode = TupleRBTree.successor( (Node<Long>) tuple.getMemory() );
+            return nextNode == null || nextNode.key > upperBound ? null : nextNode.getFirst();
+        }
+
+        public boolean isFullIterator() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import com.thoughtworks.xstream.XStream;
+import org.drools.core.audit.event.ActivationLogEvent;
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.audit.event.ObjectLogEvent;
+import org.drools.core.audit.event.RuleFlowGroupLogEvent;
+import org.drools.core.audit.event.RuleFlowVariableLogEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BinaryWorkingMemoryFileLoggerTest {
+
+    private String fileName;
+
+    @Before
+    public void setUp() throws Exception {
+        File dir = File.createTempFile( "binary-audit", "" );
+        dir.delete();
+        dir.mkdirs();
+        dir.deleteOnExit();
+        fileName = new File( dir, "event" ).getPath();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BinaryWorkingMemoryFileLogger logger = new BinaryWorkingMemoryFileLogger();
+        logger.setFileName( fileName );
+
+        logger.logEventCreated( new ObjectLogEvent( LogEvent.INSERTED, 1, "Cheese( stilton )" ) );
+        logger.logEventCreated( new ActivationLogEvent( LogEvent.ACTIVATION_CREATED, "R1 [1]", "R1", "$c=Cheese( stilton )", null, "1" ) );
+        logger.logEventCreated( new RuleFlowGroupLogEvent( LogEvent.AFTER_RULEFLOW_GROUP_ACTIVATED, "group", 3 ) );
+        logger.logEventCreated( new RuleFlowVariableLogEvent( LogEvent.AFTER_VARIABLE_INSTANCE_CHANGED, "v", "v:1", "p", "process è", 7, null ) );
+        logger.stop();
+
+        // the events generated after the logger has been stopped are ignored
+        logger.logEventCreated( new ObjectLogEvent( LogEvent.RETRACTED, 1, "Cheese( stilton )" ) );
+
+        List<LogEvent> events = BinaryWorkingMemoryLogReader.readEvents( fileName );
+        assertEquals( 4, events.size() );
+
+        ObjectLogEvent objectEvent = (ObjectLogEvent) events.get( 0 );
+        assertEquals( LogEvent.INSERTED, objectEvent.getType() );
+        assertEquals( 1, objectEvent.getFactId() );
+        assertEquals( "Cheese( stilton )", objectEvent.getObjectToString() );
+
+        ActivationLogEvent activationEvent = (ActivationLogEvent) events.get( 1 );
+        assertEquals( "R1 [1]", activationEvent.getActivationId() );
+        assertEquals( "R1", activationEvent.getRule() );
+        assertEquals( "$c=Cheese( stilton )", activationEvent.getDeclarations() );
+        assertNull( activationEvent.getRuleFlowGroup() );
+        assertEquals( "1", activationEvent.getFactHandleIds() );
+
+        RuleFlowGroupLogEvent groupEvent = (RuleFlowGroupLogEvent) events.get( 2 );
+        assertEquals( "group", groupEvent.getGroupName() );
+        assertEquals( 3, groupEvent.getSize() );
+
+        RuleFlowVariableLogEvent variableEvent = (RuleFlowVariableLogEvent) events.get( 3 );
+        assertEquals( LogEvent.AFTER_VARIABLE_INSTANCE_CHANGED, variableEvent.getType() );
+        assertEquals( "v", variableEvent.getVariableId() );
+        assertEquals( "v:1", variableEvent.getVariableInstanceId() );
+        assertEquals( "p", variableEvent.getProcessId() );
+        assertEquals( "process è", variableEvent.getProcessName() );
+        assertEquals( 7, variableEvent.getProcessInstanceId() );
+        assertNull( variableEvent.getObjectToString() );
+    }
+
+    @Test
+    public void testRollingFilesWithConcurrentProducers() throws Exception {
+        final BinaryWorkingMemoryFileLogger logger = new BinaryWorkingMemoryFileLogger();
+        logger.setFileName( fileName );
+        // a small buffer and small files, so both the producers have to wait and the writer has to roll over
+        logger.setBufferSize( 16 );
+        logger.setMaxFileSize( 4096 );
+
+        final int threadsNr = 4;
+        final int eventsPerThread = 5000;
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int i = 0; i < threadsNr; i++ ) {
+            final int thread = i;
+            threads.add( new Thread( new Runnable() {
+                public void run() {
+                    for ( int j = 0; j < eventsPerThread; j++ ) {
+                        logger.logEventCreated( new ObjectLogEvent( LogEvent.INSERTED, thread * eventsPerThread + j, "fact" + j ) );
+                    }
+                }
+            } ) );
+        }
+        for ( Thread thread : threads ) {
+            thread.start();
+        }
+        for ( Thread thread : threads ) {
+            thread.join();
+        }
+        logger.flush();
+        logger.stop();
+
+        assertTrue( new File( BinaryWorkingMemoryFileLogger.getFileName( fileName, 1 ) ).exists() );
+
+        List<LogEvent> events = BinaryWorkingMemoryLogReader.readEvents( fileName );
+        assertEquals( threadsNr * eventsPerThread, events.size() );
+        Set<Long> factIds = new HashSet<Long>();
+        for ( LogEvent event : events ) {
+            factIds.add( ( (ObjectLogEvent) event ).getFactId() );
+        }
+        assertEquals( threadsNr * eventsPerThread, factIds.size() );
+    }
+
+    @Test
+    public void testConvertToXml() throws Exception {
+        BinaryWorkingMemoryFileLogger logger = new BinaryWorkingMemoryFileLogger();
+        logger.setFileName( fileName );
+        logger.logEventCreated( new ObjectLogEvent( LogEvent.INSERTED, 1, "Cheese( stilton )" ) );
+        logger.logEventCreated( new ObjectLogEvent( LogEvent.RETRACTED, 1, "Cheese( stilton )" ) );
+        logger.stop();
+
+        BinaryWorkingMemoryLogReader.convertToXml( fileName, fileName + "-xml" );
+
+        // read it back as the audit view does with the logs of the WorkingMemoryFileLogger
+        Reader reader = new InputStreamReader( new FileInputStream( fileName + "-xml.log" ), "UTF-8" );
+        try {
+            WorkingMemoryLog log = (WorkingMemoryLog) new XStream().createObjectInputStream( reader ).readObject();
+            assertEquals( 2, log.getEvents().size() );
+            assertEquals( LogEvent.RETRACTED, log.getEvents().get( 1 ).getType() );
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowAggregateTest {
+
+    @Test
+    public void testMinAndMax() {
+        ExtremeFunction min = new ExtremeFunction( false );
+        ExtremeFunction max = new ExtremeFunction( true );
+        SlidingWindowAggregate minAggregate = new SlidingWindowAggregate();
+        SlidingWindowAggregate maxAggregate = new SlidingWindowAggregate();
+        assertNull( minAggregate.getResult( min ) );
+
+        int[] values = { 5, 3, 8, 1, 9, 2 };
+        for ( int i = 0; i < values.length; i++ ) {
+            minAggregate.add( min, i, values[i] );
+            maxAggregate.add( max, i, values[i] );
+        }
+        assertEquals( 1, minAggregate.getResult( min ) );
+        assertEquals( 9, maxAggregate.getResult( max ) );
+
+        // the values leave the window in the same order they entered it
+        int[] expectedMin = { 1, 1, 1, 2, 2 };
+        int[] expectedMax = { 9, 9, 9, 9, 2 };
+        for ( int i = 0; i < values.length - 1; i++ ) {
+            minAggregate.remove( min, i );
+            maxAggregate.remove( max, i );
+            assertEquals( expectedMin[i], minAggregate.getResult( min ) );
+            assertEquals( expectedMax[i], maxAggregate.getResult( max ) );
+        }
+        minAggregate.remove( min, values.length - 1 );
+        assertNull( minAggregate.getResult( min ) );
+        assertEquals( 0, minAggregate.size() );
+    }
+
+    @Test
+    public void testNullValuesAreIgnored() {
+        ExtremeFunction min = new ExtremeFunction( false );
+        SlidingWindowAggregate aggregate = new SlidingWindowAggregate();
+        aggregate.add( min, 0, null );
+        aggregate.add( min, 1, 4 );
+        aggregate.add( min, 2, null );
+        assertEquals( 4, aggregate.getResult( min ) );
+        aggregate.remove( min, 1 );
+        assertNull( aggregate.getResult( min ) );
+        assertEquals( 2, aggregate.size() );
+    }
+
+    @Test
+    public void testKeepsTheOrderOfTheValues() {
+        // the concatenation is associative but not commutative
+        ConcatFunction concat = new ConcatFunction();
+        SlidingWindowAggregate aggregate = new SlidingWindowAggregate();
+        Map<Integer, String> window = new LinkedHashMap<Integer, String>();
+        Random random = new Random( 0 );
+
+        int id = 0;
+        for ( int i = 0; i < 5000; i++ ) {
+            int action = random.nextInt( 10 );
+            if ( action < 5 || window.isEmpty() ) {
+                String value = Character.toString( (char) ( 'a' + random.nextInt( 26 ) ) );
+                aggregate.add( concat, id, value );
+                window.put( id++, value );
+            } else if ( action < 9 ) {
+                // the oldest value leaves the window
+                Integer oldest = window.keySet().iterator().next();
+                aggregate.remove( concat, oldest );
+                window.remove( oldest );
+            } else {
+                // any value is deleted
+                List<Integer> ids = new ArrayList<Integer>( window.keySet() );
+                Integer deleted = ids.get( random.nextInt( ids.size() ) );
+                aggregate.remove( concat, deleted );
+                window.remove( deleted );
+            }
+
+            StringBuilder expected = new StringBuilder();
+            for ( String value : window.values() ) {
+                expected.append( value );
+            }
+            assertEquals( window.isEmpty() ? null : expected.toString(), aggregate.getResult( concat ) );
+            assertEquals( window.size(), aggregate.size() );
+        }
+    }
+
+    @Test
+    public void testMergesEachValueAConstantNumberOfTimes() {
+        ConcatFunction concat = new ConcatFunction();
+        SlidingWindowAggregate aggregate = new SlidingWindowAggregate();
+        int windowSize = 100;
+        int valuesNr = 10000;
+        for ( int i = 0; i < valuesNr; i++ ) {
+            aggregate.add( concat, i, "x" );
+            if ( i >= windowSize ) {
+                aggregate.remove( concat, i - windowSize );
+            }
+            assertEquals( Math.min( i + 1, windowSize ), ( (String) aggregate.getResult( concat ) ).length() );
+        }
+        // one merge when the value is added, one when the stacks are flipped and one for the result
+        assertTrue( concat.merges <= 3 * valuesNr );
+    }
+
+    @Test
+    public void testReadsTheExecutorWrittenWithoutSlidingWindow() throws Exception {
+        JavaAccumulatorFunctionExecutor executor = new JavaAccumulatorFunctionExecutor( new MinAccumulateFunction() );
+        executor.setSlidingWindow( true );
+        assertTrue( ( (JavaAccumulatorFunctionExecutor) deserialize( serialize( executor ) ) ).isSlidingWindow() );
+
+        JavaAccumulatorFunctionExecutor previous = new PreviousFormatExecutor( new MinAccumulateFunction() );
+        JavaAccumulatorFunctionExecutor read = (JavaAccumulatorFunctionExecutor) deserialize( serialize( previous ) );
+        assertFalse( read.isSlidingWindow() );
+        assertTrue( read.supportsReverse() );
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( object );
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream( new ByteArrayInputStream( bytes ) ).readObject();
+    }
+
+    public static class PreviousFormatExecutor extends JavaAccumulatorFunctionExecutor {
+
+        private org.kie.api.runtime.rule.AccumulateFunction function;
+
+        public PreviousFormatExecutor() { }
+
+        public PreviousFormatExecutor(org.kie.api.runtime.rule.AccumulateFunction function) {
+            super( function );
+            this.function = function;
+        }
+
+        // the format written before the sliding window flag was added
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject( getExpression() );
+            out.writeObject( function );
+        }
+    }
+
+    /**
+     * A min or max function without reverse
+     */
+    public static class ExtremeFunction implements MergeableAccumulateFunction {
+
+        private boolean max;
+
+        public ExtremeFunction() { }
+
+        public ExtremeFunction(boolean max) {
+            this.max = max;
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException { }
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException { }
+
+        public Serializable createContext() {
+            return null;
+        }
+
+        public void init(Serializable context) throws Exception { }
+
+        public void accumulate(Serializable context, Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void reverse(Serializable context, Object value) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object getResult(Serializable context) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean supportsReverse() {
+            return false;
+        }
+
+        public Class<?> getResultType() {
+            return Comparable.class;
+        }
+
+        public boolean supportsMerge() {
+            return true;
+        }
+
+        public Object lift(Object value) {
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Object merge(Object first, Object second) {
+            int comparison = ( (Comparable) second ).compareTo( first );
+            return ( max ? comparison > 0 : comparison < 0 ) ? second : first;
+        }
+
+        public Object getMergedResult(Object partial) {
+            return partial;
+        }
+    }
+
+    public static class ConcatFunction implements MergeableAccumulateFunction {
+
+        private int merges;
+
+        public void writeExternal(ObjectOutput out) throws IOException { }
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException { }
+
+        public Serializable createContext() {
+            return new StringBuilder();
+        }
+
+        public void init(Serializable context) throws Exception {
+            ( (StringBuilder) context ).setLength( 0 );
+        }
+
+        public void accumulate(Serializable context, Object value) {
+            ( (StringBuilder) context ).append( value );
+        }
+
+        public void reverse(Serializable context, Object value) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object getResult(Serializable context) throws Exception {
+            return context.toString();
+        }
+
+        public boolean supportsReverse() {
+            return false;
+        }
+
+        public Class<?> getResultType() {
+            return String.class;
+        }
+
+        public boolean supportsMerge() {
+            return true;
+        }
+
+        public Object lift(Object value) {
+            return value;
+        }
+
+        public Object merge(Object first, Object second) {
+            merges++;
+            return (String) first + second;
+        }
+
+        public Object getMergedResult(Object partial) {
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.drools.core.common;
+
+import org.drools.core.ClassObjectFilter;
+import org.drools.core.RuleBaseConfiguration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class CompactObjectStoreTest {
+
+    private final CompactObjectStore underTest;
+    private final boolean isEqualityBehaviour;
+
+    @Test
+    public void iterateObjectsReturnsObjectsOfAllTypes() throws Exception {
+        insertObjectWithFactHandle("a string");
+        insertObjectWithFactHandle(new BigDecimal("1"));
+
+        assertThat(collect(underTest.iterateObjects()).size(), is(equalTo(2)));
+        assertThat(underTest.size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void queryBySuperTypeFindsSubType() throws Exception {
+        insertObjectWithFactHandle(new SubClass());
+        insertObjectWithFactHandle(new SuperClass());
+        insertObjectWithFactHandle("some string");
+
+        Collection<Object> result = collect(underTest.iterateObjects(SuperClass.class));
+        assertThat(result.size(), is(equalTo(2)));
+        assertThat(result, hasItem(isA(SubClass.class)));
+        assertThat(result, hasItem(isA(SuperClass.class)));
+
+        assertThat(collect(underTest.iterateFactHandles(SubClass.class)).size(), is(equalTo(1)));
+        assertThat(collect(underTest.iterateObjects(new ClassObjectFilter(SuperClass.class))).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void findsHandlesByIdentityAndByEquality() throws Exception {
+        ValueClass value = new ValueClass(1);
+        InternalFactHandle handle = insertObjectWithFactHandle(value);
+
+        assertSame(handle, underTest.getHandleForObjectIdentity(value));
+        assertSame(handle, underTest.getHandleForObject(value));
+        assertNull(underTest.getHandleForObjectIdentity(new ValueClass(1)));
+        if (isEqualityBehaviour) {
+            assertSame(handle, underTest.getHandleForObject(new ValueClass(1)));
+        } else {
+            assertNull(underTest.getHandleForObject(new ValueClass(1)));
+        }
+    }
+
+    @Test
+    public void reconnectsHandlesById() throws Exception {
+        Object object = new SimpleClass();
+        InternalFactHandle handle = insertObjectWithFactHandle(object);
+
+        InternalFactHandle disconnected = new DefaultFactHandle(handle.getId(), null, handle.getIdentityHashCode(), handle.getObjectHashCode(), handle.getRecency(), null);
+        assertSame(handle, underTest.reconnect(disconnected));
+        assertSame(object, underTest.getObjectForHandle(disconnected));
+
+        underTest.removeHandle(handle);
+        assertNull(underTest.reconnect(disconnected));
+    }
+
+    @Test
+    public void updateRehashesTheHandle() throws Exception {
+        ValueClass value = new ValueClass(1);
+        InternalFactHandle handle = insertObjectWithFactHandle(value);
+
+        ValueClass newValue = new ValueClass(2);
+        underTest.updateHandle(handle, newValue);
+
+        assertThat(underTest.size(), is(equalTo(1)));
+        assertSame(handle, underTest.getHandleForObject(newValue));
+        assertNull(underTest.getHandleForObjectIdentity(value));
+    }
+
+    @Test
+    public void negatedHandlesAreIteratedSeparately() throws Exception {
+        insertObjectWithFactHandle(new SimpleClass());
+        InternalFactHandle negated = handleFor(new SimpleClass());
+        negated.setNegated(true);
+        underTest.addHandle(negated, negated.getObject());
+
+        assertThat(underTest.size(), is(equalTo(1)));
+        assertThat(collect(underTest.iterateObjects()).size(), is(equalTo(1)));
+        assertThat(collect(underTest.iterateNegFactHandles(null)), is(equalTo((Collection<InternalFactHandle>) Collections.singletonList(negated))));
+        assertNull(underTest.getHandleForObjectIdentity(negated.getObject()));
+
+        underTest.removeHandle(negated);
+        assertThat(collect(underTest.iterateNegFactHandles(null)).size(), is(equalTo(0)));
+        assertThat(underTest.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void removalsKeepTheIndexesConsistent() throws Exception {
+        Random random = new Random(0);
+        Map<ValueClass, InternalFactHandle> inserted = new HashMap<ValueClass, InternalFactHandle>();
+        for (int i = 0; i < 5000; i++) {
+            // only a few distinct hash codes, so there are long probing sequences to be shifted back on removal
+            ValueClass value = new ValueClass(i);
+            inserted.put(value, insertObjectWithFactHandle(value));
+            if (random.nextInt(3) == 0) {
+                ValueClass removed = inserted.keySet().iterator().next();
+                underTest.removeHandle(inserted.remove(removed));
+                assertNull(underTest.getHandleForObjectIdentity(removed));
+            }
+        }
+
+        assertThat(underTest.size(), is(equalTo(inserted.size())));
+        for (Map.Entry<ValueClass, InternalFactHandle> entry : inserted.entrySet()) {
+            assertSame(entry.getValue(), underTest.getHandleForObjectIdentity(entry.getKey()));
+            assertSame(entry.getValue(), underTest.getHandleForObject(entry.getKey()));
+            assertSame(entry.getValue(), underTest.reconnect(entry.getValue()));
+        }
+        assertThat(new HashSet<Object>(collect(underTest.iterateObjects())), is(equalTo((Set<Object>) new HashSet<Object>(inserted.keySet()))));
+    }
+
+    @Test
+    public void clearRemovesInsertedObjects() throws Exception {
+        InternalFactHandle handle = insertObjectWithFactHandle(new SimpleClass());
+        underTest.clear();
+
+        assertThat(collect(underTest.iterateObjects()).size(), is(equalTo(0)));
+        assertTrue(underTest.isEmpty());
+        assertNull(underTest.reconnect(handle));
+    }
+
+    private InternalFactHandle insertObjectWithFactHandle(Object objectToInsert) {
+        InternalFactHandle handle = handleFor(objectToInsert);
+        underTest.addHandle(handle, objectToInsert);
+        return handle;
+    }
+
+    private static <T> Collection<T> collect(Iterator<T> objects) {
+        List<T> result = new ArrayList<T>();
+        while (objects.hasNext()) {
+            result.add(objects.next());
+        }
+        return result;
+    }
+
+    public CompactObjectStoreTest(RuleBaseConfiguration ruleBaseConfiguration) {
+        underTest = new CompactObjectStore(ruleBaseConfiguration, new ReentrantLock());
+        isEqualityBehaviour = ruleBaseConfiguration.getAssertBehaviour() == RuleBaseConfiguration.AssertBehaviour.EQUALITY;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> ruleBaseConfigurations() {
+        List<Object[]> configurations = new ArrayList<Object[]>(2);
+        configurations.add(new Object[]{new RuleBaseConfiguration() {{
+            setAssertBehaviour(AssertBehaviour.EQUALITY);
+        }}});
+        configurations.add(new Object[]{new RuleBaseConfiguration() {{
+            setAssertBehaviour(AssertBehaviour.IDENTITY);
+        }}});
+        return configurations;
+    }
+
+    private static final AtomicInteger factCounter = new AtomicInteger(0);
+
+    private InternalFactHandle handleFor(Object object) {
+        return new DefaultFactHandle(factCounter.getAndIncrement(), object);
+    }
+
+    private static class SimpleClass {
+    }
+
+    private static class SuperClass {
+    }
+
+    private static class SubClass extends SuperClass {
+    }
+
+    private static class ValueClass {
+        private final int value;
+
+        private ValueClass(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ValueClass && value == ((ValueClass) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % 7;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.phreak;
+
+import org.drools.core.common.NetworkNode;
+import org.drools.core.common.TupleSetsImpl;
+import org.drools.core.phreak.NodeProfiler.NodeProfile;
+import org.drools.core.spi.Tuple;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NodeProfilerTest {
+
+    @Test
+    public void testCountersOfEndedThreadsAreRetired() throws Exception {
+        final NodeProfiler profiler = new NodeProfiler();
+        final NetworkNode node = mock( NetworkNode.class );
+        when( node.getId() ).thenReturn( 3 );
+
+        for ( int i = 0; i < 5; i++ ) {
+            Thread thread = new Thread( new Runnable() {
+                public void run() {
+                    for ( int j = 0; j < 2; j++ ) {
+                        long start = profiler.startNode( node, null, new TupleSetsImpl<Tuple>() );
+                        profiler.endNode( node, null, null, start );
+                    }
+                }
+            } );
+            thread.start();
+            thread.join();
+        }
+        assertEquals( 5, profiler.getTrackedThreadsNr() );
+
+        List<NodeProfile> profiles = profiler.snapshot();
+        assertEquals( 0, profiler.getTrackedThreadsNr() );
+        assertEquals( 1, profiles.size() );
+        assertEquals( 10, profiles.get( 0 ).getEvaluations() );
+
+        // the retired counters are still summed with the ones of the running threads
+        long start = profiler.startNode( node, null, new TupleSetsImpl<Tuple>() );
+        profiler.endNode( node, null, null, start );
+        assertEquals( 11, profiler.snapshot().get( 0 ).getEvaluations() );
+        assertEquals( 1, profiler.getTrackedThreadsNr() );
+
+        profiler.reset();
+        assertEquals( 0, profiler.snapshot().get( 0 ).getEvaluations() );
+    }
+}
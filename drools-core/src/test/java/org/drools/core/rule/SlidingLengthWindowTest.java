@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.rule;
+
+import org.drools.core.common.DisconnectedWorkingMemoryEntryPoint;
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.rule.SlidingLengthWindow.SlidingLengthWindowContext;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SlidingLengthWindowTest {
+
+    @Test
+    public void testGetFactHandles() {
+        SlidingLengthWindow window = new SlidingLengthWindow( 5 );
+        SlidingLengthWindowContext context = (SlidingLengthWindowContext) window.createContext();
+        assertTrue( context.getFactHandles().isEmpty() );
+
+        EventFactHandle e1 = newEvent( 1 );
+        EventFactHandle e2 = newEvent( 2 );
+        window.assertFact( context, e1, null, null );
+        window.assertFact( context, e2, null, null );
+        // the events in the window are returned, e.g. to unlink them when a rule using the window is removed
+        assertEquals( Arrays.asList( e1, e2 ), context.getFactHandles() );
+    }
+
+    @Test
+    public void testRetractFactInAnyPosition() {
+        SlidingLengthWindow window = new SlidingLengthWindow( 3 );
+        SlidingLengthWindowContext context = (SlidingLengthWindowContext) window.createContext();
+        EventFactHandle e1 = newEvent( 1 );
+        EventFactHandle e2 = newEvent( 2 );
+        EventFactHandle e3 = newEvent( 3 );
+        window.assertFact( context, e1, null, null );
+        window.assertFact( context, e2, null, null );
+        window.assertFact( context, e3, null, null );
+
+        // the event just before the most recent one
+        window.retractFact( context, e2, null, null );
+        assertEquals( Arrays.asList( e1, e3 ), context.getFactHandles() );
+        // the slot of a retracted event still counts for the length of the window
+        assertEquals( 3, context.handles.length() );
+
+        window.retractFact( context, e3, null, null );
+        window.retractFact( context, e1, null, null );
+        assertEquals( Collections.emptyList(), context.getFactHandles() );
+        assertEquals( 0, context.handles.length() );
+    }
+
+    private EventFactHandle newEvent( int id ) {
+        return new EventFactHandle( id, "event" + id, id, id, 0, new DisconnectedWorkingMemoryEntryPoint( "DEFAULT" ) );
+    }
+}
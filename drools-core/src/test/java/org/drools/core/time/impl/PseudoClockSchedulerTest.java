@@ -16,14 +16,20 @@
 
 package org.drools.core.time.impl;
 
+import org.drools.core.common.DroolsObjectInputStream;
 import org.drools.core.time.Job;
 import org.drools.core.time.JobContext;
 import org.drools.core.time.JobHandle;
 import org.drools.core.time.Trigger;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -120,4 +126,91 @@ public class PseudoClockSchedulerTest {
         verify( mockTrigger_1, atLeast(2) ).hasNextFireTime();
         verify( mockTrigger_1, times(1) ).nextFireTime();
     }
+
+    @Test public void scheduleAndRemoveJobWithDefaultJobHandle() throws Exception {
+        final Date triggerTime = new Date(1000);
+        when( mockTrigger_1.hasNextFireTime() ).thenReturn(triggerTime);
+        when( mockTrigger_2.hasNextFireTime() ).thenReturn(triggerTime, triggerTime, triggerTime, null);
+
+        // the jobs read from a stream written before the scheduler used a timing wheel have a DefaultJobHandle
+        DefaultJobHandle jobHandle_1 = new DefaultJobHandle(1);
+        DefaultTimerJobInstance jobInstance_1 = new DefaultTimerJobInstance(mockJob_1, mockContext_1, mockTrigger_1, jobHandle_1, scheduler);
+        jobHandle_1.setTimerJobInstance(jobInstance_1);
+        DefaultJobHandle jobHandle_2 = new DefaultJobHandle(2);
+        DefaultTimerJobInstance jobInstance_2 = new DefaultTimerJobInstance(mockJob_2, mockContext_2, mockTrigger_2, jobHandle_2, scheduler);
+        jobHandle_2.setTimerJobInstance(jobInstance_2);
+
+        scheduler.internalSchedule(jobInstance_1);
+        scheduler.internalSchedule(jobInstance_2);
+        assertThat(scheduler.getTimeToNextJob(), is(triggerTime.getTime()));
+
+        assertThat(scheduler.removeJob(jobHandle_1), is(true));
+        assertThat(scheduler.removeJob(jobHandle_1), is(false));
+
+        scheduler.advanceTime(5000, TimeUnit.MILLISECONDS);
+        assertThat(scheduler.getTimeToNextJob(), is(-1L));
+        verify( mockJob_1, never() ).execute(mockContext_1);
+        verify( mockJob_2, times(1) ).execute(mockContext_2);
+        assertThat(scheduler.removeJob(jobHandle_2), is(false));
+    }
+
+    @Test public void readJobsWithDefaultJobHandle() throws Exception {
+        CountingJob.executions.set(0);
+        for (int i = 0; i < 2; i++) {
+            DefaultJobHandle jobHandle = new DefaultJobHandle(i);
+            DefaultTimerJobInstance jobInstance = new DefaultTimerJobInstance(new CountingJob(), null,
+                                                                              new PointInTimeTrigger(1000 * (i + 1), null, null),
+                                                                              jobHandle, scheduler);
+            jobHandle.setTimerJobInstance(jobInstance);
+            scheduler.internalSchedule(jobInstance);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(scheduler);
+        out.close();
+        PseudoClockScheduler read = (PseudoClockScheduler) new DroolsObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertThat(read.getTimeToNextJob(), is(1000L));
+        read.advanceTime(1500, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(1));
+        assertThat(read.getTimeToNextJob(), is(500L));
+        read.advanceTime(1000, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(2));
+        assertThat(read.getTimeToNextJob(), is(-1L));
+    }
+
+    @Test public void negativeStartupTimeAndBackwardClock() {
+        CountingJob.executions.set(0);
+        scheduler.setStartupTime(-5000);
+        scheduler.scheduleJob(new CountingJob(), null, new PointInTimeTrigger(-3000, null, null));
+        assertThat(scheduler.getTimeToNextJob(), is(2000L));
+        scheduler.advanceTime(1500, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(0));
+        scheduler.advanceTime(1000, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(1));
+        assertThat(scheduler.getCurrentTime(), is(-2500L));
+
+        // a pending job keeps the timing wheel ahead while the clock is moved back
+        scheduler.scheduleJob(new CountingJob(), null, new PointInTimeTrigger(20000, null, null));
+        scheduler.advanceTime(12500, TimeUnit.MILLISECONDS);
+        assertThat(scheduler.getCurrentTime(), is(10000L));
+        scheduler.setStartupTime(0);
+        scheduler.scheduleJob(new CountingJob(), null, new PointInTimeTrigger(500, null, null));
+        assertThat(scheduler.getTimeToNextJob(), is(500L));
+        scheduler.advanceTime(1000, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(2));
+        assertThat(scheduler.getTimeToNextJob(), is(19000L));
+        scheduler.advanceTime(19000, TimeUnit.MILLISECONDS);
+        assertThat(CountingJob.executions.get(), is(3));
+        assertThat(scheduler.getTimeToNextJob(), is(-1L));
+    }
+
+    public static class CountingJob implements Job, Serializable {
+        private static final AtomicInteger executions = new AtomicInteger();
+
+        public void execute(JobContext ctx) {
+            executions.incrementAndGet();
+        }
+    }
 }
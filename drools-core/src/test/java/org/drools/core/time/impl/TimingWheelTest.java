@@ -0,0 +1,271 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.time.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testEntriesAreExpiredInOrder() {
+        TimingWheel<String> wheel = new TimingWheel<String>( 1000 );
+        wheel.add( new TimingWheel.Entry<String>( "c" ), 1000 + 70000 );
+        wheel.add( new TimingWheel.Entry<String>( "a" ), 1000 + 10 );
+        wheel.add( new TimingWheel.Entry<String>( "b" ), 1000 + 100 );
+        wheel.add( new TimingWheel.Entry<String>( "d" ), Long.MAX_VALUE );
+
+        assertEquals( 4, wheel.size() );
+        assertEquals( 1010, wheel.getNextTick() );
+        assertNull( wheel.poll( 1009 ) );
+        assertEquals( 1009, wheel.getCurrentTick() );
+
+        assertEquals( "a", wheel.poll( 100000 ).getValue() );
+        assertEquals( 1010, wheel.getCurrentTick() );
+        assertEquals( "b", wheel.poll( 100000 ).getValue() );
+        assertEquals( 71000, wheel.getNextTick() );
+        assertEquals( "c", wheel.poll( 100000 ).getValue() );
+        assertNull( wheel.poll( 100000 ) );
+        assertEquals( 100000, wheel.getCurrentTick() );
+
+        assertEquals( Long.MAX_VALUE, wheel.getNextTick() );
+        assertEquals( "d", wheel.poll( Long.MAX_VALUE ).getValue() );
+        assertTrue( wheel.isEmpty() );
+    }
+
+    @Test
+    public void testEntryInThePastIsExpiredByTheNextPoll() {
+        TimingWheel<String> wheel = new TimingWheel<String>( 500 );
+        TimingWheel.Entry<String> entry = new TimingWheel.Entry<String>( "past" );
+        wheel.add( entry, 10 );
+
+        assertEquals( 10, entry.getTick() );
+        assertEquals( 10, wheel.getNextTick() );
+        assertSame( entry, wheel.poll( 500 ) );
+        assertFalse( entry.isScheduled() );
+        assertEquals( 500, wheel.getCurrentTick() );
+    }
+
+    @Test
+    public void testNegativeTicks() {
+        TimingWheel<String> wheel = new TimingWheel<String>( -100000 );
+        wheel.add( new TimingWheel.Entry<String>( "zero" ), 0 );
+        wheel.add( new TimingWheel.Entry<String>( "b" ), -1 );
+        wheel.add( new TimingWheel.Entry<String>( "a" ), -70000 );
+        wheel.add( new TimingWheel.Entry<String>( "c" ), 5 );
+        wheel.add( new TimingWheel.Entry<String>( "first" ), Long.MIN_VALUE );
+
+        assertEquals( Long.MIN_VALUE, wheel.getNextTick() );
+        assertEquals( "first", wheel.poll( -100000 ).getValue() );
+        assertEquals( -70000, wheel.getNextTick() );
+        assertNull( wheel.poll( -70001 ) );
+        assertEquals( "a", wheel.poll( -2 ).getValue() );
+        assertEquals( -70000, wheel.getCurrentTick() );
+        assertNull( wheel.poll( -2 ) );
+        assertEquals( "b", wheel.poll( 10 ).getValue() );
+        assertEquals( "zero", wheel.poll( 10 ).getValue() );
+        assertEquals( "c", wheel.poll( 10 ).getValue() );
+        assertNull( wheel.poll( 10 ) );
+        assertTrue( wheel.isEmpty() );
+
+        wheel.setCurrentTick( Long.MIN_VALUE );
+        wheel.add( new TimingWheel.Entry<String>( "max" ), Long.MAX_VALUE );
+        wheel.add( new TimingWheel.Entry<String>( "min" ), Long.MIN_VALUE );
+        assertEquals( "min", wheel.poll( Long.MIN_VALUE ).getValue() );
+        assertEquals( Long.MAX_VALUE, wheel.getNextTick() );
+        assertEquals( "max", wheel.poll( Long.MAX_VALUE ).getValue() );
+    }
+
+    @Test
+    public void testEntriesBeforeTheCurrentTickWithABackwardClock() {
+        TimingWheel<String> wheel = new TimingWheel<String>();
+        TimingWheel.Entry<String> late = new TimingWheel.Entry<String>( "late" );
+        wheel.add( late, 10000 );
+        assertNull( wheel.poll( 5000 ) );
+        assertEquals( 5000, wheel.getCurrentTick() );
+
+        // the clock driving the wheel is moved back to 0, while the wheel still holds an entry
+        TimingWheel.Entry<String> early = new TimingWheel.Entry<String>( "early" );
+        TimingWheel.Entry<String> earlier = new TimingWheel.Entry<String>( "earlier" );
+        TimingWheel.Entry<String> removed = new TimingWheel.Entry<String>( "removed" );
+        wheel.add( early, 300 );
+        wheel.add( earlier, 100 );
+        wheel.add( removed, 200 );
+        assertEquals( 4, wheel.size() );
+        assertEquals( 4, wheel.values().size() );
+        assertTrue( wheel.remove( removed ) );
+
+        assertEquals( 100, wheel.getNextTick() );
+        assertTrue( wheel.getNextWakeUpTick() <= 100 );
+        assertNull( wheel.poll( 50 ) );
+        assertSame( earlier, wheel.poll( 1000 ) );
+        assertSame( early, wheel.poll( 1000 ) );
+        assertNull( wheel.poll( 1000 ) );
+        assertEquals( 5000, wheel.getCurrentTick() );
+
+        // an entry behind the current tick can be rescheduled into the wheel and back
+        wheel.add( early, 7000 );
+        assertEquals( 7000, wheel.getNextTick() );
+        wheel.add( early, 400 );
+        assertEquals( 400, wheel.getNextTick() );
+        assertSame( early, wheel.poll( 20000 ) );
+        assertSame( late, wheel.poll( 20000 ) );
+        assertTrue( wheel.isEmpty() );
+    }
+
+    @Test
+    public void testRemoveAndReschedule() {
+        TimingWheel<String> wheel = new TimingWheel<String>();
+        TimingWheel.Entry<String> a = new TimingWheel.Entry<String>( "a" );
+        TimingWheel.Entry<String> b = new TimingWheel.Entry<String>( "b" );
+        wheel.add( a, 5000 );
+        wheel.add( b, 5000 );
+
+        assertTrue( wheel.remove( a ) );
+        assertFalse( wheel.remove( a ) );
+        assertEquals( 1, wheel.size() );
+
+        // rescheduling an entry already in the wheel moves it
+        wheel.add( b, 20 );
+        assertEquals( 1, wheel.size() );
+        assertEquals( 20, wheel.getNextTick() );
+        assertSame( b, wheel.poll( 10000 ) );
+        assertNull( wheel.poll( 10000 ) );
+    }
+
+    @Test
+    public void testEntriesAddedWhilePollingAreExpiredWithTheSameTarget() {
+        TimingWheel<String> wheel = new TimingWheel<String>();
+        wheel.add( new TimingWheel.Entry<String>( "first" ), 100 );
+
+        assertEquals( "first", wheel.poll( 1000 ).getValue() );
+        // a job rescheduling itself, as a repeating timer does
+        wheel.add( new TimingWheel.Entry<String>( "second" ), 600 );
+        wheel.add( new TimingWheel.Entry<String>( "late" ), 1001 );
+        assertEquals( "second", wheel.poll( 1000 ).getValue() );
+        assertEquals( 600, wheel.getCurrentTick() );
+        assertNull( wheel.poll( 1000 ) );
+        assertEquals( 1, wheel.size() );
+    }
+
+    @Test
+    public void testRandomOperationsAgainstSortedList() {
+        Random random = new Random( 0 );
+        TimingWheel<Long> wheel = new TimingWheel<Long>( 123456 );
+        List<TimingWheel.Entry<Long>> scheduled = new ArrayList<TimingWheel.Entry<Long>>();
+        long now = 123456;
+
+        for ( int round = 0; round < 200; round++ ) {
+            for ( int i = 0; i < 50; i++ ) {
+                // mix short and very long delays, so the entries are spread across all the levels
+                long delay = random.nextInt( 3 ) == 0 ? random.nextInt( 100 ) : (long) ( random.nextDouble() * ( 1L << random.nextInt( 40 ) ) );
+                TimingWheel.Entry<Long> entry = new TimingWheel.Entry<Long>( now + delay );
+                wheel.add( entry, now + delay );
+                scheduled.add( entry );
+            }
+            for ( int i = 0; i < 10 && !scheduled.isEmpty(); i++ ) {
+                assertTrue( wheel.remove( scheduled.remove( random.nextInt( scheduled.size() ) ) ) );
+            }
+
+            long target = now + random.nextInt( 1 << random.nextInt( 30 ) );
+            List<Long> expected = new ArrayList<Long>();
+            for ( TimingWheel.Entry<Long> entry : scheduled ) {
+                if ( entry.getValue() <= target ) {
+                    expected.add( entry.getValue() );
+                }
+            }
+            Collections.sort( expected );
+
+            if ( !scheduled.isEmpty() ) {
+                long min = Long.MAX_VALUE;
+                for ( TimingWheel.Entry<Long> entry : scheduled ) {
+                    min = Math.min( min, entry.getValue() );
+                }
+                assertEquals( min, wheel.getNextTick() );
+                assertTrue( wheel.getNextWakeUpTick() <= min );
+            }
+
+            List<Long> expired = new ArrayList<Long>();
+            for ( TimingWheel.Entry<Long> entry = wheel.poll( target ); entry != null; entry = wheel.poll( target ) ) {
+                assertEquals( entry.getValue().longValue(), wheel.getCurrentTick() );
+                expired.add( entry.getValue() );
+                scheduled.remove( entry );
+            }
+            assertEquals( expected, expired );
+            assertEquals( scheduled.size(), wheel.size() );
+            assertEquals( scheduled.size(), wheel.values().size() );
+            now = target;
+        }
+    }
+
+    @Test
+    public void testRandomNegativeAndBackwardTicksAgainstSortedList() {
+        Random random = new Random( 0 );
+        long now = -( 1L << 35 );
+        TimingWheel<Long> wheel = new TimingWheel<Long>( now );
+        List<TimingWheel.Entry<Long>> scheduled = new ArrayList<TimingWheel.Entry<Long>>();
+
+        for ( int round = 0; round < 200; round++ ) {
+            for ( int i = 0; i < 50; i++ ) {
+                // some entries are scheduled behind the current tick, as with a clock moved backward
+                long delay = random.nextInt( 3 ) == 0 ? random.nextInt( 200 ) - 100 : (long) ( random.nextDouble() * ( 1L << random.nextInt( 40 ) ) );
+                TimingWheel.Entry<Long> entry = new TimingWheel.Entry<Long>( now + delay );
+                wheel.add( entry, now + delay );
+                scheduled.add( entry );
+            }
+            for ( int i = 0; i < 10 && !scheduled.isEmpty(); i++ ) {
+                assertTrue( wheel.remove( scheduled.remove( random.nextInt( scheduled.size() ) ) ) );
+            }
+
+            // the target can be before the current tick as well
+            long target = now + random.nextInt( 1 << random.nextInt( 30 ) ) - random.nextInt( 50 );
+            List<Long> expected = new ArrayList<Long>();
+            for ( TimingWheel.Entry<Long> entry : scheduled ) {
+                if ( entry.getValue() <= target ) {
+                    expected.add( entry.getValue() );
+                }
+            }
+            Collections.sort( expected );
+
+            if ( !scheduled.isEmpty() ) {
+                long min = Long.MAX_VALUE;
+                for ( TimingWheel.Entry<Long> entry : scheduled ) {
+                    min = Math.min( min, entry.getValue() );
+                }
+                assertEquals( min, wheel.getNextTick() );
+                assertTrue( wheel.getNextWakeUpTick() <= min );
+            }
+
+            List<Long> expired = new ArrayList<Long>();
+            for ( TimingWheel.Entry<Long> entry = wheel.poll( target ); entry != null; entry = wheel.poll( target ) ) {
+                expired.add( entry.getValue() );
+                scheduled.remove( entry );
+            }
+            assertEquals( expected, expired );
+            assertEquals( scheduled.size(), wheel.size() );
+            assertEquals( scheduled.size(), wheel.values().size() );
+            now = target;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.time.impl;
+
+import org.drools.core.SessionConfiguration;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.TimerServiceFactory;
+import org.drools.core.time.Trigger;
+import org.drools.core.time.impl.JDKTimerServiceTest.DelayedTrigger;
+import org.drools.core.time.impl.JDKTimerServiceTest.HelloWorldJob;
+import org.drools.core.time.impl.JDKTimerServiceTest.HelloWorldJobContext;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTimerServiceTest {
+
+    @Test
+    public void testTimerServiceIsConfigurable() throws Exception {
+        TimerService timeService = newTimerService();
+        assertTrue( timeService instanceof TimingWheelTimerService );
+        timeService.shutdown();
+    }
+
+    @Test
+    public void testSingleExecutionJob() throws Exception {
+        TimerService timeService = newTimerService();
+        Trigger trigger = new DelayedTrigger( 100 );
+        LatchJobContext ctx = new LatchJobContext( "hello world", timeService, 1 );
+        timeService.scheduleJob( new LatchJob(), ctx, trigger );
+        assertTrue( ctx.await() );
+        timeService.shutdown();
+        assertEquals( 1, ctx.getList().size() );
+    }
+
+    @Test
+    public void testRepeatedExecutionJob() throws Exception {
+        TimerService timeService = newTimerService();
+        Trigger trigger = new DelayedTrigger( new long[]{100, 100, 100} );
+        LatchJobContext ctx = new LatchJobContext( "hello world", timeService, 3 );
+        timeService.scheduleJob( new LatchJob(), ctx, trigger );
+        assertTrue( ctx.await() );
+        assertEquals( -1, timeService.getTimeToNextJob() );
+        timeService.shutdown();
+        assertEquals( 3, ctx.getList().size() );
+    }
+
+    @Test
+    public void testRepeatedExecutionJobWithRemove() throws Exception {
+        TimerService timeService = newTimerService();
+        Trigger trigger = new DelayedTrigger( new long[]{100, 100, 100, 100, 100, 100, 100, 100} );
+        LatchJobContext ctx = new LatchJobContext( "hello world", timeService, 5 );
+        ctx.setLimit( 3 );
+        timeService.scheduleJob( new LatchJob(), ctx, trigger );
+        assertTrue( ctx.await() );
+        // the removed job would run again before the sentinel, since they are executed in the order of their ticks
+        awaitSentinel( timeService, 200 );
+        timeService.shutdown();
+        assertEquals( 5, ctx.getList().size() );
+    }
+
+    @Test
+    public void testEarlierJobWakesUpTheWorker() throws Exception {
+        TimerService timeService = newTimerService();
+        LatchJobContext late = new LatchJobContext( "late", timeService, 1 );
+        LatchJobContext early = new LatchJobContext( "early", timeService, 1 );
+        timeService.scheduleJob( new LatchJob(), late, new DelayedTrigger( 60000 ) );
+        JobHandle earlyHandle = timeService.scheduleJob( new LatchJob(), early, new DelayedTrigger( 100 ) );
+        assertTrue( timeService.getTimeToNextJob() <= 100 );
+        assertTrue( early.await() );
+
+        assertEquals( 1, early.getList().size() );
+        assertEquals( 0, late.getList().size() );
+        assertFalse( timeService.removeJob( earlyHandle ) );
+        timeService.shutdown();
+    }
+
+    @Test
+    public void testCancelledJobIsNotExecuted() throws Exception {
+        TimerService timeService = newTimerService();
+        LatchJobContext ctx = new LatchJobContext( "hello world", timeService, 1 );
+        JobHandle handle = timeService.scheduleJob( new LatchJob(), ctx, new DelayedTrigger( 100 ) );
+        assertTrue( timeService.removeJob( handle ) );
+        assertEquals( -1, timeService.getTimeToNextJob() );
+        awaitSentinel( timeService, 200 );
+        timeService.shutdown();
+        assertEquals( 0, ctx.getList().size() );
+    }
+
+    @Test
+    public void testJobWithDefaultJobHandle() throws Exception {
+        TimingWheelTimerService timeService = (TimingWheelTimerService) newTimerService();
+        LatchJobContext removed = new LatchJobContext( "removed", timeService, 1 );
+        LatchJobContext executed = new LatchJobContext( "executed", timeService, 2 );
+
+        // the jobs read from a stream written before the service used a timing wheel have a DefaultJobHandle
+        DefaultJobHandle removedHandle = scheduleWithDefaultJobHandle( timeService, removed, new DelayedTrigger( 100 ) );
+        DefaultJobHandle executedHandle = scheduleWithDefaultJobHandle( timeService, executed, new DelayedTrigger( new long[]{100, 100} ) );
+        assertTrue( timeService.removeJob( removedHandle ) );
+        assertFalse( timeService.removeJob( removedHandle ) );
+
+        assertTrue( executed.await() );
+        awaitSentinel( timeService, 200 );
+        assertFalse( timeService.removeJob( executedHandle ) );
+        timeService.shutdown();
+        assertEquals( 2, executed.getList().size() );
+        assertEquals( 0, removed.getList().size() );
+    }
+
+    private static DefaultJobHandle scheduleWithDefaultJobHandle(TimingWheelTimerService timeService, LatchJobContext ctx, Trigger trigger) {
+        DefaultJobHandle handle = new DefaultJobHandle( 0 );
+        DefaultTimerJobInstance jobInstance = new DefaultTimerJobInstance( new LatchJob(), ctx, trigger, handle, timeService );
+        handle.setTimerJobInstance( jobInstance );
+        ctx.setJobHandle( handle );
+        timeService.internalSchedule( jobInstance );
+        return handle;
+    }
+
+    /**
+     * Waits for a job scheduled after the given delay: since the jobs are executed by a single thread in the order
+     * of their ticks, when it is executed all the jobs expected before it have been executed too
+     */
+    private static void awaitSentinel(TimerService timeService, long delay) throws InterruptedException {
+        LatchJobContext sentinel = new LatchJobContext( "sentinel", timeService, 1 );
+        timeService.scheduleJob( new LatchJob(), sentinel, new DelayedTrigger( delay ) );
+        assertTrue( sentinel.await() );
+    }
+
+    public static class LatchJob extends HelloWorldJob {
+        public void execute(JobContext c) {
+            super.execute( c );
+            ( (LatchJobContext) c ).latch.countDown();
+        }
+    }
+
+    public static class LatchJobContext extends HelloWorldJobContext {
+        private final CountDownLatch latch;
+
+        public LatchJobContext(String message, TimerService timeService, int executions) {
+            super( message, timeService );
+            this.latch = new CountDownLatch( executions );
+        }
+
+        public boolean await() throws InterruptedException {
+            return latch.await( 10, TimeUnit.SECONDS );
+        }
+    }
+
+    private static TimerService newTimerService() {
+        Properties properties = new Properties();
+        properties.setProperty( "drools.timerService", TimingWheelTimerService.class.getName() );
+        SessionConfiguration config = SessionConfiguration.newInstance( properties );
+        return TimerServiceFactory.getTimerService( config );
+    }
+}
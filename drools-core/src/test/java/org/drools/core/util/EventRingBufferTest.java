@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.drools.core.common.DisconnectedWorkingMemoryEntryPoint;
+import org.drools.core.common.EventFactHandle;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testInOrderEventsAreAppended() {
+        EventRingBuffer buffer = new EventRingBuffer( true );
+        List<EventFactHandle> events = new ArrayList<EventFactHandle>();
+        // more events than the initial capacity, wrapping around the ring before growing
+        for ( int i = 0; i < 10; i++ ) {
+            events.add( newEvent( i, i ) );
+            buffer.add( events.get( i ) );
+        }
+        for ( int i = 0; i < 5; i++ ) {
+            assertSame( events.get( i ), buffer.poll() );
+        }
+        for ( int i = 10; i < 100; i++ ) {
+            events.add( newEvent( i, i ) );
+            buffer.add( events.get( i ) );
+        }
+
+        assertEquals( 95, buffer.size() );
+        assertEquals( 95, buffer.length() );
+        assertEquals( events.subList( 5, 100 ), buffer.toList() );
+        for ( int i = 5; i < 100; i++ ) {
+            assertSame( events.get( i ), buffer.peek() );
+            assertSame( events.get( i ), buffer.poll() );
+        }
+        assertNull( buffer.poll() );
+        assertTrue( buffer.isEmpty() );
+    }
+
+    @Test
+    public void testOutOfOrderEvents() {
+        EventRingBuffer buffer = new EventRingBuffer( true );
+        EventFactHandle e10 = newEvent( 1, 10 );
+        EventFactHandle e20 = newEvent( 2, 20 );
+        EventFactHandle e5 = newEvent( 3, 5 );
+        EventFactHandle e15 = newEvent( 4, 15 );
+        buffer.add( e10 );
+        buffer.add( e20 );
+        buffer.add( e5 );
+        buffer.add( e15 );
+
+        // the late events aren't in the ring, but still come out in timestamp order
+        assertEquals( 2, buffer.length() );
+        assertEquals( 4, buffer.size() );
+        assertSame( e5, buffer.poll() );
+        assertSame( e10, buffer.poll() );
+        assertSame( e15, buffer.poll() );
+        assertSame( e20, buffer.poll() );
+        assertTrue( buffer.isEmpty() );
+    }
+
+    @Test
+    public void testRemoveLeavesEmptySlots() {
+        EventRingBuffer buffer = new EventRingBuffer( false );
+        EventFactHandle[] events = new EventFactHandle[5];
+        for ( int i = 0; i < events.length; i++ ) {
+            events[i] = newEvent( i, 0 );
+            buffer.add( events[i] );
+        }
+
+        assertTrue( buffer.remove( events[2] ) );
+        assertFalse( buffer.remove( events[2] ) );
+        assertEquals( 4, buffer.size() );
+        assertEquals( 5, buffer.length() );
+
+        // removing the head discards the empty slots following it
+        assertTrue( buffer.remove( events[0] ) );
+        assertEquals( 4, buffer.length() );
+        assertSame( events[1], buffer.poll() );
+        assertEquals( 2, buffer.length() );
+        assertEquals( Arrays.asList( events[3], events[4] ), buffer.toList() );
+    }
+
+    @Test
+    public void testRemoveFromOrderedBuffer() {
+        EventRingBuffer buffer = new EventRingBuffer( true );
+        List<EventFactHandle> events = new ArrayList<EventFactHandle>();
+        for ( int i = 0; i < 50; i++ ) {
+            // several events with the same timestamp
+            EventFactHandle event = newEvent( i, i / 3 );
+            events.add( event );
+            buffer.add( event );
+        }
+        EventFactHandle late = newEvent( 50, 1 );
+        buffer.add( late );
+
+        assertTrue( buffer.remove( events.get( 31 ) ) );
+        assertTrue( buffer.remove( events.get( 32 ) ) );
+        assertTrue( buffer.remove( late ) );
+        assertFalse( buffer.remove( late ) );
+        assertFalse( buffer.remove( newEvent( 51, 10 ) ) );
+        events.remove( 32 );
+        events.remove( 31 );
+        assertEquals( events, buffer.toList() );
+    }
+
+    @Test
+    public void testRandomOperations() {
+        EventRingBuffer buffer = new EventRingBuffer( true );
+        PriorityQueue<EventFactHandle> expected = new PriorityQueue<EventFactHandle>();
+        Random random = new Random( 0 );
+        long time = 0;
+
+        for ( int i = 0; i < 10000; i++ ) {
+            int action = random.nextInt( 10 );
+            if ( action < 5 ) {
+                // mostly in order, sometimes late
+                time += random.nextInt( 3 );
+                EventFactHandle event = newEvent( i, random.nextInt( 10 ) == 0 ? time - random.nextInt( 20 ) : time );
+                buffer.add( event );
+                expected.add( event );
+            } else if ( action < 8 ) {
+                EventFactHandle event = buffer.poll();
+                if ( event == null ) {
+                    assertTrue( expected.isEmpty() );
+                } else {
+                    // the events with the same timestamp may come out in any order
+                    assertEquals( expected.peek().getStartTimestamp(), event.getStartTimestamp() );
+                    assertTrue( expected.remove( event ) );
+                }
+            } else if ( !expected.isEmpty() ) {
+                EventFactHandle event = new ArrayList<EventFactHandle>( expected ).get( random.nextInt( expected.size() ) );
+                assertTrue( buffer.remove( event ) );
+                expected.remove( event );
+            }
+            assertEquals( expected.size(), buffer.size() );
+        }
+    }
+
+    @Test
+    public void testShrinksAfterSpike() {
+        EventRingBuffer buffer = new EventRingBuffer( true );
+        List<EventFactHandle> events = new ArrayList<EventFactHandle>();
+        for ( int i = 0; i < 1000; i++ ) {
+            events.add( newEvent( i, i ) );
+            buffer.add( events.get( i ) );
+        }
+        assertEquals( 1024, buffer.capacity() );
+
+        // the ring halves when it is less than a quarter full, keeping the events in order
+        for ( int i = 0; i < 990; i++ ) {
+            assertSame( events.get( i ), buffer.poll() );
+        }
+        assertEquals( events.subList( 990, 1000 ), buffer.toList() );
+        assertTrue( buffer.capacity() < 64 );
+
+        // but never goes below its initial capacity
+        while ( buffer.poll() != null ) {
+        }
+        assertEquals( 16, buffer.capacity() );
+        for ( int i = 0; i < 20; i++ ) {
+            buffer.add( newEvent( i, i ) );
+        }
+        assertEquals( 20, buffer.size() );
+    }
+
+    private EventFactHandle newEvent( int id, long timestamp ) {
+        return new EventFactHandle( id, "event" + id, id, timestamp, 0, new DisconnectedWorkingMemoryEntryPoint( "DEFAULT" ) );
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void testPutAndRemove() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> map = empty.put( "a", 1 ).put( "b", 2 ).put( null, 3 );
+        assertEquals( 3, map.size() );
+        assertEquals( 1, (int) map.get( "a" ) );
+        assertEquals( 3, (int) map.get( null ) );
+        assertNull( map.get( "c" ) );
+
+        PersistentHashMap<String, Integer> replaced = map.put( "a", 10 );
+        assertEquals( 3, replaced.size() );
+        assertEquals( 10, (int) replaced.get( "a" ) );
+
+        PersistentHashMap<String, Integer> removed = replaced.remove( "a" ).remove( null );
+        assertEquals( 1, removed.size() );
+        assertFalse( removed.containsKey( "a" ) );
+        assertSame( removed, removed.remove( "c" ) );
+        assertTrue( removed.remove( "b" ).isEmpty() );
+
+        // the former versions are left untouched
+        assertEquals( 1, (int) map.get( "a" ) );
+        assertEquals( 3, map.size() );
+        assertTrue( empty.isEmpty() );
+    }
+
+    @Test
+    public void testSameHash() {
+        PersistentHashMap<Collider, String> map = PersistentHashMap.empty();
+        for ( int i = 0; i < 10; i++ ) {
+            map = map.put( new Collider( i, i % 3 ), "v" + i );
+        }
+        assertEquals( 10, map.size() );
+        for ( int i = 0; i < 10; i++ ) {
+            assertEquals( "v" + i, map.get( new Collider( i, i % 3 ) ) );
+        }
+        for ( int i = 0; i < 10; i += 2 ) {
+            map = map.remove( new Collider( i, i % 3 ) );
+        }
+        assertEquals( 5, map.size() );
+        for ( int i = 0; i < 10; i++ ) {
+            assertEquals( i % 2 == 0 ? null : "v" + i, map.get( new Collider( i, i % 3 ) ) );
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random( 0 );
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<PersistentHashMap<Integer, Integer>>();
+        List<Map<Integer, Integer>> expectedVersions = new ArrayList<Map<Integer, Integer>>();
+        for ( int i = 0; i < 20000; i++ ) {
+            Integer key = random.nextInt( 2000 ) * ( random.nextBoolean() ? 1 : 65536 );
+            if ( random.nextInt( 3 ) == 0 ) {
+                expected.remove( key );
+                map = map.remove( key );
+            } else {
+                expected.put( key, i );
+                map = map.put( key, i );
+            }
+            assertEquals( expected.size(), map.size() );
+            assertEquals( expected.get( key ), map.get( key ) );
+            if ( i % 1000 == 0 ) {
+                versions.add( map );
+                expectedVersions.add( new HashMap<Integer, Integer>( expected ) );
+            }
+        }
+        for ( Map.Entry<Integer, Integer> entry : expected.entrySet() ) {
+            assertEquals( entry.getValue(), map.get( entry.getKey() ) );
+        }
+        assertEquals( new HashSet<Integer>( expected.values() ), map.addValuesTo( new HashSet<Integer>() ) );
+
+        for ( int i = 0; i < versions.size(); i++ ) {
+            assertEquals( new HashSet<Integer>( expectedVersions.get( i ).values() ),
+                          versions.get( i ).addValuesTo( new HashSet<Integer>() ) );
+        }
+    }
+
+    private static class Collider {
+        private final int id;
+        private final int hash;
+
+        private Collider(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Collider && ( (Collider) obj ).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.drools.core.base.accumulators.MaxAccumulateFunction;
+import org.drools.core.base.accumulators.MinAccumulateFunction;
+import org.drools.core.integrationtests.SerializationHelper;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SortedMultisetTest {
+
+    @Test
+    public void testAddRemoveWithDuplicates() {
+        SortedMultiset<Integer> multiset = new SortedMultiset<Integer>();
+        assertNull( multiset.first() );
+        assertNull( multiset.last() );
+
+        multiset.add( 5 );
+        multiset.add( 3 );
+        multiset.add( 5 );
+        multiset.add( 8 );
+
+        assertEquals( 4, multiset.size() );
+        assertEquals( 2, multiset.count( 5 ) );
+        assertEquals( 3, (int) multiset.first() );
+        assertEquals( 8, (int) multiset.last() );
+        assertEquals( 5, (int) multiset.get( 1 ) );
+        assertEquals( 5, (int) multiset.get( 2 ) );
+
+        assertTrue( multiset.remove( 8 ) );
+        assertEquals( 5, (int) multiset.last() );
+        assertTrue( multiset.remove( 5 ) );
+        assertEquals( 5, (int) multiset.last() );
+        assertFalse( multiset.remove( 4 ) );
+        assertEquals( 2, multiset.size() );
+        assertEquals( "[3, 5]", multiset.toList().toString() );
+    }
+
+    @Test
+    public void testRemoveEqualComparingDistinctInstances() {
+        BigDecimal one = new BigDecimal( "1.0" );
+        BigDecimal sameOne = new BigDecimal( "1.00" );
+        BigDecimal zero = new BigDecimal( "0" );
+
+        SortedMultiset<BigDecimal> multiset = new SortedMultiset<BigDecimal>();
+        multiset.add( one );
+        multiset.add( zero );
+        multiset.add( sameOne );
+        assertEquals( 2, multiset.count( one ) );
+        assertSame( one, multiset.last() );
+
+        assertTrue( multiset.remove( one ) );
+        assertSame( sameOne, multiset.last() );
+        assertSame( sameOne, multiset.get( 1 ) );
+        assertEquals( 1, multiset.count( one ) );
+
+        multiset.add( one );
+        assertTrue( multiset.remove( sameOne ) );
+        assertSame( one, multiset.last() );
+        assertEquals( "[0, 1.0]", multiset.toList().toString() );
+    }
+
+    @Test(timeout = 10000)
+    public void testRemoveManyEqualComparingInstances() {
+        // the same price of many distinct events: each removal finds its instance by identity
+        List<BigDecimal> prices = new ArrayList<BigDecimal>();
+        SortedMultiset<BigDecimal> multiset = new SortedMultiset<BigDecimal>();
+        for ( int i = 0; i < 200000; i++ ) {
+            BigDecimal price = new BigDecimal( i % 2 == 0 ? "10.0" : "10.00" );
+            prices.add( price );
+            multiset.add( price );
+        }
+        multiset.add( BigDecimal.ONE );
+        assertEquals( 200000, multiset.count( BigDecimal.TEN ) );
+
+        Collections.shuffle( prices, new Random( 0 ) );
+        Set<BigDecimal> removed = Collections.newSetFromMap( new IdentityHashMap<BigDecimal, Boolean>() );
+        for ( int i = 0; i < prices.size() - 1; i++ ) {
+            assertTrue( multiset.remove( prices.get( i ) ) );
+            removed.add( prices.get( i ) );
+            if ( i % 1000 == 0 ) {
+                assertFalse( removed.contains( multiset.last() ) );
+            }
+        }
+        assertEquals( 2, multiset.size() );
+        assertSame( prices.get( prices.size() - 1 ), multiset.last() );
+        assertSame( BigDecimal.ONE, multiset.first() );
+    }
+
+    @Test
+    public void testReverseMinMaxWithEqualComparingDistinctInstances() throws Exception {
+        BigDecimal one = new BigDecimal( "1.0" );
+        BigDecimal sameOne = new BigDecimal( "1.00" );
+        BigDecimal two = new BigDecimal( "2" );
+
+        MaxAccumulateFunction max = new MaxAccumulateFunction();
+        Serializable maxContext = max.createContext();
+        max.init( maxContext );
+        max.accumulate( maxContext, two );
+        max.accumulate( maxContext, sameOne );
+        max.accumulate( maxContext, one );
+        max.reverse( maxContext, two );
+        assertSame( sameOne, max.getResult( maxContext ) );
+        max.reverse( maxContext, sameOne );
+        assertSame( one, max.getResult( maxContext ) );
+
+        MinAccumulateFunction min = new MinAccumulateFunction();
+        Serializable minContext = min.createContext();
+        min.init( minContext );
+        min.accumulate( minContext, one );
+        min.accumulate( minContext, two );
+        min.accumulate( minContext, sameOne );
+        assertSame( one, min.getResult( minContext ) );
+        min.reverse( minContext, one );
+        assertSame( sameOne, min.getResult( minContext ) );
+    }
+
+    @Test
+    public void testRandomOperationsAgainstSortedList() throws Exception {
+        Random random = new Random( 0 );
+        SortedMultiset<Integer> multiset = new SortedMultiset<Integer>();
+        List<Integer> expected = new ArrayList<Integer>();
+
+        for ( int i = 0; i < 20000; i++ ) {
+            Integer value = random.nextInt( 500 );
+            if ( random.nextInt( 3 ) == 0 ) {
+                assertEquals( expected.remove( value ), multiset.remove( value ) );
+            } else {
+                expected.add( value );
+                multiset.add( value );
+            }
+
+            if ( i % 100 == 0 ) {
+                Collections.sort( expected );
+                assertEquals( expected, multiset.toList() );
+                if ( !expected.isEmpty() ) {
+                    int rank = random.nextInt( expected.size() );
+                    assertEquals( expected.get( rank ), multiset.get( rank ) );
+                    assertEquals( expected.get( 0 ), multiset.first() );
+                    assertEquals( expected.get( expected.size() - 1 ), multiset.last() );
+                }
+            }
+        }
+
+        Collections.sort( expected );
+        SortedMultiset<Integer> deserialized = SerializationHelper.serializeObject( multiset );
+        assertEquals( expected, deserialized.toList() );
+    }
+}
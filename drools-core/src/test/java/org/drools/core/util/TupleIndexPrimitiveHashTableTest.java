@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.drools.core.base.ClassFieldAccessorCache;
+import org.drools.core.base.ClassFieldAccessorStore;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.common.DefaultFactHandle;
+import org.drools.core.reteoo.LeftTupleImpl;
+import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.RightTupleImpl;
+import org.drools.core.rule.Declaration;
+import org.drools.core.rule.Pattern;
+import org.drools.core.rule.constraint.MvelConstraint;
+import org.drools.core.spi.InternalReadAccessor;
+import org.drools.core.spi.Tuple;
+import org.drools.core.test.model.Cheese;
+import org.drools.core.test.model.StockTick;
+import org.drools.core.util.AbstractHashTable.FieldIndex;
+import org.drools.core.util.index.TupleIndexHashTable;
+import org.drools.core.util.index.TupleIndexPrimitiveHashTable;
+import org.drools.core.util.index.TupleList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TupleIndexPrimitiveHashTableTest {
+
+    ClassFieldAccessorStore      store  = new ClassFieldAccessorStore();
+
+    @Before
+    public void setUp() throws Exception {
+        store.setClassFieldAccessorCache( new ClassFieldAccessorCache( Thread.currentThread().getContextClassLoader() ) );
+        store.setEagerWire( true );
+    }
+
+    @Test
+    public void testIsSupported() throws Exception {
+        assertTrue( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ) } ) );
+        assertTrue( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( StockTick.class, "seq", StockTick.class, "time" ) } ) );
+        assertTrue( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( StockTick.class, "price", StockTick.class, "price" ) } ) );
+
+        // not a primitive
+        assertFalse( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( Cheese.class, "type", Cheese.class, "type" ) } ) );
+        // different primitive types need a coercion
+        assertFalse( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( Cheese.class, "price", StockTick.class, "price" ) } ) );
+        // composite index
+        assertFalse( TupleIndexPrimitiveHashTable.isSupported( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ),
+                                                                                  fieldIndex( Cheese.class, "type", Cheese.class, "type" ) } ) );
+
+        assertTrue( TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ) }, false ) instanceof TupleIndexPrimitiveHashTable.IntKeys );
+        assertTrue( TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( StockTick.class, "seq", StockTick.class, "seq" ) }, false ) instanceof TupleIndexPrimitiveHashTable.LongKeys );
+        assertTrue( TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( StockTick.class, "price", StockTick.class, "price" ) }, false ) instanceof TupleIndexPrimitiveHashTable.DoubleKeys );
+    }
+
+    @Test
+    public void testIntKeysWithResize() throws Exception {
+        final TupleIndexHashTable map = TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ) }, false );
+
+        // 3 facts for each of 1000 distinct prices, enough to resize the table a few times
+        final List<RightTuple> tuples = new ArrayList<RightTuple>();
+        for ( int i = 0; i < 3000; i++ ) {
+            RightTuple rightTuple = new RightTupleImpl( new DefaultFactHandle( i, new Cheese( "stilton", i % 1000 ) ), null );
+            tuples.add( rightTuple );
+            map.add( rightTuple );
+        }
+
+        assertEquals( 3000, map.size() );
+        for ( int price = 0; price < 1000; price++ ) {
+            assertEquals( 3, bucketSize( map, new Cheese( "cheddar", price ) ) );
+        }
+        assertEquals( 0, bucketSize( map, new Cheese( "cheddar", 1000 ) ) );
+        assertEquals( 3000, iteratedSize( map ) );
+
+        // remove all the facts with an even price, so the buckets have to be removed from the probing sequences
+        for ( RightTuple rightTuple : tuples ) {
+            if ( ( (Cheese) rightTuple.getFactHandle().getObject() ).getPrice() % 2 == 0 ) {
+                map.remove( rightTuple );
+            }
+        }
+
+        assertEquals( 1500, map.size() );
+        for ( int price = 0; price < 1000; price++ ) {
+            assertEquals( price % 2 == 0 ? 0 : 3, bucketSize( map, new Cheese( "cheddar", price ) ) );
+        }
+        assertEquals( 1500, iteratedSize( map ) );
+    }
+
+    @Test
+    public void testRemoveAddMovesTheTupleToTheNewKey() throws Exception {
+        final TupleIndexHashTable map = TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( StockTick.class, "seq", StockTick.class, "seq" ) }, false );
+
+        final StockTick tick1 = new StockTick( 1, "RHT", 10, 0 );
+        final StockTick tick2 = new StockTick( 1, "IBM", 20, 0 );
+        final RightTuple rightTuple1 = new RightTupleImpl( new DefaultFactHandle( 1, tick1 ), null );
+        final RightTuple rightTuple2 = new RightTupleImpl( new DefaultFactHandle( 2, tick2 ), null );
+        map.add( rightTuple1 );
+        map.add( rightTuple2 );
+
+        assertEquals( 2, bucketSize( map, new StockTick( 1, "ACME", 0, 0 ) ) );
+
+        tick1.setSeq( Long.MAX_VALUE );
+        map.removeAdd( rightTuple1 );
+
+        assertEquals( 2, map.size() );
+        assertEquals( 1, bucketSize( map, new StockTick( 1, "ACME", 0, 0 ) ) );
+        assertSame( rightTuple1, map.getFirst( leftTuple( new StockTick( Long.MAX_VALUE, "ACME", 0, 0 ) ) ) );
+
+        // modify of a field not relevant for the index
+        tick2.setCompany( "RHT" );
+        map.removeAdd( rightTuple2 );
+        assertSame( rightTuple2, map.getFirst( leftTuple( new StockTick( 1, "ACME", 0, 0 ) ) ) );
+
+        map.remove( rightTuple1 );
+        map.remove( rightTuple2 );
+        assertEquals( 0, map.size() );
+        assertNull( map.getFirst( leftTuple( new StockTick( 1, "ACME", 0, 0 ) ) ) );
+    }
+
+    @Test
+    public void testDoubleKeysFollowDoubleEquality() throws Exception {
+        final TupleIndexHashTable map = TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( StockTick.class, "price", StockTick.class, "price" ) }, false );
+
+        map.add( new RightTupleImpl( new DefaultFactHandle( 1, new StockTick( 1, "RHT", 0.1 + 0.2, 0 ) ), null ) );
+        map.add( new RightTupleImpl( new DefaultFactHandle( 2, new StockTick( 2, "RHT", 0.0, 0 ) ), null ) );
+
+        assertEquals( 1, bucketSize( map, new StockTick( 3, "IBM", 0.1 + 0.2, 0 ) ) );
+        assertEquals( 0, bucketSize( map, new StockTick( 3, "IBM", 0.3, 0 ) ) );
+        assertEquals( 1, bucketSize( map, new StockTick( 3, "IBM", 0.0, 0 ) ) );
+        // consistently with Double.equals, used by the boxing index
+        assertEquals( 0, bucketSize( map, new StockTick( 3, "IBM", -0.0, 0 ) ) );
+    }
+
+    @Test
+    public void testInitReindexesChainedBuckets() throws Exception {
+        final TupleIndexHashTable map = TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ) }, false );
+        map.add( new RightTupleImpl( new DefaultFactHandle( 1, new Cheese( "stilton", 99 ) ), null ) );
+
+        // two chained buckets in the same row and one in another row, as in a TupleIndexHashTable
+        final TupleList tens = new TupleList();
+        tens.add( new RightTupleImpl( new DefaultFactHandle( 2, new Cheese( "stilton", 10 ) ), null ) );
+        tens.add( new RightTupleImpl( new DefaultFactHandle( 3, new Cheese( "brie", 10 ) ), null ) );
+        final TupleList twenties = new TupleList();
+        twenties.add( new RightTupleImpl( new DefaultFactHandle( 4, new Cheese( "stilton", 20 ) ), null ) );
+        tens.setNext( twenties );
+        final TupleList thirties = new TupleList();
+        thirties.add( new RightTupleImpl( new DefaultFactHandle( 5, new Cheese( "cheddar", 30 ) ), null ) );
+
+        map.init( new Entry[]{ tens, null, thirties }, 3, 4 );
+
+        // the previous content is replaced
+        assertEquals( 4, map.size() );
+        assertEquals( 0, bucketSize( map, new Cheese( "cheddar", 99 ) ) );
+        assertEquals( 2, bucketSize( map, new Cheese( "cheddar", 10 ) ) );
+        assertEquals( 1, bucketSize( map, new Cheese( "cheddar", 20 ) ) );
+        assertEquals( 1, bucketSize( map, new Cheese( "cheddar", 30 ) ) );
+        assertEquals( 4, iteratedSize( map ) );
+
+        // the tuples now belong to the buckets of the table
+        final Tuple tuple = map.getFirst( leftTuple( new Cheese( "cheddar", 10 ) ) );
+        map.remove( tuple );
+        assertEquals( 3, map.size() );
+        assertEquals( 1, bucketSize( map, new Cheese( "cheddar", 10 ) ) );
+    }
+
+    @Test
+    public void testLeftMemory() throws Exception {
+        final TupleIndexHashTable map = TupleIndexPrimitiveHashTable.create( new FieldIndex[]{ fieldIndex( Cheese.class, "price", Cheese.class, "price" ) }, true );
+
+        final Tuple leftTuple = leftTuple( new Cheese( "stilton", 10 ) );
+        map.add( leftTuple );
+
+        assertTrue( map.contains( leftTuple ) );
+        assertSame( leftTuple, map.getFirst( new RightTupleImpl( new DefaultFactHandle( 1, new Cheese( "cheddar", 10 ) ), null ) ) );
+        assertNull( map.getFirst( new RightTupleImpl( new DefaultFactHandle( 2, new Cheese( "cheddar", 11 ) ), null ) ) );
+    }
+
+    private FieldIndex fieldIndex( Class<?> rightClass, String rightField, Class<?> leftClass, String leftField ) {
+        final InternalReadAccessor extractor = store.getReader( rightClass, rightField );
+        final Pattern pattern = new Pattern( 0, new ClassObjectType( leftClass ) );
+        final Declaration declaration = new Declaration( leftField, store.getReader( leftClass, leftField ), pattern );
+        return new FieldIndex( extractor, declaration, MvelConstraint.INDEX_EVALUATOR );
+    }
+
+    private static Tuple leftTuple( Object object ) {
+        return new LeftTupleImpl( new DefaultFactHandle( 0, object ), null, true );
+    }
+
+    private static int bucketSize( TupleIndexHashTable map, Object object ) {
+        int size = 0;
+        for ( Tuple tuple = map.getFirst( leftTuple( object ) ); tuple != null; tuple = tuple.getNext() ) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int iteratedSize( TupleIndexHashTable map ) {
+        int size = 0;
+        FastIterator it = map.fullFastIterator();
+        for ( Entry entry = it.next( null ); entry != null; entry = it.next( entry ) ) {
+            size++;
+        }
+        return size;
+    }
+}
@@ -96,6 +96,16 @@ public class ReteEntryPointNode extends EntryPointNode {
         workingMemory.addPropagation(new ReteUpdate( handle, pctx, objectTypeConf) );
     }
 
+    @Override
+    public void modifyObjects(final InternalFactHandle[] handles,
+                              final PropagationContext[] contexts,
+                              final ObjectTypeConf objectTypeConf,
+                              final InternalWorkingMemory workingMemory) {
+        for (int i = 0; i < handles.length; i++) {
+            modifyObject( handles[i], contexts[i], objectTypeConf, workingMemory );
+        }
+    }
+
     public static class ReteUpdate extends PropagationEntry.AbstractPropagationEntry {
         private final InternalFactHandle handle;
         private final PropagationContext context;
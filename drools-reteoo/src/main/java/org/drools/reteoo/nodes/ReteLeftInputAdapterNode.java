@@ -67,6 +67,15 @@ public class ReteLeftInputAdapterNode extends LeftInputAdapterNode {
         }
     }
 
+    @Override
+    public void assertObjects(final InternalFactHandle[] factHandles,
+                              final PropagationContext[] contexts,
+                              final InternalWorkingMemory workingMemory) {
+        for ( int i = 0; i < factHandles.length; i++ ) {
+            assertObject( factHandles[i], contexts[i], workingMemory );
+        }
+    }
+
     public void retractLeftTuple(LeftTuple leftTuple,
                                  PropagationContext context,
                                  InternalWorkingMemory workingMemory) {
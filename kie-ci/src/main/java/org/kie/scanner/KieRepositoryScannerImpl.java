@@ -18,6 +18,7 @@ package org.kie.scanner;
 import org.drools.compiler.kie.builder.impl.InternalKieContainer;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.drools.compiler.kie.builder.impl.InternalKieScanner;
+import org.drools.compiler.kie.builder.impl.MappedZipKieModule;
 import org.drools.compiler.kie.builder.impl.MemoryKieModule;
 import org.drools.compiler.kie.builder.impl.ResultsImpl;
 import org.drools.compiler.kie.builder.impl.ZipKieModule;
@@ -193,7 +194,7 @@ public class KieRepositoryScannerImpl implements InternalKieScanner {
 
     private static ZipKieModule createZipKieModule(ReleaseId releaseId, File jar) {
         KieModuleModel kieModuleModel = getKieModuleModelFromJar(jar);
-        return kieModuleModel != null ? new ZipKieModule(releaseId, kieModuleModel, jar) : null;
+        return kieModuleModel != null ? MappedZipKieModule.createZipKieModule(releaseId, kieModuleModel, jar) : null;
     }
 
     private static KieModuleModel getKieModuleModelFromJar(File jar) {